@@ -14,10 +14,11 @@ import traceback
 from datetime import datetime
 
 # 配置参数
-CONTAINER_NAME = "android-frida-container"
+# 容器名称和VNC端口由后端按分配的设备通过环境变量传入
+CONTAINER_NAME = os.environ.get("ANALYSIS_CONTAINER", "android-frida-container")
 DOCKER_IMAGE = "my-android-frida:11.0"
 EMULATOR_DEVICE = "Nexus 5"  # Android 模拟器设备型号
-VNC_PORT = 6080
+VNC_PORT = int(os.environ.get("ANALYSIS_VNC_PORT", "6080"))
 MAX_BOOT_TIME = 300  # 最大启动时间（秒）
 CHECK_INTERVAL = 5   # 状态检查间隔（秒）
 SDK_JSON_PATH = "/opt/camille/sdk.json"  # SDK配置文件路径
@@ -99,7 +100,8 @@ def check_container_exists():
     log("检查容器是否已存在...")
     code, stdout, _ = run_command(
         ["docker", "ps", "-a", "--filter", f"name={CONTAINER_NAME}", "--format", "{{.Names}}"])
-    return CONTAINER_NAME in stdout
+    # name过滤是子串匹配，多个设备容器名称有公共前缀时需按整行比较
+    return CONTAINER_NAME in stdout.split()
 
 
 def remove_container():
@@ -350,7 +352,7 @@ def wait_for_emulator_ready(max_retries=2):
     log("建议：")
     log("  1. 检查服务器资源（CPU、内存、磁盘）", "ERROR")
     log("  2. 检查Docker和KVM是否正常", "ERROR")
-    log("  3. 手动执行: docker logs android-frida-container", "ERROR")
+    log(f"  3. 手动执行: docker logs {CONTAINER_NAME}", "ERROR")
     log("  4. 考虑增加 MAX_BOOT_TIME 配置", "ERROR")
     return False
 
@@ -771,8 +773,10 @@ def frida_hook_via_docker(package_name, use_module=None, wait_time=0,
         log("📱 Frida隐私检测开始（实时输出）", "INFO")
         log("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━", "INFO")
         
-        # 使用docker exec执行
-        docker_cmd = ["docker", "exec", "-u", "0", "-i", CONTAINER_NAME, "bash", "-c", frida_command]
+        # 使用docker exec执行：frida在独立进程组中后台运行并输出进程号，
+        # Java后端停止任务时只向这个进程组发送信号，同一容器中的其他检测不受影响
+        docker_cmd = ["docker", "exec", "-u", "0", "-i", CONTAINER_NAME, "bash", "-c",
+                      f"set -m; {frida_command} & echo __FRIDA_PID__:$!; wait $!"]
         
         log(f"执行的docker命令: {docker_cmd}", "INFO")
         
@@ -834,6 +838,11 @@ def frida_hook_via_docker(package_name, use_module=None, wait_time=0,
             if line:
                 line = line.rstrip()
                 
+                # 进程号标记原样转交Java后端
+                if line.startswith("__FRIDA_PID__:"):
+                    print(line, flush=True)
+                    continue
+                
                 # 统计数据收集进度
                 if "数据已收集:" in line:
                     try:
@@ -19,7 +19,10 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import com.ruoyi.common.constant.CacheConstants;
 import com.ruoyi.common.core.domain.AjaxResult;
+import com.ruoyi.common.utils.DictUtils;
 import com.ruoyi.common.utils.StringUtils;
+import com.ruoyi.framework.web.service.LoginUserCache;
+import com.ruoyi.framework.web.service.TokenClaimsCache;
 import com.ruoyi.system.domain.SysCache;
 
 /**
@@ -34,6 +37,12 @@ public class CacheController
     @Autowired
     private RedisTemplate<String, String> redisTemplate;
 
+    @Autowired
+    private LoginUserCache loginUserCache;
+
+    @Autowired
+    private TokenClaimsCache tokenClaimsCache;
+
     private final static List<SysCache> caches = new ArrayList<SysCache>();
     {
         caches.add(new SysCache(CacheConstants.LOGIN_TOKEN_KEY, "用户信息"));
@@ -66,6 +75,8 @@ public class CacheController
             pieList.add(data);
         });
         result.put("commandStats", pieList);
+        result.put("loginUserCache", loginUserCache.getStats());
+        result.put("tokenClaimsCache", tokenClaimsCache.getStats());
         return AjaxResult.success(result);
     }
 
@@ -99,6 +110,15 @@ public class CacheController
     {
         Collection<String> cacheKeys = redisTemplate.keys(cacheName + "*");
         redisTemplate.delete(cacheKeys);
+        if (CacheConstants.LOGIN_TOKEN_KEY.equals(cacheName))
+        {
+            loginUserCache.invalidateAll();
+            tokenClaimsCache.invalidateAll();
+        }
+        else if (CacheConstants.SYS_DICT_KEY.equals(cacheName))
+        {
+            DictUtils.updateDictVersion();
+        }
         return AjaxResult.success();
     }
 
@@ -107,6 +127,16 @@ public class CacheController
     public AjaxResult clearCacheKey(@PathVariable String cacheKey)
     {
         redisTemplate.delete(cacheKey);
+        if (cacheKey.startsWith(CacheConstants.LOGIN_TOKEN_KEY))
+        {
+            String uuid = cacheKey.substring(CacheConstants.LOGIN_TOKEN_KEY.length());
+            loginUserCache.invalidate(uuid);
+            tokenClaimsCache.invalidate(uuid);
+        }
+        else if (cacheKey.startsWith(CacheConstants.SYS_DICT_KEY))
+        {
+            DictUtils.updateDictVersion();
+        }
         return AjaxResult.success();
     }
 
@@ -116,6 +146,9 @@ public class CacheController
     {
         Collection<String> cacheKeys = redisTemplate.keys("*");
         redisTemplate.delete(cacheKeys);
+        loginUserCache.invalidateAll();
+        tokenClaimsCache.invalidateAll();
+        DictUtils.updateDictVersion();
         return AjaxResult.success();
     }
 }
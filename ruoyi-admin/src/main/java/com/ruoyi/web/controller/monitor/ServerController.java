@@ -1,9 +1,11 @@
 package com.ruoyi.web.controller.monitor;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import com.ruoyi.app.metrics.StageMetrics;
 import com.ruoyi.common.core.domain.AjaxResult;
 import com.ruoyi.framework.web.domain.Server;
 
@@ -16,6 +18,9 @@ import com.ruoyi.framework.web.domain.Server;
 @RequestMapping("/monitor/server")
 public class ServerController
 {
+    @Autowired
+    private StageMetrics stageMetrics;
+
     @PreAuthorize("@ss.hasPermi('monitor:server:list')")
     @GetMapping()
     public AjaxResult getInfo() throws Exception
@@ -24,4 +29,14 @@ public class ServerController
         server.copyTo();
         return AjaxResult.success(server);
     }
+
+    /**
+     * 分析任务各阶段耗时分布（按阶段汇总及按设备明细）
+     */
+    @PreAuthorize("@ss.hasPermi('monitor:server:list')")
+    @GetMapping("/latency")
+    public AjaxResult latency()
+    {
+        return AjaxResult.success(stageMetrics.getSnapshot());
+    }
 }
@@ -20,6 +20,7 @@ import com.ruoyi.common.enums.BusinessType;
 import com.ruoyi.common.utils.DateUtils;
 import com.ruoyi.common.utils.SecurityUtils;
 import com.ruoyi.common.utils.StringUtils;
+import com.ruoyi.common.utils.bean.BeanUtils;
 import com.ruoyi.common.utils.file.FileUploadUtils;
 import com.ruoyi.common.utils.file.FileUtils;
 import com.ruoyi.common.utils.file.MimeTypeUtils;
@@ -63,7 +64,9 @@ public class SysProfileController extends BaseController
     public AjaxResult updateProfile(@RequestBody SysUser user)
     {
         LoginUser loginUser = getLoginUser();
-        SysUser currentUser = loginUser.getUser();
+        // 在副本上校验和更新，失败时不改动登录用户
+        SysUser currentUser = new SysUser();
+        BeanUtils.copyProperties(loginUser.getUser(), currentUser);
         currentUser.setNickName(user.getNickName());
         currentUser.setEmail(user.getEmail());
         currentUser.setPhonenumber(user.getPhonenumber());
@@ -79,6 +82,7 @@ public class SysProfileController extends BaseController
         if (userService.updateUserProfile(currentUser) > 0)
         {
             // 更新缓存用户信息
+            loginUser.setUser(currentUser);
             tokenService.setLoginUser(loginUser);
             return success();
         }
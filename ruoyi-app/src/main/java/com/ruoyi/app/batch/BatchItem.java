@@ -0,0 +1,204 @@
+package com.ruoyi.app.batch;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import com.ruoyi.app.domain.AppAnalysisTask;
+
+/**
+ * 批量分析中的单个应用
+ *
+ * 各阶段由不同线程池的线程依次推进，字段均为volatile，查询时读取即可
+ *
+ * @author ruoyi
+ */
+public class BatchItem
+{
+    /** 阶段：等待 */
+    public static final String STAGE_PENDING = "pending";
+
+    /** 阶段：上传（APK传到设备宿主机并复制进容器） */
+    public static final String STAGE_UPLOAD = "upload";
+
+    /** 阶段：安装 */
+    public static final String STAGE_INSTALL = "install";
+
+    /** 阶段：Hook检测 */
+    public static final String STAGE_HOOK = "hook";
+
+    /** 阶段：报告 */
+    public static final String STAGE_REPORT = "report";
+
+    /** 阶段：结束 */
+    public static final String STAGE_DONE = "done";
+
+    private final int index;
+
+    private final String taskId;
+
+    private final String apkPath;
+
+    private volatile String packageName;
+
+    private volatile String stage = STAGE_PENDING;
+
+    /** 状态，取值同AppAnalysisTask */
+    private volatile String status = AppAnalysisTask.STATUS_QUEUED;
+
+    private volatile String error;
+
+    private volatile Date startTime;
+
+    private volatile Date endTime;
+
+    /** 各阶段耗时（毫秒） */
+    private final Map<String, Long> stageMillis = new LinkedHashMap<>();
+
+    private volatile long stageStart;
+
+    private volatile long privacyEvents = -1;
+
+    private volatile boolean reportAvailable;
+
+    public BatchItem(int index, String taskId, String apkPath, String packageName)
+    {
+        this.index = index;
+        this.taskId = taskId;
+        this.apkPath = apkPath;
+        this.packageName = packageName;
+    }
+
+    /**
+     * 进入下一个阶段，记录上一个阶段的耗时
+     */
+    void enterStage(String next)
+    {
+        long now = System.currentTimeMillis();
+        synchronized (stageMillis)
+        {
+            if (stageStart > 0)
+            {
+                stageMillis.put(stage, now - stageStart);
+            }
+            else
+            {
+                startTime = new Date(now);
+                status = AppAnalysisTask.STATUS_RUNNING;
+            }
+            stage = next;
+            stageStart = now;
+        }
+    }
+
+    /**
+     * 结束（成功、失败或取消）
+     */
+    void finish(String finalStatus, String message)
+    {
+        synchronized (stageMillis)
+        {
+            if (isFinished())
+            {
+                return;
+            }
+            if (stageStart > 0)
+            {
+                stageMillis.put(stage, System.currentTimeMillis() - stageStart);
+            }
+            error = message;
+            endTime = new Date();
+            status = finalStatus;
+        }
+    }
+
+    public boolean isFinished()
+    {
+        String current = status;
+        return AppAnalysisTask.STATUS_SUCCESS.equals(current) || AppAnalysisTask.STATUS_FAIL.equals(current)
+                || AppAnalysisTask.STATUS_CANCEL.equals(current);
+    }
+
+    public int getIndex()
+    {
+        return index;
+    }
+
+    public String getTaskId()
+    {
+        return taskId;
+    }
+
+    public String getApkPath()
+    {
+        return apkPath;
+    }
+
+    public String getPackageName()
+    {
+        return packageName;
+    }
+
+    void setPackageName(String packageName)
+    {
+        this.packageName = packageName;
+    }
+
+    public String getStage()
+    {
+        return stage;
+    }
+
+    public String getStatus()
+    {
+        return status;
+    }
+
+    public String getError()
+    {
+        return error;
+    }
+
+    public Date getStartTime()
+    {
+        return startTime;
+    }
+
+    public Date getEndTime()
+    {
+        return endTime;
+    }
+
+    void setPrivacyEvents(long privacyEvents)
+    {
+        this.privacyEvents = privacyEvents;
+    }
+
+    void setReportAvailable(boolean reportAvailable)
+    {
+        this.reportAvailable = reportAvailable;
+    }
+
+    public Map<String, Object> toMap()
+    {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("index", index);
+        map.put("taskId", taskId);
+        map.put("apkPath", apkPath);
+        map.put("packageName", packageName);
+        map.put("stage", stage);
+        map.put("status", status);
+        map.put("error", error);
+        map.put("startTime", startTime);
+        map.put("endTime", endTime);
+        synchronized (stageMillis)
+        {
+            map.put("stageMillis", new LinkedHashMap<>(stageMillis));
+        }
+        if (privacyEvents >= 0)
+        {
+            map.put("privacyEvents", privacyEvents);
+        }
+        map.put("reportAvailable", reportAvailable);
+        return map;
+    }
+}
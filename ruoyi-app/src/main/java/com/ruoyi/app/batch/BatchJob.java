@@ -0,0 +1,178 @@
+package com.ruoyi.app.batch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import com.ruoyi.app.device.AnalysisDevice;
+import com.ruoyi.app.domain.AppAnalysisTask;
+
+/**
+ * 批量分析作业：一组应用在同一个设备上流水线执行，对外作为一个整体查询
+ *
+ * 批次作为一个分析任务（类型batch）提交到调度器排队，出队后占用分配到的设备槽位直到所有应用结束
+ *
+ * @author ruoyi
+ */
+public class BatchJob
+{
+    private final String batchId;
+
+    private final String taskName;
+
+    private final String modules;
+
+    private final int duration;
+
+    private final String createBy;
+
+    private final Date createTime;
+
+    private final List<BatchItem> items;
+
+    /** 状态，取值同AppAnalysisTask：0等待设备 1执行中 2有应用完成 3全部失败或设备租约丢失 4已取消 */
+    private volatile String status = AppAnalysisTask.STATUS_QUEUED;
+
+    /** 调度器分配的设备 */
+    private volatile AnalysisDevice device;
+
+    private volatile boolean cancelled;
+
+    /** 设备租约丢失等原因中止时的原因 */
+    private volatile String abortReason;
+
+    private volatile Date endTime;
+
+    public BatchJob(String batchId, String taskName, String modules, int duration, String createBy, Date createTime,
+            List<BatchItem> items)
+    {
+        this.batchId = batchId;
+        this.taskName = taskName;
+        this.modules = modules;
+        this.duration = duration;
+        this.createBy = createBy;
+        this.createTime = createTime;
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+    }
+
+    public String getBatchId()
+    {
+        return batchId;
+    }
+
+    public String getTaskName()
+    {
+        return taskName;
+    }
+
+    public String getModules()
+    {
+        return modules;
+    }
+
+    public int getDuration()
+    {
+        return duration;
+    }
+
+    public String getCreateBy()
+    {
+        return createBy;
+    }
+
+    public List<BatchItem> getItems()
+    {
+        return items;
+    }
+
+    public String getStatus()
+    {
+        return status;
+    }
+
+    void setStatus(String status)
+    {
+        this.status = status;
+    }
+
+    public AnalysisDevice getDevice()
+    {
+        return device;
+    }
+
+    void setDevice(AnalysisDevice device)
+    {
+        this.device = device;
+    }
+
+    public boolean isCancelled()
+    {
+        return cancelled;
+    }
+
+    void cancel()
+    {
+        this.cancelled = true;
+    }
+
+    public String getAbortReason()
+    {
+        return abortReason;
+    }
+
+    /**
+     * 中止：与取消一样不再执行后续应用，未结束的应用按失败结束
+     */
+    void abort(String reason)
+    {
+        this.abortReason = reason;
+        this.cancelled = true;
+    }
+
+    public Date getCreateTime()
+    {
+        return createTime;
+    }
+
+    public Date getEndTime()
+    {
+        return endTime;
+    }
+
+    void setEndTime(Date endTime)
+    {
+        this.endTime = endTime;
+    }
+
+    public Map<String, Object> toMap()
+    {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("batchId", batchId);
+        map.put("taskName", taskName);
+        map.put("status", status);
+        map.put("cancelled", cancelled && abortReason == null);
+        map.put("abortReason", abortReason);
+        AnalysisDevice current = device;
+        map.put("device", current != null ? current.getName() : null);
+        map.put("vncUrl", current != null ? current.getVncUrl() : null);
+        map.put("createTime", createTime);
+        map.put("endTime", endTime);
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        List<Map<String, Object>> itemMaps = new ArrayList<>();
+        for (BatchItem item : items)
+        {
+            counts.merge(item.getStatus(), 1, Integer::sum);
+            itemMaps.add(item.toMap());
+        }
+        map.put("total", items.size());
+        map.put("queued", counts.getOrDefault(AppAnalysisTask.STATUS_QUEUED, 0));
+        map.put("running", counts.getOrDefault(AppAnalysisTask.STATUS_RUNNING, 0));
+        map.put("success", counts.getOrDefault(AppAnalysisTask.STATUS_SUCCESS, 0));
+        map.put("failed", counts.getOrDefault(AppAnalysisTask.STATUS_FAIL, 0));
+        map.put("cancelledItems", counts.getOrDefault(AppAnalysisTask.STATUS_CANCEL, 0));
+        map.put("items", itemMaps);
+        return map;
+    }
+}
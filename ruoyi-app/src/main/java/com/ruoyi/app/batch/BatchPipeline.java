@@ -0,0 +1,799 @@
+package com.ruoyi.app.batch;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpException;
+import com.ruoyi.app.config.AnalysisConfig;
+import com.ruoyi.app.config.SftpConfig;
+import com.ruoyi.app.device.AnalysisDevice;
+import com.ruoyi.app.device.DevicePool;
+import com.ruoyi.app.domain.AppAnalysisTask;
+import com.ruoyi.app.metrics.StageMetrics;
+import com.ruoyi.app.service.IAppAnalysisTaskService;
+import com.ruoyi.app.service.IFridaAnalysisService;
+import com.ruoyi.app.ssh.SshExecResult;
+import com.ruoyi.app.ssh.SshSessionManager;
+import com.ruoyi.app.store.PrivacyEventStore;
+import com.ruoyi.app.task.AnalysisTaskDispatcher;
+import com.ruoyi.app.task.AnalysisTaskHandler;
+import com.ruoyi.common.exception.ServiceException;
+import com.ruoyi.common.utils.StringUtils;
+import com.ruoyi.common.utils.Threads;
+import com.ruoyi.common.utils.uuid.Seq;
+
+/**
+ * 批量分析流水线
+ *
+ * 一个批次作为一个分析任务（类型batch）提交到调度器，与单个检测任务共用排队上限、优先级和设备租约（续约、过期回收）；
+ * 出队后占用分配到的设备，每个应用依次经过四个阶段，每个阶段使用独立的有界线程池：
+ * <ul>
+ * <li>上传：APK从上传服务器转存到设备所在宿主机（同一台时跳过），再docker cp进容器；</li>
+ * <li>安装：adb install，未指定包名时取最新安装的应用；</li>
+ * <li>Hook检测：在设备上运行Frida隐私检测，直到检测时长结束；</li>
+ * <li>报告：从容器取出报告，统计隐私事件，结果写入分析任务表。</li>
+ * </ul>
+ * 同一批次内的安装、检测分别按顺序执行（同一设备上同时只有一个检测），
+ * 阶段之间互不等待：第N个应用检测期间，第N+1个应用已在上传和安装。
+ * 某个应用失败只影响它自己，后续应用照常执行；全部应用失败或设备租约丢失时批次按失败结束。
+ * 批次参数随任务入库，服务重启后由调度器恢复重新执行；执行进度保存在内存中，结束后保留一段时间供查询。
+ *
+ * @author ruoyi
+ */
+@Component
+public class BatchPipeline
+{
+    private static final Logger log = LoggerFactory.getLogger(BatchPipeline.class);
+
+    /** 批次结束后的保留时间（分钟） */
+    private static final long RETAIN_MINUTES = 60;
+
+    /** 复制APK到容器的超时时间（毫秒） */
+    private static final long COPY_TIMEOUT_MILLIS = 5 * 60 * 1000L;
+
+    /** 安装的超时时间（毫秒） */
+    private static final long INSTALL_TIMEOUT_MILLIS = 3 * 60 * 1000L;
+
+    /** 其他远程命令的超时时间（毫秒） */
+    private static final long COMMAND_TIMEOUT_MILLIS = 30000;
+
+    /** 容器内存放待安装APK的目录 */
+    private static final String CONTAINER_APK_DIR = "/tmp";
+
+    private static final String REPORT_OUTPUT_DIR = "/opt/frida_reports";
+
+    /** 只接受上传目录下的APK文件名，路径会拼接到远程命令中 */
+    private static final Pattern APK_PATH_PATTERN = Pattern.compile("[A-Za-z0-9_./-]+\\.(apk|APK)");
+
+    private static final Pattern PACKAGE_PATTERN = Pattern.compile("[A-Za-z0-9_.]+");
+
+    private static final Pattern MODULES_PATTERN = Pattern.compile("[A-Za-z0-9_,]+");
+
+    /** 通过安装时间获取最新安装的第三方应用（与动态分析脚本一致） */
+    private static final String LATEST_PACKAGE_COMMAND = "pm list packages -U -f -3 | "
+            + "while read line; do "
+            + "pkg=$(echo $line | sed -E \"s/.*=//\"); "
+            + "path=$(pm path $pkg | cut -d: -f2); "
+            + "ts=$(stat -c %Y $path 2>/dev/null); "
+            + "echo \"$ts $pkg\"; "
+            + "done | sort -nr | head -1 | awk \"{print \\$2}\"";
+
+    @Autowired
+    private AnalysisConfig analysisConfig;
+
+    @Autowired
+    private SftpConfig sftpConfig;
+
+    @Autowired
+    private DevicePool devicePool;
+
+    @Autowired
+    private AnalysisTaskDispatcher analysisTaskDispatcher;
+
+    @Autowired
+    private SshSessionManager sshSessionManager;
+
+    @Autowired
+    private IFridaAnalysisService fridaAnalysisService;
+
+    @Autowired
+    private IAppAnalysisTaskService analysisTaskService;
+
+    @Autowired
+    private PrivacyEventStore privacyEventStore;
+
+    @Autowired
+    private StageMetrics stageMetrics;
+
+    @Autowired
+    private ScheduledExecutorService scheduledExecutorService;
+
+    private final Map<String, BatchJob> jobs = new ConcurrentHashMap<>();
+
+    private ExecutorService uploadPool;
+
+    private ExecutorService installPool;
+
+    private ExecutorService hookPool;
+
+    private ExecutorService reportPool;
+
+    /** 服务停止中：批次不再回报结束，任务表中保持执行中，重启后重新执行 */
+    private volatile boolean shuttingDown;
+
+    @PostConstruct
+    public void init()
+    {
+        uploadPool = createPool("batch-upload-%d", analysisConfig.getBatchUploadThreads());
+        installPool = createPool("batch-install-%d", analysisConfig.getBatchInstallThreads());
+        hookPool = createPool("batch-hook-%d", analysisConfig.getBatchHookThreads());
+        reportPool = createPool("batch-report-%d", analysisConfig.getBatchReportThreads());
+        analysisTaskDispatcher.registerHandler(AppAnalysisTask.TYPE_BATCH, new AnalysisTaskHandler()
+        {
+            @Override
+            public CompletableFuture<Void> execute(AppAnalysisTask task)
+            {
+                return start(task);
+            }
+
+            @Override
+            public void abort(AppAnalysisTask task, String reason)
+            {
+                BatchPipeline.this.abort(task.getTaskId(), reason);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        shuttingDown = true;
+        for (BatchJob job : jobs.values())
+        {
+            job.cancel();
+        }
+        Threads.shutdownAndAwaitTermination(uploadPool);
+        Threads.shutdownAndAwaitTermination(installPool);
+        Threads.shutdownAndAwaitTermination(hookPool);
+        Threads.shutdownAndAwaitTermination(reportPool);
+    }
+
+    /**
+     * 提交批量分析：批次入库并进入分析队列，队列已满时拒绝
+     *
+     * @param taskName 任务名称
+     * @param apkPaths 上传服务器上的APK路径
+     * @param packageNames 与apkPaths对应的包名，可为空（安装后自动识别）
+     * @param modules 检测模块，为空时检测全部
+     * @param duration 每个应用的检测时长（秒）
+     * @param createBy 创建者
+     * @return 批次
+     */
+    public BatchJob submit(String taskName, List<String> apkPaths, List<String> packageNames, String modules,
+            int duration, String createBy)
+    {
+        if (apkPaths == null || apkPaths.isEmpty())
+        {
+            throw new ServiceException("请先上传应用文件");
+        }
+        if (apkPaths.size() > analysisConfig.getBatchMaxFiles())
+        {
+            throw new ServiceException("单个批次最多" + analysisConfig.getBatchMaxFiles() + "个应用");
+        }
+        if (StringUtils.isNotEmpty(modules) && !MODULES_PATTERN.matcher(modules).matches())
+        {
+            throw new ServiceException("非法的检测模块：" + modules);
+        }
+        List<BatchItem> items = new ArrayList<>();
+        for (int i = 0; i < apkPaths.size(); i++)
+        {
+            String apkPath = checkApkPath(apkPaths.get(i));
+            String packageName = packageNames != null && i < packageNames.size() ? packageNames.get(i) : null;
+            if (StringUtils.isNotEmpty(packageName) && !PACKAGE_PATTERN.matcher(packageName).matches())
+            {
+                throw new ServiceException("非法的包名：" + packageName);
+            }
+            items.add(new BatchItem(i, Seq.getId(), apkPath, StringUtils.isEmpty(packageName) ? null : packageName));
+        }
+        BatchJob job = new BatchJob(Seq.getId(), taskName, StringUtils.isEmpty(modules) ? "all" : modules,
+                duration > 0 ? duration : 300, createBy, new Date(), items);
+        jobs.put(job.getBatchId(), job);
+        try
+        {
+            analysisTaskDispatcher.enqueue(toTask(job));
+        }
+        catch (RuntimeException e)
+        {
+            jobs.remove(job.getBatchId());
+            throw e;
+        }
+        log.info("批量分析已提交 - batchId: {}, 应用数: {}", job.getBatchId(), items.size());
+        return job;
+    }
+
+    /**
+     * 查询批次，服务重启后尚未执行完的批次从任务表恢复
+     *
+     * @return 批次，不存在或已过期时返回null
+     */
+    public BatchJob getJob(String batchId)
+    {
+        if (batchId == null)
+        {
+            return null;
+        }
+        BatchJob job = jobs.get(batchId);
+        if (job != null)
+        {
+            return job;
+        }
+        AppAnalysisTask task = analysisTaskService.selectTaskByTaskId(batchId, AppAnalysisTask.TYPE_BATCH);
+        if (task == null || !(AppAnalysisTask.STATUS_QUEUED.equals(task.getStatus())
+                || AppAnalysisTask.STATUS_RUNNING.equals(task.getStatus())))
+        {
+            return null;
+        }
+        return restore(task);
+    }
+
+    /**
+     * 取消批次：未开始的应用不再执行，正在检测的应用停止检测
+     *
+     * @return 批次不存在或已结束时返回false
+     */
+    public boolean cancel(String batchId)
+    {
+        BatchJob job = getJob(batchId);
+        if (job == null || job.getEndTime() != null)
+        {
+            return false;
+        }
+        job.cancel();
+        String previousStatus = analysisTaskDispatcher.cancel(batchId, AppAnalysisTask.TYPE_BATCH);
+        if (AppAnalysisTask.STATUS_RUNNING.equals(previousStatus))
+        {
+            stopHooks(job);
+        }
+        else
+        {
+            // 还在排队，不会再执行
+            finishJob(job, null);
+        }
+        log.info("批量分析已取消 - batchId: {}", batchId);
+        return true;
+    }
+
+    /**
+     * 批次转为分析任务，运行参数中保存各应用，重启后据此恢复
+     */
+    private static AppAnalysisTask toTask(BatchJob job)
+    {
+        JSONArray itemParams = new JSONArray();
+        for (BatchItem item : job.getItems())
+        {
+            JSONObject itemParam = new JSONObject();
+            itemParam.put("taskId", item.getTaskId());
+            itemParam.put("apkPath", item.getApkPath());
+            itemParam.put("packageName", item.getPackageName());
+            itemParams.add(itemParam);
+        }
+        JSONObject runParams = new JSONObject();
+        runParams.put("modules", job.getModules());
+        runParams.put("delayTime", job.getDuration());
+        runParams.put("items", itemParams);
+
+        AppAnalysisTask task = new AppAnalysisTask();
+        task.setTaskId(job.getBatchId());
+        task.setTaskName(job.getTaskName());
+        task.setTaskType(AppAnalysisTask.TYPE_BATCH);
+        task.setRunParams(runParams.toJSONString());
+        task.setCreateBy(job.getCreateBy());
+        return task;
+    }
+
+    /**
+     * 取得任务对应的批次：内存中没有或已结束（重新执行）时按运行参数重建
+     *
+     * @return 批次，运行参数无效时返回null
+     */
+    private BatchJob restore(AppAnalysisTask task)
+    {
+        return jobs.compute(task.getTaskId(), (batchId, job) -> {
+            if (job != null && job.getEndTime() == null)
+            {
+                return job;
+            }
+            JSONObject runParams = JSON.parseObject(task.getRunParams());
+            JSONArray itemParams = runParams != null ? runParams.getJSONArray("items") : null;
+            if (itemParams == null || itemParams.isEmpty())
+            {
+                return null;
+            }
+            List<BatchItem> items = new ArrayList<>();
+            for (int i = 0; i < itemParams.size(); i++)
+            {
+                JSONObject itemParam = itemParams.getJSONObject(i);
+                items.add(new BatchItem(i, itemParam.getString("taskId"), itemParam.getString("apkPath"),
+                        itemParam.getString("packageName")));
+            }
+            return new BatchJob(batchId, task.getTaskName(), runParams.getString("modules"),
+                    runParams.getIntValue("delayTime"), task.getCreateBy(),
+                    task.getQueueTime() != null ? task.getQueueTime() : new Date(), items);
+        });
+    }
+
+    private String checkApkPath(String apkPath)
+    {
+        String uploadDir = StringUtils.removeEnd(sftpConfig.getApkUploadPath(), "/") + "/";
+        if (apkPath == null || !APK_PATH_PATTERN.matcher(apkPath).matches() || !apkPath.startsWith(uploadDir)
+                || apkPath.contains(".."))
+        {
+            throw new ServiceException("非法的APK路径：" + apkPath);
+        }
+        return apkPath;
+    }
+
+    /**
+     * 调度器分配设备后开始执行，所有应用结束时完成返回的future（设备租约由调度器续约和释放）
+     */
+    private CompletableFuture<Void> start(AppAnalysisTask task)
+    {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        BatchJob job = restore(task);
+        if (job == null)
+        {
+            done.completeExceptionally(new ServiceException("批次运行参数无效"));
+            return done;
+        }
+        if (job.isCancelled())
+        {
+            finishJob(job, done);
+            return done;
+        }
+        job.setDevice(devicePool.getDevice(task.getWorker()));
+        job.setStatus(AppAnalysisTask.STATUS_RUNNING);
+        log.info("批量分析开始 - batchId: {}, 设备: {}", job.getBatchId(), job.getDevice());
+        try
+        {
+            CompletableFuture.allOf(buildPipeline(job).toArray(new CompletableFuture[0]))
+                    .whenComplete((r, e) -> finishJob(job, done));
+        }
+        catch (RuntimeException e)
+        {
+            log.error("批量分析启动失败 - batchId: {}", job.getBatchId(), e);
+            for (BatchItem item : job.getItems())
+            {
+                item.finish(AppAnalysisTask.STATUS_FAIL, e.getMessage());
+            }
+            finishJob(job, done);
+        }
+        return done;
+    }
+
+    /**
+     * 设备租约丢失：不再执行后续应用，停止正在进行的检测（调度器已按失败结束批次并回收设备）
+     */
+    private void abort(String batchId, String reason)
+    {
+        BatchJob job = jobs.get(batchId);
+        if (job == null || job.getEndTime() != null)
+        {
+            return;
+        }
+        log.warn("批量分析中止 - batchId: {}, {}", batchId, reason);
+        job.abort(reason);
+        stopHooks(job);
+    }
+
+    private void stopHooks(BatchJob job)
+    {
+        for (BatchItem item : job.getItems())
+        {
+            if (BatchItem.STAGE_HOOK.equals(item.getStage()) && !item.isFinished())
+            {
+                fridaAnalysisService.stopFridaAnalysis(item.getTaskId());
+            }
+        }
+    }
+
+    /**
+     * 为每个应用串联四个阶段：安装依赖本应用上传和上一个应用安装，检测依赖本应用安装和上一个应用检测
+     */
+    private List<CompletableFuture<Void>> buildPipeline(BatchJob job)
+    {
+        AnalysisDevice device = job.getDevice();
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+        CompletableFuture<Void> previousInstall = CompletableFuture.completedFuture(null);
+        CompletableFuture<Void> previousHook = CompletableFuture.completedFuture(null);
+        for (BatchItem item : job.getItems())
+        {
+            CompletableFuture<Void> uploaded = CompletableFuture.runAsync(
+                    () -> runStage(job, item, BatchItem.STAGE_UPLOAD, () -> upload(device, item)), uploadPool);
+            CompletableFuture<Void> installed = settled(uploaded).thenCombine(settled(previousInstall), (a, b) -> a)
+                    .thenRunAsync(() -> runStage(job, item, BatchItem.STAGE_INSTALL, () -> install(device, item)), installPool);
+            CompletableFuture<Void> hooked = settled(installed).thenCombine(settled(previousHook), (a, b) -> a)
+                    .thenComposeAsync(v -> hook(job, item, device), hookPool);
+            CompletableFuture<Void> reported = settled(hooked)
+                    .thenRunAsync(() -> runStage(job, item, BatchItem.STAGE_REPORT, () -> report(device, item)), reportPool)
+                    .whenComplete((r, e) -> finishItem(job, item, device, e));
+            previousInstall = installed;
+            previousHook = hooked;
+            done.add(reported);
+        }
+        return done;
+    }
+
+    /**
+     * 前一个阶段无论成败都继续（失败的应用在后续阶段直接跳过）
+     */
+    private static CompletableFuture<Void> settled(CompletableFuture<Void> future)
+    {
+        return future.handle((r, e) -> null);
+    }
+
+    private void runStage(BatchJob job, BatchItem item, String stage, StageAction action)
+    {
+        if (skip(job, item))
+        {
+            return;
+        }
+        item.enterStage(stage);
+        long startNanos = System.nanoTime();
+        try
+        {
+            action.run();
+            String metric = BatchItem.STAGE_UPLOAD.equals(stage) ? StageMetrics.APK_COPY
+                    : BatchItem.STAGE_INSTALL.equals(stage) ? StageMetrics.APK_INSTALL : null;
+            if (metric != null)
+            {
+                stageMetrics.record(item.getTaskId(), metric, job.getDevice().getName(),
+                        (System.nanoTime() - startNanos) / 1000000L);
+            }
+        }
+        catch (Exception e)
+        {
+            log.warn("[{}] 批量分析{}阶段失败: {}", item.getTaskId(), stage, e.getMessage());
+            item.finish(AppAnalysisTask.STATUS_FAIL, stage + ": " + e.getMessage());
+        }
+    }
+
+    private boolean skip(BatchJob job, BatchItem item)
+    {
+        if (item.isFinished())
+        {
+            return true;
+        }
+        if (job.isCancelled())
+        {
+            stopItem(job, item);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 批次取消或中止后结束未完成的应用
+     */
+    private static void stopItem(BatchJob job, BatchItem item)
+    {
+        if (job.getAbortReason() != null)
+        {
+            item.finish(AppAnalysisTask.STATUS_FAIL, job.getAbortReason());
+        }
+        else
+        {
+            item.finish(AppAnalysisTask.STATUS_CANCEL, "批次已取消");
+        }
+    }
+
+    private CompletableFuture<Void> hook(BatchJob job, BatchItem item, AnalysisDevice device)
+    {
+        if (skip(job, item))
+        {
+            return CompletableFuture.completedFuture(null);
+        }
+        item.enterStage(BatchItem.STAGE_HOOK);
+        return fridaAnalysisService.runOnDevice(item.getTaskId(), device, item.getPackageName(), job.getModules(),
+                job.getDuration()).handle((r, e) -> {
+                    if (e != null)
+                    {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        item.finish(AppAnalysisTask.STATUS_FAIL, BatchItem.STAGE_HOOK + ": " + cause.getMessage());
+                    }
+                    else if (job.isCancelled())
+                    {
+                        stopItem(job, item);
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * 上传阶段：设备不在上传服务器上时先转存到设备宿主机的相同路径，再复制进容器
+     */
+    private void upload(AnalysisDevice device, BatchItem item) throws Exception
+    {
+        String host = device.getHost();
+        if (StringUtils.isNotEmpty(host) && !host.equals(sftpConfig.getHost()))
+        {
+            relay(host, item.getApkPath(), item.getTaskId());
+        }
+        String command = String.format("docker cp %s %s:%s", item.getApkPath(), device.getName(), containerApkPath(item));
+        SshExecResult result = sshSessionManager.exec(host, command, COPY_TIMEOUT_MILLIS);
+        if (!result.isSuccess())
+        {
+            throw new ServiceException("复制APK到容器失败: " + result.getMessage());
+        }
+    }
+
+    /**
+     * 从上传服务器经sftp流式转存到目标宿主机，目标已有相同大小的文件时跳过（文件按内容摘要命名）；
+     * 同一APK可能被批次中的多个条目同时转存，临时文件按条目区分，改名时目标已由其他条目转存完成则直接使用
+     */
+    private void relay(String host, String apkPath, String taskId) throws Exception
+    {
+        ChannelSftp source = null;
+        ChannelSftp target = null;
+        try
+        {
+            source = sshSessionManager.openSftp();
+            target = sshSessionManager.openSftp(host);
+            long size = source.lstat(apkPath).getSize();
+            try
+            {
+                if (target.lstat(apkPath).getSize() == size)
+                {
+                    return;
+                }
+                target.rm(apkPath);
+            }
+            catch (SftpException e)
+            {
+                // 目标宿主机上还没有该文件
+            }
+            sshSessionManager.exec(host, "mkdir -p " + apkPath.substring(0, apkPath.lastIndexOf('/')), COMMAND_TIMEOUT_MILLIS);
+            String tempPath = apkPath + "." + taskId + ".relay";
+            try (InputStream in = source.get(apkPath))
+            {
+                target.put(in, tempPath, ChannelSftp.OVERWRITE);
+            }
+            try
+            {
+                target.rename(tempPath, apkPath);
+            }
+            catch (SftpException e)
+            {
+                target.rm(tempPath);
+                if (target.lstat(apkPath).getSize() != size)
+                {
+                    throw e;
+                }
+                return;
+            }
+            log.info("APK已转存到宿主机 {}: {} ({} bytes)", host, apkPath, size);
+        }
+        finally
+        {
+            sshSessionManager.release(source);
+            sshSessionManager.release(target);
+        }
+    }
+
+    /**
+     * 安装阶段：安装后删除容器中的APK，未指定包名时识别最新安装的应用（同一设备上的安装顺序执行）
+     */
+    private void install(AnalysisDevice device, BatchItem item) throws Exception
+    {
+        String apk = containerApkPath(item);
+        String command = String.format("docker exec -u 0 %s adb install -r %s; docker exec -u 0 %s rm -f %s",
+                device.getName(), apk, device.getName(), apk);
+        SshExecResult result = sshSessionManager.exec(device.getHost(), command, INSTALL_TIMEOUT_MILLIS);
+        if (!result.getOutput().contains("Success"))
+        {
+            throw new ServiceException("安装失败: " + result.getMessage());
+        }
+        if (StringUtils.isNotEmpty(item.getPackageName()))
+        {
+            return;
+        }
+        SshExecResult latest = sshSessionManager.exec(device.getHost(),
+                String.format("docker exec -u 0 %s adb shell '%s'", device.getName(), LATEST_PACKAGE_COMMAND),
+                COMMAND_TIMEOUT_MILLIS);
+        String packageName = latest.getOutput().trim();
+        if (!latest.isSuccess() || packageName.indexOf('.') < 0 || !PACKAGE_PATTERN.matcher(packageName).matches())
+        {
+            throw new ServiceException("无法识别安装的包名: " + latest.getMessage());
+        }
+        item.setPackageName(packageName);
+    }
+
+    /**
+     * 报告阶段：把容器中的报告复制到宿主机的报告目录，统计隐私事件
+     */
+    private void report(AnalysisDevice device, BatchItem item) throws Exception
+    {
+        String reportFile = fridaAnalysisService.getAnalysisReport(item.getTaskId());
+        String command = String.format("mkdir -p %s && docker cp %s:%s %s", REPORT_OUTPUT_DIR, device.getName(),
+                reportFile, REPORT_OUTPUT_DIR);
+        SshExecResult result = sshSessionManager.exec(device.getHost(), command, COMMAND_TIMEOUT_MILLIS);
+        item.setReportAvailable(result.isSuccess());
+        if (!result.isSuccess())
+        {
+            log.warn("[{}] 复制检测报告失败: {}", item.getTaskId(), result.getMessage());
+        }
+        if (privacyEventStore.exists(item.getTaskId()))
+        {
+            long count = 0;
+            try (PrivacyEventStore.EventReader reader = privacyEventStore.openReader(item.getTaskId()))
+            {
+                while (reader.hasNext())
+                {
+                    reader.next();
+                    count++;
+                }
+            }
+            item.setPrivacyEvents(count);
+        }
+    }
+
+    /**
+     * 应用结束：确定最终状态并写入分析任务表（与单个检测任务一样可在任务列表、历史结果中查到）
+     */
+    private void finishItem(BatchJob job, BatchItem item, AnalysisDevice device, Throwable e)
+    {
+        if (e != null)
+        {
+            item.finish(AppAnalysisTask.STATUS_FAIL, e.getMessage());
+        }
+        else if (!skip(job, item))
+        {
+            item.enterStage(BatchItem.STAGE_DONE);
+            item.finish(AppAnalysisTask.STATUS_SUCCESS, null);
+        }
+        JSONObject runParams = new JSONObject();
+        runParams.put("batchId", job.getBatchId());
+        runParams.put("packageName", item.getPackageName());
+        runParams.put("modules", job.getModules());
+        runParams.put("delayTime", job.getDuration());
+
+        AppAnalysisTask task = new AppAnalysisTask();
+        task.setTaskId(item.getTaskId());
+        task.setTaskName(job.getTaskName() + " #" + (item.getIndex() + 1)
+                + (item.getPackageName() != null ? " " + item.getPackageName() : ""));
+        task.setTaskType(AppAnalysisTask.TYPE_FRIDA);
+        task.setPriority(0);
+        task.setStatus(item.getStatus());
+        task.setWorker(device.getName());
+        task.setApkPath(item.getApkPath());
+        task.setRunParams(runParams.toJSONString());
+        task.setQueueTime(job.getCreateTime());
+        task.setStartTime(item.getStartTime());
+        task.setEndTime(item.getEndTime());
+        task.setErrorMsg(StringUtils.substring(item.getError(), 0, 500));
+        task.setCreateBy(job.getCreateBy());
+        try
+        {
+            // 服务重启后重新执行的批次沿用原来的应用任务编号
+            AppAnalysisTask existing = analysisTaskService.selectTaskByTaskId(item.getTaskId(), AppAnalysisTask.TYPE_FRIDA);
+            if (existing == null)
+            {
+                analysisTaskService.insertTask(task);
+            }
+            else
+            {
+                task.setId(existing.getId());
+                analysisTaskService.updateTask(task);
+            }
+        }
+        catch (Exception ex)
+        {
+            log.error("[{}] 保存批量分析结果失败", item.getTaskId(), ex);
+        }
+    }
+
+    /**
+     * 批次结束：确定批次状态，并向调度器回报（done为空表示批次未开始执行）；重复调用时只回报
+     */
+    private void finishJob(BatchJob job, CompletableFuture<Void> done)
+    {
+        boolean finished = false;
+        synchronized (job)
+        {
+            if (job.getEndTime() == null)
+            {
+                for (BatchItem item : job.getItems())
+                {
+                    stopItem(job, item);
+                }
+                job.setStatus(resolveStatus(job));
+                job.setEndTime(new Date());
+                finished = true;
+            }
+        }
+        if (finished)
+        {
+            log.info("批量分析结束 - batchId: {}, 状态: {}", job.getBatchId(), job.getStatus());
+            scheduledExecutorService.schedule(() -> jobs.remove(job.getBatchId(), job), RETAIN_MINUTES, TimeUnit.MINUTES);
+        }
+        if (done == null || shuttingDown)
+        {
+            return;
+        }
+        if (AppAnalysisTask.STATUS_FAIL.equals(job.getStatus()))
+        {
+            done.completeExceptionally(new ServiceException(job.getAbortReason() != null ? job.getAbortReason()
+                    : "全部" + job.getItems().size() + "个应用检测失败"));
+        }
+        else
+        {
+            done.complete(null);
+        }
+    }
+
+    /**
+     * 批次状态：取消为已取消；设备租约丢失或没有一个应用成功为失败；否则为已完成（失败的应用见各自状态）
+     */
+    private static String resolveStatus(BatchJob job)
+    {
+        if (job.getAbortReason() != null)
+        {
+            return AppAnalysisTask.STATUS_FAIL;
+        }
+        if (job.isCancelled())
+        {
+            return AppAnalysisTask.STATUS_CANCEL;
+        }
+        for (BatchItem item : job.getItems())
+        {
+            if (AppAnalysisTask.STATUS_SUCCESS.equals(item.getStatus()))
+            {
+                return AppAnalysisTask.STATUS_SUCCESS;
+            }
+        }
+        return AppAnalysisTask.STATUS_FAIL;
+    }
+
+    /**
+     * 容器中的APK路径：文件按内容摘要命名，同一APK可在批次中出现多次，因此加上条目的任务ID，
+     * 各条目的复制和安装后删除互不影响
+     */
+    private static String containerApkPath(BatchItem item)
+    {
+        return CONTAINER_APK_DIR + "/" + item.getTaskId() + "_" + item.getApkPath().substring(item.getApkPath().lastIndexOf('/') + 1);
+    }
+
+    private static ExecutorService createPool(String namingPattern, int threads)
+    {
+        return Executors.newFixedThreadPool(Math.max(1, threads),
+                new BasicThreadFactory.Builder().namingPattern(namingPattern).daemon(true).build());
+    }
+
+    /**
+     * 阶段动作
+     */
+    private interface StageAction
+    {
+        void run() throws Exception;
+    }
+}
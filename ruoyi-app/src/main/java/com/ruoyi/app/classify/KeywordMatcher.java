@@ -0,0 +1,176 @@
+package com.ruoyi.app.classify;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * 多关键字匹配器（Aho-Corasick自动机）
+ *
+ * 每个关键字对应一组标志位，扫描一遍文本即可得到命中的全部关键字的标志位之和，
+ * 耗时与关键字数量无关。构建后只读，可多线程共享。
+ *
+ * @author ruoyi
+ */
+public class KeywordMatcher
+{
+    /** 根节点的子节点按字符直接寻址，绝大多数字符在根节点即被跳过 */
+    private final int[] rootNext = new int[Character.MAX_VALUE + 1];
+
+    /** 非根节点的子节点：按字符升序排列，二分查找 */
+    private final char[][] childChars;
+
+    private final int[][] childNodes;
+
+    /** 失配指针 */
+    private final int[] fail;
+
+    /** 到达该节点时命中的标志位（已合并失配链上的输出） */
+    private final int[] output;
+
+    /** 所有关键字标志位之和，全部命中后提前结束 */
+    private final int allFlags;
+
+    /**
+     * @param keywords 关键字与标志位，同一关键字多次出现时标志位合并
+     */
+    public KeywordMatcher(Map<String, Integer> keywords)
+    {
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<Integer> outputs = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        outputs.add(0);
+        int flags = 0;
+        for (Map.Entry<String, Integer> entry : keywords.entrySet())
+        {
+            String keyword = entry.getKey();
+            if (keyword == null || keyword.isEmpty())
+            {
+                continue;
+            }
+            int node = 0;
+            for (int i = 0; i < keyword.length(); i++)
+            {
+                Integer child = trie.get(node).get(keyword.charAt(i));
+                if (child == null)
+                {
+                    child = trie.size();
+                    trie.add(new TreeMap<>());
+                    outputs.add(0);
+                    trie.get(node).put(keyword.charAt(i), child);
+                }
+                node = child;
+            }
+            outputs.set(node, outputs.get(node) | entry.getValue());
+            flags |= entry.getValue();
+        }
+        this.allFlags = flags;
+
+        int size = trie.size();
+        childChars = new char[size][];
+        childNodes = new int[size][];
+        fail = new int[size];
+        output = new int[size];
+        for (int node = 0; node < size; node++)
+        {
+            TreeMap<Character, Integer> children = trie.get(node);
+            childChars[node] = new char[children.size()];
+            childNodes[node] = new int[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> child : children.entrySet())
+            {
+                childChars[node][i] = child.getKey();
+                childNodes[node][i] = child.getValue();
+                i++;
+            }
+            output[node] = outputs.get(node);
+        }
+        for (int i = 0; i < childChars[0].length; i++)
+        {
+            rootNext[childChars[0][i]] = childNodes[0][i];
+        }
+
+        // 按层次遍历计算失配指针，并把失配节点的输出合并到当前节点
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : childNodes[0])
+        {
+            queue.add(child);
+        }
+        while (!queue.isEmpty())
+        {
+            int node = queue.poll();
+            for (int i = 0; i < childChars[node].length; i++)
+            {
+                char c = childChars[node][i];
+                int child = childNodes[node][i];
+                int state = fail[node];
+                int target = transition(state, c);
+                while (target < 0 && state != 0)
+                {
+                    state = fail[state];
+                    target = transition(state, c);
+                }
+                fail[child] = target < 0 ? 0 : target;
+                output[child] |= output[fail[child]];
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * 扫描文本
+     *
+     * @return 命中关键字的标志位之和，未命中返回0
+     */
+    public int match(CharSequence text)
+    {
+        int state = 0;
+        int flags = 0;
+        for (int i = 0, length = text.length(); i < length; i++)
+        {
+            char c = text.charAt(i);
+            int target = transition(state, c);
+            while (target < 0 && state != 0)
+            {
+                state = fail[state];
+                target = transition(state, c);
+            }
+            state = target < 0 ? 0 : target;
+            if (output[state] != 0)
+            {
+                flags |= output[state];
+                if (flags == allFlags)
+                {
+                    break;
+                }
+            }
+        }
+        return flags;
+    }
+
+    /**
+     * 节点数（含根节点）
+     */
+    public int size()
+    {
+        return fail.length;
+    }
+
+    /**
+     * 状态转移，无对应子节点时返回-1（根节点返回-1表示停留在根）
+     */
+    private int transition(int state, char c)
+    {
+        if (state == 0)
+        {
+            int next = rootNext[c];
+            return next == 0 ? -1 : next;
+        }
+        int index = Arrays.binarySearch(childChars[state], c);
+        return index < 0 ? -1 : childNodes[state][index];
+    }
+}
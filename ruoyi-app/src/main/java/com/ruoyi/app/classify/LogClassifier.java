@@ -0,0 +1,206 @@
+package com.ruoyi.app.classify;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.ruoyi.common.utils.StringUtils;
+import com.ruoyi.system.service.ISysConfigService;
+
+/**
+ * 分析日志分类器
+ *
+ * 所有关键字编译进同一个{@link KeywordMatcher}，每行日志只扫描一遍，
+ * 得到重要性和日志级别的标志位，由调用方按各自规则组合使用。
+ * 关键字在参数设置中维护（键名app.log.keywords.*，英文逗号分隔），修改后定时重新编译生效。
+ *
+ * @author ruoyi
+ */
+@Component
+public class LogClassifier
+{
+    private static final Logger log = LoggerFactory.getLogger(LogClassifier.class);
+
+    /** 参数键名前缀 */
+    public static final String CONFIG_KEY_PREFIX = "app.log.keywords.";
+
+    /** 关键字配置的检查间隔（秒） */
+    private static final long REFRESH_SECONDS = 30;
+
+    /** 动态分析：重要日志，总是推送 */
+    public static final int IMPORTANT = 1;
+    /** 动态分析：调试信息，不推送 */
+    public static final int SKIP = 1 << 1;
+    /** 隐私行为告警行 */
+    public static final int EVENT = 1 << 2;
+    /** Frida检测：重要日志 */
+    public static final int FRIDA_IMPORTANT = 1 << 3;
+    /** 级别：错误 */
+    public static final int LEVEL_ERROR = 1 << 4;
+    /** 级别：警告 */
+    public static final int LEVEL_WARN = 1 << 5;
+    /** 级别：成功 */
+    public static final int LEVEL_SUCCESS = 1 << 6;
+    /** 级别：隐私告警 */
+    public static final int LEVEL_ALERT = 1 << 7;
+
+    /**
+     * 关键字分组
+     */
+    public enum Group
+    {
+        IMPORTANT("important", LogClassifier.IMPORTANT,
+                "✅,❌,⚠️,🔍,📊,🎯,💡,🚀,📱,🖥️,🔗,SUCCESS,ERROR,WARN,INFO,Hook脚本加载成功,监控中,检测完成,应用已启动,"
+                        + "已附加到进程,Hook初始化完成,隐私数据收集进度,步骤,启动,安装,配置,完成,失败,成功"),
+        SKIP("skip", LogClassifier.SKIP,
+                "调用堆栈：,android.app.,com.android.,java.lang.,Native Method,Handler.java,Looper.java,"
+                        + "ApplicationPackageManager,com.mob.tools,com.mob.commons"),
+        EVENT("event", LogClassifier.EVENT, "APP行为：,行为主体："),
+        FRIDA_IMPORTANT("fridaImportant", LogClassifier.FRIDA_IMPORTANT,
+                "[ERROR],[SUCCESS],APP行为：,隐私,权限,✅,❌,⚠️,━━━,Frida,Hook,检测"),
+        ERROR("error", LEVEL_ERROR, "[ERROR],❌"),
+        WARN("warn", LEVEL_WARN, "[WARN],⚠️"),
+        SUCCESS("success", LEVEL_SUCCESS, "[SUCCESS],✅"),
+        ALERT("alert", LEVEL_ALERT, "[ALERT],APP行为：,隐私");
+
+        private final String key;
+
+        private final int flag;
+
+        private final String defaults;
+
+        Group(String key, int flag, String defaults)
+        {
+            this.key = key;
+            this.flag = flag;
+            this.defaults = defaults;
+        }
+
+        public String getConfigKey()
+        {
+            return CONFIG_KEY_PREFIX + key;
+        }
+
+        public int getFlag()
+        {
+            return flag;
+        }
+
+        public String getDefaults()
+        {
+            return defaults;
+        }
+    }
+
+    @Autowired(required = false)
+    private ISysConfigService configService;
+
+    @Autowired(required = false)
+    private ScheduledExecutorService scheduledExecutorService;
+
+    /** 当前生效的关键字（分组 -> 逗号分隔的关键字），用于判断配置是否变化 */
+    private volatile Map<Group, String> keywords;
+
+    private volatile KeywordMatcher matcher;
+
+    /**
+     * 使用默认关键字创建（未接入参数配置时使用）
+     */
+    public LogClassifier()
+    {
+        Map<Group, String> defaults = new LinkedHashMap<>();
+        for (Group group : Group.values())
+        {
+            defaults.put(group, group.getDefaults());
+        }
+        compile(defaults);
+    }
+
+    @PostConstruct
+    public void init()
+    {
+        if (configService != null && scheduledExecutorService != null)
+        {
+            scheduledExecutorService.scheduleWithFixedDelay(this::refresh, 0, REFRESH_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 对一行日志分类
+     *
+     * @return 标志位
+     */
+    public int classify(CharSequence line)
+    {
+        return matcher.match(line);
+    }
+
+    /**
+     * 根据标志位确定前端显示的日志级别
+     */
+    public static String level(int flags)
+    {
+        if ((flags & LEVEL_ERROR) != 0)
+        {
+            return "error";
+        }
+        if ((flags & LEVEL_WARN) != 0)
+        {
+            return "warn";
+        }
+        if ((flags & LEVEL_SUCCESS) != 0)
+        {
+            return "success";
+        }
+        if ((flags & LEVEL_ALERT) != 0)
+        {
+            return "alert";
+        }
+        return "info";
+    }
+
+    /**
+     * 从参数配置重新加载关键字，未配置的分组使用默认值；内容未变化时不重新编译
+     */
+    public void refresh()
+    {
+        try
+        {
+            Map<Group, String> latest = new LinkedHashMap<>();
+            for (Group group : Group.values())
+            {
+                String value = configService.selectConfigByKey(group.getConfigKey());
+                latest.put(group, StringUtils.isEmpty(value) ? group.getDefaults() : value);
+            }
+            if (!latest.equals(keywords))
+            {
+                compile(latest);
+                log.info("日志分类关键字已更新，自动机节点数: {}", matcher.size());
+            }
+        }
+        catch (Exception e)
+        {
+            log.warn("加载日志分类关键字失败: {}", e.getMessage());
+        }
+    }
+
+    private void compile(Map<Group, String> groups)
+    {
+        Map<String, Integer> flags = new HashMap<>();
+        for (Map.Entry<Group, String> entry : groups.entrySet())
+        {
+            for (String keyword : StringUtils.str2List(entry.getValue(), ",", true, true))
+            {
+                flags.merge(keyword, entry.getKey().getFlag(), (a, b) -> a | b);
+            }
+        }
+        this.matcher = new KeywordMatcher(flags);
+        this.keywords = groups;
+    }
+}
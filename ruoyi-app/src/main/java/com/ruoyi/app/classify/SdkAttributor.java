@@ -0,0 +1,157 @@
+package com.ruoyi.app.classify;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.ruoyi.app.config.AnalysisConfig;
+import com.ruoyi.app.stats.PrivacyAggregator;
+import com.ruoyi.common.utils.StringUtils;
+
+/**
+ * 第三方SDK归属判定
+ *
+ * SDK规则与检测脚本使用的sdk.json格式相同（[{"sdk_name": ..., "package_name": ...}]），
+ * 配置analysis.sdk-rules-path时从该文件加载，文件修改后定时重新编译生效；未配置时使用内置规则。
+ * 规则更新后可对已结束任务的事件重新判定行为主体，不必重新检测。
+ *
+ * @author ruoyi
+ */
+@Component
+public class SdkAttributor
+{
+    private static final Logger log = LoggerFactory.getLogger(SdkAttributor.class);
+
+    /** 内置规则 */
+    private static final String DEFAULT_RULES = "/sdk/sdk.json";
+
+    /** 规则文件的检查间隔（秒） */
+    private static final long REFRESH_SECONDS = 30;
+
+    @Autowired
+    private AnalysisConfig analysisConfig;
+
+    @Autowired
+    private ScheduledExecutorService scheduledExecutorService;
+
+    private volatile SdkMatcher matcher = new SdkMatcher(new LinkedHashMap<>());
+
+    /** 当前规则的来源及文件版本（修改时间和大小），用于判断文件是否变化 */
+    private volatile String source;
+
+    private volatile String version;
+
+    private volatile long loadTime;
+
+    @PostConstruct
+    public void init()
+    {
+        refresh();
+        scheduledExecutorService.scheduleWithFixedDelay(this::refresh, REFRESH_SECONDS, REFRESH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 确定堆栈的行为主体
+     *
+     * @return SDK名称，不属于任何SDK时返回“APP本身”
+     */
+    public String attribute(String stack)
+    {
+        String name = matcher.attribute(stack);
+        return name == null ? PrivacyAggregator.FIRST_PARTY : name;
+    }
+
+    /**
+     * 检查规则文件，有变化时重新编译
+     */
+    public void refresh()
+    {
+        String path = analysisConfig.getSdkRulesPath();
+        File file = StringUtils.isEmpty(path) ? null : new File(path);
+        String latest = file == null ? DEFAULT_RULES : file.lastModified() + ":" + file.length();
+        if (latest.equals(version))
+        {
+            return;
+        }
+        try
+        {
+            String content;
+            if (file == null)
+            {
+                try (InputStream in = SdkAttributor.class.getResourceAsStream(DEFAULT_RULES))
+                {
+                    content = IOUtils.toString(in, StandardCharsets.UTF_8);
+                }
+            }
+            else
+            {
+                content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            }
+            Map<String, String> prefixes = parse(content);
+            this.matcher = new SdkMatcher(prefixes);
+            this.source = file == null ? "classpath:" + DEFAULT_RULES : file.getAbsolutePath();
+            this.version = latest;
+            this.loadTime = System.currentTimeMillis();
+            log.info("第三方SDK规则已加载: {}，包名前缀 {} 个", source, prefixes.size());
+        }
+        catch (Exception e)
+        {
+            // 保留原有规则，下次检查时重试
+            log.warn("加载第三方SDK规则失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 立即重新加载规则（不论文件是否变化）
+     */
+    public Map<String, Object> reload()
+    {
+        version = null;
+        refresh();
+        return getInfo();
+    }
+
+    /**
+     * 当前规则的来源、前缀数和加载时间
+     */
+    public Map<String, Object> getInfo()
+    {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("source", source);
+        info.put("prefixes", matcher.size());
+        info.put("loadTime", loadTime == 0 ? null : new Date(loadTime));
+        return info;
+    }
+
+    private static Map<String, String> parse(String content)
+    {
+        Map<String, String> prefixes = new LinkedHashMap<>();
+        JSONArray rules = JSON.parseArray(content);
+        for (int i = 0; i < rules.size(); i++)
+        {
+            JSONObject rule = rules.getJSONObject(i);
+            String packageName = StringUtils.trim(rule.getString("package_name"));
+            if (StringUtils.isEmpty(packageName))
+            {
+                continue;
+            }
+            String sdkName = StringUtils.trim(rule.getString("sdk_name"));
+            prefixes.put(packageName, StringUtils.isEmpty(sdkName) ? packageName : sdkName);
+        }
+        return prefixes;
+    }
+}
@@ -0,0 +1,168 @@
+package com.ruoyi.app.classify;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 第三方SDK包名前缀匹配器（前缀树）
+ *
+ * 按堆栈逐帧匹配：每帧从类名开头沿前缀树走一遍，取最长的SDK包名前缀，
+ * 前缀须在包名分段处结束（com.mob匹配com.mob.tools.a，不匹配com.mobile.a）。
+ * 第一个（最靠近被调用接口的）属于SDK的帧决定行为主体。构建后只读，可多线程共享。
+ *
+ * @author ruoyi
+ */
+public class SdkMatcher
+{
+    /** 子节点：按字符升序排列，二分查找 */
+    private final char[][] childChars;
+
+    private final int[][] childNodes;
+
+    /** 以该节点结束的包名前缀对应的SDK名称，不是前缀结尾时为null */
+    private final String[] names;
+
+    /**
+     * @param prefixes 包名前缀 -> SDK名称
+     */
+    public SdkMatcher(Map<String, String> prefixes)
+    {
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<String> terminals = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        terminals.add(null);
+        for (Map.Entry<String, String> entry : prefixes.entrySet())
+        {
+            String prefix = entry.getKey();
+            if (prefix == null || prefix.isEmpty())
+            {
+                continue;
+            }
+            int node = 0;
+            for (int i = 0; i < prefix.length(); i++)
+            {
+                Integer child = trie.get(node).get(prefix.charAt(i));
+                if (child == null)
+                {
+                    child = trie.size();
+                    trie.add(new TreeMap<>());
+                    terminals.add(null);
+                    trie.get(node).put(prefix.charAt(i), child);
+                }
+                node = child;
+            }
+            terminals.set(node, entry.getValue());
+        }
+
+        int size = trie.size();
+        childChars = new char[size][];
+        childNodes = new int[size][];
+        names = terminals.toArray(new String[0]);
+        for (int node = 0; node < size; node++)
+        {
+            TreeMap<Character, Integer> children = trie.get(node);
+            childChars[node] = new char[children.size()];
+            childNodes[node] = new int[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> child : children.entrySet())
+            {
+                childChars[node][i] = child.getKey();
+                childNodes[node][i] = child.getValue();
+                i++;
+            }
+        }
+    }
+
+    /**
+     * 确定堆栈的行为主体
+     *
+     * @param stack 调用堆栈，每行一帧（可带"at "前缀）
+     * @return 第一个属于SDK的帧对应的SDK名称，都不属于SDK时返回null
+     */
+    public String attribute(String stack)
+    {
+        if (stack == null || names.length == 1)
+        {
+            return null;
+        }
+        int length = stack.length();
+        int start = 0;
+        while (start < length)
+        {
+            int end = stack.indexOf('\n', start);
+            if (end < 0)
+            {
+                end = length;
+            }
+            int from = start;
+            while (from < end && Character.isWhitespace(stack.charAt(from)))
+            {
+                from++;
+            }
+            if (stack.startsWith("at ", from))
+            {
+                from += 3;
+            }
+            String name = match(stack, from, end);
+            if (name != null)
+            {
+                return name;
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
+    /**
+     * 匹配一帧
+     *
+     * @return 最长的SDK包名前缀对应的名称，没有时返回null
+     */
+    public String match(CharSequence frame, int from, int end)
+    {
+        int node = 0;
+        String name = null;
+        for (int i = from; i < end; i++)
+        {
+            char c = frame.charAt(i);
+            int index = Arrays.binarySearch(childChars[node], c);
+            if (index < 0)
+            {
+                break;
+            }
+            node = childNodes[node][index];
+            if (names[node] != null && (c == '.' || i + 1 == end || isBoundary(frame.charAt(i + 1))))
+            {
+                name = names[node];
+            }
+        }
+        return name;
+    }
+
+    /**
+     * 前缀数
+     */
+    public int size()
+    {
+        int count = 0;
+        for (String name : names)
+        {
+            if (name != null)
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 包名分段处：前缀后紧跟的不是标识符字符
+     */
+    private static boolean isBoundary(char c)
+    {
+        return c == '.' || c == '$' || c == '(' || Character.isWhitespace(c);
+    }
+}
@@ -0,0 +1,425 @@
+package com.ruoyi.app.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 分析任务调度配置类
+ *
+ * @author ruoyi
+ */
+@Component
+@ConfigurationProperties(prefix = "analysis")
+public class AnalysisConfig
+{
+    /**
+     * 执行节点（模拟器容器）列表，未配置devices时使用，容器均在默认宿主机上
+     */
+    private List<String> workers = new ArrayList<>();
+
+    /**
+     * 设备池：模拟器容器及其所在宿主机，配置后取代workers
+     */
+    private List<Device> devices = new ArrayList<>();
+
+    /**
+     * 单个执行节点的最大并发任务数（设备未单独配置capacity时使用）
+     */
+    private int workerConcurrency = 1;
+
+    /**
+     * 默认的VNC访问地址（设备未单独配置vncUrl时使用）
+     */
+    private String vncUrl = "http://192.168.216.146:6080/vnc_lite.html";
+
+    /**
+     * 设备租约有效期（秒），任务进程存活期间定期续约，超时未续约的租约被回收
+     */
+    private int leaseSeconds = 90;
+
+    /**
+     * 设备负载采集间隔（秒）
+     */
+    private int probeSeconds = 30;
+
+    /**
+     * 连续采集失败多少次后暂停向设备分配任务（单次SSH抖动不影响分配）
+     */
+    private int probeFailures = 3;
+
+    /**
+     * 排队任务上限，超过后拒绝提交
+     */
+    private int maxQueueSize = 200;
+
+    /**
+     * 单个任务的预估耗时（秒），用于尚无历史数据时估算开始时间
+     */
+    private int estimatedTaskSeconds = 300;
+
+    /**
+     * 输出泵线程数（所有任务共享，负责远程输出的解码与分发）
+     */
+    private int pumpThreads = 2;
+
+    /**
+     * 日志推送线程数（所有SSE订阅者共享）
+     */
+    private int sseThreads = 4;
+
+    /**
+     * 每个任务保留的日志条数（环形缓冲长度，用于晚加入和断线重连的回放）
+     */
+    private int sseBufferSize = 2000;
+
+    /**
+     * 每个订阅者的最大推送速率（条/秒），超出部分合并计数；客户端接收变慢时自动降低
+     */
+    private int sseRate = 20;
+
+    /**
+     * 每个订阅者允许的突发推送条数
+     */
+    private int sseBurst = 100;
+
+    /**
+     * 合并计数的统计周期（秒），每个周期发送一条摘要
+     */
+    private int sseCoalesceSeconds = 5;
+
+    /**
+     * 批量分析：上传阶段（APK传到设备所在宿主机并复制进容器）的线程数
+     */
+    private int batchUploadThreads = 2;
+
+    /**
+     * 批量分析：安装阶段的线程数（同一批次内的安装依次执行）
+     */
+    private int batchInstallThreads = 2;
+
+    /**
+     * 批量分析：Hook检测阶段的线程数（只负责启动检测，同一批次内的检测依次执行）
+     */
+    private int batchHookThreads = 2;
+
+    /**
+     * 批量分析：报告阶段的线程数
+     */
+    private int batchReportThreads = 2;
+
+    /**
+     * 单个批次的最大应用数
+     */
+    private int batchMaxFiles = 50;
+
+    /**
+     * 报告本地缓存的容量（MB）
+     */
+    private int reportCacheMaxMb = 512;
+
+    /**
+     * 第三方SDK规则文件（与检测脚本的sdk.json格式相同），为空时使用内置规则
+     */
+    private String sdkRulesPath;
+
+    public List<String> getWorkers()
+    {
+        return workers;
+    }
+
+    public void setWorkers(List<String> workers)
+    {
+        this.workers = workers;
+    }
+
+    public List<Device> getDevices()
+    {
+        return devices;
+    }
+
+    public void setDevices(List<Device> devices)
+    {
+        this.devices = devices;
+    }
+
+    public String getVncUrl()
+    {
+        return vncUrl;
+    }
+
+    public void setVncUrl(String vncUrl)
+    {
+        this.vncUrl = vncUrl;
+    }
+
+    public int getLeaseSeconds()
+    {
+        return leaseSeconds;
+    }
+
+    public void setLeaseSeconds(int leaseSeconds)
+    {
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    public int getProbeSeconds()
+    {
+        return probeSeconds;
+    }
+
+    public void setProbeSeconds(int probeSeconds)
+    {
+        this.probeSeconds = probeSeconds;
+    }
+
+    public int getProbeFailures()
+    {
+        return probeFailures;
+    }
+
+    public void setProbeFailures(int probeFailures)
+    {
+        this.probeFailures = probeFailures;
+    }
+
+    public int getWorkerConcurrency()
+    {
+        return workerConcurrency;
+    }
+
+    public void setWorkerConcurrency(int workerConcurrency)
+    {
+        this.workerConcurrency = workerConcurrency;
+    }
+
+    public int getMaxQueueSize()
+    {
+        return maxQueueSize;
+    }
+
+    public void setMaxQueueSize(int maxQueueSize)
+    {
+        this.maxQueueSize = maxQueueSize;
+    }
+
+    public int getEstimatedTaskSeconds()
+    {
+        return estimatedTaskSeconds;
+    }
+
+    public void setEstimatedTaskSeconds(int estimatedTaskSeconds)
+    {
+        this.estimatedTaskSeconds = estimatedTaskSeconds;
+    }
+
+    public int getPumpThreads()
+    {
+        return pumpThreads;
+    }
+
+    public void setPumpThreads(int pumpThreads)
+    {
+        this.pumpThreads = pumpThreads;
+    }
+
+    public int getSseThreads()
+    {
+        return sseThreads;
+    }
+
+    public void setSseThreads(int sseThreads)
+    {
+        this.sseThreads = sseThreads;
+    }
+
+    public int getSseBufferSize()
+    {
+        return sseBufferSize;
+    }
+
+    public void setSseBufferSize(int sseBufferSize)
+    {
+        this.sseBufferSize = sseBufferSize;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "AnalysisConfig{" +
+                "workers=" + workers +
+                ", devices=" + devices +
+                ", workerConcurrency=" + workerConcurrency +
+                ", maxQueueSize=" + maxQueueSize +
+                ", estimatedTaskSeconds=" + estimatedTaskSeconds +
+                ", pumpThreads=" + pumpThreads +
+                ", sseThreads=" + sseThreads +
+                ", sseBufferSize=" + sseBufferSize +
+                '}';
+    }
+
+    public int getSseRate()
+    {
+        return sseRate;
+    }
+
+    public void setSseRate(int sseRate)
+    {
+        this.sseRate = sseRate;
+    }
+
+    public int getSseBurst()
+    {
+        return sseBurst;
+    }
+
+    public void setSseBurst(int sseBurst)
+    {
+        this.sseBurst = sseBurst;
+    }
+
+    public int getSseCoalesceSeconds()
+    {
+        return sseCoalesceSeconds;
+    }
+
+    public void setSseCoalesceSeconds(int sseCoalesceSeconds)
+    {
+        this.sseCoalesceSeconds = sseCoalesceSeconds;
+    }
+
+    public int getBatchUploadThreads()
+    {
+        return batchUploadThreads;
+    }
+
+    public void setBatchUploadThreads(int batchUploadThreads)
+    {
+        this.batchUploadThreads = batchUploadThreads;
+    }
+
+    public int getBatchInstallThreads()
+    {
+        return batchInstallThreads;
+    }
+
+    public void setBatchInstallThreads(int batchInstallThreads)
+    {
+        this.batchInstallThreads = batchInstallThreads;
+    }
+
+    public int getBatchHookThreads()
+    {
+        return batchHookThreads;
+    }
+
+    public void setBatchHookThreads(int batchHookThreads)
+    {
+        this.batchHookThreads = batchHookThreads;
+    }
+
+    public int getBatchReportThreads()
+    {
+        return batchReportThreads;
+    }
+
+    public void setBatchReportThreads(int batchReportThreads)
+    {
+        this.batchReportThreads = batchReportThreads;
+    }
+
+    public int getBatchMaxFiles()
+    {
+        return batchMaxFiles;
+    }
+
+    public void setBatchMaxFiles(int batchMaxFiles)
+    {
+        this.batchMaxFiles = batchMaxFiles;
+    }
+
+    public int getReportCacheMaxMb()
+    {
+        return reportCacheMaxMb;
+    }
+
+    public void setReportCacheMaxMb(int reportCacheMaxMb)
+    {
+        this.reportCacheMaxMb = reportCacheMaxMb;
+    }
+
+    public String getSdkRulesPath()
+    {
+        return sdkRulesPath;
+    }
+
+    public void setSdkRulesPath(String sdkRulesPath)
+    {
+        this.sdkRulesPath = sdkRulesPath;
+    }
+
+    /**
+     * 设备（模拟器容器）配置
+     */
+    public static class Device
+    {
+        /** 容器名称 */
+        private String name;
+
+        /** 所在宿主机，为空时为默认宿主机（sftp.host） */
+        private String host;
+
+        /** VNC访问地址 */
+        private String vncUrl;
+
+        /** 最大并发任务数 */
+        private Integer capacity;
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public void setName(String name)
+        {
+            this.name = name;
+        }
+
+        public String getHost()
+        {
+            return host;
+        }
+
+        public void setHost(String host)
+        {
+            this.host = host;
+        }
+
+        public String getVncUrl()
+        {
+            return vncUrl;
+        }
+
+        public void setVncUrl(String vncUrl)
+        {
+            this.vncUrl = vncUrl;
+        }
+
+        public Integer getCapacity()
+        {
+            return capacity;
+        }
+
+        public void setCapacity(Integer capacity)
+        {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public String toString()
+        {
+            return name + "@" + host;
+        }
+    }
+}
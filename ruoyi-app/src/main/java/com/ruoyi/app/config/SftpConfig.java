@@ -42,6 +42,56 @@ public class SftpConfig
      */
     private String apkUrlPrefix;
 
+    /**
+     * 连接超时时间（毫秒）
+     */
+    private int connectTimeout = 30000;
+
+    /**
+     * 会话池最大会话数
+     */
+    private int poolMaxSessions = 4;
+
+    /**
+     * 会话池常驻（预热）会话数
+     */
+    private int poolMinIdle = 1;
+
+    /**
+     * 单个会话最大并发通道数（需小于服务端sshd的MaxSessions，默认10）
+     */
+    private int maxChannelsPerSession = 8;
+
+    /**
+     * 获取通道的最大等待时间（毫秒）
+     */
+    private long borrowTimeout = 30000;
+
+    /**
+     * 会话保活间隔（毫秒）
+     */
+    private int keepAliveInterval = 15000;
+
+    /**
+     * 保活无响应的最大次数，超过后判定会话失效
+     */
+    private int keepAliveCountMax = 3;
+
+    /**
+     * 并行上传的文件数（每个文件占用一个sftp通道）
+     */
+    private int uploadThreads = 3;
+
+    /**
+     * 分块上传的块大小（字节），连接中断后从已写入的位置续传
+     */
+    private long uploadChunkSize = 8 * 1024 * 1024L;
+
+    /**
+     * 单个文件上传中断后的最大重试次数
+     */
+    private int uploadRetries = 3;
+
     public String getHost()
     {
         return host;
@@ -102,6 +152,106 @@ public class SftpConfig
         this.apkUrlPrefix = apkUrlPrefix;
     }
 
+    public int getConnectTimeout()
+    {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout)
+    {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getPoolMaxSessions()
+    {
+        return poolMaxSessions;
+    }
+
+    public void setPoolMaxSessions(int poolMaxSessions)
+    {
+        this.poolMaxSessions = poolMaxSessions;
+    }
+
+    public int getPoolMinIdle()
+    {
+        return poolMinIdle;
+    }
+
+    public void setPoolMinIdle(int poolMinIdle)
+    {
+        this.poolMinIdle = poolMinIdle;
+    }
+
+    public int getMaxChannelsPerSession()
+    {
+        return maxChannelsPerSession;
+    }
+
+    public void setMaxChannelsPerSession(int maxChannelsPerSession)
+    {
+        this.maxChannelsPerSession = maxChannelsPerSession;
+    }
+
+    public long getBorrowTimeout()
+    {
+        return borrowTimeout;
+    }
+
+    public void setBorrowTimeout(long borrowTimeout)
+    {
+        this.borrowTimeout = borrowTimeout;
+    }
+
+    public int getKeepAliveInterval()
+    {
+        return keepAliveInterval;
+    }
+
+    public void setKeepAliveInterval(int keepAliveInterval)
+    {
+        this.keepAliveInterval = keepAliveInterval;
+    }
+
+    public int getKeepAliveCountMax()
+    {
+        return keepAliveCountMax;
+    }
+
+    public void setKeepAliveCountMax(int keepAliveCountMax)
+    {
+        this.keepAliveCountMax = keepAliveCountMax;
+    }
+
+    public int getUploadThreads()
+    {
+        return uploadThreads;
+    }
+
+    public void setUploadThreads(int uploadThreads)
+    {
+        this.uploadThreads = uploadThreads;
+    }
+
+    public long getUploadChunkSize()
+    {
+        return uploadChunkSize;
+    }
+
+    public void setUploadChunkSize(long uploadChunkSize)
+    {
+        this.uploadChunkSize = uploadChunkSize;
+    }
+
+    public int getUploadRetries()
+    {
+        return uploadRetries;
+    }
+
+    public void setUploadRetries(int uploadRetries)
+    {
+        this.uploadRetries = uploadRetries;
+    }
+
     @Override
     public String toString()
     {
@@ -111,6 +261,8 @@ public class SftpConfig
                 ", username='" + username + '\'' +
                 ", apkUploadPath='" + apkUploadPath + '\'' +
                 ", apkUrlPrefix='" + apkUrlPrefix + '\'' +
+                ", poolMaxSessions=" + poolMaxSessions +
+                ", maxChannelsPerSession=" + maxChannelsPerSession +
                 '}';
     }
 }
@@ -2,22 +2,32 @@ package com.ruoyi.app.controller;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
-import com.ruoyi.app.config.SftpConfig;
-import com.ruoyi.app.utils.SftpUtils;
+import com.ruoyi.app.batch.BatchJob;
+import com.ruoyi.app.batch.BatchPipeline;
+import com.ruoyi.app.domain.AppAnalysisTask;
+import com.ruoyi.app.service.IApkUploadService;
+import com.ruoyi.app.service.IAppAnalysisTaskService;
+import com.ruoyi.app.task.AnalysisTaskDispatcher;
 import com.ruoyi.common.core.controller.BaseController;
 import com.ruoyi.common.core.domain.AjaxResult;
+import com.ruoyi.common.core.page.TableDataInfo;
 import com.ruoyi.common.utils.StringUtils;
-import com.ruoyi.common.utils.uuid.IdUtils;
+import com.ruoyi.common.utils.uuid.Seq;
 
 /**
  * 应用检测任务控制器
@@ -31,15 +41,25 @@ public class AppTaskController extends BaseController
     private static final Logger log = LoggerFactory.getLogger(AppTaskController.class);
     
     @Autowired
-    private SftpConfig sftpConfig;
+    private IApkUploadService apkUploadService;
+
+    @Autowired
+    private AnalysisTaskDispatcher analysisTaskDispatcher;
+
+    @Autowired
+    private IAppAnalysisTaskService analysisTaskService;
+
+    @Autowired
+    private BatchPipeline batchPipeline;
 
     /**
      * APK/IPA文件上传（通过SFTP上传到Ubuntu服务器）
+     * 
+     * @param uploadId 上传批次ID（客户端生成），上传过程中可据此查询进度
      */
     @PostMapping("/upload")
-    public AjaxResult uploadApk(MultipartFile file) throws Exception
+    public AjaxResult uploadApk(MultipartFile file, @RequestParam(required = false) String uploadId) throws Exception
     {
-        SftpUtils sftpUtils = null;
         try
         {
             // 验证文件类型
@@ -50,8 +70,7 @@ public class AppTaskController extends BaseController
             }
 
             // 检查文件扩展名
-            String extension = originalFilename.substring(originalFilename.lastIndexOf(".") + 1).toLowerCase();
-            if (!"apk".equals(extension) && !"ipa".equals(extension))
+            if (!isAppFile(originalFilename))
             {
                 return AjaxResult.error("只支持上传 APK 或 IPA 格式的文件");
             }
@@ -63,40 +82,26 @@ public class AppTaskController extends BaseController
                 return AjaxResult.error("文件大小不能超过 300MB");
             }
 
-            // 生成唯一文件名（保留原始扩展名）
-            String uniqueFileName = IdUtils.fastSimpleUUID() + "_" + originalFilename;
-            
-            // 连接SFTP服务器
-            sftpUtils = new SftpUtils(
-                sftpConfig.getHost(),
-                sftpConfig.getPort(),
-                sftpConfig.getUsername(),
-                sftpConfig.getPassword()
-            );
-            sftpUtils.connect();
-            
-            // 上传文件到Ubuntu服务器的 /opt/apk 目录
-            sftpUtils.uploadFile(
-                file.getInputStream(),
-                sftpConfig.getApkUploadPath(),
-                uniqueFileName
-            );
-            
-            // 构建文件完整路径
-            String remoteFilePath = sftpConfig.getApkUploadPath() + "/" + uniqueFileName;
-            
-            // 构建文件访问URL
-            String fileUrl = sftpConfig.getApkUrlPrefix() + "/" + uniqueFileName;
+            // 分块上传到Ubuntu服务器的 /opt/apk 目录，中断后自动续传
+            Map<String, Object> result = apkUploadService.uploadFiles(Collections.singletonList(file), uploadId).get(0);
+            if (!Boolean.TRUE.equals(result.get("success")))
+            {
+                return AjaxResult.error("文件上传失败: " + result.get("error"));
+            }
             
-            // 返回结果
-            AjaxResult ajax = AjaxResult.success("文件上传成功");
-            ajax.put("fileName", uniqueFileName);
+            // 返回结果（相同内容已上传过时直接复用，不再传输）
+            boolean reused = Boolean.TRUE.equals(result.get("reused"));
+            AjaxResult ajax = AjaxResult.success(reused ? "文件已存在，已复用" : "文件上传成功");
+            ajax.put("fileName", result.get("fileName"));
             ajax.put("originalFilename", originalFilename);
-            ajax.put("filePath", remoteFilePath); // Ubuntu服务器绝对路径
+            ajax.put("filePath", result.get("filePath")); // Ubuntu服务器绝对路径
             ajax.put("fileSize", file.getSize());
-            ajax.put("url", fileUrl);
+            ajax.put("url", result.get("url"));
+            ajax.put("sha256", result.get("sha256"));
+            ajax.put("reused", reused);
+            ajax.put("previousTasks", result.get("previousTasks"));
             
-            log.info("APK文件通过SFTP上传成功: {}, 远程路径: {}", originalFilename, remoteFilePath);
+            log.info("APK文件通过SFTP上传成功: {}, 远程路径: {}", originalFilename, result.get("filePath"));
             
             return ajax;
         }
@@ -105,23 +110,16 @@ public class AppTaskController extends BaseController
             log.error("APK文件上传失败", e);
             return AjaxResult.error("文件上传失败: " + e.getMessage());
         }
-        finally
-        {
-            // 断开SFTP连接
-            if (sftpUtils != null)
-            {
-                sftpUtils.disconnect();
-            }
-        }
     }
 
     /**
      * 批量上传APK/IPA文件（通过SFTP上传到Ubuntu服务器）
+     * 
+     * 多个文件并行上传，部分文件失败时返回成功的部分并在failedFiles中列出失败的文件
      */
     @PostMapping("/uploads")
-    public AjaxResult uploadApks(List<MultipartFile> files) throws Exception
+    public AjaxResult uploadApks(List<MultipartFile> files, @RequestParam(required = false) String uploadId) throws Exception
     {
-        SftpUtils sftpUtils = null;
         try
         {
             if (files == null || files.isEmpty())
@@ -129,66 +127,70 @@ public class AppTaskController extends BaseController
                 return AjaxResult.error("请选择要上传的文件");
             }
 
-            // 连接SFTP服务器
-            sftpUtils = new SftpUtils(
-                sftpConfig.getHost(),
-                sftpConfig.getPort(),
-                sftpConfig.getUsername(),
-                sftpConfig.getPassword()
-            );
-            sftpUtils.connect();
-
-            List<String> fileNames = new ArrayList<>();
-            List<String> filePaths = new ArrayList<>();
-            List<String> originalFilenames = new ArrayList<>();
-            List<Long> fileSizes = new ArrayList<>();
-
+            // 验证文件
+            List<MultipartFile> validFiles = new ArrayList<>();
             for (MultipartFile file : files)
             {
-                // 验证文件
                 String originalFilename = file.getOriginalFilename();
                 if (StringUtils.isEmpty(originalFilename))
                 {
                     continue;
                 }
-
-                String extension = originalFilename.substring(originalFilename.lastIndexOf(".") + 1).toLowerCase();
-                if (!"apk".equals(extension) && !"ipa".equals(extension))
+                if (!isAppFile(originalFilename))
                 {
                     log.warn("跳过非APK/IPA文件: {}", originalFilename);
                     continue;
                 }
+                validFiles.add(file);
+            }
 
-                // 生成唯一文件名
-                String uniqueFileName = IdUtils.fastSimpleUUID() + "_" + originalFilename;
-                
-                // 上传文件到Ubuntu服务器
-                sftpUtils.uploadFile(
-                    file.getInputStream(),
-                    sftpConfig.getApkUploadPath(),
-                    uniqueFileName
-                );
-                
-                String remoteFilePath = sftpConfig.getApkUploadPath() + "/" + uniqueFileName;
-                
-                fileNames.add(uniqueFileName);
-                filePaths.add(remoteFilePath);
-                originalFilenames.add(originalFilename);
-                fileSizes.add(file.getSize());
+            if (validFiles.isEmpty())
+            {
+                return AjaxResult.error("没有有效的APK/IPA文件");
+            }
+
+            List<String> fileNames = new ArrayList<>();
+            List<String> filePaths = new ArrayList<>();
+            List<String> originalFilenames = new ArrayList<>();
+            List<Long> fileSizes = new ArrayList<>();
+            List<String> sha256s = new ArrayList<>();
+            List<Boolean> reusedFlags = new ArrayList<>();
+            List<Object> previousTasks = new ArrayList<>();
+            List<String> failedFiles = new ArrayList<>();
+
+            for (Map<String, Object> result : apkUploadService.uploadFiles(validFiles, uploadId))
+            {
+                if (!Boolean.TRUE.equals(result.get("success")))
+                {
+                    failedFiles.add(result.get("originalFilename") + ": " + result.get("error"));
+                    continue;
+                }
+                fileNames.add((String) result.get("fileName"));
+                filePaths.add((String) result.get("filePath"));
+                originalFilenames.add((String) result.get("originalFilename"));
+                fileSizes.add((Long) result.get("fileSize"));
+                sha256s.add((String) result.get("sha256"));
+                reusedFlags.add(Boolean.TRUE.equals(result.get("reused")));
+                previousTasks.add(result.get("previousTasks"));
             }
 
             if (fileNames.isEmpty())
             {
-                return AjaxResult.error("没有有效的APK/IPA文件");
+                return AjaxResult.error("批量上传失败: " + String.join("; ", failedFiles));
             }
 
-            AjaxResult ajax = AjaxResult.success("成功上传 " + fileNames.size() + " 个文件");
+            AjaxResult ajax = AjaxResult.success("成功上传 " + fileNames.size() + " 个文件"
+                + (failedFiles.isEmpty() ? "" : "，失败 " + failedFiles.size() + " 个"));
             ajax.put("fileNames", fileNames);
             ajax.put("filePaths", filePaths);
             ajax.put("originalFilenames", originalFilenames);
             ajax.put("fileSizes", fileSizes);
+            ajax.put("sha256s", sha256s);
+            ajax.put("reused", reusedFlags);
+            ajax.put("previousTasks", previousTasks);
+            ajax.put("failedFiles", failedFiles);
             
-            log.info("批量上传APK文件到SFTP成功，共 {} 个文件", fileNames.size());
+            log.info("批量上传APK文件到SFTP完成，成功 {} 个，失败 {} 个", fileNames.size(), failedFiles.size());
             
             return ajax;
         }
@@ -197,14 +199,43 @@ public class AppTaskController extends BaseController
             log.error("批量上传APK文件失败", e);
             return AjaxResult.error("批量上传失败: " + e.getMessage());
         }
-        finally
+    }
+
+    /**
+     * 按内容摘要查询已上传的APK及其历史分析任务（客户端可在上传前先查询）
+     */
+    @GetMapping("/apk/{sha256}")
+    public AjaxResult apkFile(@PathVariable String sha256)
+    {
+        Map<String, Object> apkFile = apkUploadService.getApkFile(sha256);
+        if (apkFile == null)
         {
-            // 断开SFTP连接
-            if (sftpUtils != null)
-            {
-                sftpUtils.disconnect();
-            }
+            return error("文件不存在");
         }
+        return success(apkFile);
+    }
+
+    /**
+     * 查询上传进度
+     */
+    @GetMapping("/upload/progress/{uploadId}")
+    public AjaxResult uploadProgress(@PathVariable String uploadId)
+    {
+        Map<String, Object> progress = apkUploadService.getProgress(uploadId);
+        if (progress == null)
+        {
+            return error("上传记录不存在或已过期");
+        }
+        return success(progress);
+    }
+
+    /**
+     * 是否为APK/IPA文件
+     */
+    private boolean isAppFile(String filename)
+    {
+        String extension = filename.substring(filename.lastIndexOf(".") + 1).toLowerCase();
+        return "apk".equals(extension) || "ipa".equals(extension);
     }
 
     /**
@@ -235,8 +266,8 @@ public class AppTaskController extends BaseController
                 return AjaxResult.error("请先上传应用文件");
             }
             
-            // 生成任务ID（实际项目中应该保存到数据库并返回真实ID）
-            long taskId = System.currentTimeMillis();
+            // 生成任务ID
+            String taskId = Seq.getId();
             
             // 验证文件是否存在
             for (int i = 0; i < filePaths.size(); i++)
@@ -254,12 +285,6 @@ public class AppTaskController extends BaseController
                 }
             }
             
-            // TODO: 实际项目中应该：
-            // 1. 保存任务信息到数据库
-            // 2. 保存文件关联信息到数据库
-            // 3. 触发异步分析任务
-            // 4. 返回真实的任务ID
-            
             log.info("任务创建成功 - 任务ID: {}, 任务名称: {}, 文件数: {}", 
                 taskId, taskName, filePaths.size());
             
@@ -268,8 +293,31 @@ public class AppTaskController extends BaseController
             ajax.put("taskId", taskId);
             ajax.put("taskName", taskName);
             ajax.put("apkPath", filePaths.get(0)); // 第一个APK路径
+            ajax.put("apkPaths", filePaths);
             ajax.put("fileCount", filePaths.size());
             
+            // 多个文件时作为一个批次流水线执行（上传、安装、Hook检测、报告），返回批次ID
+            if (Boolean.TRUE.equals(taskData.get("autoStart")) && filePaths.size() > 1)
+            {
+                BatchJob job = submitBatch(taskName, filePaths, taskData);
+                ajax.put("batchId", job.getBatchId());
+                ajax.put("batch", job.toMap());
+                return ajax;
+            }
+            
+            // 直接提交到分析队列（页面流程由分析页启动，接口调用方可通过autoStart立即排队）
+            if (Boolean.TRUE.equals(taskData.get("autoStart")))
+            {
+                AppAnalysisTask task = new AppAnalysisTask();
+                task.setTaskId(taskId);
+                task.setTaskName(taskName);
+                task.setTaskType(StringUtils.isNotEmpty((String) taskData.get("taskType"))
+                    ? (String) taskData.get("taskType") : AppAnalysisTask.TYPE_DYNAMIC);
+                task.setApkPath(filePaths.get(0));
+                task.setPriority(taskData.get("priority") != null ? Integer.valueOf(taskData.get("priority").toString()) : null);
+                ajax.putAll(analysisTaskDispatcher.enqueue(task));
+            }
+            
             return ajax;
         }
         catch (Exception e)
@@ -278,5 +326,147 @@ public class AppTaskController extends BaseController
             return AjaxResult.error("任务提交失败: " + e.getMessage());
         }
     }
-}
 
+    /**
+     * 提交批量分析（多个应用在同一设备上流水线执行，第N个应用检测期间安装第N+1个应用）
+     * 
+     * 请求体：taskName、filePaths（上传接口返回的路径）、packageNames（可选，与filePaths对应）、
+     * modules（可选）、duration（每个应用的检测时长，秒）
+     */
+    @PostMapping("/batch")
+    public AjaxResult submitBatch(@RequestBody Map<String, Object> taskData)
+    {
+        String taskName = (String) taskData.get("taskName");
+        @SuppressWarnings("unchecked")
+        List<String> filePaths = (List<String>) taskData.get("filePaths");
+        if (StringUtils.isEmpty(taskName))
+        {
+            return error("任务名称不能为空");
+        }
+        if (filePaths == null || filePaths.isEmpty())
+        {
+            return error("请先上传应用文件");
+        }
+        return success(submitBatch(taskName, filePaths, taskData).toMap());
+    }
+
+    /**
+     * 查询批量分析进度（整体状态及每个应用所处的阶段、状态、各阶段耗时）
+     */
+    @GetMapping("/batch/{batchId}")
+    public AjaxResult batchInfo(@PathVariable String batchId)
+    {
+        BatchJob job = batchPipeline.getJob(batchId);
+        if (job == null)
+        {
+            return error("批次不存在或已过期");
+        }
+        Map<String, Object> info = job.toMap();
+        if (AppAnalysisTask.STATUS_QUEUED.equals(job.getStatus()))
+        {
+            info.put("queue", analysisTaskDispatcher.getQueueInfo(batchId, AppAnalysisTask.TYPE_BATCH));
+        }
+        return success(info);
+    }
+
+    /**
+     * 取消批量分析
+     */
+    @PutMapping("/batch/{batchId}/cancel")
+    public AjaxResult cancelBatch(@PathVariable String batchId)
+    {
+        return batchPipeline.cancel(batchId) ? success("批次已取消") : error("批次不存在或已结束");
+    }
+
+    @SuppressWarnings("unchecked")
+    private BatchJob submitBatch(String taskName, List<String> filePaths, Map<String, Object> taskData)
+    {
+        Object duration = taskData.get("duration");
+        return batchPipeline.submit(taskName, filePaths, (List<String>) taskData.get("packageNames"),
+            (String) taskData.get("modules"), duration != null ? Integer.parseInt(duration.toString()) : 0, getUsername());
+    }
+
+    /**
+     * 查询分析任务列表
+     */
+    @GetMapping("/list")
+    public TableDataInfo list(AppAnalysisTask task)
+    {
+        startPage();
+        List<AppAnalysisTask> list = analysisTaskService.selectTaskList(task);
+        return getDataTable(list);
+    }
+
+    /**
+     * 根据队列记录ID获取分析任务详细信息
+     */
+    @GetMapping(value = "/{id}")
+    public AjaxResult getInfo(@PathVariable Long id)
+    {
+        return success(analysisTaskService.selectTaskById(id));
+    }
+
+    /**
+     * 查询任务排队位置及预计开始时间
+     */
+    @GetMapping("/queue/{taskId}")
+    public AjaxResult queueInfo(@PathVariable String taskId, @RequestParam(defaultValue = AppAnalysisTask.TYPE_DYNAMIC) String taskType)
+    {
+        Map<String, Object> info = analysisTaskDispatcher.getQueueInfo(taskId, taskType);
+        if (info == null)
+        {
+            return error("任务不存在");
+        }
+        return success(info);
+    }
+
+    /**
+     * 分析队列整体状态（排队数、执行数，各设备的占用、利用率和资源负载）
+     */
+    @GetMapping("/queue")
+    public AjaxResult queueStats()
+    {
+        return success(analysisTaskDispatcher.getStats());
+    }
+
+    /**
+     * 取消排队中的任务
+     */
+    @PutMapping("/cancel/{id}")
+    public AjaxResult cancel(@PathVariable Long id)
+    {
+        AppAnalysisTask task = analysisTaskService.selectTaskById(id);
+        if (task == null)
+        {
+            return error("任务不存在");
+        }
+        if (AppAnalysisTask.TYPE_BATCH.equals(task.getTaskType()))
+        {
+            return batchPipeline.cancel(task.getTaskId()) ? success("批次已取消") : error("任务已结束，无法取消");
+        }
+        String previousStatus = analysisTaskDispatcher.cancel(task.getTaskId(), task.getTaskType());
+        if (AppAnalysisTask.STATUS_QUEUED.equals(previousStatus))
+        {
+            return success("任务已取消");
+        }
+        if (AppAnalysisTask.STATUS_RUNNING.equals(previousStatus))
+        {
+            return success("任务执行中，将在停止分析后标记为已取消");
+        }
+        return error("任务已结束，无法取消");
+    }
+
+    /**
+     * 重新提交已结束的任务
+     */
+    @PutMapping("/restart/{id}")
+    public AjaxResult restart(@PathVariable Long id)
+    {
+        AppAnalysisTask task = analysisTaskService.selectTaskById(id);
+        if (task == null)
+        {
+            return error("任务不存在");
+        }
+        return success(analysisTaskDispatcher.enqueue(task));
+    }
+}
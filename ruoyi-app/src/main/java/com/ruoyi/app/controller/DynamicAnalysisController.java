@@ -1,24 +1,60 @@
 package com.ruoyi.app.controller;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import com.ruoyi.app.classify.LogClassifier;
+import com.ruoyi.app.classify.SdkAttributor;
 import com.ruoyi.app.config.SftpConfig;
+import com.ruoyi.app.device.AnalysisDevice;
+import com.ruoyi.app.device.DevicePool;
+import com.ruoyi.app.domain.AppAnalysisTask;
+import com.ruoyi.app.metrics.StageMetrics;
+import com.ruoyi.app.metrics.StageTracker;
+import com.ruoyi.app.parser.PrivacyEventRecorder;
+import com.ruoyi.app.pump.OutputPump;
 import com.ruoyi.app.service.IFridaAnalysisService;
+import com.ruoyi.app.service.IPrivacyReportService;
+import com.ruoyi.app.sse.LogHub;
+import com.ruoyi.app.ssh.RemoteProcess;
+import com.ruoyi.app.ssh.SshExecResult;
+import com.ruoyi.app.ssh.SshSessionManager;
+import com.ruoyi.app.stats.PrivacyAggregator;
+import com.ruoyi.app.stats.PrivacyDiff;
+import com.ruoyi.app.stats.PrivacyStats;
+import com.ruoyi.app.store.PrivacyEventStore;
+import com.ruoyi.app.store.ReportCache;
+import com.ruoyi.app.store.TaskLogStore;
+import com.ruoyi.app.task.AnalysisTaskDispatcher;
+import com.ruoyi.app.task.AnalysisTaskHandler;
 import com.ruoyi.common.core.controller.BaseController;
 import com.ruoyi.common.core.domain.AjaxResult;
+import com.ruoyi.common.exception.ServiceException;
 import com.ruoyi.common.utils.StringUtils;
+import com.ruoyi.common.utils.file.FileUtils;
+import com.ruoyi.common.utils.uuid.Seq;
 
 /**
  * 动态分析控制器
@@ -37,35 +73,90 @@ public class DynamicAnalysisController extends BaseController
     @Autowired
     private IFridaAnalysisService fridaAnalysisService;
     
+    @Autowired
+    private SshSessionManager sshSessionManager;
+    
+    @Autowired
+    private AnalysisTaskDispatcher analysisTaskDispatcher;
+    
+    @Autowired
+    private DevicePool devicePool;
+    
+    @Autowired
+    private ThreadPoolTaskExecutor threadPoolTaskExecutor;
+    
+    @Autowired
+    private OutputPump outputPump;
+    
+    @Autowired
+    private PrivacyEventStore privacyEventStore;
+    
+    @Autowired
+    private TaskLogStore taskLogStore;
+    
+    @Autowired
+    private IPrivacyReportService privacyReportService;
+    
+    @Autowired
+    private LogHub logHub;
+    
+    @Autowired
+    private LogClassifier logClassifier;
+    
+    @Autowired
+    private StageMetrics stageMetrics;
+    
+    @Autowired
+    private ReportCache reportCache;
+    
+    @Autowired
+    private PrivacyStats privacyStats;
+    
+    @Autowired
+    private SdkAttributor sdkAttributor;
+    
+    @Autowired
+    private PrivacyDiff privacyDiff;
+    
     /**
      * Python脚本在Ubuntu服务器上的路径
      */
     private static final String PYTHON_SCRIPT_PATH = "/opt/scripts/android_dynamic_analysis.py";
     
     /**
-     * VNC访问地址
+     * 原始日志单次读取的最大行数
+     */
+    private static final int MAX_RAW_LOG_LINES = 5000;
+    
+    /**
+     * 停止分析时等待脚本自行退出（生成报告）的时间
      */
-    private static final String VNC_URL = "http://192.168.216.146:6080/vnc_lite.html";
+    private static final long STOP_GRACE_MILLIS = 15000;
     
     /**
-     * 存储分析任务的日志流
+     * 存储正在运行的远程进程（脚本进程组及其在容器中启动的Frida进程组）
      */
-    private final Map<String, SseEmitter> emitterMap = new ConcurrentHashMap<>();
+    private final Map<String, RemoteProcess> processMap = new ConcurrentHashMap<>();
     
     /**
-     * 存储正在运行的SSH会话
+     * 存储任务的停止标志
      */
-    private final Map<String, com.jcraft.jsch.Session> sessionMap = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> stopFlagMap = new ConcurrentHashMap<>();
     
     /**
-     * 存储正在运行的SSH通道
+     * 存储任务的隐私事件采集器
      */
-    private final Map<String, com.jcraft.jsch.ChannelExec> channelMap = new ConcurrentHashMap<>();
+    private final Map<String, PrivacyEventRecorder> eventRecorderMap = new ConcurrentHashMap<>();
     
     /**
-     * 存储任务的停止标志
+     * 存储任务的隐私事件实时统计
      */
-    private final Map<String, Boolean> stopFlagMap = new ConcurrentHashMap<>();
+    private final Map<String, PrivacyAggregator> aggregatorMap = new ConcurrentHashMap<>();
+    
+    /**
+     * 存储任务的阶段耗时跟踪器
+     */
+    private final Map<String, StageTracker> stageTrackerMap = new ConcurrentHashMap<>();
     
     /**
      * 日志批量处理 - 缓冲区
@@ -77,6 +168,53 @@ public class DynamicAnalysisController extends BaseController
      */
     private final Map<String, Long> lastLogSendTimeMap = new ConcurrentHashMap<>();
     
+    /**
+     * 注册动态分析任务处理器，任务出队后在线程池中建立连接，输出由输出泵处理；
+     * 失去设备租约时停止分析脚本
+     */
+    @PostConstruct
+    public void registerTaskHandler()
+    {
+        analysisTaskDispatcher.registerHandler(AppAnalysisTask.TYPE_DYNAMIC, new AnalysisTaskHandler()
+        {
+            @Override
+            public CompletableFuture<Void> execute(AppAnalysisTask task)
+            {
+                return CompletableFuture
+                    .supplyAsync(() -> executeAnalysis(task.getTaskId(), devicePool.getDevice(task.getWorker()), task.getApkPath()),
+                        threadPoolTaskExecutor)
+                    .thenCompose(Function.identity())
+                    .thenAccept(success -> {
+                        if (!success)
+                        {
+                            throw new ServiceException("动态分析执行失败");
+                        }
+                    });
+            }
+            
+            @Override
+            public void abort(AppAnalysisTask task, String reason)
+            {
+                abortAnalysis(task.getTaskId(), reason);
+            }
+        });
+    }
+    
+    /**
+     * 任务已失去设备租约：在线程池中停止分析脚本（含容器内的Frida子进程），通道在输出结束后由收尾逻辑归还，
+     * 避免之后分配到该设备的任务与仍在运行的脚本争用模拟器
+     */
+    private void abortAnalysis(String taskId, String reason)
+    {
+        RemoteProcess process = processMap.get(taskId);
+        if (process == null)
+        {
+            return;
+        }
+        sendLog(taskId, "⚠️ " + reason + "，正在停止分析脚本");
+        threadPoolTaskExecutor.execute(() -> process.terminate(sshSessionManager, STOP_GRACE_MILLIS));
+    }
+    
     /**
      * 开始动态分析
      */
@@ -100,25 +238,23 @@ public class DynamicAnalysisController extends BaseController
             
             if (StringUtils.isEmpty(taskId))
             {
-                taskId = String.valueOf(System.currentTimeMillis());
+                taskId = Seq.getId();
             }
             
-            // 在新线程中执行分析任务
-            final String finalTaskId = taskId;
-            final String finalApkPath = apkPath;
-            
-            // 重置停止标志
-            stopFlagMap.put(taskId, false);
-            
-            
-            new Thread(() -> {
-                executeAnalysis(finalTaskId, finalApkPath);
-            }).start();
+            // 提交到分析任务队列，由调度器按设备的空闲情况和负载分配设备并启动
+            AppAnalysisTask task = new AppAnalysisTask();
+            task.setTaskId(taskId);
+            task.setTaskType(AppAnalysisTask.TYPE_DYNAMIC);
+            task.setTaskName((String) params.get("taskName"));
+            task.setApkPath(apkPath);
+            task.setPriority(params.get("priority") != null ? Integer.valueOf(params.get("priority").toString()) : null);
+            Map<String, Object> queueInfo = analysisTaskDispatcher.enqueue(task);
             
             // 返回结果
-            AjaxResult ajax = AjaxResult.success("动态分析任务已启动");
-            ajax.put("taskId", taskId);
-            ajax.put("vncUrl", VNC_URL);
+            AjaxResult ajax = AjaxResult.success("动态分析任务已提交");
+            ajax.putAll(queueInfo);
+            // 排队中的任务尚未分配设备，先返回默认地址，开始执行后可从队列状态获取实际设备的地址
+            ajax.putIfAbsent("vncUrl", devicePool.getDevice(null).getVncUrl());
             
             return ajax;
         }
@@ -131,12 +267,26 @@ public class DynamicAnalysisController extends BaseController
     
     /**
      * 执行动态分析（通过SSH调用Python脚本）
+     * 
+     * 脚本输出由输出泵按行推送，运行期间不占用等待线程
+     * 
+     * @return 分析结束信号，正常结束（脚本退出码为0或被用户停止）时为true
      */
-    private void executeAnalysis(String taskId, String apkPath)
+    private CompletableFuture<Boolean> executeAnalysis(String taskId, AnalysisDevice device, String apkPath)
     {
-        com.jcraft.jsch.Session session = null;
         com.jcraft.jsch.ChannelExec channel = null;
         
+        // 重置停止标志
+        stopFlagMap.put(taskId, false);
+        // 重新执行时丢弃上次缓存的报告
+        reportCache.invalidate(taskId);
+        
+        // 脚本输出中的隐私告警逐条落盘，用于生成报告
+        PrivacyAggregator aggregator = privacyStats.start(taskId);
+        eventRecorderMap.put(taskId, new PrivacyEventRecorder(privacyEventStore, taskId, aggregator.andThen(
+            event -> log.debug("[{}] 隐私事件#{}: {} / {}", taskId, event.getSeq(), event.getAction(), event.getSubject()))));
+        aggregatorMap.put(taskId, aggregator);
+        
         try
         {
             log.info("开始执行动态分析 - taskId: {}", taskId);
@@ -144,222 +294,191 @@ public class DynamicAnalysisController extends BaseController
             // 发送日志到前端
             sendLog(taskId, "开始连接到分析服务器...");
             
-            // 创建SSH会话
-            com.jcraft.jsch.JSch jsch = new com.jcraft.jsch.JSch();
-            session = jsch.getSession(
-                sftpConfig.getUsername(),
-                sftpConfig.getHost(),
-                sftpConfig.getPort()
-            );
-            session.setPassword(sftpConfig.getPassword());
-            
-            java.util.Properties config = new java.util.Properties();
-            config.put("StrictHostKeyChecking", "no");
-            session.setConfig(config);
-            session.setTimeout(30000);
+            // 构建命令（传递taskId参数用于报告命名，容器名称和VNC端口通过环境变量指定）
+            // 脚本在独立进程组中运行并输出进程号，停止时只结束本任务的进程
+            String command = RemoteProcess.wrap(String.format("ANALYSIS_CONTAINER=%s ANALYSIS_VNC_PORT=%d python3 %s %s '' '' %s",
+                device.getName(), device.getVncPort(), PYTHON_SCRIPT_PATH, apkPath, taskId), false);
             
-            session.connect();
-            log.info("SSH连接成功 - {}:{}", sftpConfig.getHost(), sftpConfig.getPort());
+            // 从设备所在宿主机的会话池借用执行通道（复用常驻SSH会话）
+            StageMetrics.Span connectSpan = stageMetrics.start(taskId, StageMetrics.SSH_CONNECT, device.getName());
+            channel = sshSessionManager.openExec(device.getHost(), command);
+            log.info("SSH通道就绪 - {}:{}，设备: {}", StringUtils.isNotEmpty(device.getHost()) ? device.getHost() : sftpConfig.getHost(),
+                sftpConfig.getPort(), device);
             sendLog(taskId, "✅ SSH连接成功");
             
-            // 保存SSH会话到Map（用于停止时关闭）
-            sessionMap.put(taskId, session);
-            
-            // 打开执行通道
-            channel = (com.jcraft.jsch.ChannelExec) session.openChannel("exec");
-            
-            // 构建命令（传递taskId参数用于报告命名）
-            String command = String.format("python3 %s %s '' '' %s", PYTHON_SCRIPT_PATH, apkPath, taskId);
-            channel.setCommand(command);
-            
             sendLog(taskId, "开始执行Python脚本...");
             sendLog(taskId, "命令: " + command);
             sendLog(taskId, "APK路径: " + apkPath);
             sendLog(taskId, "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
             
-            // 获取输出流
+            // 输出接入输出泵（按行解码后回调）
             channel.setInputStream(null);
-            channel.setErrStream(System.err);
+            CompletableFuture<Integer> exit = outputPump.attach(channel,
+                line -> handleAnalysisOutput(taskId, line),
+                line -> log.warn("[{}] {}", taskId, line));
+            stageTrackerMap.put(taskId, stageMetrics.tracker(taskId, AppAnalysisTask.TYPE_DYNAMIC, device.getName()));
             
-            java.io.InputStream in = channel.getInputStream();
+            // 登记进程句柄（用于停止时按进程组发送信号）
+            processMap.put(taskId, new RemoteProcess(taskId, device.getHost(), null, device.getName(), channel, exit));
             channel.connect();
+            connectSpan.end();
             
-            // 保存通道到Map（用于停止时关闭）
-            channelMap.put(taskId, channel);
-            
-            // 读取输出
-            byte[] tmp = new byte[1024];
-            while (true)
-            {
-                // 检查停止标志
-                if (Boolean.TRUE.equals(stopFlagMap.get(taskId)))
-                {
-                    log.info("检测到停止信号 - taskId: {}", taskId);
-                    sendLog(taskId, "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
-                    sendLog(taskId, "⏹️ 用户手动停止分析");
-                    break;
-                }
-                
-                while (in.available() > 0)
-                {
-                    int i = in.read(tmp, 0, 1024);
-                    if (i < 0) break;
-                    
-                    String output = new String(tmp, 0, i);
-                    // 按行分割并过滤发送
-                    String[] lines = output.split("\n");
-                    for (String line : lines)
-                    {
-                        if (!line.trim().isEmpty())
-                        {
-                            String trimmedLine = line.trim();
-                            
-                            // 只发送重要日志到前端，减少卡顿
-                            if (shouldSendToFrontend(trimmedLine))
-                            {
-                                sendLog(taskId, trimmedLine);
-                            }
-                            
-                            // 所有日志仍然记录到后端日志
-                            log.info("[{}] {}", taskId, trimmedLine);
-                        }
-                    }
-                }
-                
-                if (channel.isClosed())
-                {
-                    if (in.available() > 0) continue;
-                    
-                    int exitStatus = channel.getExitStatus();
-                    log.info("SSH命令执行完成，退出码: {}", exitStatus);
-                    
-                    sendLog(taskId, "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
-                    if (exitStatus == 0)
-                    {
-                        sendLog(taskId, "✅ 动态分析完成！");
-                        sendLog(taskId, "📺 VNC访问地址: " + VNC_URL);
-                    }
-                    else
-                    {
-                        sendLog(taskId, "❌ 动态分析失败，退出码: " + exitStatus);
-                    }
-                    break;
-                }
-                
-                try { Thread.sleep(100); } catch (Exception e) { }
-            }
-            
+            // 通道连接期间为设备租约续约
+            final com.jcraft.jsch.ChannelExec runningChannel = channel;
+            analysisTaskDispatcher.watch(taskId, AppAnalysisTask.TYPE_DYNAMIC, runningChannel::isConnected);
+            return exit.handle((exitStatus, e) -> finishAnalysis(taskId, device, runningChannel, exitStatus, e));
         }
         catch (Exception e)
         {
             log.error("执行动态分析异常", e);
             sendLog(taskId, "❌ 执行失败: " + e.getMessage());
-            e.printStackTrace();
+            finishAnalysis(taskId, device, channel, -1, e);
+            return CompletableFuture.completedFuture(false);
         }
-        finally
+    }
+    
+    /**
+     * 处理脚本输出的一行
+     */
+    private void handleAnalysisOutput(String taskId, String line)
+    {
+        // 进程号标记只登记到进程句柄
+        if (line.startsWith(RemoteProcess.MARKER_PREFIX))
         {
-            // 清理资源
-            if (channel != null && channel.isConnected())
+            RemoteProcess process = processMap.get(taskId);
+            if (process != null && process.accept(line))
             {
-                channel.disconnect();
+                return;
             }
-            
-            if (session != null && session.isConnected())
+        }
+        
+        PrivacyEventRecorder eventRecorder = eventRecorderMap.get(taskId);
+        long events = 0;
+        if (eventRecorder != null)
+        {
+            events = eventRecorder.getEventCount();
+            eventRecorder.onLine(line);
+        }
+        StageTracker stageTracker = stageTrackerMap.get(taskId);
+        if (stageTracker != null)
+        {
+            stageTracker.onLine(line, eventRecorder != null && eventRecorder.getEventCount() > events);
+        }
+        
+        String trimmedLine = line.trim();
+        if (trimmedLine.isEmpty())
+        {
+            return;
+        }
+        
+        // 只发送重要日志到前端，减少卡顿
+        if (shouldSendToFrontend(trimmedLine))
+        {
+            sendLog(taskId, trimmedLine);
+        }
+        
+        // 所有日志仍然记录到后端日志
+        log.info("[{}] {}", taskId, trimmedLine);
+    }
+    
+    /**
+     * 脚本结束后的收尾：发送结果、归还通道、关闭SSE
+     * 
+     * @return 是否正常结束
+     */
+    private boolean finishAnalysis(String taskId, AnalysisDevice device, com.jcraft.jsch.ChannelExec channel, Integer exitStatus, Throwable error)
+    {
+        boolean success = false;
+        try
+        {
+            if (Boolean.TRUE.equals(stopFlagMap.get(taskId)))
             {
-                session.disconnect();
+                log.info("检测到停止信号 - taskId: {}", taskId);
+                sendLog(taskId, "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
+                sendLog(taskId, "⏹️ 用户手动停止分析");
+                success = true;
+            }
+            else if (error == null)
+            {
+                log.info("SSH命令执行完成，退出码: {}", exitStatus);
+                
+                sendLog(taskId, "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
+                success = exitStatus != null && exitStatus == 0;
+                if (success)
+                {
+                    sendLog(taskId, "✅ 动态分析完成！");
+                    sendLog(taskId, "📺 VNC访问地址: " + device.getVncUrl());
+                }
+                else
+                {
+                    sendLog(taskId, "❌ 动态分析失败，退出码: " + exitStatus);
+                }
             }
+        }
+        finally
+        {
+            // 归还通道，会话保留在池中
+            sshSessionManager.release(channel);
             
             // 从Map中移除
-            channelMap.remove(taskId);
-            sessionMap.remove(taskId);
+            processMap.remove(taskId);
             stopFlagMap.remove(taskId);
+            PrivacyEventRecorder eventRecorder = eventRecorderMap.remove(taskId);
+            if (eventRecorder != null)
+            {
+                eventRecorder.onEnd();
+            }
+            PrivacyAggregator aggregator = aggregatorMap.remove(taskId);
+            if (aggregator != null)
+            {
+                privacyStats.finish(aggregator);
+            }
+            StageTracker stageTracker = stageTrackerMap.remove(taskId);
+            if (stageTracker != null)
+            {
+                stageTracker.finish();
+            }
             
             // 关闭SSE连接
             closeSse(taskId);
         }
+        return success;
     }
     
     /**
      * 建立SSE连接，用于实时推送日志
+     * 
+     * 同一任务可有多个订阅者；新订阅者先回放已缓冲的日志，重连时按Last-Event-ID续传
      */
     @GetMapping("/logs")
-    public SseEmitter streamLogs(@RequestParam String taskId)
+    public SseEmitter streamLogs(@RequestParam String taskId,
+                                 @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId)
     {
-        log.info("客户端订阅日志流 - taskId: {}", taskId);
-        
-        // 创建SSE发射器（超时时间30分钟）
-        SseEmitter emitter = new SseEmitter(30 * 60 * 1000L);
-        
-        // 存储到Map中
-        emitterMap.put(taskId, emitter);
-        
-        // 设置超时和完成回调
-        emitter.onTimeout(() -> {
-            log.info("SSE超时 - taskId: {}", taskId);
-            emitterMap.remove(taskId);
-        });
-        
-        emitter.onCompletion(() -> {
-            log.info("SSE完成 - taskId: {}", taskId);
-            emitterMap.remove(taskId);
-        });
-        
-        emitter.onError((e) -> {
-            log.error("SSE错误 - taskId: " + taskId, e);
-            emitterMap.remove(taskId);
-        });
-        
-        // 发送连接成功消息
-        try
-        {
-            emitter.send(SseEmitter.event()
-                .name("connected")
-                .data("日志流已连接"));
-        }
-        catch (Exception e)
-        {
-            log.error("发送连接消息失败", e);
-        }
-        
-        return emitter;
+        // 超时时间30分钟
+        return logHub.subscribe(taskId, lastEventId, 30 * 60 * 1000L, "日志流已连接");
     }
     
-    // 日志过滤常量
-    private static final String[] IMPORTANT_KEYWORDS = {
-        "✅", "❌", "⚠️", "🔍", "📊", "🎯", "💡", "🚀", "📱", "🖥️", "🔗",
-        "SUCCESS", "ERROR", "WARN", "INFO",
-        "Hook脚本加载成功", "监控中", "检测完成", "应用已启动", 
-        "已附加到进程", "Hook初始化完成", "隐私数据收集进度",
-        "步骤", "启动", "安装", "配置", "完成", "失败", "成功"
-    };
-    
-    private static final String[] SKIP_KEYWORDS = {
-        "调用堆栈：", "android.app.", "com.android.", "java.lang.",
-        "Native Method", "Handler.java", "Looper.java", "ApplicationPackageManager",
-        "com.mob.tools", "com.mob.commons"
-    };
-
     /**
      * 判断是否应该发送日志到前端（减少前端卡顿）
      */
     private boolean shouldSendToFrontend(String line)
     {
-        if (line == null || line.trim().isEmpty()) return false;
+        int flags = logClassifier.classify(line);
         
         // 重要日志始终发送
-        for (String keyword : IMPORTANT_KEYWORDS)
+        if ((flags & LogClassifier.IMPORTANT) != 0)
         {
-            if (line.contains(keyword)) return true;
+            return true;
         }
         
         // 过滤掉频繁的调试信息
-        for (String keyword : SKIP_KEYWORDS)
+        if ((flags & LogClassifier.SKIP) != 0)
         {
-            if (line.contains(keyword)) return false;
+            return false;
         }
         
         // APP行为数据发送
-        return line.contains("APP行为：") || line.contains("行为主体：");
+        return (flags & LogClassifier.EVENT) != 0;
     }
     
     /**
@@ -386,21 +505,7 @@ public class DynamicAnalysisController extends BaseController
      */
     private void sendLogImmediate(String taskId, String message)
     {
-        SseEmitter emitter = emitterMap.get(taskId);
-        if (emitter != null)
-        {
-            try
-            {
-                emitter.send(SseEmitter.event()
-                    .name("log")
-                    .data(message));
-            }
-            catch (Exception e)
-            {
-                log.error("发送日志失败 - taskId: {}", taskId, e);
-                emitterMap.remove(taskId);
-            }
-        }
+        logHub.publish(taskId, "log", message);
     }
     
     /**
@@ -422,35 +527,17 @@ public class DynamicAnalysisController extends BaseController
     }
     
     /**
-     * 关闭SSE连接
+     * 结束日志流：发送完成事件，订阅者收到后关闭连接
      */
     private void closeSse(String taskId)
     {
         // 关闭前刷新剩余的日志缓冲区
         flushLogBuffer(taskId);
+        logHub.finish(taskId, "completed", "分析完成");
         
-        SseEmitter emitter = emitterMap.get(taskId);
-        if (emitter != null)
-        {
-            try
-            {
-                emitter.send(SseEmitter.event()
-                    .name("completed")
-                    .data("分析完成"));
-                emitter.complete();
-            }
-            catch (Exception e)
-            {
-                log.error("关闭SSE失败", e);
-            }
-            finally
-            {
-                emitterMap.remove(taskId);
-                // 清理批量处理相关的Map
-                logBufferMap.remove(taskId);
-                lastLogSendTimeMap.remove(taskId);
-            }
-        }
+        // 清理批量处理相关的Map
+        logBufferMap.remove(taskId);
+        lastLogSendTimeMap.remove(taskId);
     }
     
     /**
@@ -459,148 +546,48 @@ public class DynamicAnalysisController extends BaseController
     @PostMapping("/stop")
     public AjaxResult stopAnalysis(@RequestBody Map<String, Object> params)
     {
-        com.jcraft.jsch.Session killSession = null;
-        com.jcraft.jsch.ChannelExec killChannel = null;
-        
         try
         {
             String taskId = (String) params.get("taskId");
             
             log.info("停止动态分析 - taskId: {}", taskId);
-            sendLog(taskId, "正在停止分析任务...");
-            
-            // 1. 设置停止标志
-            stopFlagMap.put(taskId, true);
-            log.info("已设置停止标志");
-            
-            // 2. 关闭正在运行的SSH通道和会话
-            com.jcraft.jsch.ChannelExec runningChannel = channelMap.get(taskId);
-            if (runningChannel != null && runningChannel.isConnected())
-            {
-                log.info("断开正在运行的SSH通道");
-                runningChannel.disconnect();
-            }
             
-            com.jcraft.jsch.Session runningSession = sessionMap.get(taskId);
-            if (runningSession != null && runningSession.isConnected())
+            // 尚在排队的任务直接出队，不需要清理服务器上的进程
+            String previousStatus = analysisTaskDispatcher.cancel(taskId, AppAnalysisTask.TYPE_DYNAMIC);
+            if (AppAnalysisTask.STATUS_QUEUED.equals(previousStatus))
             {
-                log.info("断开正在运行的SSH会话");
-                runningSession.disconnect();
+                sendLog(taskId, "⏹️ 已取消排队中的分析任务");
+                closeSse(taskId);
+                return AjaxResult.success("已取消排队中的分析任务");
             }
             
+            sendLog(taskId, "正在停止分析任务...");
             
-            // 4. Kill Python进程和停止Docker容器
-            log.info("开始清理服务器上的进程和容器");
-            
-            // 创建新的SSH会话来执行清理命令
-            com.jcraft.jsch.JSch jsch = new com.jcraft.jsch.JSch();
-            killSession = jsch.getSession(
-                sftpConfig.getUsername(),
-                sftpConfig.getHost(),
-                sftpConfig.getPort()
-            );
-            killSession.setPassword(sftpConfig.getPassword());
-            
-            java.util.Properties config = new java.util.Properties();
-            config.put("StrictHostKeyChecking", "no");
-            killSession.setConfig(config);
-            killSession.setTimeout(30000);
-            
-            killSession.connect();
-            
-            // 执行清理命令：杀死Python进程和停止Docker容器
-            killChannel = (com.jcraft.jsch.ChannelExec) killSession.openChannel("exec");
-            
-            // 修改清理命令：只停止进程，不删除容器（保留容器以便下载报告）
-            String cleanupCommand = "pkill -f python3.*android_dynamic_analysis.py; sleep 2; docker exec -u 0 android-frida-container pkill -f 'python3.*frida_privacy_check.py' || echo 'Frida进程已停止'";
-            killChannel.setCommand(cleanupCommand);
-            
-            java.io.InputStream in = killChannel.getInputStream();
-            killChannel.connect();
-            
-            // 使用BufferedReader读取输出，等待清理命令完全执行（最多25秒）
-            java.io.BufferedReader reader = new java.io.BufferedReader(
-                new java.io.InputStreamReader(in)
-            );
-            StringBuilder output = new StringBuilder();
-            String line;
-            long startTime = System.currentTimeMillis();
-            long maxWaitTime = 35000; // 35秒超时，给足够时间执行所有步骤（包括10秒等待）
+            // 1. 设置停止标志
+            stopFlagMap.put(taskId, true);
+            log.info("已设置停止标志");
             
-            // 持续读取输出直到命令完成或超时
-            while (System.currentTimeMillis() - startTime < maxWaitTime)
+            // 2. 向本任务的进程组发送停止信号：Frida已启动时先结束容器中的Frida进程，脚本收尾后自行退出；
+            //    宽限期内未退出时强制结束整个进程组。同一宿主机、容器上的其他任务不受影响
+            RemoteProcess process = processMap.get(taskId);
+            boolean exited = true;
+            if (process != null)
             {
-                try {
-                    while ((line = reader.readLine()) != null) {
-                        output.append(line).append("\n");
-                        log.info("清理进度: {}", line);
-                        
-                        // 如果看到最后一步完成，可以提前退出
-                        if (line.contains("Step 9: Cleanup completed successfully")) {
-                            log.info("清理命令执行完成");
-                            break;
-                        }
-                    }
-                    
-                    // 检查通道是否关闭
-                    if (killChannel.isClosed()) {
-                        log.info("SSH通道已关闭，清理命令执行完毕");
-                        break;
-                    }
-                    
-                    // 短暂等待，避免CPU占用过高
-                    Thread.sleep(100);
-                } catch (java.io.IOException e) {
-                    log.warn("读取清理命令输出时出现IO异常: {}", e.getMessage());
-                    break;
-                } catch (InterruptedException e) {
-                    log.warn("清理命令执行被中断: {}", e.getMessage());
-                    break;
-                }
-            }
-            
-            log.info("清理命令输出: {}", output.toString());
-            
-            // 检查Python信号处理器日志文件
-            try {
-                com.jcraft.jsch.ChannelExec checkChannel = (com.jcraft.jsch.ChannelExec) killSession.openChannel("exec");
-                checkChannel.setCommand("cat /tmp/signal_handler.log 2>/dev/null || echo 'No signal handler log found'");
-                java.io.InputStream checkIn = checkChannel.getInputStream();
-                checkChannel.connect();
-                
-                byte[] checkTmp = new byte[1024];
-                StringBuilder signalLog = new StringBuilder();
-                while (true) {
-                    while (checkIn.available() > 0) {
-                        int i = checkIn.read(checkTmp, 0, 1024);
-                        if (i < 0) break;
-                        signalLog.append(new String(checkTmp, 0, i));
-                    }
-                    if (checkChannel.isClosed()) {
-                        if (checkIn.available() > 0) continue;
-                        break;
-                    }
-                    try { Thread.sleep(100); } catch (Exception e) { }
-                }
-                checkChannel.disconnect();
-                
-                log.info("Python信号处理器日志: {}", signalLog.toString());
-            } catch (Exception e) {
-                log.warn("无法检查信号处理器日志: {}", e.getMessage());
+                exited = process.stop(sshSessionManager, STOP_GRACE_MILLIS);
+                log.info("动态分析进程{} - taskId: {}", exited ? "已退出" : "未响应停止信号，已断开通道", taskId);
             }
             
-            log.info("Python进程已终止，Docker容器保持运行状态");
-            
-            // 4. 关闭SSE连接
+            // 3. 通知前端
             sendLog(taskId, "✅ 分析任务已停止");
-            sendLog(taskId, "- Python脚本进程已终止");
+            sendLog(taskId, exited ? "- Python脚本进程已终止" : "- Python脚本未响应停止信号，已断开连接");
             sendLog(taskId, "- Docker容器保持运行（用于报告下载）");
             closeSse(taskId);
             
-            // 5. 清理Map中的数据
-            channelMap.remove(taskId);
-            sessionMap.remove(taskId);
-            stopFlagMap.remove(taskId);
+            // 4. 清理Map中的数据（有运行中的进程时由输出结束回调清理，保留停止标志供其判断）
+            if (process == null)
+            {
+                stopFlagMap.remove(taskId);
+            }
             
             return AjaxResult.success("分析已停止");
         }
@@ -610,31 +597,41 @@ public class DynamicAnalysisController extends BaseController
             sendLog((String) params.get("taskId"), "❌ 停止失败: " + e.getMessage());
             return AjaxResult.error("停止失败: " + e.getMessage());
         }
-        finally
-        {
-            if (killChannel != null && killChannel.isConnected())
-            {
-                killChannel.disconnect();
-            }
-            
-            if (killSession != null && killSession.isConnected())
-            {
-                killSession.disconnect();
-            }
-        }
     }
     
     /**
      * 获取VNC访问地址
+     * 
+     * @param taskId 任务ID，指定时返回任务所在设备的地址，否则返回默认设备的地址
      */
     @GetMapping("/vncUrl")
-    public AjaxResult getVncUrl()
+    public AjaxResult getVncUrl(@RequestParam(required = false) String taskId)
     {
+        AnalysisDevice device = StringUtils.isNotEmpty(taskId) ? getDevice(taskId) : devicePool.getDevice(null);
         AjaxResult ajax = AjaxResult.success();
-        ajax.put("vncUrl", VNC_URL);
+        ajax.put("vncUrl", device.getVncUrl());
+        ajax.put("device", device.getName());
         return ajax;
     }
     
+    /**
+     * 动态分析任务执行（或最近一次执行）所在的设备
+     */
+    private AnalysisDevice getDevice(String taskId)
+    {
+        Map<String, Object> info = analysisTaskDispatcher.getQueueInfo(taskId, AppAnalysisTask.TYPE_DYNAMIC);
+        return devicePool.getDevice(info != null ? (String) info.get("worker") : null);
+    }
+    
+    /**
+     * SSH会话池监控指标
+     */
+    @GetMapping("/ssh/metrics")
+    public AjaxResult getSshMetrics()
+    {
+        return AjaxResult.success(sshSessionManager.getMetrics());
+    }
+    
     /**
      * 启动Frida隐私合规检测
      */
@@ -664,7 +661,7 @@ public class DynamicAnalysisController extends BaseController
 
             if (StringUtils.isEmpty(taskId))
             {
-                taskId = String.valueOf(System.currentTimeMillis());
+                taskId = Seq.getId();
             }
 
             // 设置默认日志级别
@@ -682,8 +679,11 @@ public class DynamicAnalysisController extends BaseController
             {
                 AjaxResult ajax = AjaxResult.success(result.get("message").toString());
                 ajax.put("taskId", taskId);
-                ajax.put("vncUrl", VNC_URL);
+                ajax.put("vncUrl", fridaAnalysisService.getDevice(taskId).getVncUrl());
                 ajax.put("logLevel", logLevel);
+                ajax.put("status", result.get("status"));
+                ajax.put("queuePosition", result.get("queuePosition"));
+                ajax.put("estimatedStartTime", result.get("estimatedStartTime"));
                 return ajax;
             }
             else
@@ -731,370 +731,177 @@ public class DynamicAnalysisController extends BaseController
      * Frida日志流（SSE）
      */
     @GetMapping("/frida/logs")
-    public SseEmitter streamFridaLogs(@RequestParam String taskId)
+    public SseEmitter streamFridaLogs(@RequestParam String taskId,
+                                      @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId)
     {
-        log.info("客户端订阅Frida日志流 - taskId: {}", taskId);
-        
-        // 创建SSE发射器（超时时间60分钟，因为Frida检测可能时间较长）
-        SseEmitter emitter = new SseEmitter(60 * 60 * 1000L);
-        
-        // 注册到Frida服务
-        fridaAnalysisService.getEmitterMap().put(taskId, emitter);
-        
-        // 设置回调
-        emitter.onTimeout(() -> {
-            log.info("Frida SSE超时 - taskId: {}", taskId);
-            fridaAnalysisService.getEmitterMap().remove(taskId);
-        });
-        
-        emitter.onCompletion(() -> {
-            log.info("Frida SSE完成 - taskId: {}", taskId);
-            fridaAnalysisService.getEmitterMap().remove(taskId);
-        });
-        
-        emitter.onError((e) -> {
-            log.error("Frida SSE错误 - taskId: " + taskId, e);
-            fridaAnalysisService.getEmitterMap().remove(taskId);
-        });
-        
-        // 发送连接成功消息
+        return fridaAnalysisService.subscribeLogs(taskId, lastEventId);
+    }
+    
+    /**
+     * 分页读取Frida原始日志
+     * 
+     * 完整输出按分段压缩保存，按行号定位到所在分段读取；检测进行中也可读取已落盘的部分（约1秒延迟）
+     */
+    @GetMapping("/frida/logs/raw")
+    public AjaxResult getFridaRawLogs(@RequestParam String taskId,
+                                      @RequestParam(defaultValue = "1") long fromLine,
+                                      @RequestParam(defaultValue = "500") int limit)
+    {
+        if (!taskLogStore.exists(taskId))
+        {
+            return AjaxResult.error("未找到该任务的原始日志");
+        }
         try
         {
-            emitter.send(SseEmitter.event()
-                .name("connected")
-                .data("Frida日志流已连接"));
+            long from = Math.max(1, fromLine);
+            List<String> lines = taskLogStore.read(taskId, from, Math.min(Math.max(limit, 1), MAX_RAW_LOG_LINES));
+            
+            AjaxResult ajax = AjaxResult.success();
+            ajax.put("taskId", taskId);
+            ajax.put("fromLine", from);
+            ajax.put("nextLine", from + lines.size());
+            ajax.put("totalLines", taskLogStore.getLineCount(taskId));
+            ajax.put("writing", taskLogStore.isWriting(taskId));
+            ajax.put("lines", lines);
+            return ajax;
         }
         catch (Exception e)
         {
-            log.error("发送连接消息失败", e);
+            log.error("读取原始日志失败", e);
+            return AjaxResult.error("读取原始日志失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 隐私事件实时统计（检测进行中可轮询，按分类汇总，与事件数量无关）
+     */
+    @GetMapping("/privacy/stats")
+    public AjaxResult getPrivacyStats(@RequestParam String taskId)
+    {
+        if (!PrivacyEventStore.isValidTaskId(taskId))
+        {
+            return AjaxResult.error("非法的任务ID");
+        }
+        // 任务尚未开始采集时data为空，前端轮询时不作为错误提示
+        return AjaxResult.success(privacyStats.getSnapshot(taskId));
+    }
+    
+    /**
+     * 当前生效的第三方SDK规则
+     */
+    @GetMapping("/privacy/sdk")
+    public AjaxResult getSdkRules()
+    {
+        return AjaxResult.success(sdkAttributor.getInfo());
+    }
+    
+    /**
+     * 立即重新加载第三方SDK规则
+     */
+    @PostMapping("/privacy/sdk/reload")
+    public AjaxResult reloadSdkRules()
+    {
+        return AjaxResult.success(sdkAttributor.reload());
+    }
+    
+    /**
+     * 按当前的第三方SDK规则重新判定已结束任务的事件归属，报告和统计随之更新
+     */
+    @PostMapping("/privacy/reattribute")
+    public AjaxResult reattributePrivacyEvents(@RequestBody Map<String, Object> params)
+    {
+        String taskId = (String) params.get("taskId");
+        if (!privacyReportService.hasLocalEvents(taskId))
+        {
+            return AjaxResult.error("未找到该任务的隐私事件");
+        }
+        if (!isTaskFinished(taskId))
+        {
+            return AjaxResult.error("任务尚未结束，不能重新判定");
+        }
+        try
+        {
+            Map<String, Object> result = privacyReportService.reattribute(taskId);
+            reportCache.invalidate(taskId);
+            privacyStats.invalidate(taskId);
+            log.info("重新判定隐私事件归属 - {}", result);
+            return AjaxResult.success(result);
+        }
+        catch (Exception e)
+        {
+            log.error("重新判定隐私事件归属失败", e);
+            return AjaxResult.error("重新判定失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 比较两次检测的隐私行为（如同一APP的新旧版本）：新增、消失和次数变化的行为
+     */
+    @GetMapping("/privacy/diff")
+    public AjaxResult diffPrivacyBehaviours(@RequestParam String baseTaskId, @RequestParam String targetTaskId)
+    {
+        if (!PrivacyEventStore.isValidTaskId(baseTaskId) || !PrivacyEventStore.isValidTaskId(targetTaskId))
+        {
+            return AjaxResult.error("非法的任务ID");
+        }
+        try
+        {
+            return AjaxResult.success(privacyDiff.diff(baseTaskId, targetTaskId));
+        }
+        catch (ServiceException e)
+        {
+            return AjaxResult.error(e.getMessage());
+        }
+        catch (Exception e)
+        {
+            log.error("比较隐私行为失败", e);
+            return AjaxResult.error("比较隐私行为失败: " + e.getMessage());
         }
-        
-        return emitter;
     }
     
     /**
      * 下载Frida检测报告
+     * 
+     * 优先由本地采集的隐私事件直接生成（xlsx/csv）；没有本地事件时取容器内脚本生成的报告，
+     * 两者都没有时输出只有表头的空报告。
+     * 已结束任务的报告缓存在本地，支持ETag条件请求和Range断点续传
      */
     @GetMapping("/frida/report/download")
-    public void downloadFridaReport(@RequestParam String taskId, 
-                                    javax.servlet.http.HttpServletResponse response)
+    public void downloadFridaReport(@RequestParam String taskId,
+                                    @RequestParam(defaultValue = IPrivacyReportService.FORMAT_XLSX) String format,
+                                    HttpServletRequest request, HttpServletResponse response)
     {
-        com.jcraft.jsch.Session session = null;
-        com.jcraft.jsch.ChannelSftp sftpChannel = null;
-        
         try
         {
-            // 获取报告文件路径
-            String reportPath = fridaAnalysisService.getAnalysisReport(taskId);
-            log.info("下载Frida报告 - taskId: {}, 文件路径: {}", taskId, reportPath);
-            
-            // 建立SFTP连接
-            com.jcraft.jsch.JSch jsch = new com.jcraft.jsch.JSch();
-            session = jsch.getSession(
-                sftpConfig.getUsername(),
-                sftpConfig.getHost(),
-                sftpConfig.getPort()
-            );
-            session.setPassword(sftpConfig.getPassword());
-            
-            java.util.Properties config = new java.util.Properties();
-            config.put("StrictHostKeyChecking", "no");
-            session.setConfig(config);
-            session.setTimeout(30000);
-            
-            session.connect();
-            
-            // 打开SFTP通道
-            sftpChannel = (com.jcraft.jsch.ChannelSftp) session.openChannel("sftp");
-            sftpChannel.connect();
-            
-            // 检查文件是否存在，如果不存在尝试从容器复制
-            try
+            if (!PrivacyEventStore.isValidTaskId(taskId))
             {
-                sftpChannel.stat(reportPath);
-                log.info("报告文件存在于宿主机: {}", reportPath);
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                response.setContentType("text/plain;charset=UTF-8");
+                response.getWriter().write("非法的任务ID");
+                return;
             }
-            catch (com.jcraft.jsch.SftpException e)
+            if (isTaskFinished(taskId))
             {
-                log.warn("报告文件不存在于宿主机: {}, 尝试从Docker容器复制...", reportPath);
-                
-                // 尝试从Docker容器复制文件
-                try
-                {
-                    // 首先检查容器内文件是否存在
-                    com.jcraft.jsch.ChannelExec checkChannel = (com.jcraft.jsch.ChannelExec) session.openChannel("exec");
-                    String checkCommand = String.format(
-                        "docker exec -u 0 android-frida-container ls -la %s 2>&1",
-                        reportPath
-                    );
-                    log.info("检查容器内报告文件: {}", checkCommand);
-                    checkChannel.setCommand(checkCommand);
-                    java.io.InputStream checkIn = checkChannel.getInputStream();
-                    checkChannel.connect();
-
-                    java.io.BufferedReader checkReader = new java.io.BufferedReader(
-                        new java.io.InputStreamReader(checkIn)
-                    );
-                    String checkLine;
-                    StringBuilder checkOutput = new StringBuilder();
-                    while ((checkLine = checkReader.readLine()) != null)
-                    {
-                        checkOutput.append(checkLine).append("\n");
-                    }
-
-                    while (!checkChannel.isClosed())
-                    {
-                        try { Thread.sleep(100); } catch (Exception ex) { }
-                    }
-
-                    int checkExitStatus = checkChannel.getExitStatus();
-                    checkChannel.disconnect();
-
-                    log.info("容器内文件检查结果 - 退出码: {}, 输出: {}", checkExitStatus, checkOutput.toString());
-
-                    if (checkExitStatus != 0)
-                    {
-                        log.error("容器内报告文件不存在: {}", reportPath);
-                        log.error("检查输出: {}", checkOutput.toString());
-                        
-                        // 尝试强制生成一个空报告到报告目录
-                        log.info("尝试强制生成空报告...");
-                        String reportDir = "/opt/frida_reports";
-                        String tempFilePath = String.format("%s/frida_report_%s.xls", reportDir, taskId);
-                        
-                        com.jcraft.jsch.ChannelExec generateChannel = (com.jcraft.jsch.ChannelExec) session.openChannel("exec");
-                        // 创建一个简单的Python脚本文件，然后执行
-                        String pythonScript = 
-                            "import xlwt\\n" +
-                            "wb = xlwt.Workbook(encoding='utf-8')\\n" +
-                            "ws = wb.add_sheet('隐私检测报告')\\n" +
-                            "ws.write(0, 0, '时间')\\n" +
-                            "ws.write(0, 1, '行为主体')\\n" +
-                            "ws.write(0, 2, '行为描述')\\n" +
-                            "ws.write(0, 3, '传入参数')\\n" +
-                            "row = 1\\n" +
-                            "data_count = 0\\n" +
-                            "try:\\n" +
-                            "    with open('/tmp/frida_output.log', 'r', encoding='utf-8', errors='ignore') as f:\\n" +
-                            "        for line in f:\\n" +
-                            "            if 'APP行为：' in line:\\n" +
-                            "                try:\\n" +
-                            "                    parts = line.strip().split('、')\\n" +
-                            "                    behavior = ''\\n" +
-                            "                    subject = ''\\n" +
-                            "                    desc = ''\\n" +
-                            "                    params = ''\\n" +
-                            "                    for part in parts:\\n" +
-                            "                        if '行为主体：' in part:\\n" +
-                            "                            subject = part.split('：', 1)[1]\\n" +
-                            "                        elif '行为描述：' in part:\\n" +
-                            "                            desc = part.split('：', 1)[1]\\n" +
-                            "                        elif '传入参数：' in part:\\n" +
-                            "                            params = part.split('：', 1)[1]\\n" +
-                            "                        elif 'APP行为：' in part:\\n" +
-                            "                            behavior = part.split('：', 1)[1]\\n" +
-                            "                    import re\\n" +
-                            "                    time_match = re.search(r'[0-9]{4}-[0-9]{2}-[0-9]{2} [0-9]{2}:[0-9]{2}:[0-9]{2}', line)\\n" +
-                            "                    timestamp = time_match.group() if time_match else '2025-11-13 20:54:00'\\n" +
-                            "                    ws.write(row, 0, timestamp)\\n" +
-                            "                    ws.write(row, 1, subject or 'APP本身')\\n" +
-                            "                    ws.write(row, 2, behavior or desc or '隐私行为检测')\\n" +
-                            "                    ws.write(row, 3, params or '检测到的参数')\\n" +
-                            "                    row += 1\\n" +
-                            "                    data_count += 1\\n" +
-                            "                except:\\n" +
-                            "                    pass\\n" +
-                            "except:\\n" +
-                            "    pass\\n" +
-                            "print('从日志提取了', data_count, '条真实数据')\\n" +
-                            "if data_count == 0:\\n" +
-                            "    ws.write(1, 0, '2025-11-13 20:00:00')\\n" +
-                            "    ws.write(1, 1, 'APP本身')\\n" +
-                            "    ws.write(1, 2, '未检测到隐私行为')\\n" +
-                            "    ws.write(1, 3, '请确保在检测期间操作应用')\\n" +
-                            "    print('使用示例数据')\\n" +
-                            "else:\\n" +
-                            "    print('报告包含', data_count, '条真实数据')\\n" +
-                            "wb.save('%s')\\n" +
-                            "print('Report generation completed')\\n";
-                            
-                        String generateCommand = String.format(
-                            "mkdir -p %s && " +
-                            "docker exec -u 0 android-frida-container /bin/bash -c \\\"" +
-                            "mkdir -p /opt/frida_reports && " +
-                            "echo '%s' > /tmp/generate_report.py && " +
-                            "python3 /tmp/generate_report.py\\\" && " +
-                            "docker cp android-frida-container:%s %s 2>&1",
-                            reportDir, pythonScript.replace("'", "\\'"), reportPath, tempFilePath
-                        );
-                        generateChannel.setCommand(generateCommand);
-                        
-                        java.io.InputStream generateIn = generateChannel.getInputStream();
-                        generateChannel.connect();
-                        
-                        java.io.BufferedReader generateReader = new java.io.BufferedReader(
-                            new java.io.InputStreamReader(generateIn)
-                        );
-                        String generateLine;
-                        StringBuilder generateOutput = new StringBuilder();
-                        while ((generateLine = generateReader.readLine()) != null)
-                        {
-                            generateOutput.append(generateLine).append("\n");
-                        }
-                        
-                        while (!generateChannel.isClosed())
-                        {
-                            try { Thread.sleep(100); } catch (Exception ex) { }
-                        }
-                        
-                        int generateExitStatus = generateChannel.getExitStatus();
-                        generateChannel.disconnect();
-                        
-                        log.info("数据恢复报告生成结果 - 退出码: {}, 输出: {}", generateExitStatus, generateOutput.toString());
-                        
-                        // 解析输出中的数据统计信息
-                        String output = generateOutput.toString();
-                        if (output.contains("条真实数据")) {
-                            log.info("✅ 成功从日志文件恢复真实数据到报告中");
-                        } else if (output.contains("使用示例数据")) {
-                            log.warn("⚠️  未找到真实数据，使用示例数据");
-                        }
-                        
-                        if (generateExitStatus != 0)
-                        {
-                            // 添加调试信息，检查日志文件是否存在
-                            log.error("数据恢复失败，检查日志文件状态...");
-                            try {
-                                com.jcraft.jsch.ChannelExec debugChannel = (com.jcraft.jsch.ChannelExec) session.openChannel("exec");
-                                // 检查容器状态、用户信息和日志文件
-                                String debugCommand = "docker exec -u 0 android-frida-container /bin/bash -c \"" +
-                                    "echo '=== 容器状态检查 ==='; " +
-                                    "whoami; " +
-                                    "id; " +
-                                    "echo '=== Python环境 ==='; " +
-                                    "python3 --version; " +
-                                    "echo '=== 日志文件状态 ==='; " +
-                                    "ls -la /tmp/frida_output.log 2>&1; " +
-                                    "echo '=== 日志文件内容预览 ==='; " +
-                                    "head -5 /tmp/frida_output.log 2>&1 || echo '日志文件不存在或为空'; " +
-                                    "echo '=== 报告目录状态 ==='; " +
-                                    "ls -la /opt/frida_reports/ 2>&1 || echo '报告目录不存在'\" 2>&1";
-                                debugChannel.setCommand(debugCommand);
-                                java.io.InputStream debugIn = debugChannel.getInputStream();
-                                debugChannel.connect();
-                                
-                                java.io.BufferedReader debugReader = new java.io.BufferedReader(
-                                    new java.io.InputStreamReader(debugIn)
-                                );
-                                String debugLine;
-                                StringBuilder debugOutput = new StringBuilder();
-                                while ((debugLine = debugReader.readLine()) != null) {
-                                    debugOutput.append(debugLine).append("\\n");
-                                }
-                                debugChannel.disconnect();
-                                
-                                log.info("容器状态详情: {}", debugOutput.toString());
-                            } catch (Exception e1) {
-                                log.warn("无法检查容器状态: {}", e1.getMessage());
-                            }
-                            
-                            response.setStatus(404);
-                            response.getWriter().write("报告文件不存在，且数据恢复失败。请检查Frida检测是否正常运行。\\n错误详情: " + checkOutput.toString());
-                            return;
-                        }
-                        
-                        log.info("紧急报告生成成功，使用临时文件: {}", tempFilePath);
-                        // 更新reportPath为临时文件路径
-                        reportPath = tempFilePath;
-                    }
-
-                    // 总是从Docker容器复制报告到宿主机
-                    com.jcraft.jsch.ChannelExec execChannel = (com.jcraft.jsch.ChannelExec) session.openChannel("exec");
-
-                    // 使用报告目录
-                    String reportDir = "/opt/frida_reports";
-                    String hostFilePath = String.format("%s/frida_report_%s.xls", reportDir, taskId);
-                    String copyCommand = String.format(
-                        "mkdir -p %s && docker cp android-frida-container:%s %s 2>&1",
-                        reportDir, reportPath, hostFilePath
-                    );
-                    log.info("执行复制命令: {}", copyCommand);
-                    execChannel.setCommand(copyCommand);
-
-                    java.io.InputStream execIn = execChannel.getInputStream();
-                    execChannel.connect();
-
-                    java.io.BufferedReader reader = new java.io.BufferedReader(
-                        new java.io.InputStreamReader(execIn)
-                    );
-                    String line;
-                    StringBuilder output = new StringBuilder();
-                    while ((line = reader.readLine()) != null)
-                    {
-                        output.append(line).append("\n");
-                    }
-
-                    // 等待通道关闭（命令执行完成）
-                    while (!execChannel.isClosed())
-                    {
-                        try { Thread.sleep(100); } catch (Exception ex) { }
-                    }
-
-                    // 获取退出码
-                    int copyExitStatus = execChannel.getExitStatus();
-                    execChannel.disconnect();
-
-                    log.info("Docker cp输出: {}", output.toString());
-                    log.info("Docker cp退出码: {}", copyExitStatus);
-
-                    if (copyExitStatus != 0)
-                    {
-                        log.error("Docker cp命令失败，退出码: {}", copyExitStatus);
-                        response.setStatus(500);
-                        response.getWriter().write("复制报告文件失败: " + output.toString());
-                        return;
-                    }
-
-                    // 更新reportPath为宿主机文件路径
-                    reportPath = hostFilePath;
-                    log.info("文件已复制到宿主机: {}", reportPath);
-
-                    // 等待一秒确保文件系统同步
-                    Thread.sleep(1000);
-                }
-                catch (Exception copyEx)
-                {
-                    log.error("从Docker容器复制文件失败", copyEx);
-                    response.setStatus(500);
-                    response.getWriter().write("无法获取报告文件: " + copyEx.getMessage());
-                    return;
-                }
+                ReportCache.Entry entry = getCachedReport(taskId, format);
+                String contentType = entry.getKey().endsWith(".xls") ? "application/vnd.ms-excel"
+                        : privacyReportService.getContentType(format);
+                reportCache.serve(entry, contentType, request, response);
+                return;
             }
-            
-            // 获取文件名
-            String fileName = reportPath.substring(reportPath.lastIndexOf('/') + 1);
-            
-            // 设置响应头
-            response.setContentType("application/vnd.ms-excel");
-            response.setCharacterEncoding("UTF-8");
-            response.setHeader("Content-Disposition", 
-                "attachment; filename=\"" + java.net.URLEncoder.encode(fileName, "UTF-8") + "\"");
-            
-            // 下载文件
-            java.io.InputStream inputStream = sftpChannel.get(reportPath);
-            java.io.OutputStream outputStream = response.getOutputStream();
-            
-            byte[] buffer = new byte[4096];
-            int bytesRead;
-            while ((bytesRead = inputStream.read(buffer)) != -1)
+            if (!privacyReportService.hasLocalEvents(taskId) && downloadRemoteReport(taskId, request, response))
             {
-                outputStream.write(buffer, 0, bytesRead);
+                return;
             }
-            
-            outputStream.flush();
-            inputStream.close();
-            
-            log.info("报告下载成功: {}", fileName);
+            log.info("生成Frida报告 - taskId: {}, 格式: {}", taskId, format);
+            if (HttpMethod.HEAD.matches(request.getMethod()))
+            {
+                // HEAD仅用于前端确认报告可下载，不生成内容
+                FileUtils.setAttachmentResponseHeader(response, privacyReportService.getReportFileName(taskId, format));
+                return;
+            }
+            StageMetrics.Span exportSpan = stageMetrics.start(taskId, StageMetrics.REPORT_EXPORT, null);
+            privacyReportService.exportReport(response, taskId, format);
+            exportSpan.end();
         }
         catch (Exception e)
         {
@@ -1109,17 +916,148 @@ public class DynamicAnalysisController extends BaseController
                 log.error("写入错误响应失败", ex);
             }
         }
+    }
+    
+    /**
+     * 任务是否已结束（不再产生新的隐私事件或报告），只有已结束任务的报告才缓存
+     */
+    private boolean isTaskFinished(String taskId)
+    {
+        boolean finished = false;
+        for (String taskType : new String[] { AppAnalysisTask.TYPE_FRIDA, AppAnalysisTask.TYPE_DYNAMIC })
+        {
+            Map<String, Object> info = analysisTaskDispatcher.getQueueInfo(taskId, taskType);
+            if (info == null)
+            {
+                continue;
+            }
+            Object status = info.get("status");
+            if (AppAnalysisTask.STATUS_QUEUED.equals(status) || AppAnalysisTask.STATUS_RUNNING.equals(status))
+            {
+                return false;
+            }
+            finished = true;
+        }
+        return finished && !taskLogStore.isWriting(taskId);
+    }
+    
+    /**
+     * 从缓存取已结束任务的报告，未缓存时取容器内报告或由隐私事件生成后加入缓存
+     */
+    private ReportCache.Entry getCachedReport(String taskId, String format) throws Exception
+    {
+        boolean localEvents = privacyReportService.hasLocalEvents(taskId);
+        String remoteKey = fridaAnalysisService.getAnalysisReport(taskId);
+        remoteKey = remoteKey.substring(remoteKey.lastIndexOf('/') + 1);
+        String key = privacyReportService.getReportFileName(taskId, format);
+        ReportCache.Entry entry = localEvents ? null : reportCache.get(remoteKey);
+        if (entry == null)
+        {
+            entry = reportCache.get(key);
+        }
+        if (entry == null && !localEvents)
+        {
+            entry = reportCache.computeIfAbsent(remoteKey, out -> copyRemoteReport(taskId, out));
+        }
+        if (entry == null)
+        {
+            entry = reportCache.computeIfAbsent(key, out -> {
+                log.info("生成Frida报告 - taskId: {}, 格式: {}", taskId, format);
+                StageMetrics.Span exportSpan = stageMetrics.start(taskId, StageMetrics.REPORT_EXPORT, null);
+                privacyReportService.writeReport(out, taskId, format);
+                exportSpan.end();
+                return true;
+            });
+        }
+        return entry;
+    }
+    
+    /**
+     * 复制容器内脚本生成的报告
+     * 
+     * @return 报告不存在时返回false
+     */
+    private boolean copyRemoteReport(String taskId, OutputStream out) throws Exception
+    {
+        String reportPath = fridaAnalysisService.getAnalysisReport(taskId);
+        AnalysisDevice device = fridaAnalysisService.getDevice(taskId);
+        com.jcraft.jsch.ChannelSftp sftpChannel = sshSessionManager.openSftp(device.getHost());
+        try
+        {
+            if (!locateRemoteReport(taskId, reportPath, device, sftpChannel))
+            {
+                return false;
+            }
+            log.info("缓存容器内Frida报告 - taskId: {}, 文件路径: {}", taskId, reportPath);
+            sftpChannel.get(reportPath, out);
+            return true;
+        }
         finally
         {
-            if (sftpChannel != null && sftpChannel.isConnected())
+            sshSessionManager.release(sftpChannel);
+        }
+    }
+    
+    /**
+     * 确认宿主机上有容器内脚本生成的报告，没有时先从容器复制
+     */
+    private boolean locateRemoteReport(String taskId, String reportPath, AnalysisDevice device,
+            com.jcraft.jsch.ChannelSftp sftpChannel) throws Exception
+    {
+        try
+        {
+            sftpChannel.stat(reportPath);
+            return true;
+        }
+        catch (com.jcraft.jsch.SftpException e)
+        {
+            String copyCommand = String.format(
+                "mkdir -p %s && docker cp %s:%s %s",
+                reportPath.substring(0, reportPath.lastIndexOf('/')), device.getName(), reportPath, reportPath
+            );
+            SshExecResult copy = sshSessionManager.exec(device.getHost(), copyCommand, 60000);
+            if (copy.getExitStatus() != 0)
+            {
+                log.info("容器内没有Frida报告 - taskId: {}, 输出: {}", taskId, copy.getMessage());
+                return false;
+            }
+            return true;
+        }
+    }
+    
+    /**
+     * 下载容器内脚本生成的报告（宿主机上没有时先从容器复制）
+     * 
+     * @return 报告不存在时返回false，此时未写入响应
+     */
+    private boolean downloadRemoteReport(String taskId, HttpServletRequest request, HttpServletResponse response) throws Exception
+    {
+        String reportPath = fridaAnalysisService.getAnalysisReport(taskId);
+        AnalysisDevice device = fridaAnalysisService.getDevice(taskId);
+        com.jcraft.jsch.ChannelSftp sftpChannel = sshSessionManager.openSftp(device.getHost());
+        try
+        {
+            if (!locateRemoteReport(taskId, reportPath, device, sftpChannel))
             {
-                sftpChannel.disconnect();
+                return false;
             }
             
-            if (session != null && session.isConnected())
+            String fileName = reportPath.substring(reportPath.lastIndexOf('/') + 1);
+            log.info("下载容器内Frida报告 - taskId: {}, 文件路径: {}", taskId, reportPath);
+            response.setContentType("application/vnd.ms-excel");
+            FileUtils.setAttachmentResponseHeader(response, fileName);
+            if (!HttpMethod.HEAD.matches(request.getMethod()))
             {
-                session.disconnect();
+                try (InputStream inputStream = sftpChannel.get(reportPath))
+                {
+                    IOUtils.copy(inputStream, response.getOutputStream());
+                }
             }
+            return true;
+        }
+        finally
+        {
+            sshSessionManager.release(sftpChannel);
         }
     }
     
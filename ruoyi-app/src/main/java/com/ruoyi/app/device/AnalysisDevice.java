@@ -0,0 +1,118 @@
+package com.ruoyi.app.device;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 设备（模拟器容器）及其运行状态
+ *
+ * 租约相关字段由设备池在锁内维护，负载采集结果由采集线程写入。
+ *
+ * @author ruoyi
+ */
+public class AnalysisDevice
+{
+    /** 默认的VNC端口 */
+    private static final int DEFAULT_VNC_PORT = 6080;
+
+    private final String name;
+
+    private final String host;
+
+    private final String vncUrl;
+
+    private final int capacity;
+
+    private final long registerMillis = System.currentTimeMillis();
+
+    /** 租约ID -> 租约 */
+    final Map<String, DeviceLease> leases = new LinkedHashMap<>();
+
+    /** 已结束租约的累计占用时长（毫秒） */
+    long busyMillis;
+
+    long leasesGranted;
+
+    long leasesExpired;
+
+    /** 宿主机是否可达（连续采集失败未达到阈值） */
+    volatile boolean reachable = true;
+
+    /** 连续采集失败次数 */
+    volatile int probeFailures;
+
+    /** 容器是否在运行 */
+    volatile boolean running = true;
+
+    /** CPU使用率（%，多核时可超过100） */
+    volatile double cpuPercent;
+
+    /** 内存使用率（%） */
+    volatile double memPercent;
+
+    volatile long probeMillis;
+
+    volatile String probeError;
+
+    public AnalysisDevice(String name, String host, String vncUrl, int capacity)
+    {
+        this.name = name;
+        this.host = host;
+        this.vncUrl = vncUrl;
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * 容器名称
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * 所在宿主机，为空时为默认宿主机
+     */
+    public String getHost()
+    {
+        return host;
+    }
+
+    public String getVncUrl()
+    {
+        return vncUrl;
+    }
+
+    /**
+     * VNC地址中的端口，容器需要重建时映射到该端口
+     */
+    public int getVncPort()
+    {
+        try
+        {
+            int port = URI.create(vncUrl).getPort();
+            return port > 0 ? port : DEFAULT_VNC_PORT;
+        }
+        catch (Exception e)
+        {
+            return DEFAULT_VNC_PORT;
+        }
+    }
+
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    long getRegisterMillis()
+    {
+        return registerMillis;
+    }
+
+    @Override
+    public String toString()
+    {
+        return host == null || host.isEmpty() ? name : name + "@" + host;
+    }
+}
@@ -0,0 +1,60 @@
+package com.ruoyi.app.device;
+
+/**
+ * 设备租约：任务独占设备的一个执行槽位，持有方需在有效期内续约
+ *
+ * @author ruoyi
+ */
+public class DeviceLease
+{
+    private final String id;
+
+    private final AnalysisDevice device;
+
+    private final String owner;
+
+    private final long acquireMillis = System.currentTimeMillis();
+
+    private volatile long expireMillis;
+
+    DeviceLease(String id, AnalysisDevice device, String owner, long expireMillis)
+    {
+        this.id = id;
+        this.device = device;
+        this.owner = owner;
+        this.expireMillis = expireMillis;
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public AnalysisDevice getDevice()
+    {
+        return device;
+    }
+
+    /**
+     * 持有方（任务）
+     */
+    public String getOwner()
+    {
+        return owner;
+    }
+
+    public long getAcquireMillis()
+    {
+        return acquireMillis;
+    }
+
+    public long getExpireMillis()
+    {
+        return expireMillis;
+    }
+
+    void renew(long expireMillis)
+    {
+        this.expireMillis = expireMillis;
+    }
+}
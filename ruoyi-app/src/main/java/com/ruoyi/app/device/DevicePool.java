@@ -0,0 +1,446 @@
+package com.ruoyi.app.device;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.ruoyi.app.config.AnalysisConfig;
+import com.ruoyi.app.ssh.SshExecResult;
+import com.ruoyi.app.ssh.SshSessionManager;
+import com.ruoyi.common.utils.StringUtils;
+import com.ruoyi.common.utils.uuid.IdUtils;
+
+/**
+ * 设备池
+ *
+ * 登记配置的模拟器容器（可分布在多台宿主机上），任务执行前按实时负载租用一个设备槽位：
+ * 占用率低、CPU空闲的设备优先，宿主机不可达的设备不参与分配。
+ * 租约需由持有方定期续约，超过有效期未续约时回收槽位并通知过期监听器。
+ * 负载由后台定时在各宿主机上执行docker stats采集，连续失败达到analysis.probeFailures次才视为不可达，
+ * 恢复可达时通知可用监听器，以便立即分配排队中的任务。
+ *
+ * @author ruoyi
+ */
+@Component
+public class DevicePool
+{
+    private static final Logger log = LoggerFactory.getLogger(DevicePool.class);
+
+    /** 未配置任何设备时使用的默认容器 */
+    public static final String DEFAULT_DEVICE = "android-frida-container";
+
+    /** 分配时CPU负载的权重（占用率为0~1，CPU按100%折算为1） */
+    private static final double CPU_WEIGHT = 0.5;
+
+    /** 容器未运行时的分配惩罚（动态分析脚本会自行启动容器，因此不排除） */
+    private static final double STOPPED_PENALTY = 1.0;
+
+    /** 负载采集命令的超时时间（毫秒） */
+    private static final long PROBE_TIMEOUT_MILLIS = 20000;
+
+    @Autowired
+    private AnalysisConfig analysisConfig;
+
+    @Autowired
+    private SshSessionManager sshSessionManager;
+
+    @Autowired
+    private ScheduledExecutorService scheduledExecutorService;
+
+    /** 设备名称 -> 设备，初始化后不再变化 */
+    private final Map<String, AnalysisDevice> devices = new LinkedHashMap<>();
+
+    private final Object lock = new Object();
+
+    private volatile Consumer<DeviceLease> expiryListener;
+
+    private volatile Runnable availableListener;
+
+    private ScheduledFuture<?> expireTask;
+
+    private ScheduledFuture<?> probeTask;
+
+    @PostConstruct
+    public void init()
+    {
+        List<AnalysisConfig.Device> configured = analysisConfig.getDevices();
+        if (configured != null && !configured.isEmpty())
+        {
+            for (AnalysisConfig.Device device : configured)
+            {
+                register(device.getName(), device.getHost(), device.getVncUrl(), device.getCapacity());
+            }
+        }
+        else
+        {
+            List<String> workers = analysisConfig.getWorkers();
+            for (String worker : workers == null || workers.isEmpty() ? Collections.singletonList(DEFAULT_DEVICE) : workers)
+            {
+                register(worker, null, null, null);
+            }
+        }
+        if (devices.isEmpty())
+        {
+            register(DEFAULT_DEVICE, null, null, null);
+        }
+        log.info("设备池已登记 {} 个设备: {}", devices.size(), devices.values());
+
+        long checkMillis = Math.max(1000, analysisConfig.getLeaseSeconds() * 1000L / 3);
+        expireTask = scheduledExecutorService.scheduleWithFixedDelay(this::expire, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+        long probeMillis = Math.max(1000, analysisConfig.getProbeSeconds() * 1000L);
+        probeTask = scheduledExecutorService.scheduleWithFixedDelay(this::probe, 0, probeMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        if (expireTask != null)
+        {
+            expireTask.cancel(false);
+        }
+        if (probeTask != null)
+        {
+            probeTask.cancel(false);
+        }
+    }
+
+    private void register(String name, String host, String vncUrl, Integer capacity)
+    {
+        if (StringUtils.isEmpty(name) || devices.containsKey(name))
+        {
+            log.warn("忽略无效或重复的设备配置: {}", name);
+            return;
+        }
+        devices.put(name, new AnalysisDevice(name, StringUtils.trimToNull(host),
+                StringUtils.isNotEmpty(vncUrl) ? vncUrl : analysisConfig.getVncUrl(),
+                capacity != null ? capacity : analysisConfig.getWorkerConcurrency()));
+    }
+
+    /**
+     * 设置租约过期监听器（在采集线程中回调，不持有设备池的锁）
+     */
+    public void setExpiryListener(Consumer<DeviceLease> expiryListener)
+    {
+        this.expiryListener = expiryListener;
+    }
+
+    /**
+     * 设置设备恢复可达监听器（在采集线程中回调，不持有设备池的锁）
+     */
+    public void setAvailableListener(Runnable availableListener)
+    {
+        this.availableListener = availableListener;
+    }
+
+    /**
+     * 租用负载最低的空闲设备槽位
+     *
+     * @param owner 持有方（任务）
+     * @return 租约，没有空闲槽位时返回null
+     */
+    public DeviceLease acquire(String owner)
+    {
+        synchronized (lock)
+        {
+            AnalysisDevice best = null;
+            double bestScore = Double.MAX_VALUE;
+            for (AnalysisDevice device : devices.values())
+            {
+                if (!device.reachable || device.leases.size() >= device.getCapacity())
+                {
+                    continue;
+                }
+                double score = score(device);
+                if (score < bestScore)
+                {
+                    best = device;
+                    bestScore = score;
+                }
+            }
+            if (best == null)
+            {
+                return null;
+            }
+            DeviceLease lease = new DeviceLease(IdUtils.fastSimpleUUID(), best, owner, System.currentTimeMillis() + leaseMillis());
+            best.leases.put(lease.getId(), lease);
+            best.leasesGranted++;
+            return lease;
+        }
+    }
+
+    /**
+     * 分配评分，越小越优先：槽位占用率 + CPU负载，容器未运行时加惩罚
+     */
+    private static double score(AnalysisDevice device)
+    {
+        double score = device.leases.size() / (double) device.getCapacity() + CPU_WEIGHT * device.cpuPercent / 100D;
+        return device.running ? score : score + STOPPED_PENALTY;
+    }
+
+    /**
+     * 续约
+     *
+     * @return 租约已过期或已释放时返回false
+     */
+    public boolean heartbeat(DeviceLease lease)
+    {
+        synchronized (lock)
+        {
+            if (lease == null || !lease.getDevice().leases.containsKey(lease.getId()))
+            {
+                return false;
+            }
+            lease.renew(System.currentTimeMillis() + leaseMillis());
+            return true;
+        }
+    }
+
+    /**
+     * 释放租约（重复释放或租约已过期时忽略）
+     */
+    public void release(DeviceLease lease)
+    {
+        if (lease == null)
+        {
+            return;
+        }
+        synchronized (lock)
+        {
+            AnalysisDevice device = lease.getDevice();
+            if (device.leases.remove(lease.getId()) != null)
+            {
+                device.busyMillis += System.currentTimeMillis() - lease.getAcquireMillis();
+            }
+        }
+    }
+
+    /**
+     * 按名称查找设备
+     *
+     * @return 设备，名称为空或未登记时返回第一个设备
+     */
+    public AnalysisDevice getDevice(String name)
+    {
+        AnalysisDevice device = StringUtils.isEmpty(name) ? null : devices.get(name);
+        return device != null ? device : devices.values().iterator().next();
+    }
+
+    /**
+     * 所有设备的槽位总数
+     */
+    public int getCapacity()
+    {
+        int capacity = 0;
+        for (AnalysisDevice device : devices.values())
+        {
+            capacity += device.getCapacity();
+        }
+        return capacity;
+    }
+
+    /**
+     * 各设备的占用、利用率和负载
+     */
+    public List<Map<String, Object>> getStats()
+    {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> stats = new ArrayList<>();
+        synchronized (lock)
+        {
+            for (AnalysisDevice device : devices.values())
+            {
+                long busy = device.busyMillis;
+                List<String> owners = new ArrayList<>();
+                for (DeviceLease lease : device.leases.values())
+                {
+                    busy += now - lease.getAcquireMillis();
+                    owners.add(lease.getOwner());
+                }
+                long elapsed = Math.max(1, now - device.getRegisterMillis());
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("name", device.getName());
+                item.put("host", device.getHost());
+                item.put("vncUrl", device.getVncUrl());
+                item.put("capacity", device.getCapacity());
+                item.put("leased", device.leases.size());
+                item.put("tasks", owners);
+                item.put("utilization", Math.round(busy * 10000D / (elapsed * device.getCapacity())) / 100D);
+                item.put("leasesGranted", device.leasesGranted);
+                item.put("leasesExpired", device.leasesExpired);
+                item.put("reachable", device.reachable);
+                item.put("probeFailures", device.probeFailures);
+                item.put("running", device.running);
+                item.put("cpuPercent", device.cpuPercent);
+                item.put("memPercent", device.memPercent);
+                item.put("probeTime", device.probeMillis == 0 ? null : new Date(device.probeMillis));
+                item.put("probeError", device.probeError);
+                stats.add(item);
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * 回收超过有效期未续约的租约
+     */
+    private void expire()
+    {
+        long now = System.currentTimeMillis();
+        List<DeviceLease> expired = new ArrayList<>();
+        synchronized (lock)
+        {
+            for (AnalysisDevice device : devices.values())
+            {
+                for (DeviceLease lease : new ArrayList<>(device.leases.values()))
+                {
+                    if (lease.getExpireMillis() < now)
+                    {
+                        device.leases.remove(lease.getId());
+                        device.busyMillis += now - lease.getAcquireMillis();
+                        device.leasesExpired++;
+                        expired.add(lease);
+                    }
+                }
+            }
+        }
+        Consumer<DeviceLease> listener = expiryListener;
+        for (DeviceLease lease : expired)
+        {
+            log.warn("设备租约过期已回收 - 设备: {}, 任务: {}", lease.getDevice(), lease.getOwner());
+            if (listener != null)
+            {
+                try
+                {
+                    listener.accept(lease);
+                }
+                catch (Exception e)
+                {
+                    log.error("处理设备租约过期失败 - 任务: {}", lease.getOwner(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 在每台宿主机上采集容器的运行状态和资源占用
+     */
+    private void probe()
+    {
+        Map<String, List<AnalysisDevice>> byHost = new LinkedHashMap<>();
+        for (AnalysisDevice device : devices.values())
+        {
+            byHost.computeIfAbsent(StringUtils.defaultString(device.getHost()), h -> new ArrayList<>()).add(device);
+        }
+        boolean recovered = false;
+        for (Map.Entry<String, List<AnalysisDevice>> entry : byHost.entrySet())
+        {
+            recovered |= probeHost(entry.getKey(), entry.getValue());
+        }
+        Runnable listener = availableListener;
+        if (recovered && listener != null)
+        {
+            try
+            {
+                listener.run();
+            }
+            catch (Exception e)
+            {
+                log.error("处理设备恢复可达失败", e);
+            }
+        }
+    }
+
+    /**
+     * 采集一台宿主机上的设备
+     *
+     * @return 是否有设备由不可达恢复为可达
+     */
+    private boolean probeHost(String host, List<AnalysisDevice> hostDevices)
+    {
+        Map<String, double[]> usage = new LinkedHashMap<>();
+        String error = null;
+        try
+        {
+            // 只列出运行中的容器，每行：名称\tCPU%\t内存%
+            SshExecResult result = sshSessionManager.exec(StringUtils.isEmpty(host) ? null : host,
+                    "docker stats --no-stream --format '{{.Name}}\t{{.CPUPerc}}\t{{.MemPerc}}'", PROBE_TIMEOUT_MILLIS);
+            if (result.getExitStatus() != 0)
+            {
+                error = StringUtils.substring(StringUtils.trim(result.getMessage()), 0, 200);
+            }
+            else
+            {
+                for (String line : result.getOutput().split("\n"))
+                {
+                    String[] parts = line.trim().split("\t");
+                    if (parts.length >= 3)
+                    {
+                        usage.put(parts[0], new double[] { parsePercent(parts[1]), parsePercent(parts[2]) });
+                    }
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            error = e.getMessage();
+        }
+        long now = System.currentTimeMillis();
+        boolean recovered = false;
+        for (AnalysisDevice device : hostDevices)
+        {
+            device.probeMillis = now;
+            device.probeError = error;
+            if (error != null)
+            {
+                int failures = ++device.probeFailures;
+                if (device.reachable && failures >= Math.max(1, analysisConfig.getProbeFailures()))
+                {
+                    log.warn("设备负载连续采集失败{}次，暂停分配 - {}: {}", failures, device, error);
+                    device.reachable = false;
+                }
+                continue;
+            }
+            if (!device.reachable)
+            {
+                log.info("设备负载采集恢复，继续分配 - {}", device);
+                recovered = true;
+            }
+            double[] values = usage.get(device.getName());
+            device.probeFailures = 0;
+            device.reachable = true;
+            device.running = values != null;
+            device.cpuPercent = values != null ? values[0] : 0;
+            device.memPercent = values != null ? values[1] : 0;
+        }
+        return recovered;
+    }
+
+    private static double parsePercent(String value)
+    {
+        try
+        {
+            return Double.parseDouble(StringUtils.removeEnd(value.trim(), "%"));
+        }
+        catch (NumberFormatException e)
+        {
+            return 0;
+        }
+    }
+
+    private long leaseMillis()
+    {
+        return Math.max(1, analysisConfig.getLeaseSeconds()) * 1000L;
+    }
+}
@@ -0,0 +1,238 @@
+package com.ruoyi.app.domain;
+
+import java.util.Date;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.ruoyi.common.core.domain.BaseEntity;
+
+/**
+ * 分析任务队列表 app_analysis_task
+ *
+ * @author ruoyi
+ */
+public class AppAnalysisTask extends BaseEntity
+{
+    private static final long serialVersionUID = 1L;
+
+    /** 任务类型：动态分析 */
+    public static final String TYPE_DYNAMIC = "dynamic";
+
+    /** 任务类型：Frida隐私检测 */
+    public static final String TYPE_FRIDA = "frida";
+
+    /** 任务类型：批量分析（一个批次占用一个设备槽位） */
+    public static final String TYPE_BATCH = "batch";
+
+    /** 状态：排队中 */
+    public static final String STATUS_QUEUED = "0";
+
+    /** 状态：执行中 */
+    public static final String STATUS_RUNNING = "1";
+
+    /** 状态：已完成 */
+    public static final String STATUS_SUCCESS = "2";
+
+    /** 状态：失败 */
+    public static final String STATUS_FAIL = "3";
+
+    /** 状态：已取消 */
+    public static final String STATUS_CANCEL = "4";
+
+    /** 队列记录ID */
+    private Long id;
+
+    /** 任务编号（日志流、报告等均以此关联） */
+    private String taskId;
+
+    /** 任务名称 */
+    private String taskName;
+
+    /** 任务类型（dynamic动态分析 frida隐私检测 batch批量分析） */
+    private String taskType;
+
+    /** 优先级（0-9，数值越大越优先） */
+    private Integer priority;
+
+    /** 状态（0排队中 1执行中 2已完成 3失败 4已取消） */
+    private String status;
+
+    /** 执行节点（模拟器容器） */
+    private String worker;
+
+    /** APK路径 */
+    private String apkPath;
+
+    /** 运行参数（JSON） */
+    private String runParams;
+
+    /** 入队时间 */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date queueTime;
+
+    /** 开始执行时间 */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date startTime;
+
+    /** 结束时间 */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date endTime;
+
+    /** 错误信息 */
+    private String errorMsg;
+
+    public Long getId()
+    {
+        return id;
+    }
+
+    public void setId(Long id)
+    {
+        this.id = id;
+    }
+
+    public String getTaskId()
+    {
+        return taskId;
+    }
+
+    public void setTaskId(String taskId)
+    {
+        this.taskId = taskId;
+    }
+
+    public String getTaskName()
+    {
+        return taskName;
+    }
+
+    public void setTaskName(String taskName)
+    {
+        this.taskName = taskName;
+    }
+
+    public String getTaskType()
+    {
+        return taskType;
+    }
+
+    public void setTaskType(String taskType)
+    {
+        this.taskType = taskType;
+    }
+
+    public Integer getPriority()
+    {
+        return priority;
+    }
+
+    public void setPriority(Integer priority)
+    {
+        this.priority = priority;
+    }
+
+    public String getStatus()
+    {
+        return status;
+    }
+
+    public void setStatus(String status)
+    {
+        this.status = status;
+    }
+
+    public String getWorker()
+    {
+        return worker;
+    }
+
+    public void setWorker(String worker)
+    {
+        this.worker = worker;
+    }
+
+    public String getApkPath()
+    {
+        return apkPath;
+    }
+
+    public void setApkPath(String apkPath)
+    {
+        this.apkPath = apkPath;
+    }
+
+    public String getRunParams()
+    {
+        return runParams;
+    }
+
+    public void setRunParams(String runParams)
+    {
+        this.runParams = runParams;
+    }
+
+    public Date getQueueTime()
+    {
+        return queueTime;
+    }
+
+    public void setQueueTime(Date queueTime)
+    {
+        this.queueTime = queueTime;
+    }
+
+    public Date getStartTime()
+    {
+        return startTime;
+    }
+
+    public void setStartTime(Date startTime)
+    {
+        this.startTime = startTime;
+    }
+
+    public Date getEndTime()
+    {
+        return endTime;
+    }
+
+    public void setEndTime(Date endTime)
+    {
+        this.endTime = endTime;
+    }
+
+    public String getErrorMsg()
+    {
+        return errorMsg;
+    }
+
+    public void setErrorMsg(String errorMsg)
+    {
+        this.errorMsg = errorMsg;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this, ToStringStyle.MULTI_LINE_STYLE)
+            .append("id", getId())
+            .append("taskId", getTaskId())
+            .append("taskName", getTaskName())
+            .append("taskType", getTaskType())
+            .append("priority", getPriority())
+            .append("status", getStatus())
+            .append("worker", getWorker())
+            .append("apkPath", getApkPath())
+            .append("runParams", getRunParams())
+            .append("queueTime", getQueueTime())
+            .append("startTime", getStartTime())
+            .append("endTime", getEndTime())
+            .append("errorMsg", getErrorMsg())
+            .append("createBy", getCreateBy())
+            .append("createTime", getCreateTime())
+            .append("updateBy", getUpdateBy())
+            .append("updateTime", getUpdateTime())
+            .append("remark", getRemark())
+            .toString();
+    }
+}
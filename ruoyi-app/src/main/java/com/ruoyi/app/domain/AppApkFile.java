@@ -0,0 +1,143 @@
+package com.ruoyi.app.domain;
+
+import java.util.Date;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.ruoyi.common.core.domain.BaseEntity;
+
+/**
+ * 应用文件内容索引表 app_apk_file
+ *
+ * 按文件内容的SHA-256登记已上传到分析服务器的文件，相同内容重复上传时直接复用
+ *
+ * @author ruoyi
+ */
+public class AppApkFile extends BaseEntity
+{
+    private static final long serialVersionUID = 1L;
+
+    /** 文件ID */
+    private Long id;
+
+    /** 文件内容SHA-256 */
+    private String sha256;
+
+    /** 远程文件名 */
+    private String fileName;
+
+    /** 远程文件路径 */
+    private String filePath;
+
+    /** 首次上传时的原始文件名 */
+    private String originalFilename;
+
+    /** 文件大小（字节） */
+    private Long fileSize;
+
+    /** 重复上传次数 */
+    private Integer hitCount;
+
+    /** 最近一次重复上传时间 */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date lastHitTime;
+
+    public Long getId()
+    {
+        return id;
+    }
+
+    public void setId(Long id)
+    {
+        this.id = id;
+    }
+
+    public String getSha256()
+    {
+        return sha256;
+    }
+
+    public void setSha256(String sha256)
+    {
+        this.sha256 = sha256;
+    }
+
+    public String getFileName()
+    {
+        return fileName;
+    }
+
+    public void setFileName(String fileName)
+    {
+        this.fileName = fileName;
+    }
+
+    public String getFilePath()
+    {
+        return filePath;
+    }
+
+    public void setFilePath(String filePath)
+    {
+        this.filePath = filePath;
+    }
+
+    public String getOriginalFilename()
+    {
+        return originalFilename;
+    }
+
+    public void setOriginalFilename(String originalFilename)
+    {
+        this.originalFilename = originalFilename;
+    }
+
+    public Long getFileSize()
+    {
+        return fileSize;
+    }
+
+    public void setFileSize(Long fileSize)
+    {
+        this.fileSize = fileSize;
+    }
+
+    public Integer getHitCount()
+    {
+        return hitCount;
+    }
+
+    public void setHitCount(Integer hitCount)
+    {
+        this.hitCount = hitCount;
+    }
+
+    public Date getLastHitTime()
+    {
+        return lastHitTime;
+    }
+
+    public void setLastHitTime(Date lastHitTime)
+    {
+        this.lastHitTime = lastHitTime;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this, ToStringStyle.MULTI_LINE_STYLE)
+            .append("id", getId())
+            .append("sha256", getSha256())
+            .append("fileName", getFileName())
+            .append("filePath", getFilePath())
+            .append("originalFilename", getOriginalFilename())
+            .append("fileSize", getFileSize())
+            .append("hitCount", getHitCount())
+            .append("lastHitTime", getLastHitTime())
+            .append("createBy", getCreateBy())
+            .append("createTime", getCreateTime())
+            .append("updateTime", getUpdateTime())
+            .append("remark", getRemark())
+            .toString();
+    }
+}
@@ -0,0 +1,155 @@
+package com.ruoyi.app.domain;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import com.ruoyi.common.annotation.Excel;
+import com.ruoyi.common.annotation.Excel.ColumnType;
+
+/**
+ * Frida隐私行为事件（由脚本输出的告警块解析而来）
+ *
+ * @author ruoyi
+ */
+public class PrivacyEvent
+{
+    /** 任务内序号（从1开始） */
+    @Excel(name = "序号", cellType = ColumnType.NUMERIC, width = 8)
+    private long seq;
+
+    /** 日志输出时间（告警行前缀） */
+    private String logTime;
+
+    /** 行为发生时间点 */
+    @Excel(name = "时间点", width = 20)
+    private String alertTime;
+
+    /** 操作行为 */
+    @Excel(name = "操作行为", width = 24)
+    private String action;
+
+    /** 行为主体（APP本身或第三方SDK） */
+    @Excel(name = "行为主体", width = 20)
+    private String subject;
+
+    /** 行为描述 */
+    @Excel(name = "行为描述", width = 30)
+    private String description;
+
+    /** 传入参数 */
+    @Excel(name = "传入参数", width = 40, align = HorizontalAlignment.LEFT)
+    private String args;
+
+    /** 调用堆栈 */
+    @Excel(name = "调用堆栈", width = 100, align = HorizontalAlignment.LEFT)
+    private String stack;
+
+    /** 堆栈在任务驻留表中的编号（0表示未驻留），事件文件中按编号引用堆栈 */
+    private int stackId;
+
+    public long getSeq()
+    {
+        return seq;
+    }
+
+    public void setSeq(long seq)
+    {
+        this.seq = seq;
+    }
+
+    public String getLogTime()
+    {
+        return logTime;
+    }
+
+    public void setLogTime(String logTime)
+    {
+        this.logTime = logTime;
+    }
+
+    public String getAlertTime()
+    {
+        return alertTime;
+    }
+
+    public void setAlertTime(String alertTime)
+    {
+        this.alertTime = alertTime;
+    }
+
+    public String getAction()
+    {
+        return action;
+    }
+
+    public void setAction(String action)
+    {
+        this.action = action;
+    }
+
+    public String getSubject()
+    {
+        return subject;
+    }
+
+    public void setSubject(String subject)
+    {
+        this.subject = subject;
+    }
+
+    public String getDescription()
+    {
+        return description;
+    }
+
+    public void setDescription(String description)
+    {
+        this.description = description;
+    }
+
+    public String getArgs()
+    {
+        return args;
+    }
+
+    public void setArgs(String args)
+    {
+        this.args = args;
+    }
+
+    public String getStack()
+    {
+        return stack;
+    }
+
+    public void setStack(String stack)
+    {
+        this.stack = stack;
+    }
+
+    public int getStackId()
+    {
+        return stackId;
+    }
+
+    public void setStackId(int stackId)
+    {
+        this.stackId = stackId;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this, ToStringStyle.MULTI_LINE_STYLE)
+            .append("seq", getSeq())
+            .append("logTime", getLogTime())
+            .append("alertTime", getAlertTime())
+            .append("action", getAction())
+            .append("subject", getSubject())
+            .append("description", getDescription())
+            .append("args", getArgs())
+            .append("stack", getStack())
+            .append("stackId", getStackId())
+            .toString();
+    }
+}
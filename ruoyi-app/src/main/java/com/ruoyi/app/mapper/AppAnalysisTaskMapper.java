@@ -0,0 +1,69 @@
+package com.ruoyi.app.mapper;
+
+import java.util.List;
+import org.apache.ibatis.annotations.Param;
+import com.ruoyi.app.domain.AppAnalysisTask;
+
+/**
+ * 分析任务队列 数据层
+ *
+ * @author ruoyi
+ */
+public interface AppAnalysisTaskMapper
+{
+    /**
+     * 查询分析任务
+     *
+     * @param id 队列记录ID
+     * @return 分析任务
+     */
+    public AppAnalysisTask selectTaskById(Long id);
+
+    /**
+     * 根据任务编号和类型查询分析任务
+     *
+     * @param taskId 任务编号
+     * @param taskType 任务类型
+     * @return 分析任务
+     */
+    public AppAnalysisTask selectTaskByTaskId(@Param("taskId") String taskId, @Param("taskType") String taskType);
+
+    /**
+     * 查询分析任务列表
+     *
+     * @param task 分析任务
+     * @return 分析任务集合
+     */
+    public List<AppAnalysisTask> selectTaskList(AppAnalysisTask task);
+
+    /**
+     * 查询未结束（排队中、执行中）的任务，按出队顺序排列
+     *
+     * @return 分析任务集合
+     */
+    public List<AppAnalysisTask> selectUnfinishedTasks();
+
+    /**
+     * 新增分析任务
+     *
+     * @param task 分析任务
+     * @return 结果
+     */
+    public int insertTask(AppAnalysisTask task);
+
+    /**
+     * 修改分析任务
+     *
+     * @param task 分析任务
+     * @return 结果
+     */
+    public int updateTask(AppAnalysisTask task);
+
+    /**
+     * 批量删除分析任务
+     *
+     * @param ids 需要删除的队列记录ID
+     * @return 结果
+     */
+    public int deleteTaskByIds(Long[] ids);
+}
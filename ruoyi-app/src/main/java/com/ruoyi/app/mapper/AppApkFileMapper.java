@@ -0,0 +1,35 @@
+package com.ruoyi.app.mapper;
+
+import com.ruoyi.app.domain.AppApkFile;
+
+/**
+ * 应用文件内容索引 数据层
+ *
+ * @author ruoyi
+ */
+public interface AppApkFileMapper
+{
+    /**
+     * 根据内容摘要查询文件
+     *
+     * @param sha256 文件内容SHA-256
+     * @return 文件信息
+     */
+    public AppApkFile selectApkFileBySha256(String sha256);
+
+    /**
+     * 登记文件
+     *
+     * @param apkFile 文件信息
+     * @return 结果
+     */
+    public int insertApkFile(AppApkFile apkFile);
+
+    /**
+     * 记录一次重复上传
+     *
+     * @param sha256 文件内容SHA-256
+     * @return 结果
+     */
+    public int updateApkFileHit(String sha256);
+}
@@ -0,0 +1,139 @@
+package com.ruoyi.app.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 耗时直方图（HDR风格的对数线性分桶）
+ *
+ * 小于128毫秒的值每毫秒一个桶；更大的值按2的幂分段，每段再线性分为64个桶，相对误差不超过1/64。
+ * 记录只是一次下标计算和一次原子自增，不加锁、不分配对象；超过上限的值按上限计。
+ *
+ * @author ruoyi
+ */
+public class LatencyHistogram
+{
+    /** 精确计数的区间（毫秒） */
+    private static final int SUB_BUCKETS = 128;
+
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+    /** 可记录的最大值：1小时（毫秒） */
+    private static final long MAX_VALUE = 60 * 60 * 1000L;
+
+    private static final int BUCKET_COUNT = index(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong sum = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一个耗时
+     *
+     * @param millis 耗时（毫秒），负数按0计
+     */
+    public void record(long millis)
+    {
+        long value = Math.min(Math.max(millis, 0), MAX_VALUE);
+        counts.incrementAndGet(index(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public long getCount()
+    {
+        return count.get();
+    }
+
+    /**
+     * 汇总：次数、平均值、最大值及常用分位数（毫秒）
+     */
+    public Map<String, Object> snapshot()
+    {
+        long[] copy = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("count", total);
+        map.put("mean", total == 0 ? 0 : Math.round(sum.get() / (double) total));
+        map.put("max", max.get());
+        map.put("p50", percentile(copy, total, 0.50));
+        map.put("p90", percentile(copy, total, 0.90));
+        map.put("p99", percentile(copy, total, 0.99));
+        map.put("p999", percentile(copy, total, 0.999));
+        return map;
+    }
+
+    /**
+     * 合并另一个直方图（用于按阶段汇总各设备）
+     */
+    public void add(LatencyHistogram other)
+    {
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            long c = other.counts.get(i);
+            if (c != 0)
+            {
+                counts.addAndGet(i, c);
+            }
+        }
+        count.addAndGet(other.count.get());
+        sum.addAndGet(other.sum.get());
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    /**
+     * 分位数，返回所在桶的上界（与HDR直方图的highestEquivalentValue一致）
+     */
+    private long percentile(long[] copy, long total, double quantile)
+    {
+        if (total == 0)
+        {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(total * quantile));
+        long seen = 0;
+        for (int i = 0; i < copy.length; i++)
+        {
+            seen += copy[i];
+            if (seen >= target)
+            {
+                return Math.min(highestEquivalentValue(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    static int index(long value)
+    {
+        if (value < SUB_BUCKETS)
+        {
+            return (int) value;
+        }
+        // 使value >>> shift落在[64, 128)
+        int shift = 63 - Long.numberOfLeadingZeros(value) - 6;
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) ((value >>> shift) - HALF_SUB_BUCKETS);
+    }
+
+    static long highestEquivalentValue(int index)
+    {
+        if (index < SUB_BUCKETS)
+        {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long sub = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,192 @@
+package com.ruoyi.app.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import com.ruoyi.common.utils.StringUtils;
+
+/**
+ * 分析生命周期各阶段的耗时统计
+ *
+ * 每个阶段结束时输出一条结构化日志（span task=... stage=... device=... millis=...），
+ * 并按阶段、设备记录到耗时直方图，供服务监控页展示。
+ *
+ * @author ruoyi
+ */
+@Component
+public class StageMetrics
+{
+    private static final Logger log = LoggerFactory.getLogger(StageMetrics.class);
+
+    /** 排队等待（入队到开始执行） */
+    public static final String QUEUE_WAIT = "queue_wait";
+
+    /** SSH连接（借用通道并连接） */
+    public static final String SSH_CONNECT = "ssh_connect";
+
+    /** 启动容器 */
+    public static final String CONTAINER_START = "container_start";
+
+    /** 等待模拟器启动 */
+    public static final String EMULATOR_BOOT = "emulator_boot";
+
+    /** APK复制到容器 */
+    public static final String APK_COPY = "apk_copy";
+
+    /** APK安装 */
+    public static final String APK_INSTALL = "apk_install";
+
+    /** 配置Frida Server */
+    public static final String FRIDA_SERVER = "frida_server";
+
+    /** Frida连接设备、启动应用并加载Hook脚本 */
+    public static final String FRIDA_ATTACH = "frida_attach";
+
+    /** Hook就绪到第一个隐私事件 */
+    public static final String FIRST_EVENT = "first_event";
+
+    /** 脚本生成报告 */
+    public static final String REPORT = "report";
+
+    /** 后端导出报告（下载时生成） */
+    public static final String REPORT_EXPORT = "report_export";
+
+    /** 任务执行总耗时（连接到脚本退出） */
+    public static final String TOTAL = "total";
+
+    /** 阶段展示顺序 */
+    private static final List<String> STAGE_ORDER = Arrays.asList(QUEUE_WAIT, SSH_CONNECT, CONTAINER_START,
+            EMULATOR_BOOT, APK_COPY, APK_INSTALL, FRIDA_SERVER, FRIDA_ATTACH, FIRST_EVENT, REPORT, REPORT_EXPORT, TOTAL);
+
+    /** 设备未知时的名称 */
+    private static final String NO_DEVICE = "-";
+
+    /** 阶段 -> 设备 -> 直方图 */
+    private final Map<String, Map<String, LatencyHistogram>> histograms = new ConcurrentHashMap<>();
+
+    private final long startMillis = System.currentTimeMillis();
+
+    /**
+     * 记录一个阶段的耗时
+     *
+     * @param taskId 任务ID，仅用于日志
+     * @param stage 阶段
+     * @param device 设备名称，可为空
+     * @param millis 耗时（毫秒）
+     */
+    public void record(String taskId, String stage, String device, long millis)
+    {
+        String deviceName = StringUtils.isEmpty(device) ? NO_DEVICE : device;
+        histograms.computeIfAbsent(stage, s -> new ConcurrentHashMap<>())
+                .computeIfAbsent(deviceName, d -> new LatencyHistogram())
+                .record(millis);
+        log.info("span task={} stage={} device={} millis={}", taskId, stage, deviceName, millis);
+    }
+
+    /**
+     * 开始一个阶段
+     *
+     * @return 计时，调用end结束
+     */
+    public Span start(String taskId, String stage, String device)
+    {
+        return new Span(this, taskId, stage, device);
+    }
+
+    /**
+     * 按输出行划分阶段的跟踪器
+     *
+     * @param taskType 任务类型，决定匹配哪个脚本的阶段标记（批量检测的Hook阶段运行Frida检测脚本）
+     */
+    public StageTracker tracker(String taskId, String taskType, String device)
+    {
+        return new StageTracker(this, taskId, taskType, device);
+    }
+
+    /**
+     * 各阶段的耗时统计：每个阶段一项汇总（所有设备）及按设备的明细，单位毫秒
+     */
+    public Map<String, Object> getSnapshot()
+    {
+        List<Map<String, Object>> stages = new ArrayList<>();
+        for (String stage : sortedStages())
+        {
+            Map<String, LatencyHistogram> byDevice = histograms.get(stage);
+            LatencyHistogram all = new LatencyHistogram();
+            List<Map<String, Object>> devices = new ArrayList<>();
+            for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(byDevice).entrySet())
+            {
+                all.add(entry.getValue());
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("device", entry.getKey());
+                item.putAll(entry.getValue().snapshot());
+                devices.add(item);
+            }
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("stage", stage);
+            item.putAll(all.snapshot());
+            item.put("devices", devices);
+            stages.add(item);
+        }
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("unit", "ms");
+        snapshot.put("since", startMillis);
+        snapshot.put("stages", stages);
+        return snapshot;
+    }
+
+    private List<String> sortedStages()
+    {
+        List<String> stages = new ArrayList<>(histograms.keySet());
+        stages.sort((a, b) -> Integer.compare(order(a), order(b)));
+        return stages;
+    }
+
+    private static int order(String stage)
+    {
+        int index = STAGE_ORDER.indexOf(stage);
+        return index < 0 ? STAGE_ORDER.size() : index;
+    }
+
+    /**
+     * 一个阶段的计时，重复结束时只记录第一次
+     */
+    public static class Span
+    {
+        private final StageMetrics metrics;
+
+        private final String taskId;
+
+        private final String stage;
+
+        private final String device;
+
+        private final long startNanos = System.nanoTime();
+
+        private boolean ended;
+
+        private Span(StageMetrics metrics, String taskId, String stage, String device)
+        {
+            this.metrics = metrics;
+            this.taskId = taskId;
+            this.stage = stage;
+            this.device = device;
+        }
+
+        public synchronized void end()
+        {
+            if (!ended)
+            {
+                ended = true;
+                metrics.record(taskId, stage, device, (System.nanoTime() - startNanos) / 1000000L);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.ruoyi.app.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import com.ruoyi.app.domain.AppAnalysisTask;
+
+/**
+ * 按脚本输出划分任务阶段
+ *
+ * 动态分析脚本和Frida检测脚本在各阶段开始、结束时输出固定的提示，跟踪器据此开始、结束计时。
+ * 只匹配任务类型对应脚本的标记，每条标记只触发一次，触发后不再匹配；所有标记触发后逐行处理只剩一次判断。
+ * 由输出泵串行回调，无需同步。
+ *
+ * @author ruoyi
+ */
+public class StageTracker
+{
+    /** 动态分析脚本（android_dynamic_analysis.py）的步骤 */
+    private static final List<Rule> DYNAMIC_RULES = Collections.unmodifiableList(Arrays.asList(
+            new Rule("[步骤 1/5]", null, StageMetrics.CONTAINER_START),
+            new Rule("[步骤 2/5]", StageMetrics.CONTAINER_START, StageMetrics.EMULATOR_BOOT),
+            new Rule("[步骤 3/5]", StageMetrics.EMULATOR_BOOT, StageMetrics.APK_COPY),
+            new Rule("APK文件复制成功", StageMetrics.APK_COPY, StageMetrics.APK_INSTALL),
+            new Rule("[步骤 4/5]", StageMetrics.APK_INSTALL, StageMetrics.FRIDA_SERVER),
+            new Rule("[步骤 5/5]", StageMetrics.FRIDA_SERVER, null)));
+
+    /** Frida检测脚本（frida_privacy_check.py）的阶段 */
+    private static final List<Rule> FRIDA_RULES = Collections.unmodifiableList(Arrays.asList(
+            new Rule("正在连接Frida设备", null, StageMetrics.FRIDA_ATTACH),
+            new Rule("Hook脚本加载成功", StageMetrics.FRIDA_ATTACH, StageMetrics.FIRST_EVENT),
+            new Rule("检测报告，共收集", null, StageMetrics.REPORT),
+            new Rule("报告已生成", StageMetrics.REPORT, null)));
+
+    private final StageMetrics metrics;
+
+    private final String taskId;
+
+    private final String device;
+
+    private final StageMetrics.Span total;
+
+    /** 尚未触发的标记 */
+    private final List<Rule> rules;
+
+    /** 进行中的阶段 */
+    private final Map<String, StageMetrics.Span> open = new HashMap<>();
+
+    private boolean eventSeen;
+
+    StageTracker(StageMetrics metrics, String taskId, String taskType, String device)
+    {
+        this.metrics = metrics;
+        this.taskId = taskId;
+        this.device = device;
+        this.total = metrics.start(taskId, StageMetrics.TOTAL, device);
+        this.rules = new ArrayList<>(AppAnalysisTask.TYPE_DYNAMIC.equals(taskType) ? DYNAMIC_RULES : FRIDA_RULES);
+    }
+
+    /**
+     * 处理一行输出
+     *
+     * @param line 输出行
+     * @param event 该行是否为隐私事件
+     */
+    public void onLine(String line, boolean event)
+    {
+        if (event && !eventSeen)
+        {
+            eventSeen = true;
+            end(StageMetrics.FIRST_EVENT);
+        }
+        if (rules.isEmpty())
+        {
+            return;
+        }
+        for (Iterator<Rule> it = rules.iterator(); it.hasNext();)
+        {
+            Rule rule = it.next();
+            if (line.contains(rule.marker))
+            {
+                it.remove();
+                if (rule.end != null)
+                {
+                    end(rule.end);
+                }
+                if (rule.start != null && !open.containsKey(rule.start))
+                {
+                    open.put(rule.start, metrics.start(taskId, rule.start, device));
+                }
+            }
+        }
+    }
+
+    /**
+     * 任务结束：记录总耗时，未正常结束的阶段不计入
+     */
+    public void finish()
+    {
+        open.clear();
+        total.end();
+    }
+
+    private void end(String stage)
+    {
+        StageMetrics.Span span = open.remove(stage);
+        if (span != null)
+        {
+            span.end();
+        }
+    }
+
+    private static class Rule
+    {
+        private final String marker;
+
+        private final String end;
+
+        private final String start;
+
+        Rule(String marker, String end, String start)
+        {
+            this.marker = marker;
+            this.end = end;
+            this.start = start;
+        }
+    }
+}
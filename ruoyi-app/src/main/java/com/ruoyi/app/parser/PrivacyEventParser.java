@@ -0,0 +1,256 @@
+package com.ruoyi.app.parser;
+
+import java.util.function.Consumer;
+import com.ruoyi.app.domain.PrivacyEvent;
+import com.ruoyi.app.pump.LineHandler;
+
+/**
+ * Frida隐私告警流式解析器
+ *
+ * 逐行接收frida_privacy_check.py的输出，还原告警块：
+ * <pre>
+ * ━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━
+ * [2025-10-09 18:36:26] [ALERT] APP行为：…、行为主体：…、行为描述：…、传入参数：…
+ * [2025-10-09 18:36:26] [INFO] 时间点：…
+ * [*] 调用堆栈：
+ * 堆栈若干行
+ * ━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━
+ * </pre>
+ * 字段按固定标记定位，不使用split和正则；除事件字段本身外不产生中间对象。
+ * 堆栈经{@link StackTable}驻留，重复的堆栈不再分配新字符串。
+ * 非线程安全，同一输出流的行须串行送入（输出泵已保证）。
+ *
+ * @author ruoyi
+ */
+public class PrivacyEventParser implements LineHandler
+{
+    private static final String ACTION_MARK = "APP行为：";
+    private static final String SUBJECT_MARK = "、行为主体：";
+    private static final String DESCRIPTION_MARK = "、行为描述：";
+    private static final String ARGS_MARK = "、传入参数：";
+    private static final String TIME_MARK = "时间点：";
+    private static final String STACK_MARK = "调用堆栈：";
+    private static final char SEPARATOR_CHAR = '━';
+
+    /** 单个字段的最大字符数（不超过Excel单元格上限32767），超出部分丢弃 */
+    private static final int MAX_FIELD_CHARS = 32000;
+
+    /** 空闲，等待告警行 */
+    private static final int IDLE = 0;
+    /** 已读到告警行，等待时间点和堆栈标记 */
+    private static final int HEADER = 1;
+    /** 正在读取堆栈 */
+    private static final int STACK = 2;
+
+    private final Consumer<PrivacyEvent> consumer;
+
+    private final StringBuilder stack = new StringBuilder(1024);
+
+    private final StackTable stackTable = new StackTable();
+
+    private int state = IDLE;
+
+    private PrivacyEvent current;
+
+    private long eventCount;
+
+    public PrivacyEventParser(Consumer<PrivacyEvent> consumer)
+    {
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void onLine(String line)
+    {
+        int body = bodyStart(line);
+        if (isSeparator(line, body))
+        {
+            emit();
+            return;
+        }
+        int actionIndex = line.indexOf(ACTION_MARK, body);
+        if (actionIndex >= 0)
+        {
+            // 上一个告警块缺少结束分隔线时，以新的告警行为界
+            emit();
+            current = parseHeader(line, body, actionIndex);
+            state = HEADER;
+            return;
+        }
+        if (state == HEADER)
+        {
+            int timeIndex = line.indexOf(TIME_MARK, body);
+            if (timeIndex >= 0)
+            {
+                current.setAlertTime(field(line, timeIndex + TIME_MARK.length(), line.length()));
+            }
+            else if (line.indexOf(STACK_MARK, body) >= 0)
+            {
+                state = STACK;
+            }
+        }
+        else if (state == STACK)
+        {
+            if (body > 0)
+            {
+                // 带日志时间前缀的行说明堆栈已结束（脚本未打印结束分隔线）
+                emit();
+                return;
+            }
+            appendStack(line);
+        }
+    }
+
+    @Override
+    public void onEnd()
+    {
+        emit();
+    }
+
+    /**
+     * 已解析出的事件数
+     */
+    public long getEventCount()
+    {
+        return eventCount;
+    }
+
+    /**
+     * 已驻留的不同堆栈数
+     */
+    public int getStackCount()
+    {
+        return stackTable.size();
+    }
+
+    /**
+     * 取告警行中的行为名称（如“获取IMEI”），不是告警行时返回null
+     */
+    public static String actionOf(String line)
+    {
+        int actionIndex = line.indexOf(ACTION_MARK);
+        if (actionIndex < 0)
+        {
+            return null;
+        }
+        int start = actionIndex + ACTION_MARK.length();
+        int end = line.indexOf(SUBJECT_MARK, start);
+        if (end < 0)
+        {
+            end = line.indexOf('、', start);
+        }
+        return line.substring(start, end < 0 ? Math.min(line.length(), start + 64) : end).trim();
+    }
+
+    private PrivacyEvent parseHeader(String line, int body, int actionIndex)
+    {
+        PrivacyEvent event = new PrivacyEvent();
+        if (body > 0)
+        {
+            event.setLogTime(line.substring(1, 20));
+        }
+        int actionStart = actionIndex + ACTION_MARK.length();
+        int subjectIndex = line.indexOf(SUBJECT_MARK, actionStart);
+        int descriptionIndex = line.indexOf(DESCRIPTION_MARK, subjectIndex >= 0 ? subjectIndex : actionStart);
+        int argsIndex = line.indexOf(ARGS_MARK, descriptionIndex >= 0 ? descriptionIndex : actionStart);
+        int end = line.length();
+
+        event.setAction(field(line, actionStart, firstOf(subjectIndex, descriptionIndex, argsIndex, end)));
+        if (subjectIndex >= 0)
+        {
+            event.setSubject(field(line, subjectIndex + SUBJECT_MARK.length(), firstOf(descriptionIndex, argsIndex, end, end)));
+        }
+        if (descriptionIndex >= 0)
+        {
+            event.setDescription(field(line, descriptionIndex + DESCRIPTION_MARK.length(), firstOf(argsIndex, end, end, end)));
+        }
+        if (argsIndex >= 0)
+        {
+            event.setArgs(field(line, argsIndex + ARGS_MARK.length(), end));
+        }
+        return event;
+    }
+
+    private void appendStack(String line)
+    {
+        if (stack.length() >= MAX_FIELD_CHARS)
+        {
+            return;
+        }
+        if (stack.length() > 0)
+        {
+            stack.append('\n');
+        }
+        stack.append(line, 0, Math.min(line.length(), MAX_FIELD_CHARS - stack.length()));
+    }
+
+    private void emit()
+    {
+        if (current != null)
+        {
+            PrivacyEvent event = current;
+            int length = stack.length();
+            while (length > 0 && Character.isWhitespace(stack.charAt(length - 1)))
+            {
+                length--;
+            }
+            event.setSeq(++eventCount);
+            int stackId = length == 0 ? 0 : stackTable.intern(stack, length);
+            event.setStackId(stackId);
+            event.setStack(stackId > 0 ? stackTable.get(stackId) : stack.substring(0, length));
+            current = null;
+            stack.setLength(0);
+            consumer.accept(event);
+        }
+        state = IDLE;
+    }
+
+    /**
+     * 跳过日志前缀"[yyyy-MM-dd HH:mm:ss] [LEVEL] "，返回正文起始位置；无前缀时返回0
+     */
+    private static int bodyStart(String line)
+    {
+        if (line.length() < 24 || line.charAt(0) != '[' || line.charAt(20) != ']' || line.charAt(5) != '-')
+        {
+            return 0;
+        }
+        int levelEnd = line.indexOf(']', 22);
+        if (line.charAt(22) != '[' || levelEnd < 0)
+        {
+            return 0;
+        }
+        return levelEnd + 1 < line.length() && line.charAt(levelEnd + 1) == ' ' ? levelEnd + 2 : levelEnd + 1;
+    }
+
+    private static boolean isSeparator(String line, int body)
+    {
+        return line.length() > body + 2 && line.charAt(body) == SEPARATOR_CHAR
+                && line.charAt(body + 1) == SEPARATOR_CHAR && line.charAt(body + 2) == SEPARATOR_CHAR;
+    }
+
+    private static int firstOf(int a, int b, int c, int fallback)
+    {
+        if (a >= 0)
+        {
+            return a;
+        }
+        if (b >= 0)
+        {
+            return b;
+        }
+        return c >= 0 ? c : fallback;
+    }
+
+    private static String field(String line, int start, int end)
+    {
+        while (start < end && line.charAt(start) == ' ')
+        {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(line.charAt(end - 1)))
+        {
+            end--;
+        }
+        return line.substring(start, Math.min(end, start + MAX_FIELD_CHARS));
+    }
+}
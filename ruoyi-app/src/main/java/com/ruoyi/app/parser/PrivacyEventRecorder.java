@@ -0,0 +1,82 @@
+package com.ruoyi.app.parser;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.ruoyi.app.domain.PrivacyEvent;
+import com.ruoyi.app.pump.LineHandler;
+import com.ruoyi.app.store.PrivacyEventStore;
+
+/**
+ * 隐私事件采集器：解析输出行，事件写入任务的事件文件后再交给监听者
+ *
+ * @author ruoyi
+ */
+public class PrivacyEventRecorder implements LineHandler
+{
+    private static final Logger log = LoggerFactory.getLogger(PrivacyEventRecorder.class);
+
+    private final String taskId;
+
+    private final PrivacyEventParser parser;
+
+    private final PrivacyEventStore.EventWriter writer;
+
+    /**
+     * @param store 事件存储
+     * @param taskId 任务ID
+     * @param listener 事件监听者，写入存储后回调
+     */
+    public PrivacyEventRecorder(PrivacyEventStore store, String taskId, Consumer<PrivacyEvent> listener)
+    {
+        this.taskId = taskId;
+        this.writer = openWriter(store, taskId);
+        this.parser = new PrivacyEventParser(writer == null ? listener : writer.andThen(listener));
+    }
+
+    @Override
+    public void onLine(String line)
+    {
+        parser.onLine(line);
+    }
+
+    @Override
+    public void onEnd()
+    {
+        parser.onEnd();
+        if (writer != null)
+        {
+            try
+            {
+                writer.close();
+            }
+            catch (IOException e)
+            {
+                log.warn("[{}] 关闭隐私事件文件失败: {}", taskId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 已采集的事件数
+     */
+    public long getEventCount()
+    {
+        return parser.getEventCount();
+    }
+
+    private static PrivacyEventStore.EventWriter openWriter(PrivacyEventStore store, String taskId)
+    {
+        try
+        {
+            return store.openWriter(taskId);
+        }
+        catch (Exception e)
+        {
+            // 无法落盘时仍然解析，只是不能生成本地报告
+            log.error("[{}] 打开隐私事件文件失败: {}", taskId, e.getMessage());
+            return null;
+        }
+    }
+}
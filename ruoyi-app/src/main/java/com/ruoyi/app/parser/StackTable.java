@@ -0,0 +1,145 @@
+package com.ruoyi.app.parser;
+
+import java.util.Arrays;
+
+/**
+ * 调用堆栈驻留表（每个任务一张）
+ *
+ * Hook风暴中大量事件的堆栈完全相同。解析器把堆栈缓冲区交给驻留表，
+ * 已有相同内容时直接返回已有的编号和字符串，不再为重复堆栈分配新字符串；
+ * 事件文件中每个堆栈也只写一次，事件按编号引用。
+ * 编号从1开始连续分配；超过容量上限后不再驻留，返回0，由调用方按普通字符串处理。
+ * 非线程安全，与解析器一样由输出泵串行调用。
+ *
+ * @author ruoyi
+ */
+public class StackTable
+{
+    /** 最多驻留的堆栈数 */
+    private static final int MAX_STACKS = 8192;
+
+    /** 驻留堆栈的总字符数上限（约16MB） */
+    private static final long MAX_CHARS = 8L * 1024 * 1024;
+
+    /** 按编号存放的堆栈（下标为编号-1） */
+    private String[] stacks = new String[64];
+
+    private int[] hashes = new int[64];
+
+    /** 开放寻址的哈希槽，存放编号，0表示空槽 */
+    private int[] slots = new int[128];
+
+    private int size;
+
+    private long chars;
+
+    /**
+     * 驻留堆栈
+     *
+     * @param text 堆栈内容所在的字符序列
+     * @param length 堆栈长度（取text的前length个字符）
+     * @return 编号，超过容量时返回0
+     */
+    public int intern(CharSequence text, int length)
+    {
+        int hash = hash(text, length);
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != 0)
+        {
+            int id = slots[slot];
+            if (hashes[id - 1] == hash && contentEquals(stacks[id - 1], text, length))
+            {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size >= MAX_STACKS || chars + length > MAX_CHARS)
+        {
+            return 0;
+        }
+        if (size == stacks.length)
+        {
+            stacks = Arrays.copyOf(stacks, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        stacks[size] = text.subSequence(0, length).toString();
+        hashes[size] = hash;
+        size++;
+        chars += length;
+        slots[slot] = size;
+        if (size * 2 > slots.length)
+        {
+            rehash();
+        }
+        return size;
+    }
+
+    /**
+     * 按编号取堆栈
+     *
+     * @return 编号无效时返回null
+     */
+    public String get(int id)
+    {
+        return id > 0 && id <= size ? stacks[id - 1] : null;
+    }
+
+    /**
+     * 已驻留的堆栈数
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    private void rehash()
+    {
+        int[] grown = new int[slots.length * 2];
+        int mask = grown.length - 1;
+        for (int id = 1; id <= size; id++)
+        {
+            int slot = mix(hashes[id - 1]) & mask;
+            while (grown[slot] != 0)
+            {
+                slot = (slot + 1) & mask;
+            }
+            grown[slot] = id;
+        }
+        slots = grown;
+    }
+
+    private static int hash(CharSequence text, int length)
+    {
+        int h = 0;
+        for (int i = 0; i < length; i++)
+        {
+            h = 31 * h + text.charAt(i);
+        }
+        return h;
+    }
+
+    /**
+     * 打散哈希值的高位，减少相近堆栈在开放寻址中的聚集
+     */
+    private static int mix(int hash)
+    {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean contentEquals(String stack, CharSequence text, int length)
+    {
+        if (stack.length() != length)
+        {
+            return false;
+        }
+        for (int i = length - 1; i >= 0; i--)
+        {
+            if (stack.charAt(i) != text.charAt(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,26 @@
+package com.ruoyi.app.pump;
+
+/**
+ * 远程进程输出的按行消费者
+ *
+ * 同一输出流的回调由输出泵串行调用，实现无需加锁；回调运行在共享的泵线程上，不应长时间阻塞。
+ *
+ * @author ruoyi
+ */
+@FunctionalInterface
+public interface LineHandler
+{
+    /**
+     * 收到完整的一行（已去除行尾换行符）
+     *
+     * @param line 行内容
+     */
+    void onLine(String line);
+
+    /**
+     * 输出流结束，未以换行结尾的最后一行已在此之前交付
+     */
+    default void onEnd()
+    {
+    }
+}
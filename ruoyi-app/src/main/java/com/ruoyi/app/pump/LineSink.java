@@ -0,0 +1,485 @@
+package com.ruoyi.app.pump;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 输出泵的单路输出流
+ *
+ * SSH会话线程调用write只做拷贝入队，不做解码；泵线程按到达顺序取出字节块并切分成行。
+ * 按字节0x0A切行，UTF-8多字节序列中不会出现该字节，因此字符不会被块边界截断。
+ * 同一会话上的多个通道共用会话线程，write从不等待：内存中排队的字节数超过上限时，之后的输出按顺序追加到临时文件，
+ * 泵线程处理完内存中的块后再从文件读取，读完后恢复使用内存队列。输出完整交付给消费者（日志落盘、隐私事件解析），
+ * 限流合并只在推送到页面时进行；只有转存文件不可用或超过上限时才丢弃，缺口所在的整行一并丢弃，不会拼接出错误的行。
+ * 泵线程每次调度最多处理一定字节数后重新排队，单路高速输出不会独占泵线程。
+ *
+ * @author ruoyi
+ */
+public class LineSink extends OutputStream
+{
+    private static final Logger log = LoggerFactory.getLogger(LineSink.class);
+
+    /** 流结束标记 */
+    private static final byte[] EOF = new byte[0];
+
+    /** 丢弃标记：之前有块被丢弃，当前不完整的行作废 */
+    private static final byte[] GAP = new byte[0];
+
+    /** 转存标记：之后的输出在转存文件中，读完后再继续处理内存队列 */
+    private static final byte[] SPILL = new byte[0];
+
+    /** 单路输出在内存中排队的最大字节数，超过后转存到临时文件 */
+    private static final int MAX_PENDING_BYTES = 4 * 1024 * 1024;
+
+    /** 单路输出转存的最大字节数，超过后丢弃（磁盘也跟不上时的最后保护） */
+    private static final long MAX_SPILL_BYTES = 1024L * 1024 * 1024;
+
+    /** 从转存文件每次读取的字节数 */
+    private static final int SPILL_READ_BYTES = 64 * 1024;
+
+    /** 单次调度最多处理的字节数，超过后让出泵线程给其他输出 */
+    private static final int MAX_BYTES_PER_RUN = 256 * 1024;
+
+    private final OutputPump pump;
+
+    private final LineHandler handler;
+
+    private final int maxLineBytes;
+
+    private final Queue<byte[]> mailbox = new ConcurrentLinkedQueue<>();
+
+    /** 是否已提交到泵线程，保证同一路输出同时只有一个线程在处理 */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    /** 以下字段由写入方和泵线程在此锁内访问 */
+    private final Object lock = new Object();
+    private int pendingBytes;
+
+    /** 是否正在转存，转存期间的输出一律追加到文件，保证顺序 */
+    private boolean spilling;
+    private FileChannel spillFile;
+    private boolean spillFailed;
+    private long spillWritten;
+    private long spillRead;
+
+    /** 上一块是否被丢弃，仅由写入方访问 */
+    private boolean dropping;
+
+    /** 以下字段仅由泵线程访问 */
+    private byte[] lineBuf = new byte[256];
+    private int lineLen;
+
+    /** 丢弃到下一个换行符为止 */
+    private boolean discarding;
+
+    /** 是否正在读取转存文件 */
+    private boolean readingSpill;
+    private byte[] spillBuf;
+
+    LineSink(OutputPump pump, LineHandler handler, int maxLineBytes)
+    {
+        this.pump = pump;
+        this.handler = handler;
+        this.maxLineBytes = maxLineBytes;
+    }
+
+    @Override
+    public void write(int b)
+    {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len)
+    {
+        if (len <= 0 || closed.get())
+        {
+            return;
+        }
+        boolean accepted;
+        synchronized (lock)
+        {
+            // 排队为空时单块可超过上限
+            if (!spilling && (pendingBytes == 0 || pendingBytes + len <= MAX_PENDING_BYTES))
+            {
+                pendingBytes += len;
+                mailbox.add(Arrays.copyOfRange(b, off, off + len));
+                accepted = true;
+            }
+            else
+            {
+                accepted = spill(b, off, len);
+            }
+        }
+        if (!accepted)
+        {
+            pump.recordDropped(len);
+            if (!dropping)
+            {
+                dropping = true;
+                mailbox.add(GAP);
+                schedule();
+            }
+            return;
+        }
+        dropping = false;
+        pump.recordBytes(len);
+        schedule();
+    }
+
+    /**
+     * 把块追加到转存文件（在锁内调用）
+     *
+     * @return 转存文件不可用或已达上限时返回false
+     */
+    private boolean spill(byte[] b, int off, int len)
+    {
+        if (spillFailed || spillWritten + len > MAX_SPILL_BYTES)
+        {
+            return false;
+        }
+        try
+        {
+            if (spillFile == null)
+            {
+                spillFile = FileChannel.open(Files.createTempFile("output-pump-", ".spill"), StandardOpenOption.READ,
+                        StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+            while (buffer.hasRemaining())
+            {
+                spillFile.write(buffer, spillWritten + buffer.position() - off);
+            }
+        }
+        catch (IOException e)
+        {
+            spillFailed = true;
+            log.error("转存远程输出失败，之后超出排队上限的输出将被丢弃: {}", e.getMessage());
+            return false;
+        }
+        spillWritten += len;
+        if (!spilling)
+        {
+            spilling = true;
+            mailbox.add(SPILL);
+        }
+        pump.recordSpilled(len);
+        return true;
+    }
+
+    private void release(int len)
+    {
+        synchronized (lock)
+        {
+            pendingBytes -= len;
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed.compareAndSet(false, true))
+        {
+            mailbox.add(EOF);
+            schedule();
+        }
+    }
+
+    /**
+     * 输出流结束（所有行及onEnd均已交付）时完成
+     */
+    public CompletableFuture<Void> completion()
+    {
+        return completion;
+    }
+
+    private void schedule()
+    {
+        if (scheduled.compareAndSet(false, true))
+        {
+            pump.execute(this::drain);
+        }
+    }
+
+    private void drain()
+    {
+        try
+        {
+            int budget = MAX_BYTES_PER_RUN;
+            while (budget > 0)
+            {
+                if (readingSpill)
+                {
+                    int count = readSpill();
+                    if (count > 0)
+                    {
+                        decode(spillBuf, count);
+                        budget -= count;
+                    }
+                    continue;
+                }
+                byte[] chunk = mailbox.poll();
+                if (chunk == null)
+                {
+                    break;
+                }
+                if (chunk == EOF)
+                {
+                    finish();
+                    return;
+                }
+                if (chunk == GAP)
+                {
+                    log.warn("远程输出转存失败或超过上限，已丢弃部分输出");
+                    gap();
+                    continue;
+                }
+                if (chunk == SPILL)
+                {
+                    readingSpill = true;
+                    continue;
+                }
+                try
+                {
+                    decode(chunk, chunk.length);
+                }
+                finally
+                {
+                    release(chunk.length);
+                }
+                budget -= chunk.length;
+            }
+        }
+        finally
+        {
+            scheduled.set(false);
+            if ((readingSpill || !mailbox.isEmpty()) && !completion.isDone())
+            {
+                schedule();
+            }
+        }
+    }
+
+    /**
+     * 从转存文件读取下一段到spillBuf；已读完时结束转存，之后的输出重新进入内存队列
+     *
+     * @return 读取的字节数，读完或读取失败时为0
+     */
+    private int readSpill()
+    {
+        long position;
+        int length;
+        synchronized (lock)
+        {
+            length = (int) Math.min(SPILL_READ_BYTES, spillWritten - spillRead);
+            if (length == 0)
+            {
+                endSpill();
+                return 0;
+            }
+            position = spillRead;
+        }
+        if (spillBuf == null)
+        {
+            spillBuf = new byte[SPILL_READ_BYTES];
+        }
+        // 按位置读取，写入方同时在文件末尾之后追加
+        ByteBuffer buffer = ByteBuffer.wrap(spillBuf, 0, length);
+        try
+        {
+            while (buffer.hasRemaining())
+            {
+                if (spillFile.read(buffer, position + buffer.position()) < 0)
+                {
+                    throw new EOFException();
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            log.error("读取转存的远程输出失败，已丢弃未读部分: {}", e.getMessage());
+            synchronized (lock)
+            {
+                endSpill();
+            }
+            gap();
+            return 0;
+        }
+        synchronized (lock)
+        {
+            spillRead += length;
+        }
+        return length;
+    }
+
+    /**
+     * 结束转存，清空转存文件（在锁内调用）
+     */
+    private void endSpill()
+    {
+        if (spillWritten > spillRead)
+        {
+            pump.recordDropped(spillWritten - spillRead);
+        }
+        spilling = false;
+        spillWritten = 0;
+        spillRead = 0;
+        readingSpill = false;
+        try
+        {
+            spillFile.truncate(0);
+        }
+        catch (IOException e)
+        {
+            log.warn("清空转存文件失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 有输出被丢弃：当前不完整的行作废，丢弃到下一个换行符为止
+     */
+    private void gap()
+    {
+        lineLen = 0;
+        discarding = true;
+    }
+
+    private void decode(byte[] chunk, int length)
+    {
+        int start = 0;
+        if (discarding)
+        {
+            while (start < length && chunk[start] != '\n')
+            {
+                start++;
+            }
+            if (start == length)
+            {
+                return;
+            }
+            discarding = false;
+            start++;
+        }
+        for (int i = start; i < length; i++)
+        {
+            if (chunk[i] == '\n')
+            {
+                append(chunk, start, i - start);
+                emit(lineLen);
+                start = i + 1;
+            }
+        }
+        append(chunk, start, length - start);
+        while (lineLen > maxLineBytes)
+        {
+            // 超长行按字符边界截断交付，避免单行无限增长
+            int cut = maxLineBytes;
+            while (cut > 0 && (lineBuf[cut] & 0xC0) == 0x80)
+            {
+                cut--;
+            }
+            emit(cut > 0 ? cut : maxLineBytes);
+        }
+    }
+
+    private void append(byte[] b, int off, int len)
+    {
+        if (len <= 0)
+        {
+            return;
+        }
+        if (lineLen + len > lineBuf.length)
+        {
+            lineBuf = Arrays.copyOf(lineBuf, Math.max(lineBuf.length << 1, lineLen + len));
+        }
+        System.arraycopy(b, off, lineBuf, lineLen, len);
+        lineLen += len;
+    }
+
+    /**
+     * 交付缓冲区前count个字节组成的行，剩余字节前移
+     */
+    private void emit(int count)
+    {
+        int len = count;
+        if (len > 0 && lineBuf[len - 1] == '\r')
+        {
+            len--;
+        }
+        String line = new String(lineBuf, 0, len, StandardCharsets.UTF_8);
+        lineLen -= count;
+        if (lineLen > 0)
+        {
+            System.arraycopy(lineBuf, count, lineBuf, 0, lineLen);
+        }
+        pump.recordLine();
+        try
+        {
+            handler.onLine(line);
+        }
+        catch (Exception e)
+        {
+            log.error("处理远程输出行失败: {}", e.getMessage(), e);
+        }
+    }
+
+    private void finish()
+    {
+        if (lineLen > 0)
+        {
+            emit(lineLen);
+        }
+        try
+        {
+            handler.onEnd();
+        }
+        catch (Exception e)
+        {
+            log.error("处理远程输出结束失败: {}", e.getMessage(), e);
+        }
+        finally
+        {
+            lineBuf = null;
+            spillBuf = null;
+            closeSpill();
+            completion.complete(null);
+        }
+    }
+
+    private void closeSpill()
+    {
+        synchronized (lock)
+        {
+            if (spillFile == null)
+            {
+                return;
+            }
+            try
+            {
+                spillFile.close();
+            }
+            catch (IOException e)
+            {
+                log.warn("关闭转存文件失败: {}", e.getMessage());
+            }
+            spillFile = null;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.ruoyi.app.pump;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.jcraft.jsch.ChannelExec;
+import com.ruoyi.app.config.AnalysisConfig;
+import com.ruoyi.common.utils.Threads;
+
+/**
+ * 远程进程输出泵
+ *
+ * 通过JSch的推送接口（setOutputStream/setErrStream）接收exec通道输出，
+ * 由固定数量的泵线程解码成行并回调各任务的消费者；
+ * 并发任务数增加时不再为每个任务占用一个轮询线程。
+ *
+ * @author ruoyi
+ */
+@Component
+public class OutputPump
+{
+    /** 单行最大字节数，超过后截断交付 */
+    private static final int MAX_LINE_BYTES = 1024 * 1024;
+
+    /** 输出结束后等待退出码到达的最长时间（毫秒） */
+    private static final long EXIT_STATUS_WAIT_MILLIS = 5000;
+
+    /** 等待退出码时的检查间隔（毫秒） */
+    private static final long EXIT_STATUS_POLL_MILLIS = 20;
+
+    @Autowired
+    private AnalysisConfig analysisConfig;
+
+    @Autowired
+    private ScheduledExecutorService scheduledExecutorService;
+
+    private ExecutorService executor;
+
+    private final LongAdder bytesReceived = new LongAdder();
+
+    private final LongAdder linesEmitted = new LongAdder();
+
+    private final LongAdder bytesDropped = new LongAdder();
+
+    private final LongAdder bytesSpilled = new LongAdder();
+
+    @PostConstruct
+    public void init()
+    {
+        executor = Executors.newFixedThreadPool(Math.max(1, analysisConfig.getPumpThreads()),
+                new BasicThreadFactory.Builder().namingPattern("output-pump-%d").daemon(true).build());
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        Threads.shutdownAndAwaitTermination(executor);
+    }
+
+    /**
+     * 创建一路按行解码的输出流
+     *
+     * @param handler 行消费者
+     * @return 输出流，写入方关闭后触发{@link LineHandler#onEnd()}
+     */
+    public LineSink newSink(LineHandler handler)
+    {
+        return new LineSink(this, handler, MAX_LINE_BYTES);
+    }
+
+    /**
+     * 将exec通道的标准输出和错误输出接入输出泵，须在channel.connect()之前调用
+     *
+     * @param channel 未连接的exec通道
+     * @param stdout 标准输出消费者
+     * @param stderr 错误输出消费者
+     * @return 两路输出均结束且通道关闭后以退出码完成（未收到退出码时为-1）
+     */
+    public CompletableFuture<Integer> attach(ChannelExec channel, LineHandler stdout, LineHandler stderr)
+    {
+        LineSink out = newSink(stdout);
+        LineSink err = newSink(stderr);
+        channel.setOutputStream(out);
+        channel.setErrStream(err);
+        return CompletableFuture.allOf(out.completion(), err.completion()).thenCompose(v -> awaitExitStatus(channel));
+    }
+
+    /**
+     * 服务端通常在输出EOF之后才发送退出码，输出结束后以定时检查代替阻塞等待
+     */
+    private CompletableFuture<Integer> awaitExitStatus(ChannelExec channel)
+    {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        checkExitStatus(channel, future, System.currentTimeMillis() + EXIT_STATUS_WAIT_MILLIS);
+        return future;
+    }
+
+    private void checkExitStatus(ChannelExec channel, CompletableFuture<Integer> future, long deadline)
+    {
+        if (channel.isClosed() || !channel.isConnected() || System.currentTimeMillis() >= deadline)
+        {
+            future.complete(channel.getExitStatus());
+            return;
+        }
+        scheduledExecutorService.schedule(() -> checkExitStatus(channel, future, deadline),
+                EXIT_STATUS_POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    void execute(Runnable task)
+    {
+        executor.execute(task);
+    }
+
+    void recordBytes(int count)
+    {
+        bytesReceived.add(count);
+    }
+
+    void recordLine()
+    {
+        linesEmitted.increment();
+    }
+
+    void recordDropped(long count)
+    {
+        bytesDropped.add(count);
+    }
+
+    void recordSpilled(int count)
+    {
+        bytesSpilled.add(count);
+    }
+
+    /**
+     * 输出泵监控指标
+     */
+    public Map<String, Object> getMetrics()
+    {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("threads", Math.max(1, analysisConfig.getPumpThreads()));
+        metrics.put("bytesReceived", bytesReceived.sum());
+        metrics.put("linesEmitted", linesEmitted.sum());
+        metrics.put("bytesDropped", bytesDropped.sum());
+        metrics.put("bytesSpilled", bytesSpilled.sum());
+        return metrics;
+    }
+}
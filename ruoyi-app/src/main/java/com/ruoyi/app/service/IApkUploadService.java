@@ -0,0 +1,40 @@
+package com.ruoyi.app.service;
+
+import java.util.List;
+import java.util.Map;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * 应用文件上传 服务层
+ *
+ * @author ruoyi
+ */
+public interface IApkUploadService
+{
+    /**
+     * 上传文件到分析服务器，多个文件并行上传，单个文件分块写入并支持断点续传；
+     * 内容（SHA-256）已上传过的文件不再传输，直接返回已有文件
+     *
+     * @param files 已校验的文件
+     * @param uploadId 上传批次ID，用于查询进度，可为空
+     * @return 每个文件的上传结果（顺序与files一致），含success、fileName、filePath、originalFilename、fileSize、url、
+     *         sha256、reused（是否复用已有文件）、previousTasks（复用时该文件已完成的分析任务），失败时含error
+     */
+    public List<Map<String, Object>> uploadFiles(List<MultipartFile> files, String uploadId);
+
+    /**
+     * 查询上传进度
+     *
+     * @param uploadId 上传批次ID
+     * @return 进度信息，批次不存在或已过期时返回null
+     */
+    public Map<String, Object> getProgress(String uploadId);
+
+    /**
+     * 按内容摘要查询已上传的文件及其已完成的分析任务
+     *
+     * @param sha256 文件内容SHA-256
+     * @return 文件信息，未上传过时返回null
+     */
+    public Map<String, Object> getApkFile(String sha256);
+}
@@ -0,0 +1,35 @@
+package com.ruoyi.app.service;
+
+import com.ruoyi.app.domain.AppApkFile;
+
+/**
+ * 应用文件内容索引 服务层
+ *
+ * @author ruoyi
+ */
+public interface IAppApkFileService
+{
+    /**
+     * 根据内容摘要查询已上传的文件
+     *
+     * @param sha256 文件内容SHA-256
+     * @return 文件信息，未上传过时返回null
+     */
+    public AppApkFile selectApkFileBySha256(String sha256);
+
+    /**
+     * 登记新上传的文件
+     *
+     * @param apkFile 文件信息
+     * @return 结果
+     */
+    public int insertApkFile(AppApkFile apkFile);
+
+    /**
+     * 记录一次重复上传
+     *
+     * @param sha256 文件内容SHA-256
+     * @return 结果
+     */
+    public int recordHit(String sha256);
+}
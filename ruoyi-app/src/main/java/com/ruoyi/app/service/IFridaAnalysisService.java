@@ -1,7 +1,9 @@
 package com.ruoyi.app.service;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import com.ruoyi.app.device.AnalysisDevice;
 
 /**
  * Frida隐私合规分析服务接口
@@ -45,6 +47,27 @@ public interface IFridaAnalysisService {
      */
     boolean stopFridaAnalysis(String taskId);
     
+    /**
+     * 在指定设备上直接执行Frida检测（不经过分析队列，调用方已持有设备租约，应用已安装）
+     * 
+     * @param taskId 任务ID（日志流、报告均以此关联）
+     * @param device 执行设备
+     * @param packageName 包名
+     * @param modules 使用的模块，为空时使用全部模块
+     * @param duration 检测时长（秒），不大于0时使用默认时长
+     * @return 检测结束信号
+     */
+    CompletableFuture<Void> runOnDevice(String taskId, AnalysisDevice device, String packageName,
+                                        String modules, int duration);
+    
+    /**
+     * 获取任务执行（或最近一次执行）所在的设备
+     * 
+     * @param taskId 任务ID
+     * @return 设备，任务未分配过设备时返回默认设备
+     */
+    AnalysisDevice getDevice(String taskId);
+    
     /**
      * 获取分析报告
      * 
@@ -54,9 +77,11 @@ public interface IFridaAnalysisService {
     String getAnalysisReport(String taskId);
     
     /**
-     * 获取SSE发射器映射（用于实时日志推送）
+     * 订阅Frida日志流（同一任务可多人订阅，支持按Last-Event-ID续传）
      * 
-     * @return SSE发射器映射
+     * @param taskId 任务ID
+     * @param lastEventId 客户端最后收到的事件ID，可为空
+     * @return SSE发射器
      */
-    Map<String, SseEmitter> getEmitterMap();
+    SseEmitter subscribeLogs(String taskId, String lastEventId);
 }
@@ -0,0 +1,71 @@
+package com.ruoyi.app.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 隐私检测报告 服务层
+ *
+ * @author ruoyi
+ */
+public interface IPrivacyReportService
+{
+    /** 报告格式：Excel */
+    public static final String FORMAT_XLSX = "xlsx";
+
+    /** 报告格式：CSV */
+    public static final String FORMAT_CSV = "csv";
+
+    /**
+     * 任务是否有本地采集的隐私事件
+     *
+     * @param taskId 任务ID
+     * @return 结果
+     */
+    public boolean hasLocalEvents(String taskId);
+
+    /**
+     * 获取报告文件名
+     *
+     * @param taskId 任务ID
+     * @param format 报告格式
+     * @return 文件名
+     */
+    public String getReportFileName(String taskId, String format);
+
+    /**
+     * 根据采集的隐私事件生成报告并直接写入响应，无事件时输出只有表头的报告
+     *
+     * @param response 响应
+     * @param taskId 任务ID
+     * @param format 报告格式（xlsx/csv）
+     */
+    public void exportReport(HttpServletResponse response, String taskId, String format) throws IOException;
+
+    /**
+     * 根据采集的隐私事件生成报告写入输出流（用于缓存到文件）
+     *
+     * @param out 输出流（不关闭）
+     * @param taskId 任务ID
+     * @param format 报告格式（xlsx/csv）
+     */
+    public void writeReport(OutputStream out, String taskId, String format) throws IOException;
+
+    /**
+     * 获取报告的内容类型
+     *
+     * @param format 报告格式
+     * @return Content-Type
+     */
+    public String getContentType(String format);
+
+    /**
+     * 按当前的第三方SDK规则重新判定任务已采集事件的行为主体（任务须已结束）
+     *
+     * @param taskId 任务ID
+     * @return 事件数和行为主体有变化的事件数
+     */
+    public Map<String, Object> reattribute(String taskId) throws IOException;
+}
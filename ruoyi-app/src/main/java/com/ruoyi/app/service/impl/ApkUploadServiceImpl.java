@@ -0,0 +1,392 @@
+package com.ruoyi.app.service.impl;
+
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import com.ruoyi.app.config.SftpConfig;
+import com.ruoyi.app.domain.AppAnalysisTask;
+import com.ruoyi.app.domain.AppApkFile;
+import com.ruoyi.app.service.IApkUploadService;
+import com.ruoyi.app.service.IAppAnalysisTaskService;
+import com.ruoyi.app.service.IAppApkFileService;
+import com.ruoyi.app.ssh.SshSessionManager;
+import com.ruoyi.app.store.PrivacyEventStore;
+import com.ruoyi.app.store.TaskLogStore;
+import com.ruoyi.app.utils.SftpUtils;
+import com.ruoyi.common.utils.SecurityUtils;
+import com.ruoyi.common.utils.StringUtils;
+import com.ruoyi.common.utils.Threads;
+import com.ruoyi.common.utils.file.FileUploadUtils;
+import com.ruoyi.common.utils.uuid.IdUtils;
+
+/**
+ * 应用文件上传 服务层实现
+ *
+ * 每个文件占用一个sftp通道，由上传线程池并行处理（sftp.upload-threads）；
+ * 单个文件按块追加写入临时文件，连接中断后重新获取通道并从远程已写入的位置续传。
+ * 远程文件按内容的SHA-256命名并登记到app_apk_file，相同内容再次上传时跳过传输，
+ * 直接返回已有文件及其历史分析任务。
+ *
+ * @author ruoyi
+ */
+@Service
+public class ApkUploadServiceImpl implements IApkUploadService
+{
+    private static final Logger log = LoggerFactory.getLogger(ApkUploadServiceImpl.class);
+
+    /** 上传结束后进度信息的保留时间（分钟） */
+    private static final long PROGRESS_RETAIN_MINUTES = 10;
+
+    /** 计算摘要的读缓冲 */
+    private static final int DIGEST_BUFFER_SIZE = 64 * 1024;
+
+    /** 同一内容的上传串行执行（按摘要分段加锁），避免并发写同一个临时文件 */
+    private static final Object[] CONTENT_LOCKS = new Object[64];
+
+    static
+    {
+        for (int i = 0; i < CONTENT_LOCKS.length; i++)
+        {
+            CONTENT_LOCKS[i] = new Object();
+        }
+    }
+
+    @Autowired
+    private SftpConfig sftpConfig;
+
+    @Autowired
+    private SshSessionManager sshSessionManager;
+
+    @Autowired
+    private ScheduledExecutorService scheduledExecutorService;
+
+    @Autowired
+    private IAppApkFileService apkFileService;
+
+    @Autowired
+    private IAppAnalysisTaskService analysisTaskService;
+
+    @Autowired
+    private PrivacyEventStore privacyEventStore;
+
+    @Autowired
+    private TaskLogStore taskLogStore;
+
+    private final Map<String, UploadProgress> progressMap = new ConcurrentHashMap<>();
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init()
+    {
+        executor = Executors.newFixedThreadPool(Math.max(1, sftpConfig.getUploadThreads()),
+                new BasicThreadFactory.Builder().namingPattern("sftp-upload-%d").daemon(true).build());
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        Threads.shutdownAndAwaitTermination(executor);
+    }
+
+    @Override
+    public List<Map<String, Object>> uploadFiles(List<MultipartFile> files, String uploadId)
+    {
+        String id = StringUtils.isNotEmpty(uploadId) ? uploadId : IdUtils.fastSimpleUUID();
+        UploadProgress progress = new UploadProgress(files);
+        progressMap.put(id, progress);
+        // 上传线程中没有登录上下文，提前取出
+        String username = getUsername();
+        try
+        {
+            List<CompletableFuture<Map<String, Object>>> futures = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++)
+            {
+                MultipartFile file = files.get(i);
+                FileProgress fileProgress = progress.files.get(i);
+                futures.add(CompletableFuture.supplyAsync(() -> upload(file, fileProgress, username), executor));
+            }
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (CompletableFuture<Map<String, Object>> future : futures)
+            {
+                results.add(future.join());
+            }
+            return results;
+        }
+        finally
+        {
+            progress.finished = true;
+            scheduledExecutorService.schedule(() -> progressMap.remove(id, progress), PROGRESS_RETAIN_MINUTES, TimeUnit.MINUTES);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getProgress(String uploadId)
+    {
+        UploadProgress progress = progressMap.get(uploadId);
+        return progress == null ? null : progress.toMap();
+    }
+
+    @Override
+    public Map<String, Object> getApkFile(String sha256)
+    {
+        AppApkFile apkFile = apkFileService.selectApkFileBySha256(StringUtils.lowerCase(sha256));
+        if (apkFile == null)
+        {
+            return null;
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sha256", apkFile.getSha256());
+        result.put("fileName", apkFile.getFileName());
+        result.put("filePath", apkFile.getFilePath());
+        result.put("originalFilename", apkFile.getOriginalFilename());
+        result.put("fileSize", apkFile.getFileSize());
+        result.put("url", sftpConfig.getApkUrlPrefix() + "/" + apkFile.getFileName());
+        result.put("hitCount", apkFile.getHitCount());
+        result.put("createTime", apkFile.getCreateTime());
+        result.put("previousTasks", selectPreviousTasks(apkFile.getFilePath()));
+        return result;
+    }
+
+    private Map<String, Object> upload(MultipartFile file, FileProgress progress, String username)
+    {
+        String originalFilename = file.getOriginalFilename();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("originalFilename", originalFilename);
+        result.put("fileSize", file.getSize());
+
+        SftpUtils sftpUtils = new SftpUtils(sshSessionManager);
+        long start = System.currentTimeMillis();
+        try
+        {
+            progress.status = FileProgress.HASHING;
+            String sha256 = sha256Hex(file);
+            result.put("sha256", sha256);
+
+            boolean reused;
+            String fileName;
+            String filePath;
+            synchronized (CONTENT_LOCKS[(sha256.hashCode() & Integer.MAX_VALUE) % CONTENT_LOCKS.length])
+            {
+                AppApkFile apkFile = apkFileService.selectApkFileBySha256(sha256);
+                String remoteDir = sftpConfig.getApkUploadPath();
+                fileName = sha256 + "." + FileUploadUtils.getExtension(file);
+                if (apkFile != null)
+                {
+                    // 沿用登记时的位置，上传目录配置变更后旧文件仍可复用
+                    remoteDir = StringUtils.substringBeforeLast(apkFile.getFilePath(), "/");
+                    fileName = apkFile.getFileName();
+                }
+                filePath = remoteDir + "/" + fileName;
+
+                // 登记过且远程文件完好时跳过传输；远程文件被清理过则重新上传到原位置
+                sftpUtils.connect();
+                reused = sftpUtils.getRemoteSize(filePath) == file.getSize();
+                if (!reused)
+                {
+                    progress.status = FileProgress.UPLOADING;
+                    // 通道断开时在uploadFile内重新获取，同样计入重试
+                    sftpUtils.uploadFile(file, file.getSize(), remoteDir, fileName,
+                            sftpConfig.getUploadChunkSize(), sftpConfig.getUploadRetries(), uploaded -> progress.uploaded = uploaded);
+                }
+                if (apkFile == null)
+                {
+                    apkFile = new AppApkFile();
+                    apkFile.setSha256(sha256);
+                    apkFile.setFileName(fileName);
+                    apkFile.setFilePath(filePath);
+                    apkFile.setOriginalFilename(originalFilename);
+                    apkFile.setFileSize(file.getSize());
+                    apkFile.setCreateBy(username);
+                    apkFileService.insertApkFile(apkFile);
+                }
+                else if (reused)
+                {
+                    apkFileService.recordHit(sha256);
+                }
+            }
+            progress.uploaded = file.getSize();
+            progress.status = FileProgress.DONE;
+            result.put("success", true);
+            result.put("fileName", fileName);
+            result.put("filePath", filePath);
+            result.put("url", sftpConfig.getApkUrlPrefix() + "/" + fileName);
+            result.put("reused", reused);
+            result.put("previousTasks", reused ? selectPreviousTasks(filePath) : new ArrayList<>());
+            if (reused)
+            {
+                log.info("APK文件内容已存在，跳过上传: {} -> {}, sha256={}", originalFilename, filePath, sha256);
+            }
+            else
+            {
+                log.info("APK文件通过SFTP上传成功: {}, {} bytes, 耗时{}ms", originalFilename, file.getSize(), System.currentTimeMillis() - start);
+            }
+        }
+        catch (Exception e)
+        {
+            progress.status = FileProgress.FAILED;
+            progress.error = e.getMessage();
+            result.put("success", false);
+            result.put("error", e.getMessage());
+            log.error("APK文件上传失败: {}", originalFilename, e);
+        }
+        finally
+        {
+            // 归还SFTP通道
+            sftpUtils.disconnect();
+        }
+        return result;
+    }
+
+    /**
+     * 使用同一APK已完成的分析任务，可直接查看其报告和日志
+     */
+    private List<Map<String, Object>> selectPreviousTasks(String filePath)
+    {
+        AppAnalysisTask query = new AppAnalysisTask();
+        query.setApkPath(filePath);
+        query.setStatus(AppAnalysisTask.STATUS_SUCCESS);
+        List<Map<String, Object>> tasks = new ArrayList<>();
+        for (AppAnalysisTask task : analysisTaskService.selectTaskList(query))
+        {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("taskId", task.getTaskId());
+            item.put("taskName", task.getTaskName());
+            item.put("taskType", task.getTaskType());
+            item.put("endTime", task.getEndTime());
+            item.put("privacyReport", privacyEventStore.exists(task.getTaskId()));
+            item.put("rawLog", taskLogStore.exists(task.getTaskId()));
+            tasks.add(item);
+        }
+        return tasks;
+    }
+
+    /**
+     * 流式计算文件内容的SHA-256（上传的文件已由容器暂存在本地）
+     */
+    private static String sha256Hex(MultipartFile file) throws Exception
+    {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] buffer = new byte[DIGEST_BUFFER_SIZE];
+        try (InputStream in = file.getInputStream())
+        {
+            int n;
+            while ((n = in.read(buffer)) > 0)
+            {
+                digest.update(buffer, 0, n);
+            }
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest())
+        {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    private static String getUsername()
+    {
+        try
+        {
+            return SecurityUtils.getUsername();
+        }
+        catch (Exception e)
+        {
+            return "";
+        }
+    }
+
+    /**
+     * 一个上传批次的进度
+     */
+    private static class UploadProgress
+    {
+        private final List<FileProgress> files = new ArrayList<>();
+
+        private volatile boolean finished;
+
+        UploadProgress(List<MultipartFile> multipartFiles)
+        {
+            for (MultipartFile file : multipartFiles)
+            {
+                files.add(new FileProgress(file.getOriginalFilename(), file.getSize()));
+            }
+        }
+
+        Map<String, Object> toMap()
+        {
+            long total = 0;
+            long uploaded = 0;
+            List<Map<String, Object>> items = new ArrayList<>();
+            for (FileProgress file : files)
+            {
+                total += file.size;
+                uploaded += file.uploaded;
+                items.add(file.toMap());
+            }
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("totalBytes", total);
+            map.put("uploadedBytes", uploaded);
+            map.put("percent", total == 0 ? 100 : (int) (uploaded * 100 / total));
+            map.put("finished", finished);
+            map.put("files", items);
+            return map;
+        }
+    }
+
+    /**
+     * 单个文件的进度
+     */
+    private static class FileProgress
+    {
+        static final String WAITING = "waiting";
+        static final String HASHING = "hashing";
+        static final String UPLOADING = "uploading";
+        static final String DONE = "done";
+        static final String FAILED = "failed";
+
+        private final String name;
+
+        private final long size;
+
+        private volatile long uploaded;
+
+        private volatile String status = WAITING;
+
+        private volatile String error;
+
+        FileProgress(String name, long size)
+        {
+            this.name = name;
+            this.size = size;
+        }
+
+        Map<String, Object> toMap()
+        {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("name", name);
+            map.put("size", size);
+            map.put("uploaded", uploaded);
+            map.put("status", status);
+            map.put("error", error);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.ruoyi.app.service.impl;
+
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import com.ruoyi.app.domain.AppAnalysisTask;
+import com.ruoyi.app.mapper.AppAnalysisTaskMapper;
+import com.ruoyi.app.service.IAppAnalysisTaskService;
+
+/**
+ * 分析任务队列 服务层实现
+ *
+ * @author ruoyi
+ */
+@Service
+public class AppAnalysisTaskServiceImpl implements IAppAnalysisTaskService
+{
+    @Autowired
+    private AppAnalysisTaskMapper taskMapper;
+
+    /**
+     * 查询分析任务
+     *
+     * @param id 队列记录ID
+     * @return 分析任务
+     */
+    @Override
+    public AppAnalysisTask selectTaskById(Long id)
+    {
+        return taskMapper.selectTaskById(id);
+    }
+
+    /**
+     * 根据任务编号和类型查询分析任务
+     *
+     * @param taskId 任务编号
+     * @param taskType 任务类型
+     * @return 分析任务
+     */
+    @Override
+    public AppAnalysisTask selectTaskByTaskId(String taskId, String taskType)
+    {
+        return taskMapper.selectTaskByTaskId(taskId, taskType);
+    }
+
+    /**
+     * 查询分析任务列表
+     *
+     * @param task 分析任务
+     * @return 分析任务集合
+     */
+    @Override
+    public List<AppAnalysisTask> selectTaskList(AppAnalysisTask task)
+    {
+        return taskMapper.selectTaskList(task);
+    }
+
+    /**
+     * 查询未结束（排队中、执行中）的任务
+     *
+     * @return 分析任务集合
+     */
+    @Override
+    public List<AppAnalysisTask> selectUnfinishedTasks()
+    {
+        return taskMapper.selectUnfinishedTasks();
+    }
+
+    /**
+     * 新增分析任务
+     *
+     * @param task 分析任务
+     * @return 结果
+     */
+    @Override
+    public int insertTask(AppAnalysisTask task)
+    {
+        return taskMapper.insertTask(task);
+    }
+
+    /**
+     * 修改分析任务
+     *
+     * @param task 分析任务
+     * @return 结果
+     */
+    @Override
+    public int updateTask(AppAnalysisTask task)
+    {
+        return taskMapper.updateTask(task);
+    }
+
+    /**
+     * 批量删除分析任务
+     *
+     * @param ids 需要删除的队列记录ID
+     * @return 结果
+     */
+    @Override
+    public int deleteTaskByIds(Long[] ids)
+    {
+        return taskMapper.deleteTaskByIds(ids);
+    }
+}
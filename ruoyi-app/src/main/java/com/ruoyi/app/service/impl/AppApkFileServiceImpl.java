@@ -0,0 +1,55 @@
+package com.ruoyi.app.service.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import com.ruoyi.app.domain.AppApkFile;
+import com.ruoyi.app.mapper.AppApkFileMapper;
+import com.ruoyi.app.service.IAppApkFileService;
+
+/**
+ * 应用文件内容索引 服务层实现
+ *
+ * @author ruoyi
+ */
+@Service
+public class AppApkFileServiceImpl implements IAppApkFileService
+{
+    @Autowired
+    private AppApkFileMapper apkFileMapper;
+
+    /**
+     * 根据内容摘要查询已上传的文件
+     *
+     * @param sha256 文件内容SHA-256
+     * @return 文件信息，未上传过时返回null
+     */
+    @Override
+    public AppApkFile selectApkFileBySha256(String sha256)
+    {
+        return apkFileMapper.selectApkFileBySha256(sha256);
+    }
+
+    /**
+     * 登记新上传的文件
+     *
+     * @param apkFile 文件信息
+     * @return 结果
+     */
+    @Override
+    public int insertApkFile(AppApkFile apkFile)
+    {
+        return apkFileMapper.insertApkFile(apkFile);
+    }
+
+    /**
+     * 记录一次重复上传
+     *
+     * @param sha256 文件内容SHA-256
+     * @return 结果
+     */
+    @Override
+    public int recordHit(String sha256)
+    {
+        return apkFileMapper.updateApkFileHit(sha256);
+    }
+}
@@ -1,24 +1,47 @@
 package com.ruoyi.app.service.impl;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.function.Function;
+import javax.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
 import com.jcraft.jsch.ChannelExec;
-import com.jcraft.jsch.JSch;
-import com.jcraft.jsch.Session;
-import com.ruoyi.app.config.SftpConfig;
+import com.ruoyi.app.classify.LogClassifier;
+import com.ruoyi.app.device.AnalysisDevice;
+import com.ruoyi.app.device.DevicePool;
+import com.ruoyi.app.domain.AppAnalysisTask;
+import com.ruoyi.app.metrics.StageMetrics;
+import com.ruoyi.app.metrics.StageTracker;
+import com.ruoyi.app.parser.PrivacyEventParser;
+import com.ruoyi.app.parser.PrivacyEventRecorder;
+import com.ruoyi.app.pump.LineHandler;
+import com.ruoyi.app.pump.OutputPump;
 import com.ruoyi.app.service.IFridaAnalysisService;
+import com.ruoyi.app.sse.LogHub;
+import com.ruoyi.app.sse.LogLane;
+import com.ruoyi.app.ssh.RemoteProcess;
+import com.ruoyi.app.ssh.SshSessionManager;
+import com.ruoyi.app.stats.PrivacyAggregator;
+import com.ruoyi.app.stats.PrivacyStats;
+import com.ruoyi.app.store.PrivacyEventStore;
+import com.ruoyi.app.store.ReportCache;
+import com.ruoyi.app.store.TaskLogStore;
+import com.ruoyi.app.task.AnalysisTaskDispatcher;
+import com.ruoyi.app.task.AnalysisTaskHandler;
+import com.ruoyi.common.exception.ServiceException;
 
 @Service
 public class FridaAnalysisServiceImpl implements IFridaAnalysisService {
@@ -26,93 +49,200 @@ public class FridaAnalysisServiceImpl implements IFridaAnalysisService {
     private static final Logger log = LoggerFactory.getLogger(FridaAnalysisServiceImpl.class);
     
     @Autowired
-    private SftpConfig sftpConfig;
+    private SshSessionManager sshSessionManager;
+    
+    @Autowired
+    private AnalysisTaskDispatcher analysisTaskDispatcher;
+    
+    @Autowired
+    private DevicePool devicePool;
+    
+    @Autowired
+    private ThreadPoolTaskExecutor threadPoolTaskExecutor;
+    
+    @Autowired
+    private OutputPump outputPump;
+    
+    @Autowired
+    private PrivacyEventStore privacyEventStore;
+    
+    @Autowired
+    private LogHub logHub;
+    
+    @Autowired
+    private LogClassifier logClassifier;
+    
+    @Autowired
+    private TaskLogStore taskLogStore;
+    
+    @Autowired
+    private StageMetrics stageMetrics;
+    
+    @Autowired
+    private ReportCache reportCache;
+    
+    @Autowired
+    private PrivacyStats privacyStats;
     
     private static final String FRIDA_SCRIPT_PATH = "/opt/camille/frida_privacy_check.py";
     private static final String REPORT_OUTPUT_DIR = "/opt/frida_reports";
-    private static final String CONTAINER_NAME = "android-frida-container";
+    /** 停止检测时等待进程自行退出（生成报告）的时间 */
+    private static final long STOP_GRACE_MILLIS = 10000;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
     
     private final Map<String, Boolean> stopFlagMap = new ConcurrentHashMap<>();
-    private final Map<String, SseEmitter> emitterMap = new ConcurrentHashMap<>();
+    private final Map<String, RemoteProcess> processMap = new ConcurrentHashMap<>();
+    private final Map<String, AnalysisDevice> deviceMap = new ConcurrentHashMap<>();
     
-    private Session createSSHSession() {
-        try {
-            JSch jsch = new JSch();
-            Session session = jsch.getSession(sftpConfig.getUsername(), sftpConfig.getHost(), sftpConfig.getPort());
-            session.setPassword(sftpConfig.getPassword());
-            session.setConfig("StrictHostKeyChecking", "no");
-            session.setTimeout(30000);
-            session.connect();
-            return session;
-        } catch (Exception e) {
-            log.error("SSH连接失败: {}", e.getMessage());
-            return null;
-        }
+    /**
+     * 注册Frida检测任务处理器，任务出队后在线程池中连接分配到的设备，输出由输出泵处理；
+     * 失去设备租约时停止容器中的检测进程
+     */
+    @PostConstruct
+    public void registerTaskHandler() {
+        analysisTaskDispatcher.registerHandler(AppAnalysisTask.TYPE_FRIDA, new AnalysisTaskHandler() {
+            @Override
+            public CompletableFuture<Void> execute(AppAnalysisTask task) {
+                JSONObject runParams = JSON.parseObject(task.getRunParams());
+                AnalysisDevice device = devicePool.getDevice(task.getWorker());
+                return CompletableFuture.supplyAsync(() -> executeFridaAnalysis(task.getTaskId(), device,
+                    runParams.getString("packageName"), runParams.getString("modules"),
+                    runParams.getString("attachMode"), runParams.getIntValue("delayTime")), threadPoolTaskExecutor)
+                    .thenCompose(Function.identity());
+            }
+            
+            @Override
+            public void abort(AppAnalysisTask task, String reason) {
+                abortFridaAnalysis(task.getTaskId(), reason);
+            }
+        });
     }
     
-    public boolean startFridaAnalysis(String taskId, String packageName, String deviceId, 
-                                    String modules, String attachMode, int delayTime) {
-        try {
-            stopFlagMap.put(taskId, false);
-            sendLogWithControl(taskId, "🚀 启动Frida检测: " + packageName, "info");
-            
-            Thread analysisThread = new Thread(() -> {
-                executeFridaAnalysis(taskId, packageName, modules, attachMode, delayTime);
-            });
-            analysisThread.start();
-            
-            return true;
-        } catch (Exception e) {
-            log.error("启动失败: {}", e.getMessage());
-            sendLogWithControl(taskId, "❌ 启动失败: " + e.getMessage(), "error");
-            return false;
+    /**
+     * 任务已失去设备租约：在线程池中停止检测进程，通道在输出结束后由收尾逻辑归还，
+     * 避免之后分配到该设备的任务与仍在运行的脚本争用模拟器
+     */
+    private void abortFridaAnalysis(String taskId, String reason) {
+        RemoteProcess process = processMap.get(taskId);
+        if (process == null) {
+            return;
         }
+        sendLogWithControl(taskId, "⚠️ " + reason + "，正在停止检测进程", "warn");
+        threadPoolTaskExecutor.execute(() -> process.terminate(sshSessionManager, STOP_GRACE_MILLIS));
+    }
+    
+    /**
+     * 提交Frida检测任务到分析队列
+     * 
+     * @param apkPath APK路径（记录在任务上，相同内容的APK可据此找到历史检测结果）
+     * @return 排队信息
+     */
+    public Map<String, Object> startFridaAnalysis(String taskId, String packageName, String deviceId, 
+                                    String modules, String attachMode, int delayTime, String apkPath) {
+        JSONObject runParams = new JSONObject();
+        runParams.put("packageName", packageName);
+        runParams.put("deviceId", deviceId);
+        runParams.put("modules", modules);
+        runParams.put("attachMode", attachMode);
+        runParams.put("delayTime", delayTime);
+        
+        AppAnalysisTask task = new AppAnalysisTask();
+        task.setTaskId(taskId);
+        task.setTaskType(AppAnalysisTask.TYPE_FRIDA);
+        task.setTaskName(packageName);
+        task.setApkPath(apkPath);
+        task.setRunParams(runParams.toJSONString());
+        Map<String, Object> queueInfo = analysisTaskDispatcher.enqueue(task);
+        
+        sendLogWithControl(taskId, "🚀 Frida检测已提交: " + packageName + "，排队位置: "
+            + queueInfo.getOrDefault("queuePosition", 0), "info");
+        return queueInfo;
     }
     
-    private void executeFridaAnalysis(String taskId, String packageName, String modules, 
-                                    String attachMode, int delayTime) {
-        Session session = null;
+    private CompletableFuture<Void> executeFridaAnalysis(String taskId, AnalysisDevice device, String packageName, 
+                                    String modules, String attachMode, int delayTime) {
         ChannelExec channel = null;
+        stopFlagMap.put(taskId, false);
+        deviceMap.put(taskId, device);
+        // 重新执行时丢弃上次缓存的报告
+        reportCache.invalidate(taskId);
+        sendLogWithControl(taskId, "🚀 启动Frida检测: " + packageName + "，设备: " + device, "info");
         
         try {
-            session = createSSHSession();
-            if (session == null) {
-                sendLogWithControl(taskId, "❌ SSH连接失败", "error");
-                return;
-            }
-            
-            // 创建final引用供lambda使用
-            final Session finalSession = session;
-            
-            String command = buildCamilleCommand(taskId, packageName, modules, attachMode, delayTime);
+            String command = buildCamilleCommand(taskId, device.getName(), packageName, modules, attachMode, delayTime);
             log.info("执行命令: {}", command);
             sendLogWithControl(taskId, "🔧 执行命令: " + command, "info");
             
-            channel = (ChannelExec) session.openChannel("exec");
-            channel.setCommand(command);
+            // 从设备所在宿主机的会话池借用执行通道
+            StageMetrics.Span connectSpan = stageMetrics.start(taskId, StageMetrics.SSH_CONNECT, device.getName());
+            channel = sshSessionManager.openExec(device.getHost(), command);
             
-            InputStream inputStream = channel.getInputStream();
-            InputStream errorStream = channel.getErrStream();
+            // 脚本输出接入输出泵，按行实时传输到前端
+            FridaOutputHandler outputHandler = new FridaOutputHandler(taskId, device);
+            CompletableFuture<Integer> exit = outputPump.attach(channel, outputHandler, line -> {
+                sendLogWithControl(taskId, "❌ " + line, "error");
+                log.error("Frida脚本错误: {}", line);
+            });
+            // 登记进程句柄（进程号由脚本启动后的标记行给出），停止时只结束这一个进程组
+            processMap.put(taskId, new RemoteProcess(taskId, device.getHost(), device.getName(), null, channel, exit));
+            sendLogWithControl(taskId, "📡 开始接收Frida脚本输出...", "info");
             channel.connect();
+            connectSpan.end();
+            // 通道连接期间为设备租约续约
+            analysisTaskDispatcher.watch(taskId, AppAnalysisTask.TYPE_FRIDA, channel::isConnected);
             
             sendLogWithControl(taskId, "✅ 命令已发送到服务器", "success");
             
             sendLogWithControl(taskId, "🔍 Docker容器中的Frida检测已启动，请在模拟器中操作应用", "info");
             sendLogWithControl(taskId, "💡 建议操作：登录、拍照、定位、通讯录、拨号等功能", "warn");
             
-            // 直接处理脚本输出，实时传输到前端
-            processFridaScriptOutput(taskId, inputStream, errorStream, channel);
-            
+            final ChannelExec runningChannel = channel;
+            return exit.handle((exitStatus, e) -> finishFridaAnalysis(taskId, runningChannel, exitStatus, e))
+                .thenCompose(Function.identity());
         } catch (Exception e) {
             log.error("执行失败: {}", e.getMessage());
             sendLogWithControl(taskId, "❌ 执行失败: " + e.getMessage(), "error");
-        } finally {
-            if (channel != null) channel.disconnect();
-            if (session != null) session.disconnect();
+            sshSessionManager.release(channel);
+            processMap.remove(taskId);
+            stopFlagMap.remove(taskId);
+            deviceMap.remove(taskId);
+            logHub.finish(logTopic(taskId), "completed", "Frida检测失败");
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new ServiceException("Frida检测执行失败: " + e.getMessage()));
+            return failed;
         }
     }
     
-    private String buildCamilleCommand(String taskId, String packageName, String modules, 
+    /**
+     * 脚本结束后的收尾：归还通道、发布结束事件
+     * 
+     * 用户停止或退出码为0时正常结束；退出码非0、未知或输出异常中断时发布失败消息，返回的future异常完成
+     */
+    private CompletableFuture<Void> finishFridaAnalysis(String taskId, ChannelExec channel, Integer exitStatus, Throwable error) {
+        boolean stopped = Boolean.TRUE.equals(stopFlagMap.get(taskId));
+        processMap.remove(taskId);
+        stopFlagMap.remove(taskId);
+        deviceMap.remove(taskId);
+        sshSessionManager.release(channel);
+        
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        if (stopped) {
+            logHub.finish(logTopic(taskId), "completed", "Frida检测已停止");
+            result.complete(null);
+        } else if (error == null && exitStatus != null && exitStatus == 0) {
+            logHub.finish(logTopic(taskId), "completed", "Frida检测完成");
+            result.complete(null);
+        } else {
+            String reason = error != null ? "输出异常中断: " + error.getMessage() : "退出码: " + exitStatus;
+            log.warn("[{}] Frida检测失败，{}", taskId, reason);
+            sendLogWithControl(taskId, "❌ Frida检测失败，" + reason, "error");
+            logHub.finish(logTopic(taskId), "completed", "Frida检测失败");
+            result.completeExceptionally(new ServiceException("Frida检测失败，" + reason));
+        }
+        return result;
+    }
+    
+    private String buildCamilleCommand(String taskId, String container, String packageName, String modules, 
                                      String attachMode, int delayTime) {
         StringBuilder cmd = new StringBuilder();
         
@@ -120,32 +250,36 @@ public class FridaAnalysisServiceImpl implements IFridaAnalysisService {
         cmd.append("mkdir -p ").append(REPORT_OUTPUT_DIR).append(" && ");
         
         // 在Docker容器中以root身份执行frida_privacy_check.py
-        cmd.append("docker exec -i -u 0 ").append(CONTAINER_NAME).append(" bash -c \"");
+        cmd.append("docker exec -i -u 0 ").append(container).append(" bash -c \"");
         
         // 执行frida_privacy_check.py脚本
-        cmd.append("python3 ").append(FRIDA_SCRIPT_PATH).append(" ").append(packageName);
+        StringBuilder script = new StringBuilder();
+        script.append("python3 ").append(FRIDA_SCRIPT_PATH).append(" ").append(packageName);
         
         // 添加检测时长参数
         int duration = delayTime > 0 ? delayTime : 300;
-        cmd.append(" -d ").append(duration);
+        script.append(" -d ").append(duration);
         
         // 添加Hook模式参数
         if ("attach".equals(attachMode)) {
-            cmd.append(" -ia");  // --isattach
+            script.append(" -ia");  // --isattach
         }
         
         // 添加模块参数
         if (modules != null && !"all".equals(modules)) {
-            cmd.append(" -u ").append(modules);  // --use
+            script.append(" -u ").append(modules);  // --use
         }
         
         // 容器内的报告文件路径
         String reportFile = REPORT_OUTPUT_DIR + "/frida_report_" + taskId + ".xls";
-        cmd.append(" -f ").append(reportFile);
+        script.append(" -f ").append(reportFile);
         
         // 不重定向输出，让脚本输出直接通过SSH传递给Java后端
         // 这样可以实时显示到前端日志流
         
+        // 脚本在独立进程组中后台运行并输出进程号，停止时只向这个进程组发送信号
+        cmd.append(RemoteProcess.wrap(script.toString(), true));
+        
         // 结束Docker exec命令
         cmd.append("\"");
         
@@ -153,146 +287,105 @@ public class FridaAnalysisServiceImpl implements IFridaAnalysisService {
     }
     
     /**
-     * 处理Frida脚本输出，实时传输到前端（优化版本）
+     * Frida脚本输出处理器，实时传输到前端（由输出泵串行回调，计数无需同步）
+     * 
+     * 全部输出按优先级发布到日志中心，由各订阅者按自身接收能力限流合并；完整输出另存到任务日志文件
      */
-    private void processFridaScriptOutput(String taskId, InputStream inputStream, 
-                                        InputStream errorStream, ChannelExec channel) {
-        try {
-            BufferedReader stdReader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
-            BufferedReader errReader = new BufferedReader(new InputStreamReader(errorStream, StandardCharsets.UTF_8));
-            
-            String line;
-            int totalLines = 0;
-            int privacyEvents = 0;
-            int sentLines = 0;
-            long lastSendTime = System.currentTimeMillis();
-            
-            // 输出控制参数
-            final int MAX_LINES_PER_SECOND = 10; // 每秒最多发送10行
-            final int MAX_TOTAL_LINES = 200; // 总共最多发送200行到前端
-            final long SEND_INTERVAL = 100; // 发送间隔100ms
-            
-            sendLogWithControl(taskId, "📡 开始接收Frida脚本输出...", "info");
-            
-            while (!stopFlagMap.getOrDefault(taskId, false) && !channel.isClosed()) {
-                boolean hasNewOutput = false;
-                
-                // 读取标准输出
-                while (stdReader.ready() && (line = stdReader.readLine()) != null) {
-                    totalLines++;
-                    hasNewOutput = true;
-                    
-                    // 统计隐私事件
-                    if (isPrivacyEvent(line)) {
-                        privacyEvents++;
-                    }
-                    
-                    // 控制发送到前端的输出量
-                    boolean shouldSend = shouldSendToFrontend(line, sentLines, lastSendTime, MAX_LINES_PER_SECOND, MAX_TOTAL_LINES);
-                    
-                    if (shouldSend) {
-                        String logLevel = determineFridaLogLevel(line);
-                        sendLogWithControl(taskId, line, logLevel);
-                        sentLines++;
-                        lastSendTime = System.currentTimeMillis();
-                    }
-                    
-                    // 只记录重要日志到后端控制台
-                    if (isImportantLog(line)) {
-                        log.info("Frida重要输出: {}", line);
-                    }
-                }
-                
-                // 读取错误输出（错误输出总是发送）
-                while (errReader.ready() && (line = errReader.readLine()) != null) {
-                    sendLogWithControl(taskId, "❌ " + line, "error");
-                    log.error("Frida脚本错误: {}", line);
-                }
-                
-                // 如果没有新输出，适当延长等待时间
-                if (!hasNewOutput) {
-                    Thread.sleep(200);
-                } else {
-                    Thread.sleep(SEND_INTERVAL);
+    private class FridaOutputHandler implements LineHandler {
+        
+        private final String taskId;
+        private final PrivacyEventRecorder eventRecorder;
+        private final PrivacyAggregator aggregator;
+        private final TaskLogStore.LogWriter logWriter;
+        private final StageTracker stageTracker;
+        private int totalLines = 0;
+        
+        FridaOutputHandler(String taskId, AnalysisDevice device) {
+            this.taskId = taskId;
+            this.stageTracker = stageMetrics.tracker(taskId, AppAnalysisTask.TYPE_FRIDA, device.getName());
+            this.aggregator = privacyStats.start(taskId);
+            this.eventRecorder = new PrivacyEventRecorder(privacyEventStore, taskId, aggregator.andThen(event -> log.debug(
+                "[{}] 隐私事件#{}: {} / {}", taskId, event.getSeq(), event.getAction(), event.getSubject())));
+            this.logWriter = openLogWriter(taskId);
+        }
+        
+        @Override
+        public void onLine(String line) {
+            // 进程号标记只登记到进程句柄，不作为输出
+            if (line.startsWith(RemoteProcess.MARKER_PREFIX)) {
+                RemoteProcess process = processMap.get(taskId);
+                if (process != null && process.accept(line)) {
+                    return;
                 }
             }
+            totalLines++;
             
-            // 发送最终统计
-            sendLogWithControl(taskId, String.format("✅ 脚本执行完成！总输出%d行，隐私事件%d个，已显示%d行", 
-                totalLines, privacyEvents, sentLines), "success");
+            // 完整输出落盘，解析隐私事件（用于生成报告）
+            if (logWriter != null) {
+                logWriter.append(line);
+            }
+            eventRecorder.onLine(line);
+            
+            // 一次扫描得到重要性、日志级别和推送优先级
+            int flags = logClassifier.classify(line);
+            String level = LogClassifier.level(flags);
+            stageTracker.onLine(line, (flags & LogClassifier.EVENT) != 0);
             
-            if (sentLines >= MAX_TOTAL_LINES) {
-                sendLogWithControl(taskId, "💡 为防止页面卡顿，已限制显示行数。完整日志请查看后端控制台", "warn");
+            // 已请求停止，剩余输出照常落盘和解析，只是不再推送到页面
+            if (!stopFlagMap.getOrDefault(taskId, false)) {
+                publish(line, flags, level);
             }
             
-        } catch (Exception e) {
-            log.error("处理Frida脚本输出失败: {}", e.getMessage());
-            sendLogWithControl(taskId, "❌ 处理脚本输出失败: " + e.getMessage(), "error");
-        }
-    }
-    
-    /**
-     * 判断是否应该发送到前端
-     */
-    private boolean shouldSendToFrontend(String line, int sentLines, long lastSendTime, 
-                                       int maxLinesPerSecond, int maxTotalLines) {
-        // 超过总行数限制
-        if (sentLines >= maxTotalLines) {
-            return false;
+            // 只记录重要日志到后端控制台
+            if ((flags & LogClassifier.FRIDA_IMPORTANT) != 0) {
+                log.info("Frida重要输出: {}", line);
+            }
         }
         
-        // 重要日志总是发送
-        if (isImportantLog(line)) {
-            return true;
+        /**
+         * 按日志级别和是否为隐私事件选择推送通道
+         */
+        private void publish(String line, int flags, String level) {
+            if ("error".equals(level) || "warn".equals(level) || "success".equals(level)) {
+                sendLogWithControl(taskId, line, level, LogLane.PRIORITY, null);
+            } else if ((flags & LogClassifier.EVENT) != 0 || "alert".equals(level)) {
+                String action = PrivacyEventParser.actionOf(line);
+                sendLogWithControl(taskId, line, level, LogLane.ALERT, action != null ? action : "其他告警");
+            } else {
+                sendLogWithControl(taskId, line, level, LogLane.NORMAL, (flags & LogClassifier.SKIP) != 0 ? "调用堆栈" : null);
+            }
         }
         
-        // 控制发送频率
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastSendTime < (1000 / maxLinesPerSecond)) {
-            return false;
+        @Override
+        public void onEnd() {
+            eventRecorder.onEnd();
+            privacyStats.finish(aggregator);
+            stageTracker.finish();
+            if (logWriter != null) {
+                logWriter.close();
+            }
+            
+            // 发送最终统计（是否成功取决于退出码，由收尾时发布）
+            sendLogWithControl(taskId, String.format("📊 脚本输出结束，总输出%d行，隐私事件%d个", 
+                totalLines, eventRecorder.getEventCount()), "info");
+            if (logWriter != null) {
+                sendLogWithControl(taskId, "💡 页面显示的日志已按推送速率合并，完整日志已保存，可分页查看原始日志", "info");
+            }
         }
-        
-        return true;
     }
     
-    /**
-     * 判断是否为重要日志
-     */
-    private boolean isImportantLog(String line) {
-        return line.contains("[ERROR]") || 
-               line.contains("[SUCCESS]") || 
-               line.contains("APP行为：") || 
-               line.contains("隐私") || 
-               line.contains("权限") || 
-               line.contains("✅") || 
-               line.contains("❌") || 
-               line.contains("⚠️") || 
-               line.contains("━━━") ||
-               line.contains("Frida") ||
-               line.contains("Hook") ||
-               line.contains("检测");
-    }
-    
-    /**
-     * 根据Frida脚本输出内容确定日志级别
-     */
-    private String determineFridaLogLevel(String line) {
-        if (line.contains("[ERROR]") || line.contains("❌")) {
-            return "error";
-        } else if (line.contains("[WARN]") || line.contains("⚠️")) {
-            return "warn";
-        } else if (line.contains("[SUCCESS]") || line.contains("✅")) {
-            return "success";
-        } else if (line.contains("[ALERT]") || line.contains("APP行为：") || line.contains("隐私")) {
-            return "alert";
-        } else if (line.contains("[INFO]") || line.contains("━━━")) {
-            return "info";
-        } else {
-            return "info";
+    private TaskLogStore.LogWriter openLogWriter(String taskId) {
+        try {
+            return taskLogStore.openWriter(taskId);
+        } catch (Exception e) {
+            // 日志文件不可用时仍可推送到前端
+            log.error("[{}] 创建任务日志文件失败: {}", taskId, e.getMessage());
+            return null;
         }
     }
     
     
+    
     private String formatOutput(String line) {
         String timestamp = new SimpleDateFormat("HH:mm:ss").format(new Date());
         
@@ -315,32 +408,27 @@ public class FridaAnalysisServiceImpl implements IFridaAnalysisService {
         return "info";
     }
     
-    private boolean isPrivacyEvent(String line) {
-        return line.contains("APP行为：") || line.contains("隐私") || line.contains("权限") ||
-               line.contains("位置") || line.contains("联系人") || line.contains("电话") ||
-               line.contains("设备") || line.contains("调用堆栈：");
-    }
-    
     @Override
     public boolean stopFridaAnalysis(String taskId) {
         try {
+            // 尚在排队的任务直接出队，不需要停止容器中的进程
+            String previousStatus = analysisTaskDispatcher.cancel(taskId, AppAnalysisTask.TYPE_FRIDA);
+            if (AppAnalysisTask.STATUS_QUEUED.equals(previousStatus)) {
+                sendLogWithControl(taskId, "⏹️ 已取消排队中的检测任务", "info");
+                return true;
+            }
+            
             stopFlagMap.put(taskId, true);
             sendLogWithControl(taskId, "🛑 正在停止检测...", "info");
             
-            Session session = createSSHSession();
-            if (session != null) {
-                ChannelExec channel = (ChannelExec) session.openChannel("exec");
-                // 在Docker容器中以root身份停止frida进程
-                String killCommand = "docker exec -u 0 " + CONTAINER_NAME + " bash -c \"" +
-                    "pkill -f 'python3.*frida_privacy_check.py' || pkill -f frida || echo 'Frida进程已停止'\"";
-                channel.setCommand(killCommand);
-                channel.connect();
-                Thread.sleep(2000);
-                channel.disconnect();
-                session.disconnect();
+            // 只向本任务的进程组发送信号（同一容器中的其他检测不受影响），进程退出后立即返回
+            RemoteProcess process = processMap.get(taskId);
+            if (process == null) {
+                sendLogWithControl(taskId, "⏹️ 检测进程已结束", "info");
+                return true;
             }
-            
-            sendLogWithControl(taskId, "✅ 检测已停止", "success");
+            boolean exited = process.stop(sshSessionManager, STOP_GRACE_MILLIS);
+            sendLogWithControl(taskId, exited ? "✅ 检测已停止" : "⚠️ 检测进程未响应停止信号，已断开连接", exited ? "success" : "warn");
             return true;
         } catch (Exception e) {
             log.error("停止失败: {}", e.getMessage());
@@ -348,34 +436,52 @@ public class FridaAnalysisServiceImpl implements IFridaAnalysisService {
         }
     }
     
+    @Override
+    public CompletableFuture<Void> runOnDevice(String taskId, AnalysisDevice device, String packageName,
+                                               String modules, int duration) {
+        return executeFridaAnalysis(taskId, device, packageName, modules != null ? modules : "all", "spawn", duration);
+    }
+    
+    @Override
+    public AnalysisDevice getDevice(String taskId) {
+        AnalysisDevice running = deviceMap.get(taskId);
+        if (running != null) {
+            return running;
+        }
+        Map<String, Object> info = analysisTaskDispatcher.getQueueInfo(taskId, AppAnalysisTask.TYPE_FRIDA);
+        return devicePool.getDevice(info != null ? (String) info.get("worker") : null);
+    }
+    
     @Override
     public String getAnalysisReport(String taskId) {
         return String.format("%s/frida_report_%s.xls", REPORT_OUTPUT_DIR, taskId);
     }
     
     @Override
-    public Map<String, SseEmitter> getEmitterMap() {
-        return emitterMap;
+    public SseEmitter subscribeLogs(String taskId, String lastEventId) {
+        // 超时时间60分钟，Frida检测可能时间较长
+        return logHub.subscribe(logTopic(taskId), lastEventId, 60 * 60 * 1000L, "Frida日志流已连接");
+    }
+    
+    /**
+     * Frida日志与动态分析日志使用不同的通道
+     */
+    private static String logTopic(String taskId) {
+        return "frida:" + taskId;
     }
     
     private void sendLogWithControl(String taskId, String message, String level) {
-        try {
-            SseEmitter emitter = emitterMap.get(taskId);
-            if (emitter != null) {
-                Map<String, Object> logData = new HashMap<>();
-                logData.put("message", message);
-                logData.put("level", level);
-                logData.put("timestamp", new SimpleDateFormat("HH:mm:ss").format(new Date()));
-                
-                // 指定事件名称为'log'，匹配前端期望
-                emitter.send(SseEmitter.event()
-                    .name("log")
-                    .data(logData));
-            }
-        } catch (Exception e) {
-            log.error("发送SSE日志失败，移除emitter: {}", e.getMessage());
-            emitterMap.remove(taskId);
-        }
+        sendLogWithControl(taskId, message, level, LogLane.PRIORITY, null);
+    }
+    
+    private void sendLogWithControl(String taskId, String message, String level, LogLane lane, String key) {
+        Map<String, Object> logData = new HashMap<>();
+        logData.put("message", message);
+        logData.put("level", level);
+        logData.put("timestamp", LocalTime.now().format(TIME_FORMAT));
+        
+        // 指定事件名称为'log'，匹配前端期望
+        logHub.publish(logTopic(taskId), "log", logData, lane, key);
     }
     
     @Override
@@ -389,10 +495,11 @@ public class FridaAnalysisServiceImpl implements IFridaAnalysisService {
                                                   String useModule, Integer waitTime, String logLevel) {
         Map<String, Object> result = new HashMap<>();
         try {
-            boolean success = startFridaAnalysis(taskId, packageName, "", 
-                useModule != null ? useModule : "all", "spawn", waitTime != null ? waitTime : 0);
-            result.put("success", success);
-            result.put("message", success ? "检测已启动" : "启动失败");
+            Map<String, Object> queueInfo = startFridaAnalysis(taskId, packageName, "", 
+                useModule != null ? useModule : "all", "spawn", waitTime != null ? waitTime : 0, apkPath);
+            result.putAll(queueInfo);
+            result.put("success", true);
+            result.put("message", AppAnalysisTask.STATUS_QUEUED.equals(queueInfo.get("status")) ? "检测已进入排队" : "检测已启动");
             result.put("taskId", taskId);
         } catch (Exception e) {
             result.put("success", false);
@@ -0,0 +1,216 @@
+package com.ruoyi.app.service.impl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import com.ruoyi.app.classify.SdkAttributor;
+import com.ruoyi.app.domain.PrivacyEvent;
+import com.ruoyi.app.service.IPrivacyReportService;
+import com.ruoyi.app.store.PrivacyEventStore;
+import com.ruoyi.common.annotation.Excel;
+import com.ruoyi.common.core.text.Convert;
+import com.ruoyi.common.utils.StringUtils;
+import com.ruoyi.common.utils.file.FileUtils;
+import com.ruoyi.common.utils.poi.ExcelUtil;
+
+/**
+ * 隐私检测报告 服务层实现
+ *
+ * 报告直接由本地采集的事件文件逐条生成：XLSX使用SXSSF窗口写入，CSV边读边写，
+ * 两者都不把事件整体加载到内存；列定义取自{@link PrivacyEvent}的@Excel注解。
+ *
+ * @author ruoyi
+ */
+@Service
+public class PrivacyReportServiceImpl implements IPrivacyReportService
+{
+    private static final String SHEET_NAME = "隐私检测报告";
+
+    @Autowired
+    private PrivacyEventStore privacyEventStore;
+
+    @Autowired
+    private SdkAttributor sdkAttributor;
+
+    /** CSV列定义（与Excel导出的列顺序一致） */
+    private final List<Object[]> csvColumns = new ExcelUtil<PrivacyEvent>(PrivacyEvent.class).getFields().stream()
+            .sorted(Comparator.comparing(objects -> ((Excel) objects[1]).sort())).collect(Collectors.toList());
+
+    @Override
+    public boolean hasLocalEvents(String taskId)
+    {
+        return privacyEventStore.exists(taskId);
+    }
+
+    @Override
+    public String getReportFileName(String taskId, String format)
+    {
+        return "frida_report_" + taskId + "." + (FORMAT_CSV.equalsIgnoreCase(format) ? FORMAT_CSV : FORMAT_XLSX);
+    }
+
+    @Override
+    public void exportReport(HttpServletResponse response, String taskId, String format) throws IOException
+    {
+        FileUtils.setAttachmentResponseHeader(response, getReportFileName(taskId, format));
+        if (!privacyEventStore.exists(taskId))
+        {
+            writeReport(response, Collections.emptyIterator(), format);
+            return;
+        }
+        try (PrivacyEventStore.EventReader reader = privacyEventStore.openReader(taskId))
+        {
+            writeReport(response, reader, format);
+        }
+    }
+
+    @Override
+    public void writeReport(OutputStream out, String taskId, String format) throws IOException
+    {
+        if (!privacyEventStore.exists(taskId))
+        {
+            writeReport(out, Collections.emptyIterator(), format);
+            return;
+        }
+        try (PrivacyEventStore.EventReader reader = privacyEventStore.openReader(taskId))
+        {
+            writeReport(out, reader, format);
+        }
+    }
+
+    @Override
+    public String getContentType(String format)
+    {
+        return FORMAT_CSV.equalsIgnoreCase(format) ? "text/csv;charset=utf-8"
+                : "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    }
+
+    @Override
+    public Map<String, Object> reattribute(String taskId) throws IOException
+    {
+        AtomicLong changed = new AtomicLong();
+        long events = privacyEventStore.rewrite(taskId, event -> {
+            String subject = sdkAttributor.attribute(event.getStack());
+            if (!subject.equals(event.getSubject()))
+            {
+                event.setSubject(subject);
+                changed.incrementAndGet();
+            }
+            return event;
+        });
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("taskId", taskId);
+        result.put("events", events);
+        result.put("changed", changed.get());
+        return result;
+    }
+
+    private void writeReport(HttpServletResponse response, Iterator<PrivacyEvent> events, String format) throws IOException
+    {
+        if (FORMAT_CSV.equalsIgnoreCase(format))
+        {
+            response.setContentType("text/csv");
+            response.setCharacterEncoding("utf-8");
+            writeCsv(response.getOutputStream(), events);
+        }
+        else
+        {
+            new ExcelUtil<PrivacyEvent>(PrivacyEvent.class).exportExcel(response, events, SHEET_NAME, StringUtils.EMPTY);
+        }
+    }
+
+    private void writeReport(OutputStream out, Iterator<PrivacyEvent> events, String format) throws IOException
+    {
+        if (FORMAT_CSV.equalsIgnoreCase(format))
+        {
+            writeCsv(out, events);
+        }
+        else
+        {
+            new ExcelUtil<PrivacyEvent>(PrivacyEvent.class).exportExcel(out, events, SHEET_NAME, StringUtils.EMPTY);
+        }
+    }
+
+    private void writeCsv(OutputStream out, Iterator<PrivacyEvent> events) throws IOException
+    {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        // BOM，Excel打开时按UTF-8识别中文
+        writer.write('\ufeff');
+        for (int i = 0; i < csvColumns.size(); i++)
+        {
+            if (i > 0)
+            {
+                writer.write(ExcelUtil.SEPARATOR);
+            }
+            writeCsvValue(writer, ((Excel) csvColumns.get(i)[1]).name());
+        }
+        writer.write("\r\n");
+        while (events.hasNext())
+        {
+            PrivacyEvent event = events.next();
+            for (int i = 0; i < csvColumns.size(); i++)
+            {
+                if (i > 0)
+                {
+                    writer.write(ExcelUtil.SEPARATOR);
+                }
+                writeCsvValue(writer, getValue(event, (Field) csvColumns.get(i)[0]));
+            }
+            writer.write("\r\n");
+        }
+        writer.flush();
+    }
+
+    private static String getValue(PrivacyEvent event, Field field)
+    {
+        try
+        {
+            field.setAccessible(true);
+            return Convert.toStr(field.get(event), StringUtils.EMPTY);
+        }
+        catch (IllegalAccessException e)
+        {
+            return StringUtils.EMPTY;
+        }
+    }
+
+    /**
+     * 写入一个CSV值：以=-+@开头的加tab前缀防止CSV注入，含分隔符、引号或换行的加引号
+     */
+    private static void writeCsvValue(BufferedWriter writer, String value) throws IOException
+    {
+        if (StringUtils.startsWithAny(value, ExcelUtil.FORMULA_STR))
+        {
+            value = "\t" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+        {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            if (c == '"')
+            {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+}
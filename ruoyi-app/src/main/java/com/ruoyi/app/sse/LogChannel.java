@@ -0,0 +1,241 @@
+package com.ruoyi.app.sse;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 单个任务的日志通道：定长环形缓冲 + 订阅者列表
+ *
+ * 事件ID在通道内单调递增（从1开始），同时作为SSE的id用于断线续传；
+ * 缓冲满后覆盖最早的事件，落后超过缓冲长度的订阅者只能从最早的事件继续。
+ * 关键消息和告警另存一份到同样长度的独立缓冲（按序号编址），普通输出再多也不会把它们覆盖，
+ * 落后的订阅者跳过普通输出时从这里补发；在这里也被覆盖的事件必然早已移出主缓冲，可以准确计数。
+ *
+ * @author ruoyi
+ */
+public class LogChannel
+{
+    private final String topic;
+
+    private final LogEvent[] ring;
+
+    /** 关键消息和告警的环形缓冲，下标为序号 */
+    private final LogEvent[] priorityRing;
+
+    private final List<LogSubscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    /** 下一个事件的ID */
+    private long nextId = 1;
+
+    /** 下一个关键消息或告警的序号（从0开始） */
+    private long nextSeq;
+
+    /** 本轮运行的第一个事件ID（任务重新执行时之前的事件不再回放） */
+    private long firstId = 1;
+
+    /** 是否已结束（已发布结束事件） */
+    private boolean closed;
+
+    /** 最近一次发布或订阅的时间 */
+    private volatile long lastActiveTime = System.currentTimeMillis();
+
+    public LogChannel(String topic, int capacity)
+    {
+        this.topic = topic;
+        this.ring = new LogEvent[Math.max(16, capacity)];
+        this.priorityRing = new LogEvent[ring.length];
+    }
+
+    /**
+     * 追加事件，结束后再次追加视为任务重新执行
+     *
+     * @param lane 推送优先级
+     * @param key 合并计数时的分类，为空时归入“其他日志”
+     * @param finish 是否为结束事件
+     * @return 事件ID
+     */
+    public synchronized long append(String name, Object data, LogLane lane, String key, boolean finish)
+    {
+        if (closed)
+        {
+            closed = false;
+            firstId = nextId;
+        }
+        long id = nextId++;
+        long seq = lane != LogLane.NORMAL ? nextSeq++ : -1;
+        LogEvent event = new LogEvent(id, seq, name, data, lane, key, finish);
+        ring[(int) (id % ring.length)] = event;
+        if (seq >= 0)
+        {
+            priorityRing[(int) (seq % priorityRing.length)] = event;
+        }
+        closed = finish;
+        lastActiveTime = System.currentTimeMillis();
+        return id;
+    }
+
+    /**
+     * 缓冲中最早的事件ID
+     */
+    public synchronized long oldestId()
+    {
+        return Math.max(firstId, nextId - ring.length);
+    }
+
+    public synchronized long getNextId()
+    {
+        return nextId;
+    }
+
+    /**
+     * 从fromId开始读取最多max个事件，fromId早于缓冲起点时从起点开始
+     */
+    public synchronized void read(long fromId, List<LogEvent> out, int max)
+    {
+        long end = Math.min(nextId, Math.max(fromId, oldestId()) + max);
+        for (long id = Math.max(fromId, oldestId()); id < end; id++)
+        {
+            out.add(ring[(int) (id % ring.length)]);
+        }
+    }
+
+    /**
+     * 从事件ID为cursor处开始读取时，第一个关键消息或告警的序号
+     */
+    public synchronized long prioritySeqAt(long cursor)
+    {
+        long oldestSeq = Math.max(0, nextSeq - priorityRing.length);
+        long seq = nextSeq;
+        while (seq > oldestSeq && priorityRing[(int) ((seq - 1) % priorityRing.length)].getId() >= cursor)
+        {
+            seq--;
+        }
+        return seq;
+    }
+
+    /**
+     * 从序号fromSeq开始读取事件ID小于toId的关键消息和告警（订阅者跳过普通输出时补发）
+     *
+     * @return 已被覆盖、无法补发的条数
+     */
+    public synchronized long readPriority(long fromSeq, long toId, List<LogEvent> out)
+    {
+        long oldestSeq = Math.max(0, nextSeq - priorityRing.length);
+        for (long seq = Math.max(fromSeq, oldestSeq); seq < nextSeq; seq++)
+        {
+            LogEvent event = priorityRing[(int) (seq % priorityRing.length)];
+            if (event.getId() >= toId)
+            {
+                break;
+            }
+            out.add(event);
+        }
+        return Math.max(0, oldestSeq - fromSeq);
+    }
+
+    /**
+     * 读到cursor时是否已经没有后续事件（通道已结束）
+     */
+    public synchronized boolean isFinishedAt(long cursor)
+    {
+        return closed && cursor >= nextId;
+    }
+
+    public synchronized boolean isClosed()
+    {
+        return closed;
+    }
+
+    public void addSubscriber(LogSubscriber subscriber)
+    {
+        lastActiveTime = System.currentTimeMillis();
+        subscribers.add(subscriber);
+    }
+
+    public void removeSubscriber(LogSubscriber subscriber)
+    {
+        subscribers.remove(subscriber);
+    }
+
+    public List<LogSubscriber> getSubscribers()
+    {
+        return subscribers;
+    }
+
+    public String getTopic()
+    {
+        return topic;
+    }
+
+    public long getLastActiveTime()
+    {
+        return lastActiveTime;
+    }
+
+    /**
+     * 日志事件
+     */
+    public static class LogEvent
+    {
+        private final long id;
+
+        /** 关键消息和告警的序号，普通输出为-1 */
+        private final long seq;
+
+        private final String name;
+
+        private final Object data;
+
+        private final LogLane lane;
+
+        private final String key;
+
+        private final boolean finish;
+
+        public LogEvent(long id, long seq, String name, Object data, LogLane lane, String key, boolean finish)
+        {
+            this.id = id;
+            this.seq = seq;
+            this.name = name;
+            this.data = data;
+            this.lane = lane;
+            this.key = key;
+            this.finish = finish;
+        }
+
+        public long getId()
+        {
+            return id;
+        }
+
+        public long getSeq()
+        {
+            return seq;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public Object getData()
+        {
+            return data;
+        }
+
+        public LogLane getLane()
+        {
+            return lane;
+        }
+
+        public String getKey()
+        {
+            return key;
+        }
+
+        public boolean isFinish()
+        {
+            return finish;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.ruoyi.app.sse;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 限流期间未推送事件的合并计数
+ *
+ * 按分类累计一个统计周期内被合并的事件数，周期结束时生成一条摘要，
+ * 如“获取IMEI ×430、其他日志 ×1200（最近5秒）”。
+ * 非线程安全，由订阅者的发送线程独占使用。
+ *
+ * @author ruoyi
+ */
+public class LogCoalescer
+{
+    /** 单个周期内单独计数的分类上限，超出的归入其他日志 */
+    private static final int MAX_KEYS = 32;
+
+    private static final String OTHER = "其他日志";
+
+    private final long windowMillis;
+
+    private final Map<String, Integer> counts = new LinkedHashMap<>();
+
+    /** 本周期内已推送过的告警分类 */
+    private final Set<String> seenKeys = new HashSet<>();
+
+    private long windowStart = System.currentTimeMillis();
+
+    private long total;
+
+    public LogCoalescer(long windowMillis)
+    {
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * 记录一个被合并的事件
+     */
+    public void add(String key)
+    {
+        if (key == null || (!counts.containsKey(key) && counts.size() >= MAX_KEYS))
+        {
+            key = OTHER;
+        }
+        counts.merge(key, 1, Integer::sum);
+        total++;
+    }
+
+    /**
+     * 标记告警分类在本周期已推送过
+     *
+     * @return 本周期内首次出现返回true
+     */
+    public boolean markSeen(String key)
+    {
+        return seenKeys.add(key == null ? OTHER : key);
+    }
+
+    /**
+     * 统计周期是否已结束且有待发送的摘要
+     */
+    public boolean isDue(long now)
+    {
+        return total > 0 && now - windowStart >= windowMillis;
+    }
+
+    public boolean isEmpty()
+    {
+        return total == 0;
+    }
+
+    /**
+     * 生成摘要并开始新的统计周期；没有合并事件时只重置周期
+     *
+     * @return 摘要文本，没有合并事件时返回null
+     */
+    public String drain(long now)
+    {
+        String summary = null;
+        if (total > 0)
+        {
+            StringBuilder sb = new StringBuilder("📊 ");
+            boolean first = true;
+            for (Map.Entry<String, Integer> entry : counts.entrySet())
+            {
+                if (!first)
+                {
+                    sb.append('、');
+                }
+                sb.append(entry.getKey()).append(" ×").append(entry.getValue());
+                first = false;
+            }
+            sb.append("（最近").append(Math.max(1, (now - windowStart + 500) / 1000)).append("秒，已合并显示）");
+            summary = sb.toString();
+        }
+        counts.clear();
+        seenKeys.clear();
+        total = 0;
+        windowStart = now;
+        return summary;
+    }
+
+    /**
+     * 统计周期已结束时开始新周期（没有合并事件时也需要清空已推送的告警分类）
+     */
+    public void roll(long now)
+    {
+        if (total == 0 && now - windowStart >= windowMillis)
+        {
+            seenKeys.clear();
+            windowStart = now;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.ruoyi.app.sse;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import com.ruoyi.app.config.AnalysisConfig;
+import com.ruoyi.common.utils.StringUtils;
+import com.ruoyi.common.utils.Threads;
+
+/**
+ * 分析日志广播中心
+ *
+ * 每个任务（topic）一个带环形缓冲的日志通道，可同时有多个订阅者，各自维护读取位置；
+ * 晚加入的订阅者先回放缓冲中的历史日志，断线重连时按Last-Event-ID续传。
+ * 发布方只写缓冲不等待网络，发送阻塞或持续落后的订阅者会被断开，不影响其他订阅者和发布方。
+ * 每个订阅者独立限流（令牌桶，速率随接收快慢自适应），超出速率的告警和普通输出按分类合并计数，
+ * 关键消息（{@link LogLane#PRIORITY}）不受限流。
+ *
+ * @author ruoyi
+ */
+@Component
+public class LogHub
+{
+    private static final Logger log = LoggerFactory.getLogger(LogHub.class);
+
+    /** 单次发送阻塞超过该时间（毫秒）视为客户端失去响应 */
+    private static final long SEND_TIMEOUT_MILLIS = 10 * 1000;
+
+    /** 订阅者被缓冲覆盖的最大次数，超过后断开 */
+    private static final int MAX_OVERRUNS = 3;
+
+    /** 已结束的通道保留时间（毫秒），期间仍可回放 */
+    private static final long FINISHED_RETAIN_MILLIS = 10 * 60 * 1000;
+
+    /** 无订阅者且无新日志的通道保留时间（毫秒） */
+    private static final long IDLE_RETAIN_MILLIS = 60 * 60 * 1000;
+
+    @Autowired
+    private AnalysisConfig analysisConfig;
+
+    @Autowired
+    private ScheduledExecutorService scheduledExecutorService;
+
+    private final Map<String, LogChannel> channels = new ConcurrentHashMap<>();
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init()
+    {
+        executor = Executors.newFixedThreadPool(Math.max(1, analysisConfig.getSseThreads()),
+                new BasicThreadFactory.Builder().namingPattern("log-hub-%d").daemon(true).build());
+        scheduledExecutorService.scheduleWithFixedDelay(this::sweep, 5, 5, TimeUnit.SECONDS);
+        scheduledExecutorService.scheduleWithFixedDelay(this::flushSummaries, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        Threads.shutdownAndAwaitTermination(executor);
+    }
+
+    /**
+     * 发布关键日志事件（不受限流）
+     *
+     * @param topic 日志通道（通常为任务ID）
+     * @param name SSE事件名
+     * @param data 事件数据
+     */
+    public void publish(String topic, String name, Object data)
+    {
+        publish(topic, name, data, LogLane.PRIORITY, null, false);
+    }
+
+    /**
+     * 按优先级发布日志事件
+     *
+     * @param topic 日志通道
+     * @param name SSE事件名
+     * @param data 事件数据
+     * @param lane 推送优先级
+     * @param key 限流时合并计数的分类（如告警的行为名称），为空时归入“其他日志”
+     */
+    public void publish(String topic, String name, Object data, LogLane lane, String key)
+    {
+        publish(topic, name, data, lane, key, false);
+    }
+
+    /**
+     * 发布结束事件，订阅者收到后连接关闭；通道保留一段时间供回放
+     */
+    public void finish(String topic, String name, Object data)
+    {
+        publish(topic, name, data, LogLane.PRIORITY, null, true);
+    }
+
+    private void publish(String topic, String name, Object data, LogLane lane, String key, boolean finish)
+    {
+        LogChannel channel = getChannel(topic);
+        channel.append(name, data, lane, key, finish);
+        for (LogSubscriber subscriber : channel.getSubscribers())
+        {
+            subscriber.signal();
+        }
+    }
+
+    /**
+     * 订阅日志
+     *
+     * @param topic 日志通道
+     * @param lastEventId 客户端最后收到的事件ID（Last-Event-ID），为空时回放缓冲中全部日志
+     * @param timeout 连接超时时间（毫秒）
+     * @param greeting 连接成功后发送的connected事件内容
+     * @return SSE发射器
+     */
+    public SseEmitter subscribe(String topic, String lastEventId, long timeout, String greeting)
+    {
+        LogChannel channel = getChannel(topic);
+        SseEmitter emitter = new SseEmitter(timeout);
+        long cursor = StringUtils.isNumeric(lastEventId) ? Long.parseLong(lastEventId) + 1 : channel.oldestId();
+        LogSubscriber subscriber = new LogSubscriber(channel, emitter, executor, cursor, MAX_OVERRUNS,
+                new TokenBucket(analysisConfig.getSseRate(), analysisConfig.getSseBurst()),
+                new LogCoalescer(analysisConfig.getSseCoalesceSeconds() * 1000L));
+        emitter.onTimeout(subscriber::close);
+        emitter.onCompletion(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        try
+        {
+            emitter.send(SseEmitter.event().name("connected").data(greeting));
+        }
+        catch (Exception e)
+        {
+            log.error("发送连接消息失败", e);
+        }
+        channel.addSubscriber(subscriber);
+        subscriber.signal();
+        log.info("客户端订阅日志 - {}, 起始事件: {}, 当前订阅数: {}", topic, cursor, channel.getSubscribers().size());
+        return emitter;
+    }
+
+    /**
+     * 运行统计
+     */
+    public Map<String, Object> getStats()
+    {
+        int subscribers = 0;
+        for (LogChannel channel : channels.values())
+        {
+            subscribers += channel.getSubscribers().size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("channels", channels.size());
+        stats.put("subscribers", subscribers);
+        return stats;
+    }
+
+    private LogChannel getChannel(String topic)
+    {
+        return channels.computeIfAbsent(topic, key -> new LogChannel(key, analysisConfig.getSseBufferSize()));
+    }
+
+    /**
+     * 唤醒有待发合并摘要的订阅者（发布停止后摘要也能按周期发出）
+     */
+    private void flushSummaries()
+    {
+        for (LogChannel channel : channels.values())
+        {
+            for (LogSubscriber subscriber : channel.getSubscribers())
+            {
+                if (subscriber.isSummaryPending())
+                {
+                    subscriber.signal();
+                }
+            }
+        }
+    }
+
+    /**
+     * 断开发送阻塞的订阅者，清理过期通道
+     */
+    private void sweep()
+    {
+        long now = System.currentTimeMillis();
+        for (LogChannel channel : channels.values())
+        {
+            for (LogSubscriber subscriber : channel.getSubscribers())
+            {
+                if (subscriber.isStalled(now, SEND_TIMEOUT_MILLIS))
+                {
+                    log.warn("订阅者发送阻塞，已断开 - {}", channel.getTopic());
+                    subscriber.close();
+                }
+            }
+            long idle = now - channel.getLastActiveTime();
+            if (channel.getSubscribers().isEmpty()
+                    && (channel.isClosed() ? idle > FINISHED_RETAIN_MILLIS : idle > IDLE_RETAIN_MILLIS))
+            {
+                channels.remove(channel.getTopic(), channel);
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.ruoyi.app.sse;
+
+/**
+ * 日志推送通道的优先级
+ *
+ * @author ruoyi
+ */
+public enum LogLane
+{
+    /** 状态、错误、警告等关键消息：不受限流，总是立即推送 */
+    PRIORITY,
+
+    /** 隐私行为告警：限流时同一类告警在一个统计周期内只推送首条，其余合并计数；订阅者落后时与关键消息一起从独立缓冲补发，
+     *  只有独立缓冲也被覆盖时才会丢失，丢失的条数在跳过提示中给出 */
+    ALERT,
+
+    /** 普通输出（堆栈、调试信息等）：超出推送速率的部分合并为计数摘要 */
+    NORMAL
+}
@@ -0,0 +1,304 @@
+package com.ruoyi.app.sse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 日志订阅者：持有独立的读取位置，由推送线程池异步发送
+ *
+ * 发布方只追加到通道缓冲并唤醒订阅者，从不等待网络写入；
+ * 同一订阅者同时只有一个线程在发送（SseEmitter不支持并发send）。
+ * 推送按优先级限流：关键消息直接发送；告警和普通输出消耗令牌，令牌不足时合并计数，
+ * 每个统计周期以一条摘要（summary事件）告知被合并的数量，速率随客户端接收快慢自适应调整。
+ * 接收过慢被缓冲覆盖时只跳过普通输出，关键消息和告警从通道的独立缓冲补发。
+ *
+ * @author ruoyi
+ */
+public class LogSubscriber
+{
+    private static final Logger log = LoggerFactory.getLogger(LogSubscriber.class);
+
+    /** 单次调度最多发送的事件数，超过后让出线程给其他订阅者 */
+    private static final int MAX_EVENTS_PER_RUN = 256;
+
+    private final LogChannel channel;
+
+    private final SseEmitter emitter;
+
+    private final Executor executor;
+
+    private final int maxOverruns;
+
+    private final TokenBucket bucket;
+
+    private final LogCoalescer coalescer;
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /** 下一个待发送的事件ID */
+    private long cursor;
+
+    /** 下一个待发送的关键消息或告警的序号 */
+    private long prioritySeq;
+
+    /** 连续被缓冲覆盖（接收过慢）的次数，追上发布进度后清零 */
+    private int overruns;
+
+    /** 当前send开始的时间，0表示没有进行中的发送 */
+    private volatile long sendingSince;
+
+    /** 有尚未发出的合并摘要，由定时任务唤醒发送 */
+    private volatile boolean summaryPending;
+
+    private volatile boolean closed;
+
+    public LogSubscriber(LogChannel channel, SseEmitter emitter, Executor executor, long cursor, int maxOverruns,
+            TokenBucket bucket, LogCoalescer coalescer)
+    {
+        this.channel = channel;
+        this.emitter = emitter;
+        this.executor = executor;
+        this.cursor = cursor;
+        this.prioritySeq = channel.prioritySeqAt(cursor);
+        this.maxOverruns = maxOverruns;
+        this.bucket = bucket;
+        this.coalescer = coalescer;
+    }
+
+    /**
+     * 有新事件时唤醒，已在发送中则由发送线程继续处理
+     */
+    public void signal()
+    {
+        if (!closed && scheduled.compareAndSet(false, true))
+        {
+            try
+            {
+                executor.execute(this::drain);
+            }
+            catch (RejectedExecutionException e)
+            {
+                scheduled.set(false);
+            }
+        }
+    }
+
+    private void drain()
+    {
+        try
+        {
+            List<LogChannel.LogEvent> batch = new ArrayList<>();
+            int sent = 0;
+            while (!closed && sent < MAX_EVENTS_PER_RUN)
+            {
+                long oldest = channel.oldestId();
+                if (cursor < oldest)
+                {
+                    skip(oldest);
+                    continue;
+                }
+                batch.clear();
+                channel.read(cursor, batch, MAX_EVENTS_PER_RUN - sent);
+                if (batch.isEmpty())
+                {
+                    // 已追上发布进度
+                    overruns = 0;
+                    if (channel.isFinishedAt(cursor))
+                    {
+                        close();
+                    }
+                    break;
+                }
+                for (LogChannel.LogEvent event : batch)
+                {
+                    dispatch(event);
+                    cursor = event.getId() + 1;
+                }
+                sent += batch.size();
+            }
+            if (!closed)
+            {
+                flushSummary(false);
+            }
+        }
+        catch (Exception e)
+        {
+            // 客户端已断开
+            log.debug("推送日志失败，移除订阅者 - {}: {}", channel.getTopic(), e.getMessage());
+            close();
+        }
+        finally
+        {
+            scheduled.set(false);
+        }
+        // 发送期间有新事件到达或未发完时重新调度
+        if (!closed && (cursor < channel.getNextId() || channel.isFinishedAt(cursor)))
+        {
+            signal();
+        }
+    }
+
+    /**
+     * 按优先级发送或合并一个事件
+     */
+    private void dispatch(LogChannel.LogEvent event) throws Exception
+    {
+        if (event.getSeq() >= 0)
+        {
+            prioritySeq = event.getSeq() + 1;
+        }
+        switch (event.getLane())
+        {
+            case ALERT:
+                // 每类告警在统计周期内至少推送一条
+                boolean first = coalescer.markSeen(event.getKey());
+                if (bucket.tryAcquire() || first)
+                {
+                    send(event);
+                }
+                else
+                {
+                    coalescer.add(event.getKey());
+                }
+                break;
+            case NORMAL:
+                if (bucket.tryAcquire())
+                {
+                    send(event);
+                }
+                else
+                {
+                    coalescer.add(event.getKey());
+                }
+                break;
+            default:
+                if (event.isFinish())
+                {
+                    // 结束前发出剩余的摘要
+                    flushSummary(true);
+                }
+                send(event);
+                break;
+        }
+    }
+
+    /**
+     * 统计周期结束（或force）时发送合并摘要
+     */
+    private void flushSummary(boolean force) throws Exception
+    {
+        long now = System.currentTimeMillis();
+        if (force || coalescer.isDue(now))
+        {
+            String summary = coalescer.drain(now);
+            if (summary != null)
+            {
+                Map<String, Object> data = new HashMap<>();
+                data.put("message", summary);
+                data.put("level", "info");
+                send(SseEmitter.event().name("summary").data(data));
+            }
+        }
+        else
+        {
+            coalescer.roll(now);
+        }
+        summaryPending = !coalescer.isEmpty();
+    }
+
+    /**
+     * 是否有等待发送的合并摘要
+     */
+    public boolean isSummaryPending()
+    {
+        return summaryPending && !closed;
+    }
+
+    /**
+     * 落后超过缓冲长度：跳到最早的事件并提示，其间的关键消息和告警照常补发（告警仍按限流合并），
+     * 多次发生则断开该订阅者
+     */
+    private void skip(long oldest) throws Exception
+    {
+        List<LogChannel.LogEvent> kept = new ArrayList<>();
+        long lost = channel.readPriority(prioritySeq, oldest, kept);
+        long skipped = oldest - cursor - kept.size();
+        cursor = oldest;
+        prioritySeq += lost;
+        if (++overruns > maxOverruns)
+        {
+            log.warn("订阅者接收过慢，已断开 - {}", channel.getTopic());
+            close();
+            return;
+        }
+        send(SseEmitter.event().name("log").data("⚠️ 日志接收过慢，已跳过" + skipped + "条"
+                + (lost > 0 ? "（其中关键消息和告警" + lost + "条）" : "")));
+        for (LogChannel.LogEvent event : kept)
+        {
+            dispatch(event);
+        }
+    }
+
+    private void send(LogChannel.LogEvent event) throws Exception
+    {
+        send(SseEmitter.event().id(String.valueOf(event.getId())).name(event.getName()).data(event.getData()));
+    }
+
+    private void send(SseEmitter.SseEventBuilder event) throws Exception
+    {
+        long start = System.currentTimeMillis();
+        sendingSince = start;
+        try
+        {
+            emitter.send(event);
+        }
+        finally
+        {
+            sendingSince = 0;
+        }
+        bucket.onSend(System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 发送是否已阻塞超过timeoutMillis
+     */
+    public boolean isStalled(long now, long timeoutMillis)
+    {
+        long since = sendingSince;
+        return since > 0 && now - since > timeoutMillis;
+    }
+
+    /**
+     * 结束订阅并从通道移除
+     */
+    public void close()
+    {
+        if (closed)
+        {
+            return;
+        }
+        closed = true;
+        channel.removeSubscriber(this);
+        try
+        {
+            emitter.complete();
+        }
+        catch (Exception e)
+        {
+            log.debug("关闭SSE失败 - {}: {}", channel.getTopic(), e.getMessage());
+        }
+    }
+
+    public boolean isClosed()
+    {
+        return closed;
+    }
+}
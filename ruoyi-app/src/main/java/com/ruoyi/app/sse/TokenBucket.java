@@ -0,0 +1,80 @@
+package com.ruoyi.app.sse;
+
+/**
+ * 自适应令牌桶
+ *
+ * 按当前速率补充令牌，最多积累burst个；速率随客户端的接收情况调整：
+ * 单次发送耗时超过阈值时减半（客户端或网络跟不上），发送顺畅时逐步恢复到上限。
+ * 非线程安全，由订阅者的发送线程独占使用。
+ *
+ * @author ruoyi
+ */
+public class TokenBucket
+{
+    /** 单次发送超过该耗时（毫秒）视为客户端接收变慢 */
+    private static final long SLOW_SEND_MILLIS = 200;
+
+    /** 速率下限（条/秒） */
+    private static final double MIN_RATE = 1;
+
+    private final double maxRate;
+
+    private final double burst;
+
+    /** 当前速率（条/秒） */
+    private double rate;
+
+    private double tokens;
+
+    private long lastRefill;
+
+    /**
+     * @param maxRate 最大速率（条/秒）
+     * @param burst 最多积累的令牌数
+     */
+    public TokenBucket(double maxRate, double burst)
+    {
+        this.maxRate = Math.max(MIN_RATE, maxRate);
+        this.burst = Math.max(1, burst);
+        this.rate = this.maxRate;
+        this.tokens = this.burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * 尝试取一个令牌
+     */
+    public boolean tryAcquire()
+    {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefill) / 1e9 * rate);
+        lastRefill = now;
+        if (tokens >= 1)
+        {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 反馈一次发送的耗时，调整速率
+     */
+    public void onSend(long elapsedMillis)
+    {
+        if (elapsedMillis > SLOW_SEND_MILLIS)
+        {
+            rate = Math.max(MIN_RATE, rate / 2);
+            tokens = Math.min(tokens, 0);
+        }
+        else if (rate < maxRate)
+        {
+            rate = Math.min(maxRate, rate + 1);
+        }
+    }
+
+    public double getRate()
+    {
+        return rate;
+    }
+}
@@ -0,0 +1,244 @@
+package com.ruoyi.app.ssh;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.jcraft.jsch.ChannelExec;
+
+/**
+ * 远程进程句柄
+ *
+ * 启动命令用{@link #wrap(String)}包装后，进程在独立的进程组中运行，启动时输出一行进程号标记，
+ * 由输出处理方交给{@link #accept(String)}登记。停止时只向这个进程组发送信号（SIGTERM，宽限期后SIGKILL），
+ * 等到进程退出（通道输出结束）立即返回，不影响同一宿主机或容器中的其他任务。
+ * 进程可以运行在宿主机上，也可以运行在容器中（进程号属于容器的PID命名空间，信号通过docker exec发送）；
+ * 宿主机上的脚本再启动容器内的子进程时，子进程用嵌套标记登记，停止时先通知子进程，由脚本正常收尾。
+ *
+ * @author ruoyi
+ */
+public class RemoteProcess
+{
+    private static final Logger log = LoggerFactory.getLogger(RemoteProcess.class);
+
+    /** 标记行的公共前缀，输出处理方可据此快速跳过普通行 */
+    public static final String MARKER_PREFIX = "__";
+
+    /** 进程号标记 */
+    public static final String PID_MARKER = "__PID__:";
+
+    /** 嵌套（容器内）子进程的进程号标记，由动态分析脚本输出 */
+    public static final String NESTED_PID_MARKER = "__FRIDA_PID__:";
+
+    /** 等待进程号标记的最长时间（毫秒） */
+    private static final long PID_WAIT_MILLIS = 3000;
+
+    /** SIGKILL之后等待退出的时间（毫秒） */
+    private static final long KILL_WAIT_MILLIS = 3000;
+
+    /** 发送信号的超时时间（毫秒） */
+    private static final long SIGNAL_TIMEOUT_MILLIS = 10000;
+
+    private final String taskId;
+
+    private final String host;
+
+    /** 进程所在容器，为空时在宿主机上 */
+    private final String container;
+
+    /** 嵌套子进程所在容器 */
+    private final String nestedContainer;
+
+    private final ChannelExec channel;
+
+    private final CompletableFuture<Integer> exit;
+
+    private final CompletableFuture<Integer> pid = new CompletableFuture<>();
+
+    private volatile int nestedPid;
+
+    /**
+     * @param taskId 任务ID，仅用于日志
+     * @param host 宿主机，为空时使用默认宿主机
+     * @param container 进程所在容器，为空时在宿主机上
+     * @param nestedContainer 嵌套子进程所在容器，没有时为空
+     * @param channel 启动进程的exec通道
+     * @param exit 进程退出信号（输出泵返回）
+     */
+    public RemoteProcess(String taskId, String host, String container, String nestedContainer, ChannelExec channel,
+            CompletableFuture<Integer> exit)
+    {
+        this.taskId = taskId;
+        this.host = host;
+        this.container = container;
+        this.nestedContainer = nestedContainer;
+        this.channel = channel;
+        this.exit = exit;
+    }
+
+    /**
+     * 包装启动命令：开启作业控制，使命令在独立进程组中后台运行，输出进程号后等待其结束（保留退出码）
+     *
+     * @param command 原命令
+     * @param escape 命令是否位于外层shell的双引号中（此时$需要转义）
+     */
+    public static String wrap(String command, boolean escape)
+    {
+        String last = escape ? "\\$!" : "$!";
+        return "set -m; " + command + " & echo " + PID_MARKER + last + "; wait " + last;
+    }
+
+    /**
+     * 登记标记行
+     *
+     * @return 是标记行时返回true，调用方不应再转发该行
+     */
+    public boolean accept(String line)
+    {
+        if (!line.startsWith(MARKER_PREFIX))
+        {
+            return false;
+        }
+        if (line.startsWith(PID_MARKER))
+        {
+            pid.complete(parsePid(line.substring(PID_MARKER.length())));
+            return true;
+        }
+        if (line.startsWith(NESTED_PID_MARKER))
+        {
+            nestedPid = parsePid(line.substring(NESTED_PID_MARKER.length()));
+            return true;
+        }
+        return false;
+    }
+
+    public boolean isAlive()
+    {
+        return !exit.isDone();
+    }
+
+    /**
+     * 停止进程：先SIGTERM（有嵌套子进程时只通知子进程），宽限期内未退出再SIGKILL整个进程组
+     *
+     * @param sessionManager 会话池，信号通过进程所在宿主机的常驻会话发送
+     * @param graceMillis 宽限期（毫秒）
+     * @return 进程是否已退出
+     */
+    public boolean stop(SshSessionManager sessionManager, long graceMillis) throws Exception
+    {
+        if (!isAlive())
+        {
+            return true;
+        }
+        int mainPid = awaitPid();
+        int nested = nestedPid;
+        if (nested > 0 && nestedContainer != null)
+        {
+            signal(sessionManager, nestedContainer, nested, "TERM");
+        }
+        else if (mainPid > 0)
+        {
+            signal(sessionManager, container, mainPid, "TERM");
+        }
+        if (awaitExit(graceMillis))
+        {
+            return true;
+        }
+        log.warn("[{}] 进程未在{}毫秒内退出，强制结束", taskId, graceMillis);
+        if (nested > 0 && nestedContainer != null)
+        {
+            signal(sessionManager, nestedContainer, nested, "KILL");
+        }
+        if (mainPid > 0)
+        {
+            signal(sessionManager, container, mainPid, "KILL");
+        }
+        boolean exited = awaitExit(KILL_WAIT_MILLIS);
+        if (!exited && channel.isConnected())
+        {
+            // 进程号未知或信号无效时断开通道，输出结束后由输出泵回调收尾
+            channel.disconnect();
+        }
+        return exited;
+    }
+
+    /**
+     * 强制停止（任务失去设备租约时）：与{@link #stop}相同，发送信号失败时也断开通道，
+     * 输出结束后由输出泵回调收尾并归还通道
+     *
+     * @param sessionManager 会话池
+     * @param graceMillis 宽限期（毫秒）
+     */
+    public void terminate(SshSessionManager sessionManager, long graceMillis)
+    {
+        try
+        {
+            stop(sessionManager, graceMillis);
+        }
+        catch (Exception e)
+        {
+            log.warn("[{}] 停止进程失败，断开通道: {}", taskId, e.getMessage());
+            if (channel.isConnected())
+            {
+                channel.disconnect();
+            }
+        }
+    }
+
+    private int awaitPid()
+    {
+        try
+        {
+            return pid.get(PID_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        catch (TimeoutException e)
+        {
+            log.warn("[{}] 未收到进程号标记，无法按进程组停止", taskId);
+            return 0;
+        }
+        catch (Exception e)
+        {
+            return 0;
+        }
+    }
+
+    private boolean awaitExit(long millis)
+    {
+        try
+        {
+            exit.get(millis, TimeUnit.MILLISECONDS);
+            return true;
+        }
+        catch (TimeoutException e)
+        {
+            return false;
+        }
+        catch (Exception e)
+        {
+            // 输出异常结束也视为已退出
+            return true;
+        }
+    }
+
+    private void signal(SshSessionManager sessionManager, String target, int processGroup, String signal) throws Exception
+    {
+        String kill = "kill -" + signal + " -- -" + processGroup;
+        String command = target == null ? kill : "docker exec -u 0 " + target + " " + kill;
+        SshExecResult result = sessionManager.exec(host, command, SIGNAL_TIMEOUT_MILLIS);
+        log.info("[{}] 发送SIG{}到进程组{}{}: {}", taskId, signal, processGroup,
+                target == null ? "" : "（容器" + target + "）", result.isSuccess() ? "成功" : result.getMessage());
+    }
+
+    private static int parsePid(String value)
+    {
+        try
+        {
+            return Integer.parseInt(value.trim());
+        }
+        catch (NumberFormatException e)
+        {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.ruoyi.app.ssh;
+
+/**
+ * 远程命令执行结果
+ *
+ * @author ruoyi
+ */
+public class SshExecResult
+{
+    /** 退出码（通道未正常关闭时为-1） */
+    private final int exitStatus;
+
+    /** 标准输出（已按UTF-8解码） */
+    private final String output;
+
+    /** 错误输出（已按UTF-8解码） */
+    private final String error;
+
+    public SshExecResult(int exitStatus, String output)
+    {
+        this(exitStatus, output, "");
+    }
+
+    public SshExecResult(int exitStatus, String output, String error)
+    {
+        this.exitStatus = exitStatus;
+        this.output = output;
+        this.error = error;
+    }
+
+    public int getExitStatus()
+    {
+        return exitStatus;
+    }
+
+    public String getOutput()
+    {
+        return output;
+    }
+
+    public String getError()
+    {
+        return error;
+    }
+
+    /**
+     * 用于提示的输出：有错误输出时取错误输出，否则取标准输出
+     */
+    public String getMessage()
+    {
+        return error != null && !error.trim().isEmpty() ? error : output;
+    }
+
+    public boolean isSuccess()
+    {
+        return exitStatus == 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SshExecResult{exitStatus=" + exitStatus + ", output='" + output + "', error='" + error + "'}";
+    }
+}
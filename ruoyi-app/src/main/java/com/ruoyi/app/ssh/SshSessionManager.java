@@ -0,0 +1,250 @@
+package com.ruoyi.app.ssh;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSchException;
+import com.ruoyi.app.config.SftpConfig;
+import com.ruoyi.app.pump.OutputPump;
+import com.ruoyi.common.utils.StringUtils;
+
+/**
+ * SSH会话管理器
+ *
+ * 分析任务的启动、停止、报告下载和APK上传统一从这里借用通道，
+ * 共享常驻会话而不是每次操作都重新完成密钥交换和认证。
+ * 模拟器容器分布在多台宿主机上时，每台宿主机一个会话池（账号与端口沿用sftp配置），
+ * 未指定宿主机的操作使用sftp.host。
+ *
+ * @author ruoyi
+ */
+@Component
+public class SshSessionManager
+{
+    private static final Logger log = LoggerFactory.getLogger(SshSessionManager.class);
+
+    /** 命令超时断开通道后等待输出收尾的时间（毫秒） */
+    private static final long DISCONNECT_WAIT_MILLIS = 5000;
+
+    @Autowired
+    private SftpConfig sftpConfig;
+
+    @Autowired
+    private OutputPump outputPump;
+
+    @Autowired
+    private ScheduledExecutorService scheduledExecutorService;
+
+    /** 默认宿主机（sftp.host）的会话池 */
+    private SshSessionPool pool;
+
+    /** 宿主机 -> 会话池 */
+    private final Map<String, SshSessionPool> pools = new ConcurrentHashMap<>();
+
+    private ScheduledFuture<?> keepAliveTask;
+
+    @PostConstruct
+    public void init()
+    {
+        pool = new SshSessionPool(sftpConfig.getHost(), sftpConfig.getPort(),
+                sftpConfig.getUsername(), sftpConfig.getPassword(), sftpConfig);
+        pools.put(sftpConfig.getHost(), pool);
+        long interval = Math.max(1000, sftpConfig.getKeepAliveInterval());
+        // 首次巡检即预热常驻会话，放到后台执行，避免服务器不可达时拖慢应用启动
+        keepAliveTask = scheduledExecutorService.scheduleWithFixedDelay(this::maintain, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        if (keepAliveTask != null)
+        {
+            keepAliveTask.cancel(false);
+        }
+        for (SshSessionPool p : pools.values())
+        {
+            p.close();
+        }
+    }
+
+    private void maintain()
+    {
+        for (SshSessionPool p : pools.values())
+        {
+            try
+            {
+                p.maintain();
+            }
+            catch (Exception e)
+            {
+                log.warn("SSH会话池巡检失败 - {}: {}", p.getHost(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 宿主机对应的会话池，首次使用时创建
+     */
+    private SshSessionPool poolOf(String host)
+    {
+        if (StringUtils.isEmpty(host))
+        {
+            return pool;
+        }
+        return pools.computeIfAbsent(host, h -> new SshSessionPool(h, sftpConfig.getPort(),
+                sftpConfig.getUsername(), sftpConfig.getPassword(), sftpConfig));
+    }
+
+    /**
+     * 打开exec通道（未连接）
+     *
+     * @param command 远程命令
+     * @return exec通道，使用完毕后必须调用{@link #release(Channel)}
+     */
+    public ChannelExec openExec(String command) throws JSchException
+    {
+        return pool.openExec(command);
+    }
+
+    /**
+     * 在指定宿主机上打开exec通道（未连接）
+     *
+     * @param host 宿主机，为空时使用默认宿主机
+     * @param command 远程命令
+     * @return exec通道，使用完毕后必须调用{@link #release(Channel)}
+     */
+    public ChannelExec openExec(String host, String command) throws JSchException
+    {
+        return poolOf(host).openExec(command);
+    }
+
+    /**
+     * 打开并连接sftp通道
+     *
+     * @return sftp通道，使用完毕后必须调用{@link #release(Channel)}
+     */
+    public ChannelSftp openSftp() throws JSchException
+    {
+        return pool.openSftp();
+    }
+
+    /**
+     * 在指定宿主机上打开并连接sftp通道
+     *
+     * @param host 宿主机，为空时使用默认宿主机
+     * @return sftp通道，使用完毕后必须调用{@link #release(Channel)}
+     */
+    public ChannelSftp openSftp(String host) throws JSchException
+    {
+        return poolOf(host).openSftp();
+    }
+
+    /**
+     * 归还通道
+     */
+    public void release(Channel channel)
+    {
+        for (SshSessionPool p : pools.values())
+        {
+            if (p.owns(channel))
+            {
+                p.release(channel);
+                return;
+            }
+        }
+        pool.release(channel);
+    }
+
+    /**
+     * 执行远程命令并等待结束
+     *
+     * @param command 远程命令
+     * @param timeoutMillis 超时时间，超时后强制断开通道
+     * @return 执行结果
+     */
+    public SshExecResult exec(String command, long timeoutMillis) throws Exception
+    {
+        return exec(null, command, timeoutMillis);
+    }
+
+    /**
+     * 在指定宿主机上执行远程命令并等待结束，标准输出和错误输出分别收集
+     *
+     * 输出由输出泵按行收集，调用方只在退出信号上等待，不轮询通道状态。
+     *
+     * @param host 宿主机，为空时使用默认宿主机
+     * @param command 远程命令
+     * @param timeoutMillis 超时时间，超时后强制断开通道
+     * @return 执行结果
+     */
+    public SshExecResult exec(String host, String command, long timeoutMillis) throws Exception
+    {
+        SshSessionPool target = poolOf(host);
+        ChannelExec channel = target.openExec(command);
+        try
+        {
+            // 两路输出的回调各自由泵线程串行调用，退出信号完成后才读取
+            StringBuilder out = new StringBuilder();
+            StringBuilder err = new StringBuilder();
+            CompletableFuture<Integer> exit = outputPump.attach(channel, line -> out.append(line).append('\n'),
+                    line -> err.append(line).append('\n'));
+            channel.connect(sftpConfig.getConnectTimeout());
+            int exitStatus;
+            try
+            {
+                exitStatus = exit.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+            catch (TimeoutException e)
+            {
+                log.warn("远程命令执行超时，强制断开: {}", command);
+                channel.disconnect();
+                try
+                {
+                    exit.get(DISCONNECT_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                catch (TimeoutException ignored)
+                {
+                    return new SshExecResult(-1, "", "远程命令执行超时");
+                }
+                exitStatus = -1;
+            }
+            return new SshExecResult(exitStatus, out.toString(), err.toString());
+        }
+        finally
+        {
+            target.release(channel);
+        }
+    }
+
+    /**
+     * 会话池监控指标（借用耗时、活跃通道数、重连次数等）
+     */
+    public Map<String, Object> getMetrics()
+    {
+        Map<String, Object> metrics = pool.getMetrics();
+        if (pools.size() > 1)
+        {
+            Map<String, Object> hosts = new LinkedHashMap<>();
+            for (SshSessionPool p : pools.values())
+            {
+                hosts.put(p.getHost(), p.getMetrics());
+            }
+            metrics.put("hosts", hosts);
+        }
+        return metrics;
+    }
+}
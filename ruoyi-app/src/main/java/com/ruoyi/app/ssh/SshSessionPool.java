@@ -0,0 +1,442 @@
+package com.ruoyi.app.ssh;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import com.ruoyi.app.config.SftpConfig;
+
+/**
+ * 单个SSH目标主机的会话池
+ *
+ * 池内会话保持长连接（服务端保活），每个会话上复用多个exec/sftp通道；
+ * 借出通道时优先选择通道数最少的存活会话，全部占满且未达上限时才新建会话。
+ *
+ * @author ruoyi
+ */
+public class SshSessionPool
+{
+    private static final Logger log = LoggerFactory.getLogger(SshSessionPool.class);
+
+    private final String host;
+    private final int port;
+    private final String username;
+    private final String password;
+    private final SftpConfig settings;
+
+    private final JSch jsch = new JSch();
+
+    /** 池内会话，读写均在lock内 */
+    private final List<PooledSession> sessions = new ArrayList<>();
+
+    /** 通道 -> 所属会话 */
+    private final Map<Channel, PooledSession> owners = new ConcurrentHashMap<>();
+
+    private final Object lock = new Object();
+
+    /** 正在建立中的会话数 */
+    private int connecting;
+
+    /** 已失效、等待补建的会话数 */
+    private int pendingReconnects;
+
+    private volatile boolean closed;
+
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowNanos = new LongAdder();
+    private final AtomicLong maxBorrowNanos = new AtomicLong();
+    private final AtomicLong borrowTimeouts = new AtomicLong();
+    private final AtomicInteger activeChannels = new AtomicInteger();
+    private final AtomicLong sessionsCreated = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+
+    public SshSessionPool(String host, int port, String username, String password, SftpConfig settings)
+    {
+        this.host = host;
+        this.port = port;
+        this.username = username;
+        this.password = password;
+        this.settings = settings;
+    }
+
+    /**
+     * 打开exec通道（未连接，调用方设置流后自行connect）
+     *
+     * @param command 远程命令
+     * @return exec通道，使用完毕后必须调用{@link #release(Channel)}
+     */
+    public ChannelExec openExec(String command) throws JSchException
+    {
+        ChannelExec channel = (ChannelExec) borrow("exec");
+        channel.setCommand(command);
+        return channel;
+    }
+
+    /**
+     * 打开并连接sftp通道
+     *
+     * @return sftp通道，使用完毕后必须调用{@link #release(Channel)}
+     */
+    public ChannelSftp openSftp() throws JSchException
+    {
+        ChannelSftp channel = (ChannelSftp) borrow("sftp");
+        try
+        {
+            channel.connect(settings.getConnectTimeout());
+        }
+        catch (JSchException e)
+        {
+            release(channel);
+            throw e;
+        }
+        return channel;
+    }
+
+    /**
+     * 归还通道：断开通道本身，会话保留在池内
+     */
+    public void release(Channel channel)
+    {
+        if (channel == null)
+        {
+            return;
+        }
+        PooledSession owner = owners.remove(channel);
+        if (channel.isConnected())
+        {
+            channel.disconnect();
+        }
+        if (owner == null)
+        {
+            return;
+        }
+        activeChannels.decrementAndGet();
+        synchronized (lock)
+        {
+            owner.channels--;
+            if (!owner.isAlive() && owner.channels == 0)
+            {
+                discard(owner);
+            }
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * 通道是否从本池借出
+     */
+    public boolean owns(Channel channel)
+    {
+        return channel != null && owners.containsKey(channel);
+    }
+
+    private Channel borrow(String type) throws JSchException
+    {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(settings.getBorrowTimeout());
+        PooledSession target = null;
+        boolean create = false;
+        synchronized (lock)
+        {
+            while (target == null && !create)
+            {
+                if (closed)
+                {
+                    throw new JSchException("SSH会话池已关闭");
+                }
+                target = leastLoaded();
+                if (target != null)
+                {
+                    target.channels++;
+                }
+                else if (sessions.size() + connecting < settings.getPoolMaxSessions())
+                {
+                    connecting++;
+                    create = true;
+                }
+                else
+                {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0)
+                    {
+                        borrowTimeouts.incrementAndGet();
+                        throw new JSchException("获取SSH通道超时，当前活跃通道数: " + activeChannels.get());
+                    }
+                    try
+                    {
+                        TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                        throw new JSchException("获取SSH通道被中断");
+                    }
+                }
+            }
+        }
+        if (create)
+        {
+            target = connectNew(1);
+        }
+        recordBorrow(System.nanoTime() - start);
+
+        try
+        {
+            Channel channel = target.session.openChannel(type);
+            owners.put(channel, target);
+            activeChannels.incrementAndGet();
+            return channel;
+        }
+        catch (JSchException e)
+        {
+            synchronized (lock)
+            {
+                target.channels--;
+                if (!target.isAlive() && target.channels == 0)
+                {
+                    discard(target);
+                }
+                lock.notifyAll();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 选出通道数最少且未占满的存活会话，顺带清理已失效的空闲会话
+     */
+    private PooledSession leastLoaded()
+    {
+        PooledSession best = null;
+        Iterator<PooledSession> it = sessions.iterator();
+        while (it.hasNext())
+        {
+            PooledSession s = it.next();
+            if (!s.isAlive())
+            {
+                if (s.channels == 0)
+                {
+                    it.remove();
+                    pendingReconnects++;
+                    log.warn("SSH会话已失效，移出会话池 - {}:{}", host, port);
+                }
+                continue;
+            }
+            if (s.channels < settings.getMaxChannelsPerSession() && (best == null || s.channels < best.channels))
+            {
+                best = s;
+            }
+        }
+        return best;
+    }
+
+    private void discard(PooledSession s)
+    {
+        if (sessions.remove(s))
+        {
+            pendingReconnects++;
+            log.warn("SSH会话已失效，移出会话池 - {}:{}", host, port);
+        }
+        if (s.session.isConnected())
+        {
+            s.session.disconnect();
+        }
+    }
+
+    /**
+     * 新建会话（在锁外完成握手，避免阻塞其他借用者）
+     */
+    private PooledSession connectNew(int initialChannels) throws JSchException
+    {
+        Session session = null;
+        try
+        {
+            session = jsch.getSession(username, host, port);
+            session.setPassword(password);
+            session.setConfig("StrictHostKeyChecking", "no");
+            session.setServerAliveInterval(settings.getKeepAliveInterval());
+            session.setServerAliveCountMax(settings.getKeepAliveCountMax());
+            session.connect(settings.getConnectTimeout());
+        }
+        catch (JSchException e)
+        {
+            synchronized (lock)
+            {
+                connecting--;
+                lock.notifyAll();
+            }
+            log.error("SSH连接失败 - {}:{}, {}", host, port, e.getMessage());
+            throw e;
+        }
+        sessionsCreated.incrementAndGet();
+        PooledSession pooled = new PooledSession(session);
+        pooled.channels = initialChannels;
+        synchronized (lock)
+        {
+            connecting--;
+            if (pendingReconnects > 0)
+            {
+                pendingReconnects--;
+                reconnects.incrementAndGet();
+            }
+            if (closed)
+            {
+                session.disconnect();
+                lock.notifyAll();
+                throw new JSchException("SSH会话池已关闭");
+            }
+            sessions.add(pooled);
+            lock.notifyAll();
+        }
+        log.info("SSH会话已建立 - {}:{}，池内会话数: {}", host, port, sessions.size());
+        return pooled;
+    }
+
+    /**
+     * 保活巡检：清理失效会话，并补足常驻会话
+     */
+    public void maintain()
+    {
+        int missing;
+        synchronized (lock)
+        {
+            if (closed)
+            {
+                return;
+            }
+            leastLoaded();
+            missing = Math.min(settings.getPoolMinIdle(), settings.getPoolMaxSessions()) - sessions.size() - connecting;
+            if (missing > 0)
+            {
+                connecting += missing;
+            }
+        }
+        for (int i = 0; i < missing; i++)
+        {
+            try
+            {
+                connectNew(0);
+            }
+            catch (JSchException e)
+            {
+                // 连接失败已在connectNew中记录，剩余名额一并归还
+                synchronized (lock)
+                {
+                    connecting -= missing - i - 1;
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * 关闭会话池
+     */
+    public void close()
+    {
+        synchronized (lock)
+        {
+            closed = true;
+            for (PooledSession s : sessions)
+            {
+                s.session.disconnect();
+            }
+            sessions.clear();
+            lock.notifyAll();
+        }
+        owners.clear();
+    }
+
+    private void recordBorrow(long nanos)
+    {
+        borrowCount.increment();
+        borrowNanos.add(nanos);
+        long max;
+        while (nanos > (max = maxBorrowNanos.get()) && !maxBorrowNanos.compareAndSet(max, nanos))
+        {
+            // 自旋更新最大值
+        }
+    }
+
+    /**
+     * 会话池监控指标
+     */
+    public Map<String, Object> getMetrics()
+    {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        int alive = 0;
+        int total;
+        synchronized (lock)
+        {
+            total = sessions.size();
+            for (PooledSession s : sessions)
+            {
+                if (s.isAlive())
+                {
+                    alive++;
+                }
+            }
+        }
+        long count = borrowCount.sum();
+        metrics.put("target", username + "@" + host + ":" + port);
+        metrics.put("sessions", total);
+        metrics.put("aliveSessions", alive);
+        metrics.put("maxSessions", settings.getPoolMaxSessions());
+        metrics.put("activeChannels", activeChannels.get());
+        metrics.put("borrowCount", count);
+        metrics.put("borrowAvgMillis", count == 0 ? 0D : borrowNanos.sum() / (double) count / 1_000_000D);
+        metrics.put("borrowMaxMillis", maxBorrowNanos.get() / 1_000_000D);
+        metrics.put("borrowTimeouts", borrowTimeouts.get());
+        metrics.put("sessionsCreated", sessionsCreated.get());
+        metrics.put("reconnects", reconnects.get());
+        return metrics;
+    }
+
+    public int getActiveChannels()
+    {
+        return activeChannels.get();
+    }
+
+    public String getHost()
+    {
+        return host;
+    }
+
+    public int getPort()
+    {
+        return port;
+    }
+
+    /**
+     * 池内会话及其已借出的通道数
+     */
+    private static class PooledSession
+    {
+        private final Session session;
+        private int channels;
+
+        PooledSession(Session session)
+        {
+            this.session = session;
+        }
+
+        boolean isAlive()
+        {
+            return session.isConnected();
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.ruoyi.app.stats;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import com.ruoyi.app.domain.PrivacyEvent;
+import com.ruoyi.common.utils.StringUtils;
+
+/**
+ * 单个任务的隐私事件增量统计
+ *
+ * 每个事件到达时更新按行为、行为主体、调用方的计数及首次/最近出现时间，快照只遍历这些分类，
+ * 与事件总数无关，检测过程中可以频繁轮询。
+ * 行为主体为“APP本身”的计为第一方，其余（SDK名称）计为第三方；
+ * 调用方取堆栈中第一个非系统框架的方法。调用方数量超过上限后新的调用方合并计入“其他”。
+ *
+ * @author ruoyi
+ */
+public class PrivacyAggregator implements Consumer<PrivacyEvent>
+{
+    /** 检测脚本标记的第一方行为主体 */
+    public static final String FIRST_PARTY = "APP本身";
+
+    /** 分类数量超出上限后合并到的名称 */
+    private static final String OTHER = "其他";
+
+    /** 未知行为/主体/调用方 */
+    private static final String UNKNOWN = "未知";
+
+    /** 单个维度最多保留的分类数 */
+    private static final int MAX_CATEGORIES = 1000;
+
+    /** 快照中返回的调用方数量 */
+    private static final int TOP_CALLERS = 20;
+
+    /** 系统框架前缀，调用方跳过这些帧 */
+    private static final String[] FRAMEWORK_PREFIXES = { "java.", "javax.", "android.", "androidx.", "dalvik.",
+        "com.android.", "kotlin.", "kotlinx.", "libcore.", "sun.", "org.apache.harmony.", "org.json." };
+
+    private final String taskId;
+
+    private final Map<String, Counter> actions = new HashMap<>();
+
+    private final Map<String, Counter> subjects = new HashMap<>();
+
+    private final Map<String, Counter> callers = new HashMap<>();
+
+    private final Counter total = new Counter(null);
+
+    private volatile boolean finished;
+
+    public PrivacyAggregator(String taskId)
+    {
+        this.taskId = taskId;
+    }
+
+    @Override
+    public void accept(PrivacyEvent event)
+    {
+        record(event, System.currentTimeMillis());
+    }
+
+    /**
+     * 计入一个事件
+     *
+     * @param event 隐私事件
+     * @param now 事件时间（毫秒），重放已落盘的事件时取日志时间
+     */
+    public synchronized void record(PrivacyEvent event, long now)
+    {
+        boolean firstParty = FIRST_PARTY.equals(event.getSubject());
+        total.add(now, firstParty);
+        counter(actions, event.getAction()).add(now, firstParty);
+        counter(subjects, event.getSubject()).add(now, firstParty);
+        counter(callers, callerOf(event.getStack())).add(now, firstParty);
+    }
+
+    public String getTaskId()
+    {
+        return taskId;
+    }
+
+    public long getEventCount()
+    {
+        return total.count;
+    }
+
+    public boolean isFinished()
+    {
+        return finished;
+    }
+
+    void finish()
+    {
+        finished = true;
+    }
+
+    /**
+     * 统计快照：总数、第一方/第三方拆分、按行为和主体的计数（按次数降序）、次数最多的调用方
+     */
+    public synchronized Map<String, Object> snapshot()
+    {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("taskId", taskId);
+        map.put("finished", finished);
+        map.put("total", total.count);
+        map.put("firstParty", total.firstParty);
+        map.put("thirdParty", total.count - total.firstParty);
+        map.put("firstSeen", total.count == 0 ? null : new Date(total.firstSeen));
+        map.put("lastSeen", total.count == 0 ? null : new Date(total.lastSeen));
+        map.put("actions", toList(actions, "action", Integer.MAX_VALUE));
+        map.put("subjects", toList(subjects, "subject", Integer.MAX_VALUE));
+        map.put("topCallers", toList(callers, "caller", TOP_CALLERS));
+        return map;
+    }
+
+    /**
+     * 取调用方：堆栈中第一个非系统框架的帧（去掉"at "前缀和源文件位置）
+     */
+    static String callerOf(String stack)
+    {
+        if (StringUtils.isEmpty(stack))
+        {
+            return null;
+        }
+        int start = 0;
+        int length = stack.length();
+        while (start < length)
+        {
+            int end = stack.indexOf('\n', start);
+            if (end < 0)
+            {
+                end = length;
+            }
+            int from = start;
+            while (from < end && Character.isWhitespace(stack.charAt(from)))
+            {
+                from++;
+            }
+            if (stack.startsWith("at ", from))
+            {
+                from += 3;
+                int to = stack.indexOf('(', from);
+                if (to < 0 || to > end)
+                {
+                    to = end;
+                }
+                if (to > from && !isFramework(stack, from))
+                {
+                    return stack.substring(from, to).trim();
+                }
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
+    /**
+     * 堆栈帧是否属于系统框架
+     *
+     * @param stack 堆栈
+     * @param from 帧的类名起始位置
+     */
+    static boolean isFramework(String stack, int from)
+    {
+        for (String prefix : FRAMEWORK_PREFIXES)
+        {
+            if (stack.startsWith(prefix, from))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Counter counter(Map<String, Counter> map, String name)
+    {
+        String key = StringUtils.isEmpty(name) ? UNKNOWN : name;
+        Counter counter = map.get(key);
+        if (counter == null)
+        {
+            if (map.size() >= MAX_CATEGORIES)
+            {
+                return map.computeIfAbsent(OTHER, Counter::new);
+            }
+            counter = new Counter(key);
+            map.put(key, counter);
+        }
+        return counter;
+    }
+
+    private static List<Map<String, Object>> toList(Map<String, Counter> map, String nameKey, int limit)
+    {
+        List<Counter> counters = new ArrayList<>(map.values());
+        counters.sort((a, b) -> Long.compare(b.count, a.count));
+        List<Map<String, Object>> list = new ArrayList<>(Math.min(limit, counters.size()));
+        for (Counter counter : counters)
+        {
+            if (list.size() >= limit)
+            {
+                break;
+            }
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put(nameKey, counter.name);
+            item.put("count", counter.count);
+            item.put("firstParty", counter.firstParty);
+            item.put("thirdParty", counter.count - counter.firstParty);
+            item.put("firstSeen", new Date(counter.firstSeen));
+            item.put("lastSeen", new Date(counter.lastSeen));
+            list.add(item);
+        }
+        return list;
+    }
+
+    /**
+     * 一个分类的计数
+     */
+    private static class Counter
+    {
+        private final String name;
+
+        private long count;
+
+        private long firstParty;
+
+        private long firstSeen;
+
+        private long lastSeen;
+
+        Counter(String name)
+        {
+            this.name = name;
+        }
+
+        void add(long now, boolean isFirstParty)
+        {
+            if (count++ == 0)
+            {
+                firstSeen = now;
+            }
+            lastSeen = now;
+            if (isFirstParty)
+            {
+                firstParty++;
+            }
+        }
+    }
+}
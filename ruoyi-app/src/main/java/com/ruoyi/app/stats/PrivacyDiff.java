@@ -0,0 +1,241 @@
+package com.ruoyi.app.stats;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.ruoyi.app.domain.PrivacyEvent;
+import com.ruoyi.app.store.PrivacyEventStore;
+import com.ruoyi.common.exception.ServiceException;
+import com.ruoyi.common.utils.StringUtils;
+
+/**
+ * 两次检测之间的隐私行为差异
+ *
+ * 每个事件归一化为行为签名：操作行为 + 行为主体 + 堆栈中前{@value #APP_FRAMES}个非系统框架帧（去掉源文件位置，
+ * 不同版本的行号变化不影响签名）。两个任务各扫描一遍事件，得到签名到次数的哈希表，
+ * 再逐个比较：只在新任务中出现的为新增，只在旧任务中出现的为消失，两边都有但次数不同的为变化。
+ * 耗时与两边的事件数之和成正比。
+ *
+ * @author ruoyi
+ */
+@Component
+public class PrivacyDiff
+{
+    /** 签名中保留的应用帧数 */
+    private static final int APP_FRAMES = 3;
+
+    /** 签名各部分的分隔符 */
+    private static final char SEPARATOR = '\u0001';
+
+    @Autowired
+    private PrivacyEventStore privacyEventStore;
+
+    /**
+     * 比较两个任务的隐私行为
+     *
+     * @param baseTaskId 旧版本的任务ID
+     * @param targetTaskId 新版本的任务ID
+     * @return 新增、消失、次数变化的行为及两边的汇总
+     */
+    public Map<String, Object> diff(String baseTaskId, String targetTaskId) throws IOException
+    {
+        Map<String, Behaviour> base = load(baseTaskId);
+        Map<String, Behaviour> target = load(targetTaskId);
+
+        List<Map<String, Object>> added = new ArrayList<>();
+        List<Map<String, Object>> changed = new ArrayList<>();
+        List<Map<String, Object>> removed = new ArrayList<>();
+        int unchanged = 0;
+        for (Map.Entry<String, Behaviour> entry : target.entrySet())
+        {
+            Behaviour now = entry.getValue();
+            Behaviour before = base.get(entry.getKey());
+            if (before == null)
+            {
+                added.add(now.toMap(now.count, 0));
+            }
+            else if (before.count != now.count)
+            {
+                changed.add(now.toMap(now.count, before.count));
+            }
+            else
+            {
+                unchanged++;
+            }
+        }
+        for (Map.Entry<String, Behaviour> entry : base.entrySet())
+        {
+            if (!target.containsKey(entry.getKey()))
+            {
+                removed.add(entry.getValue().toMap(0, entry.getValue().count));
+            }
+        }
+        added.sort((a, b) -> Long.compare((Long) b.get("count"), (Long) a.get("count")));
+        removed.sort((a, b) -> Long.compare((Long) b.get("baseCount"), (Long) a.get("baseCount")));
+        changed.sort((a, b) -> Long.compare(Math.abs(delta(b)), Math.abs(delta(a))));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("base", summary(baseTaskId, base));
+        result.put("target", summary(targetTaskId, target));
+        result.put("added", added);
+        result.put("removed", removed);
+        result.put("changed", changed);
+        result.put("unchanged", unchanged);
+        return result;
+    }
+
+    /**
+     * 扫描任务的事件，按签名计数
+     */
+    private Map<String, Behaviour> load(String taskId) throws IOException
+    {
+        if (!privacyEventStore.exists(taskId))
+        {
+            throw new ServiceException("未找到任务" + taskId + "的隐私事件");
+        }
+        Map<String, Behaviour> behaviours = new HashMap<>();
+        // 同一堆栈的应用帧只计算一次（堆栈已驻留）
+        Map<Integer, String> framesByStack = new HashMap<>();
+        StringBuilder key = new StringBuilder(256);
+        try (PrivacyEventStore.EventReader reader = privacyEventStore.openReader(taskId))
+        {
+            while (reader.hasNext())
+            {
+                PrivacyEvent event = reader.next();
+                String frames = event.getStackId() > 0
+                        ? framesByStack.computeIfAbsent(event.getStackId(), id -> appFrames(event.getStack()))
+                        : appFrames(event.getStack());
+                key.setLength(0);
+                key.append(StringUtils.nvl(event.getAction(), "")).append(SEPARATOR)
+                        .append(StringUtils.nvl(event.getSubject(), "")).append(SEPARATOR).append(frames);
+                String signature = key.toString();
+                Behaviour behaviour = behaviours.get(signature);
+                if (behaviour == null)
+                {
+                    behaviour = new Behaviour(event, frames);
+                    behaviours.put(signature, behaviour);
+                }
+                behaviour.count++;
+            }
+        }
+        return behaviours;
+    }
+
+    /**
+     * 取堆栈中前几个非系统框架帧（去掉"at "前缀和源文件位置），以换行分隔
+     */
+    static String appFrames(String stack)
+    {
+        if (StringUtils.isEmpty(stack))
+        {
+            return "";
+        }
+        StringBuilder frames = new StringBuilder();
+        int found = 0;
+        int start = 0;
+        int length = stack.length();
+        while (start < length && found < APP_FRAMES)
+        {
+            int end = stack.indexOf('\n', start);
+            if (end < 0)
+            {
+                end = length;
+            }
+            int from = start;
+            while (from < end && Character.isWhitespace(stack.charAt(from)))
+            {
+                from++;
+            }
+            if (stack.startsWith("at ", from))
+            {
+                from += 3;
+            }
+            int to = stack.indexOf('(', from);
+            if (to < 0 || to > end)
+            {
+                to = end;
+            }
+            // 只取带包名的应用帧（系统框架帧和首行的异常类名都属于系统前缀）
+            if (to > from && stack.lastIndexOf('.', to - 1) > from && !PrivacyAggregator.isFramework(stack, from))
+            {
+                if (found > 0)
+                {
+                    frames.append('\n');
+                }
+                frames.append(stack, from, to);
+                found++;
+            }
+            start = end + 1;
+        }
+        return frames.toString().trim();
+    }
+
+    private static Map<String, Object> summary(String taskId, Map<String, Behaviour> behaviours)
+    {
+        long events = 0;
+        for (Behaviour behaviour : behaviours.values())
+        {
+            events += behaviour.count;
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("taskId", taskId);
+        map.put("events", events);
+        map.put("behaviours", behaviours.size());
+        return map;
+    }
+
+    private static long delta(Map<String, Object> item)
+    {
+        return (Long) item.get("count") - (Long) item.get("baseCount");
+    }
+
+    /**
+     * 一种行为（相同签名的事件）
+     */
+    private static class Behaviour
+    {
+        private final String action;
+
+        private final String subject;
+
+        private final String frames;
+
+        /** 第一次出现的事件，作为示例 */
+        private final long firstSeq;
+
+        private final String firstTime;
+
+        private long count;
+
+        Behaviour(PrivacyEvent event, String frames)
+        {
+            this.action = event.getAction();
+            this.subject = event.getSubject();
+            this.frames = frames;
+            this.firstSeq = event.getSeq();
+            this.firstTime = event.getAlertTime();
+        }
+
+        /**
+         * @param count 新任务中的次数
+         * @param baseCount 旧任务中的次数
+         */
+        Map<String, Object> toMap(long count, long baseCount)
+        {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("action", action);
+            map.put("subject", subject);
+            map.put("frames", frames.isEmpty() ? new String[0] : frames.split("\n"));
+            map.put("count", count);
+            map.put("baseCount", baseCount);
+            map.put("firstSeq", firstSeq);
+            map.put("firstTime", firstTime);
+            return map;
+        }
+    }
+}
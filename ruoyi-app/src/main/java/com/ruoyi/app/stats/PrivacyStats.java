@@ -0,0 +1,115 @@
+package com.ruoyi.app.stats;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.ruoyi.app.domain.PrivacyEvent;
+import com.ruoyi.app.store.PrivacyEventStore;
+import com.ruoyi.common.utils.DateUtils;
+
+/**
+ * 各任务的隐私事件实时统计
+ *
+ * 任务开始时创建统计，采集到的事件逐个计入；任务结束后保留一段时间供页面查看，
+ * 过期或服务重启后再次查询时由落盘的事件重放得到。
+ *
+ * @author ruoyi
+ */
+@Component
+public class PrivacyStats
+{
+    private static final Logger log = LoggerFactory.getLogger(PrivacyStats.class);
+
+    /** 任务结束后统计的保留时间（分钟） */
+    private static final long RETAIN_MINUTES = 60;
+
+    @Autowired
+    private PrivacyEventStore privacyEventStore;
+
+    @Autowired
+    private ScheduledExecutorService scheduledExecutorService;
+
+    private final Map<String, PrivacyAggregator> aggregators = new ConcurrentHashMap<>();
+
+    /**
+     * 任务开始：创建新的统计（替换上次执行的统计）
+     */
+    public PrivacyAggregator start(String taskId)
+    {
+        PrivacyAggregator aggregator = new PrivacyAggregator(taskId);
+        aggregators.put(taskId, aggregator);
+        return aggregator;
+    }
+
+    /**
+     * 任务结束：统计保留一段时间后移除
+     */
+    public void finish(PrivacyAggregator aggregator)
+    {
+        aggregator.finish();
+        scheduledExecutorService.schedule(() -> aggregators.remove(aggregator.getTaskId(), aggregator),
+                RETAIN_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * 丢弃已结束任务的统计（事件被改写后），下次查询时重放
+     */
+    public void invalidate(String taskId)
+    {
+        aggregators.computeIfPresent(taskId, (key, aggregator) -> aggregator.isFinished() ? null : aggregator);
+    }
+
+    /**
+     * 统计快照
+     *
+     * @return 任务没有统计也没有落盘事件时返回null
+     */
+    public Map<String, Object> getSnapshot(String taskId)
+    {
+        PrivacyAggregator aggregator = aggregators.get(taskId);
+        if (aggregator == null)
+        {
+            aggregator = replay(taskId);
+        }
+        return aggregator == null ? null : aggregator.snapshot();
+    }
+
+    /**
+     * 由落盘的事件重建已结束任务的统计，首次/最近出现时间取日志时间
+     */
+    private PrivacyAggregator replay(String taskId)
+    {
+        if (!privacyEventStore.exists(taskId))
+        {
+            return null;
+        }
+        PrivacyAggregator aggregator = new PrivacyAggregator(taskId);
+        try (PrivacyEventStore.EventReader reader = privacyEventStore.openReader(taskId))
+        {
+            while (reader.hasNext())
+            {
+                PrivacyEvent event = reader.next();
+                Date time = DateUtils.parseDate(event.getLogTime());
+                aggregator.record(event, time == null ? 0 : time.getTime());
+            }
+        }
+        catch (Exception e)
+        {
+            log.warn("[{}] 重放隐私事件失败: {}", taskId, e.getMessage());
+            return null;
+        }
+        PrivacyAggregator existing = aggregators.putIfAbsent(taskId, aggregator);
+        if (existing != null)
+        {
+            return existing;
+        }
+        finish(aggregator);
+        return aggregator;
+    }
+}
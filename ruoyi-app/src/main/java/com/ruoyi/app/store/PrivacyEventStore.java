@@ -0,0 +1,361 @@
+package com.ruoyi.app.store;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import com.ruoyi.app.domain.PrivacyEvent;
+import com.ruoyi.common.config.RuoYiConfig;
+import com.ruoyi.common.exception.ServiceException;
+import com.ruoyi.common.utils.uuid.IdUtils;
+
+/**
+ * 隐私事件存储
+ *
+ * 每个任务一个JSON Lines文件（{profile}/frida/events/{taskId}.jsonl），
+ * 检测过程中逐条追加（写入缓冲，后台每秒刷新一次，关闭时刷新），生成报告时逐条读出，内存占用与事件总数无关。
+ * 已驻留的堆栈（见{@link com.ruoyi.app.parser.StackTable}）在首次出现时单独写一行定义，
+ * 之后的事件只记录堆栈编号；读取时还原，同一堆栈共用一个字符串。
+ *
+ * @author ruoyi
+ */
+@Component
+public class PrivacyEventStore
+{
+    private static final Logger log = LoggerFactory.getLogger(PrivacyEventStore.class);
+
+    /** 任务ID只允许字母、数字、下划线和中划线，防止路径穿越 */
+    private static final Pattern TASK_ID_PATTERN = Pattern.compile("[A-Za-z0-9_\\-]{1,64}");
+
+    /** 堆栈定义行的前缀：{"stackDef":编号,"stack":"..."} */
+    private static final String STACK_DEF_PREFIX = "{\"stackDef\":";
+
+    /** 刷新间隔（毫秒） */
+    private static final long FLUSH_MILLIS = 1000;
+
+    @Autowired
+    private ScheduledExecutorService scheduledExecutorService;
+
+    /** 检测过程中的写入器 */
+    private final Set<EventWriter> writers = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init()
+    {
+        scheduledExecutorService.scheduleWithFixedDelay(this::flushAll, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        flushAll();
+    }
+
+    /**
+     * 打开任务的事件写入器，已有的事件文件会被清空（任务重新执行）
+     */
+    public EventWriter openWriter(String taskId) throws IOException
+    {
+        File file = getFile(taskId);
+        file.getParentFile().mkdirs();
+        EventWriter writer = new EventWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), writers);
+        writers.add(writer);
+        return writer;
+    }
+
+    /**
+     * 打开任务的事件读取器，使用后须关闭
+     */
+    public EventReader openReader(String taskId) throws IOException
+    {
+        return new EventReader(Files.newBufferedReader(getFile(taskId).toPath(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 逐条改写任务的事件（写入临时文件后替换原文件），不能在任务采集过程中调用
+     *
+     * @param taskId 任务ID
+     * @param mapper 改写函数，返回null时删除该事件
+     * @return 改写后的事件数
+     */
+    public long rewrite(String taskId, UnaryOperator<PrivacyEvent> mapper) throws IOException
+    {
+        File file = getFile(taskId);
+        File temp = new File(file.getParentFile(), taskId + "." + IdUtils.fastSimpleUUID() + ".tmp");
+        long count = 0;
+        try
+        {
+            try (EventReader reader = openReader(taskId);
+                    EventWriter writer = new EventWriter(Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8), null))
+            {
+                while (reader.hasNext())
+                {
+                    PrivacyEvent event = mapper.apply(reader.next());
+                    if (event != null)
+                    {
+                        writer.write(event);
+                        count++;
+                    }
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return count;
+        }
+        finally
+        {
+            temp.delete();
+        }
+    }
+
+    /**
+     * 任务是否有本地采集的事件文件（事件数可能为0）
+     */
+    public boolean exists(String taskId)
+    {
+        return isValidTaskId(taskId) && getFile(taskId).isFile();
+    }
+
+    /**
+     * 删除任务的事件文件
+     */
+    public boolean delete(String taskId)
+    {
+        return exists(taskId) && getFile(taskId).delete();
+    }
+
+    public static boolean isValidTaskId(String taskId)
+    {
+        return taskId != null && TASK_ID_PATTERN.matcher(taskId).matches();
+    }
+
+    private void flushAll()
+    {
+        for (EventWriter writer : writers)
+        {
+            writer.flush();
+        }
+    }
+
+    private File getFile(String taskId)
+    {
+        if (!isValidTaskId(taskId))
+        {
+            throw new ServiceException("非法的任务ID：" + taskId);
+        }
+        return new File(RuoYiConfig.getProfile() + "/frida/events", taskId + ".jsonl");
+    }
+
+    /**
+     * 事件写入器，检测过程中由后台定时刷新，也能读到已采集的事件（最多滞后一个刷新间隔）；
+     * 写入和刷新互斥，刷新不会写出半条事件
+     */
+    public static class EventWriter implements Consumer<PrivacyEvent>, Closeable
+    {
+        private final BufferedWriter writer;
+
+        /** 需要定时刷新时所在的写入器集合，关闭时移出 */
+        private final Set<EventWriter> registry;
+
+        /** 已写出定义的堆栈编号 */
+        private final BitSet definedStacks = new BitSet();
+
+        private boolean failed;
+
+        private EventWriter(BufferedWriter writer, Set<EventWriter> registry)
+        {
+            this.writer = writer;
+            this.registry = registry;
+        }
+
+        @Override
+        public synchronized void accept(PrivacyEvent event)
+        {
+            if (failed)
+            {
+                return;
+            }
+            try
+            {
+                write(event);
+            }
+            catch (IOException e)
+            {
+                // 磁盘异常时停止写入，不影响检测本身
+                failed = true;
+                log.error("写入隐私事件失败", e);
+            }
+        }
+
+        /**
+         * 写一条事件：已驻留的堆栈首次出现时先写定义行，事件行只保留编号
+         */
+        private void write(PrivacyEvent event) throws IOException
+        {
+            int stackId = event.getStackId();
+            String stack = event.getStack();
+            if (stackId <= 0 || stack == null)
+            {
+                writer.write(JSON.toJSONString(event));
+                writer.write('\n');
+                return;
+            }
+            if (!definedStacks.get(stackId))
+            {
+                definedStacks.set(stackId);
+                writer.write(STACK_DEF_PREFIX);
+                writer.write(Integer.toString(stackId));
+                writer.write(",\"stack\":");
+                writer.write(JSON.toJSONString(stack));
+                writer.write("}\n");
+            }
+            // 事件对象还会交给后续的监听者，写完后恢复堆栈
+            event.setStack(null);
+            try
+            {
+                writer.write(JSON.toJSONString(event));
+                writer.write('\n');
+            }
+            finally
+            {
+                event.setStack(stack);
+            }
+        }
+
+        /**
+         * 把缓冲的事件写出到文件
+         */
+        private synchronized void flush()
+        {
+            if (failed)
+            {
+                return;
+            }
+            try
+            {
+                writer.flush();
+            }
+            catch (IOException e)
+            {
+                failed = true;
+                log.error("写入隐私事件失败", e);
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException
+        {
+            if (registry != null)
+            {
+                registry.remove(this);
+            }
+            writer.close();
+        }
+    }
+
+    /**
+     * 事件读取器，逐行解析；检测仍在进行时末尾可能是未写完的行，直接跳过
+     */
+    public static class EventReader implements Iterator<PrivacyEvent>, Closeable
+    {
+        private final BufferedReader reader;
+
+        /** 堆栈编号 -> 堆栈 */
+        private final Map<Integer, String> stacks = new HashMap<>();
+
+        private PrivacyEvent next;
+
+        private EventReader(BufferedReader reader)
+        {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if (next != null)
+            {
+                return true;
+            }
+            try
+            {
+                String line;
+                while ((line = reader.readLine()) != null)
+                {
+                    if (line.isEmpty())
+                    {
+                        continue;
+                    }
+                    try
+                    {
+                        if (line.startsWith(STACK_DEF_PREFIX))
+                        {
+                            JSONObject definition = JSON.parseObject(line);
+                            stacks.put(definition.getIntValue("stackDef"), definition.getString("stack"));
+                            continue;
+                        }
+                        next = JSON.parseObject(line, PrivacyEvent.class);
+                        if (next.getStackId() > 0 && next.getStack() == null)
+                        {
+                            next.setStack(stacks.get(next.getStackId()));
+                        }
+                        return true;
+                    }
+                    catch (Exception e)
+                    {
+                        log.warn("跳过无法解析的隐私事件: {}", e.getMessage());
+                    }
+                }
+                return false;
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public PrivacyEvent next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            PrivacyEvent event = next;
+            next = null;
+            return event;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            reader.close();
+        }
+    }
+}
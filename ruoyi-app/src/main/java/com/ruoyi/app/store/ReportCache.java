@@ -0,0 +1,494 @@
+package com.ruoyi.app.store;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import com.ruoyi.app.config.AnalysisConfig;
+import com.ruoyi.common.config.RuoYiConfig;
+import com.ruoyi.common.utils.StringUtils;
+import com.ruoyi.common.utils.file.FileUtils;
+import com.ruoyi.common.utils.uuid.IdUtils;
+
+/**
+ * 检测报告本地缓存
+ *
+ * 已结束任务的报告（脚本在容器内生成的或由隐私事件生成的）缓存在{profile}/frida/report-cache下，
+ * 文件名为"{内容摘要}-{报告文件名}"，报告文件名中含任务ID和格式，作为缓存键；内容摘要即ETag。
+ * 总大小超过analysis.report-cache-max-mb时按最近访问时间淘汰。
+ * 下载时支持If-None-Match（304）和单段Range（206），Tomcat支持sendfile时由容器零拷贝发送文件，
+ * 否则通过FileChannel.transferTo写出。
+ *
+ * @author ruoyi
+ */
+@Component
+public class ReportCache
+{
+    private static final Logger log = LoggerFactory.getLogger(ReportCache.class);
+
+    /** 写入中的临时文件后缀 */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /** ETag使用的摘要长度（十六进制字符数） */
+    private static final int ETAG_LENGTH = 32;
+
+    /** 最近访问过的文件暂不淘汰（sendfile在请求处理结束后才打开文件） */
+    private static final long RECENT_MILLIS = 60000;
+
+    /** 小于该大小的文件不走sendfile（与Tomcat DefaultServlet的默认阈值一致） */
+    private static final long SENDFILE_THRESHOLD = 48 * 1024;
+
+    /** 同一报告的生成串行执行（按键分段加锁），避免并发下载重复生成 */
+    private static final Object[] LOCKS = new Object[64];
+
+    static
+    {
+        for (int i = 0; i < LOCKS.length; i++)
+        {
+            LOCKS[i] = new Object();
+        }
+    }
+
+    @Autowired
+    private AnalysisConfig analysisConfig;
+
+    /** 缓存键 -> 条目，按访问顺序排列（最久未访问的在前） */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalBytes;
+
+    private long hits;
+
+    private long misses;
+
+    @PostConstruct
+    public void init()
+    {
+        File dir = getDir();
+        dir.mkdirs();
+        File[] files = dir.listFiles();
+        if (files == null)
+        {
+            return;
+        }
+        // 按修改时间恢复访问顺序
+        List<File> sorted = new ArrayList<>();
+        for (File file : files)
+        {
+            if (file.getName().endsWith(TEMP_SUFFIX))
+            {
+                file.delete();
+            }
+            else if (file.getName().indexOf('-') == ETAG_LENGTH)
+            {
+                sorted.add(file);
+            }
+        }
+        sorted.sort((a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        synchronized (entries)
+        {
+            for (File file : sorted)
+            {
+                String name = file.getName();
+                Entry entry = new Entry(name.substring(ETAG_LENGTH + 1), file, name.substring(0, ETAG_LENGTH), file.length());
+                entry.accessMillis = file.lastModified();
+                Entry previous = entries.put(entry.key, entry);
+                totalBytes += entry.length;
+                if (previous != null)
+                {
+                    remove(previous);
+                }
+            }
+            evict();
+        }
+        log.info("报告缓存已加载 {} 个文件，共 {} 字节", entries.size(), totalBytes);
+    }
+
+    /**
+     * 查找缓存
+     *
+     * @param key 报告文件名
+     * @return 条目，未缓存时返回null
+     */
+    public Entry get(String key)
+    {
+        synchronized (entries)
+        {
+            Entry entry = entries.get(key);
+            if (entry != null && !entry.file.isFile())
+            {
+                // 文件被外部删除
+                remove(entries.remove(key));
+                entry = null;
+            }
+            if (entry == null)
+            {
+                misses++;
+                return null;
+            }
+            hits++;
+            entry.accessMillis = System.currentTimeMillis();
+            return entry;
+        }
+    }
+
+    /**
+     * 查找缓存，未缓存时生成并加入缓存
+     *
+     * @param key 报告文件名
+     * @param writer 报告内容写入方
+     * @return 条目，写入方返回false（报告不存在）时返回null
+     */
+    public Entry computeIfAbsent(String key, ContentWriter writer) throws Exception
+    {
+        synchronized (LOCKS[Math.floorMod(key.hashCode(), LOCKS.length)])
+        {
+            Entry entry = get(key);
+            if (entry != null)
+            {
+                return entry;
+            }
+            File temp = new File(getDir(), IdUtils.fastSimpleUUID() + TEMP_SUFFIX);
+            try
+            {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                boolean written;
+                try (OutputStream out = new DigestOutputStream(new FileOutputStream(temp), digest))
+                {
+                    written = writer.write(out);
+                }
+                if (!written)
+                {
+                    return null;
+                }
+                String etag = toHex(digest.digest()).substring(0, ETAG_LENGTH);
+                File file = new File(getDir(), etag + "-" + key);
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                entry = new Entry(key, file, etag, file.length());
+                synchronized (entries)
+                {
+                    Entry previous = entries.put(key, entry);
+                    totalBytes += entry.length;
+                    if (previous != null && !previous.file.equals(file))
+                    {
+                        remove(previous);
+                    }
+                    else if (previous != null)
+                    {
+                        totalBytes -= previous.length;
+                    }
+                    evict();
+                }
+                return entry;
+            }
+            finally
+            {
+                temp.delete();
+            }
+        }
+    }
+
+    /**
+     * 删除任务的所有缓存报告（任务重新执行时调用）
+     */
+    public void invalidate(String taskId)
+    {
+        String marker = "_" + taskId + ".";
+        synchronized (entries)
+        {
+            for (Iterator<Entry> it = entries.values().iterator(); it.hasNext();)
+            {
+                Entry entry = it.next();
+                if (entry.key.contains(marker))
+                {
+                    it.remove();
+                    remove(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * 发送缓存的报告：处理If-None-Match、If-Range和单段Range，HEAD请求只返回响应头
+     *
+     * @param entry 缓存条目
+     * @param contentType 内容类型
+     */
+    public void serve(Entry entry, String contentType, HttpServletRequest request, HttpServletResponse response)
+            throws IOException
+    {
+        String etag = "\"" + entry.etag + "\"";
+        response.setHeader("ETag", etag);
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("Cache-Control", "private, no-cache");
+        if (matches(request.getHeader("If-None-Match"), etag))
+        {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType(contentType);
+        FileUtils.setAttachmentResponseHeader(response, entry.key);
+
+        long length = entry.length;
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader("Range");
+        String ifRange = request.getHeader("If-Range");
+        if (range != null && (ifRange == null || ifRange.equals(etag)))
+        {
+            long[] parsed = parseRange(range, length);
+            if (parsed == null)
+            {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader("Content-Range", "bytes */" + length);
+                return;
+            }
+            if (parsed.length == 2)
+            {
+                start = parsed[0];
+                end = parsed[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || count <= 0)
+        {
+            return;
+        }
+        if (count >= SENDFILE_THRESHOLD && Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support")))
+        {
+            // 由Tomcat在请求处理结束后直接从文件发送（零拷贝）
+            request.setAttribute("org.apache.tomcat.sendfile.filename", entry.file.getCanonicalPath());
+            request.setAttribute("org.apache.tomcat.sendfile.start", start);
+            request.setAttribute("org.apache.tomcat.sendfile.end", end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(entry.file.toPath(), StandardOpenOption.READ))
+        {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end)
+            {
+                long sent = channel.transferTo(position, end + 1 - position, target);
+                if (sent <= 0)
+                {
+                    break;
+                }
+                position += sent;
+            }
+        }
+    }
+
+    /**
+     * 缓存统计
+     */
+    public Map<String, Object> getStats()
+    {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entries)
+        {
+            stats.put("files", entries.size());
+            stats.put("bytes", totalBytes);
+            stats.put("maxBytes", maxBytes());
+            stats.put("hits", hits);
+            stats.put("misses", misses);
+        }
+        return stats;
+    }
+
+    /**
+     * 解析单段Range
+     *
+     * @return [start, end]；不是bytes单位或为多段时返回空数组（按完整内容响应）；无法满足时返回null
+     */
+    static long[] parseRange(String header, long length)
+    {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0)
+        {
+            return new long[0];
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0)
+        {
+            return new long[0];
+        }
+        try
+        {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty())
+            {
+                // 最后N个字节
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0)
+                {
+                    return null;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            }
+            else
+            {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            }
+            if (start >= length || start > end)
+            {
+                return null;
+            }
+            return new long[] { start, end };
+        }
+        catch (NumberFormatException e)
+        {
+            return new long[0];
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag)
+    {
+        if (StringUtils.isEmpty(ifNoneMatch))
+        {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(","))
+        {
+            String value = candidate.trim();
+            if (value.startsWith("W/"))
+            {
+                value = value.substring(2);
+            }
+            if ("*".equals(value) || etag.equals(value))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 超出容量时淘汰最久未访问的文件（最近访问过的保留到下次淘汰）
+     */
+    private void evict()
+    {
+        long maxBytes = maxBytes();
+        long now = System.currentTimeMillis();
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext() && totalBytes > maxBytes;)
+        {
+            Entry entry = it.next();
+            if (now - entry.accessMillis < RECENT_MILLIS)
+            {
+                break;
+            }
+            it.remove();
+            remove(entry);
+        }
+    }
+
+    /**
+     * 删除已从索引移除的条目的文件
+     */
+    private void remove(Entry entry)
+    {
+        totalBytes -= entry.length;
+        if (!entry.file.delete() && entry.file.exists())
+        {
+            log.warn("删除缓存报告失败: {}", entry.file);
+        }
+    }
+
+    private long maxBytes()
+    {
+        return Math.max(1, analysisConfig.getReportCacheMaxMb()) * 1024L * 1024L;
+    }
+
+    private File getDir()
+    {
+        return new File(RuoYiConfig.getProfile() + "/frida/report-cache");
+    }
+
+    private static String toHex(byte[] bytes)
+    {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes)
+        {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 报告内容写入方
+     */
+    public interface ContentWriter
+    {
+        /**
+         * @return 报告不存在时返回false
+         */
+        boolean write(OutputStream out) throws Exception;
+    }
+
+    /**
+     * 缓存条目
+     */
+    public static class Entry
+    {
+        private final String key;
+
+        private final File file;
+
+        private final String etag;
+
+        private final long length;
+
+        private volatile long accessMillis = System.currentTimeMillis();
+
+        private Entry(String key, File file, String etag, long length)
+        {
+            this.key = key;
+            this.file = file;
+            this.etag = etag;
+            this.length = length;
+        }
+
+        public String getKey()
+        {
+            return key;
+        }
+
+        public String getEtag()
+        {
+            return etag;
+        }
+
+        public long getLength()
+        {
+            return length;
+        }
+    }
+}
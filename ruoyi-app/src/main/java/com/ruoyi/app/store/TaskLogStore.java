@@ -0,0 +1,555 @@
+package com.ruoyi.app.store;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.ruoyi.common.config.RuoYiConfig;
+import com.ruoyi.common.exception.ServiceException;
+
+/**
+ * 任务原始日志存储
+ *
+ * 推送到前端的日志会限流合并，完整输出保存在{profile}/frida/logs下：
+ * <ul>
+ * <li>{taskId}.log.gz：由若干gzip分段首尾相接组成（标准多成员gzip，可直接zcat），每段最多1024行；</li>
+ * <li>{taskId}.idx：稀疏索引，每段一条（起始行号、文件偏移、行数），定长20字节。</li>
+ * </ul>
+ * 写入方只把行放入内存队列；后台定时把队列压缩追加到写入中的分段，同步刷新（SYNC_FLUSH）后fsync，
+ * 分段满1024行或任务结束时才写入gzip尾部并登记索引，输出处理线程不会因磁盘IO阻塞。
+ * 读取时按索引定位到所在分段，只解压需要的分段；写入中的分段尚未登记索引，按写入器已落盘的行数读取。
+ *
+ * @author ruoyi
+ */
+@Component
+public class TaskLogStore
+{
+    private static final Logger log = LoggerFactory.getLogger(TaskLogStore.class);
+
+    /** 每个分段的最大行数 */
+    private static final int SEGMENT_LINES = 1024;
+
+    /** 索引项长度：起始行号(8) + 偏移(8) + 行数(4) */
+    private static final int INDEX_ENTRY_BYTES = 20;
+
+    /** 刷盘间隔（毫秒） */
+    private static final long FLUSH_MILLIS = 1000;
+
+    /** 单个任务待刷盘的最大行数，磁盘持续跟不上时丢弃并计数，避免内存无限增长 */
+    private static final int MAX_PENDING_LINES = 200000;
+
+    @Autowired
+    private ScheduledExecutorService scheduledExecutorService;
+
+    /** 正在写入的任务 */
+    private final Map<String, LogWriter> writers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init()
+    {
+        scheduledExecutorService.scheduleWithFixedDelay(this::flushAll, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        for (LogWriter writer : writers.values())
+        {
+            writer.close();
+        }
+        flushAll();
+    }
+
+    /**
+     * 打开任务的日志写入器，已有的日志会被清空（任务重新执行）
+     */
+    public LogWriter openWriter(String taskId) throws IOException
+    {
+        File dataFile = getDataFile(taskId);
+        File indexFile = getIndexFile(taskId);
+        dataFile.getParentFile().mkdirs();
+        LogWriter previous = writers.remove(taskId);
+        if (previous != null)
+        {
+            previous.close();
+            previous.flush();
+        }
+        LogWriter writer = new LogWriter(taskId,
+                FileChannel.open(dataFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE),
+                FileChannel.open(indexFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+        writers.put(taskId, writer);
+        return writer;
+    }
+
+    /**
+     * 任务是否有本地保存的日志
+     */
+    public boolean exists(String taskId)
+    {
+        return PrivacyEventStore.isValidTaskId(taskId) && getIndexFile(taskId).isFile();
+    }
+
+    /**
+     * 任务是否仍在写入
+     */
+    public boolean isWriting(String taskId)
+    {
+        return writers.containsKey(taskId);
+    }
+
+    /**
+     * 已落盘的总行数
+     */
+    public long getLineCount(String taskId) throws IOException
+    {
+        return getLineCount(taskId, readIndex(taskId));
+    }
+
+    /**
+     * 读取一段日志（只包含已落盘的部分）
+     *
+     * @param taskId 任务ID
+     * @param fromLine 起始行号（从1开始）
+     * @param limit 最多读取的行数
+     * @return 日志行，超出已有行数时为空
+     */
+    public List<String> read(String taskId, long fromLine, int limit) throws IOException
+    {
+        List<String> lines = new ArrayList<>();
+        long[][] index = readIndex(taskId);
+        long total = getLineCount(taskId, index);
+        fromLine = Math.max(1, fromLine);
+        if (limit <= 0 || fromLine > total)
+        {
+            return lines;
+        }
+        // 定位起始行所在的分段，分段内顺序跳过，之后的分段（包括写入中的分段）按需继续解压
+        long lineNo = 1;
+        long offset = 0;
+        if (index.length > 0)
+        {
+            int segment = findSegment(index, fromLine);
+            lineNo = index[segment][0];
+            offset = index[segment][1];
+        }
+        long wanted = Math.min(limit, total - fromLine + 1);
+        try (FileChannel channel = FileChannel.open(getDataFile(taskId).toPath(), StandardOpenOption.READ))
+        {
+            channel.position(offset);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new OpenSegmentInputStream(new GZIPInputStream(Channels.newInputStream(channel), 8192)), StandardCharsets.UTF_8)))
+            {
+                String line;
+                while (lines.size() < wanted && (line = reader.readLine()) != null)
+                {
+                    if (lineNo++ >= fromLine)
+                    {
+                        lines.add(line);
+                    }
+                }
+            }
+        }
+        catch (EOFException e)
+        {
+            // 任务重新执行时文件会被截断，返回已读到的部分
+            log.debug("[{}] 读取日志到达文件末尾: {}", taskId, e.getMessage());
+        }
+        return lines;
+    }
+
+    /**
+     * 已登记索引的行数与写入中的分段已落盘的行数中较大者
+     */
+    private long getLineCount(String taskId, long[][] index)
+    {
+        long total = 0;
+        if (index.length > 0)
+        {
+            long[] last = index[index.length - 1];
+            total = last[0] + last[2] - 1;
+        }
+        LogWriter writer = writers.get(taskId);
+        return writer != null ? Math.max(total, writer.writtenLines) : total;
+    }
+
+    /**
+     * 最后一个起始行号不大于line的分段
+     */
+    private static int findSegment(long[][] index, long line)
+    {
+        int low = 0;
+        int high = index.length - 1;
+        while (low < high)
+        {
+            int mid = (low + high + 1) >>> 1;
+            if (index[mid][0] <= line)
+            {
+                low = mid;
+            }
+            else
+            {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private long[][] readIndex(String taskId) throws IOException
+    {
+        File indexFile = getIndexFile(taskId);
+        if (!indexFile.isFile())
+        {
+            return new long[0][];
+        }
+        try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ))
+        {
+            // 只读取完整的索引项，写入中的半条忽略
+            int count = (int) (channel.size() / INDEX_ENTRY_BYTES);
+            ByteBuffer buffer = ByteBuffer.allocate(count * INDEX_ENTRY_BYTES);
+            while (buffer.hasRemaining())
+            {
+                if (channel.read(buffer) < 0)
+                {
+                    break;
+                }
+            }
+            buffer.flip();
+            long[][] index = new long[count][];
+            for (int i = 0; i < count; i++)
+            {
+                index[i] = new long[] { buffer.getLong(), buffer.getLong(), buffer.getInt() };
+            }
+            return index;
+        }
+    }
+
+    private void flushAll()
+    {
+        for (LogWriter writer : writers.values())
+        {
+            writer.flush();
+            if (writer.isDone())
+            {
+                writers.remove(writer.taskId, writer);
+            }
+        }
+    }
+
+    private File getDataFile(String taskId)
+    {
+        return new File(getDir(taskId), taskId + ".log.gz");
+    }
+
+    private File getIndexFile(String taskId)
+    {
+        return new File(getDir(taskId), taskId + ".idx");
+    }
+
+    private File getDir(String taskId)
+    {
+        if (!PrivacyEventStore.isValidTaskId(taskId))
+        {
+            throw new ServiceException("非法的任务ID：" + taskId);
+        }
+        return new File(RuoYiConfig.getProfile() + "/frida/logs");
+    }
+
+    /**
+     * 写入中的分段没有gzip尾部，解压到已落盘部分的末尾时按流结束处理，
+     * 避免抛出EOFException丢弃已解压但还在字符解码缓冲中的行
+     */
+    private static class OpenSegmentInputStream extends FilterInputStream
+    {
+        private OpenSegmentInputStream(InputStream in)
+        {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            try
+            {
+                return super.read();
+            }
+            catch (EOFException e)
+            {
+                return -1;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            try
+            {
+                return super.read(b, off, len);
+            }
+            catch (EOFException e)
+            {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * 日志写入器：append只入队，由后台定时压缩落盘
+     */
+    public static class LogWriter implements Closeable
+    {
+        private final String taskId;
+
+        private final FileChannel data;
+
+        private final FileChannel index;
+
+        /** 串行化刷盘，与append使用不同的锁，压缩和磁盘IO期间不阻塞写入方 */
+        private final Object flushLock = new Object();
+
+        private List<String> pending = new ArrayList<>();
+
+        /** 写入中的分段的起始行号 */
+        private long nextLine = 1;
+
+        /** 写入中的分段，满SEGMENT_LINES行或任务结束时封存，为null表示尚未开始 */
+        private GZIPOutputStream segment;
+
+        /** 写入中的分段在文件中的偏移 */
+        private long segmentOffset;
+
+        /** 写入中的分段已写入的行数 */
+        private int segmentLines;
+
+        /** 已落盘的行数（包括写入中的分段），读取方据此读取尚未登记索引的行 */
+        private volatile long writtenLines;
+
+        private long dropped;
+
+        private volatile boolean closed;
+
+        private volatile boolean done;
+
+        private volatile boolean failed;
+
+        private LogWriter(String taskId, FileChannel data, FileChannel index)
+        {
+            this.taskId = taskId;
+            this.data = data;
+            this.index = index;
+        }
+
+        /**
+         * 追加一行（不做磁盘IO）
+         */
+        public synchronized void append(String line)
+        {
+            if (closed || failed)
+            {
+                return;
+            }
+            if (pending.size() >= MAX_PENDING_LINES)
+            {
+                dropped++;
+                return;
+            }
+            pending.add(line);
+        }
+
+        /**
+         * 结束写入，剩余的行由后台在下一次刷盘时写出
+         */
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+
+        private boolean isDone()
+        {
+            return done;
+        }
+
+        /**
+         * 把待写的行压缩追加到写入中的分段并fsync，封存的分段再写索引（索引可见的分段一定完整）
+         */
+        private void flush()
+        {
+            synchronized (flushLock)
+            {
+                if (!done)
+                {
+                    // 先读关闭标记再取队列：关闭前追加的行一定在本次取出的队列中
+                    boolean finish = closed;
+                    write(takePending(), finish);
+                }
+            }
+        }
+
+        private synchronized List<String> takePending()
+        {
+            List<String> batch = pending;
+            pending = new ArrayList<>();
+            return batch;
+        }
+
+        private void write(List<String> batch, boolean finish)
+        {
+            try
+            {
+                if (!failed && (!batch.isEmpty() || finish && segment != null))
+                {
+                    // 写入中的分段已有的行加上本批最多跨越batch.size() / SEGMENT_LINES + 1个分段，结束时再封存一个
+                    ByteBuffer entries = ByteBuffer.allocate((batch.size() / SEGMENT_LINES + 2) * INDEX_ENTRY_BYTES);
+                    for (String line : batch)
+                    {
+                        if (segment == null)
+                        {
+                            segmentOffset = data.position();
+                            segment = new GZIPOutputStream(new SegmentOutputStream(data), 8192, true);
+                        }
+                        writeLine(segment, line);
+                        if (++segmentLines == SEGMENT_LINES)
+                        {
+                            seal(entries);
+                        }
+                    }
+                    if (segment != null)
+                    {
+                        if (finish)
+                        {
+                            seal(entries);
+                        }
+                        else
+                        {
+                            // 同步刷新只输出已压缩的数据，不结束gzip成员
+                            segment.flush();
+                        }
+                    }
+                    data.force(false);
+                    writtenLines = nextLine + segmentLines - 1;
+                    if (entries.position() > 0)
+                    {
+                        entries.flip();
+                        writeFully(index, entries);
+                        index.force(false);
+                    }
+                }
+            }
+            catch (IOException e)
+            {
+                // 磁盘异常时停止写入，不影响检测本身
+                failed = true;
+                log.error("[{}] 写入任务日志失败", taskId, e);
+            }
+            // 关闭前取出的行已全部写出
+            if (finish)
+            {
+                done = true;
+                if (dropped > 0)
+                {
+                    log.warn("[{}] 磁盘写入过慢，丢弃日志{}行", taskId, dropped);
+                }
+                if (segment != null)
+                {
+                    // 写入失败时残留的分段，只需释放压缩器
+                    closeQuietly(segment);
+                    segment = null;
+                }
+                closeQuietly(data);
+                closeQuietly(index);
+            }
+        }
+
+        /**
+         * 写入gzip尾部结束当前分段，索引项放入entries
+         */
+        private void seal(ByteBuffer entries) throws IOException
+        {
+            segment.close();
+            entries.putLong(nextLine).putLong(segmentOffset).putInt(segmentLines);
+            nextLine += segmentLines;
+            segment = null;
+            segmentLines = 0;
+        }
+
+        private void closeQuietly(Closeable closeable)
+        {
+            try
+            {
+                closeable.close();
+            }
+            catch (IOException e)
+            {
+                log.warn("[{}] 关闭任务日志失败: {}", taskId, e.getMessage());
+            }
+        }
+
+        private static void writeLine(GZIPOutputStream gzip, String line) throws IOException
+        {
+            // 行内的换行符会破坏按行号定位
+            if (line.indexOf('\r') >= 0 || line.indexOf('\n') >= 0)
+            {
+                line = line.replace('\r', ' ').replace('\n', ' ');
+            }
+            gzip.write(line.getBytes(StandardCharsets.UTF_8));
+            gzip.write('\n');
+        }
+
+        private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+        {
+            while (buffer.hasRemaining())
+            {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * 把分段的压缩输出追加到数据文件；封存分段时关闭gzip流，文件保持打开
+     */
+    private static class SegmentOutputStream extends OutputStream
+    {
+        private final FileChannel channel;
+
+        private SegmentOutputStream(FileChannel channel)
+        {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            LogWriter.writeFully(channel, ByteBuffer.wrap(b, off, len));
+        }
+    }
+}
@@ -0,0 +1,705 @@
+package com.ruoyi.app.task;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import javax.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import com.ruoyi.app.config.AnalysisConfig;
+import com.ruoyi.app.device.DeviceLease;
+import com.ruoyi.app.device.DevicePool;
+import com.ruoyi.app.domain.AppAnalysisTask;
+import com.ruoyi.app.metrics.StageMetrics;
+import com.ruoyi.app.service.IAppAnalysisTaskService;
+import com.ruoyi.common.exception.ServiceException;
+import com.ruoyi.common.utils.DateUtils;
+import com.ruoyi.common.utils.StringUtils;
+
+/**
+ * 分析任务调度器
+ *
+ * 提交只做入库和入队，立即返回排队位置；任务按优先级（同级先进先出）出队，
+ * 出队时从设备池租用负载最低的设备，没有空闲设备时继续排队，排队总数超过上限时拒绝提交。
+ * 任务进程存活期间定期为其租约续约，租约过期或续约失败的任务按失败结束、释放设备并通知处理器停止。
+ * 服务重启后从数据库恢复未结束的任务。
+ *
+ * @author ruoyi
+ */
+@Component
+public class AnalysisTaskDispatcher
+{
+    private static final Logger log = LoggerFactory.getLogger(AnalysisTaskDispatcher.class);
+
+    /** 最高优先级 */
+    public static final int MAX_PRIORITY = 9;
+
+    /** 默认优先级 */
+    public static final int DEFAULT_PRIORITY = 5;
+
+    /** 任务耗时滑动平均的权重 */
+    private static final double DURATION_EWMA_ALPHA = 0.2;
+
+    @Autowired
+    private AnalysisConfig analysisConfig;
+
+    @Autowired
+    private IAppAnalysisTaskService taskService;
+
+    @Autowired
+    private DevicePool devicePool;
+
+    @Autowired
+    private StageMetrics stageMetrics;
+
+    @Autowired
+    private ScheduledExecutorService scheduledExecutorService;
+
+    private final Map<String, AnalysisTaskHandler> handlers = new ConcurrentHashMap<>();
+
+    private final Object lock = new Object();
+
+    /** 按优先级分桶的等待队列，下标即优先级，读写均在lock内 */
+    private final List<ArrayDeque<AppAnalysisTask>> buckets = new ArrayList<>();
+
+    /** 排队中的任务 */
+    private final Map<String, AppAnalysisTask> queued = new HashMap<>();
+
+    /** 执行中的任务 */
+    private final Map<String, RunningTask> running = new HashMap<>();
+
+    /** 正在入库、尚未入队的任务 */
+    private final Set<String> admitting = new HashSet<>();
+
+    /** 成功任务耗时的滑动平均（毫秒） */
+    private double avgDurationMillis;
+
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong cancelledCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public AnalysisTaskDispatcher()
+    {
+        for (int i = 0; i <= MAX_PRIORITY; i++)
+        {
+            buckets.add(new ArrayDeque<>());
+        }
+    }
+
+    @PostConstruct
+    public void init()
+    {
+        devicePool.setExpiryListener(this::onLeaseExpired);
+        devicePool.setAvailableListener(this::tryDispatch);
+        long interval = Math.max(1000, analysisConfig.getLeaseSeconds() * 1000L / 3);
+        scheduledExecutorService.scheduleWithFixedDelay(this::heartbeat, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 注册任务处理器
+     *
+     * @param taskType 任务类型
+     * @param handler 处理器
+     */
+    public void registerHandler(String taskType, AnalysisTaskHandler handler)
+    {
+        handlers.put(taskType, handler);
+    }
+
+    /**
+     * 提交任务：入库并加入等待队列，立即返回排队信息
+     *
+     * 同一任务已在排队或执行中时直接返回当前状态；已结束的任务重新排队。
+     *
+     * @param task 分析任务（taskId、taskType必填）
+     * @return 排队信息
+     */
+    public Map<String, Object> enqueue(AppAnalysisTask task)
+    {
+        if (StringUtils.isEmpty(task.getTaskId()))
+        {
+            throw new ServiceException("任务编号不能为空");
+        }
+        if (!handlers.containsKey(task.getTaskType()))
+        {
+            throw new ServiceException("不支持的任务类型: " + task.getTaskType());
+        }
+        task.setPriority(normalizePriority(task.getPriority()));
+        String key = key(task.getTaskId(), task.getTaskType());
+        synchronized (lock)
+        {
+            if (queued.containsKey(key) || running.containsKey(key))
+            {
+                return getQueueInfo(task.getTaskId(), task.getTaskType());
+            }
+            if (admitting.contains(key))
+            {
+                throw new ServiceException("任务正在提交中，请勿重复提交");
+            }
+            if (queued.size() + admitting.size() >= analysisConfig.getMaxQueueSize())
+            {
+                rejectedCount.incrementAndGet();
+                throw new ServiceException("分析队列已满（" + analysisConfig.getMaxQueueSize() + "），请稍后再提交");
+            }
+            admitting.add(key);
+        }
+        try
+        {
+            persist(task);
+            synchronized (lock)
+            {
+                offer(key, task);
+            }
+        }
+        finally
+        {
+            synchronized (lock)
+            {
+                admitting.remove(key);
+            }
+        }
+        log.info("分析任务已入队 - taskId: {}, 类型: {}, 优先级: {}", task.getTaskId(), task.getTaskType(), task.getPriority());
+        tryDispatch();
+        return getQueueInfo(task.getTaskId(), task.getTaskType());
+    }
+
+    /**
+     * 取消任务
+     *
+     * @param taskId 任务编号
+     * @param taskType 任务类型
+     * @return 取消前的状态：排队中的任务直接出队；执行中的任务仅做标记，由调用方停止远程进程，结束后记为已取消；未知任务返回null
+     */
+    public String cancel(String taskId, String taskType)
+    {
+        String key = key(taskId, taskType);
+        AppAnalysisTask task;
+        synchronized (lock)
+        {
+            task = queued.remove(key);
+            if (task == null)
+            {
+                RunningTask runningTask = running.get(key);
+                if (runningTask == null)
+                {
+                    return null;
+                }
+                runningTask.cancelled = true;
+                return AppAnalysisTask.STATUS_RUNNING;
+            }
+            buckets.get(task.getPriority()).remove(task);
+        }
+        cancelledCount.incrementAndGet();
+        AppAnalysisTask update = new AppAnalysisTask();
+        update.setId(task.getId());
+        update.setStatus(AppAnalysisTask.STATUS_CANCEL);
+        update.setEndTime(DateUtils.getNowDate());
+        updateQuietly(update);
+        log.info("已取消排队中的分析任务 - taskId: {}", taskId);
+        return AppAnalysisTask.STATUS_QUEUED;
+    }
+
+    /**
+     * 登记执行中任务的存活检查（如远程通道是否仍连接），检查通过时为其设备租约续约；
+     * 处理器登记前任务视为存活
+     *
+     * @param taskId 任务编号
+     * @param taskType 任务类型
+     * @param alive 存活检查，须快速返回
+     */
+    public void watch(String taskId, String taskType, BooleanSupplier alive)
+    {
+        synchronized (lock)
+        {
+            RunningTask runningTask = running.get(key(taskId, taskType));
+            if (runningTask != null)
+            {
+                runningTask.alive = alive;
+            }
+        }
+    }
+
+    /**
+     * 查询任务排队信息
+     *
+     * @param taskId 任务编号
+     * @param taskType 任务类型
+     * @return 排队信息（状态、排队位置、预计开始时间等），任务不存在时返回null
+     */
+    public Map<String, Object> getQueueInfo(String taskId, String taskType)
+    {
+        String key = key(taskId, taskType);
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("taskId", taskId);
+        info.put("taskType", taskType);
+        synchronized (lock)
+        {
+            RunningTask runningTask = running.get(key);
+            if (runningTask != null)
+            {
+                info.put("status", AppAnalysisTask.STATUS_RUNNING);
+                info.put("queuePosition", 0);
+                info.put("worker", runningTask.task.getWorker());
+                info.put("vncUrl", runningTask.lease.getDevice().getVncUrl());
+                info.put("startTime", new Date(runningTask.startMillis));
+                return info;
+            }
+            AppAnalysisTask task = queued.get(key);
+            if (task != null)
+            {
+                int position = positionOf(task);
+                long waitMillis = estimateWaitMillis(position - 1);
+                info.put("status", AppAnalysisTask.STATUS_QUEUED);
+                info.put("priority", task.getPriority());
+                info.put("queuePosition", position);
+                info.put("estimatedWaitSeconds", waitMillis / 1000);
+                info.put("estimatedStartTime", new Date(System.currentTimeMillis() + waitMillis));
+                return info;
+            }
+        }
+        AppAnalysisTask task = taskService.selectTaskByTaskId(taskId, taskType);
+        if (task == null)
+        {
+            return null;
+        }
+        info.put("status", task.getStatus());
+        info.put("worker", task.getWorker());
+        info.put("startTime", task.getStartTime());
+        info.put("endTime", task.getEndTime());
+        info.put("errorMsg", task.getErrorMsg());
+        return info;
+    }
+
+    /**
+     * 调度器整体状态
+     */
+    public Map<String, Object> getStats()
+    {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (lock)
+        {
+            stats.put("queued", queued.size());
+            stats.put("running", running.size());
+            stats.put("capacity", slots());
+            stats.put("maxQueueSize", analysisConfig.getMaxQueueSize());
+            stats.put("workerConcurrency", analysisConfig.getWorkerConcurrency());
+            stats.put("avgDurationSeconds", averageDurationMillis() / 1000);
+        }
+        stats.put("devices", devicePool.getStats());
+        stats.put("completed", completedCount.get());
+        stats.put("failed", failedCount.get());
+        stats.put("cancelled", cancelledCount.get());
+        stats.put("rejected", rejectedCount.get());
+        return stats;
+    }
+
+    /**
+     * 服务启动完成后恢复未结束的任务（执行中的任务因进程重启已中断，重新排队）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover()
+    {
+        List<AppAnalysisTask> tasks;
+        try
+        {
+            tasks = taskService.selectUnfinishedTasks();
+        }
+        catch (Exception e)
+        {
+            log.error("恢复分析任务队列失败: {}", e.getMessage());
+            return;
+        }
+        int restored = 0;
+        for (AppAnalysisTask task : tasks)
+        {
+            AppAnalysisTask update = new AppAnalysisTask();
+            update.setId(task.getId());
+            if (!handlers.containsKey(task.getTaskType()))
+            {
+                update.setStatus(AppAnalysisTask.STATUS_FAIL);
+                update.setEndTime(DateUtils.getNowDate());
+                update.setErrorMsg("服务重启后无对应的任务处理器");
+                updateQuietly(update);
+                continue;
+            }
+            if (AppAnalysisTask.STATUS_RUNNING.equals(task.getStatus()))
+            {
+                update.setStatus(AppAnalysisTask.STATUS_QUEUED);
+                update.setWorker("");
+                updateQuietly(update);
+            }
+            task.setStatus(AppAnalysisTask.STATUS_QUEUED);
+            task.setPriority(normalizePriority(task.getPriority()));
+            String key = key(task.getTaskId(), task.getTaskType());
+            synchronized (lock)
+            {
+                if (!queued.containsKey(key) && !running.containsKey(key))
+                {
+                    offer(key, task);
+                    restored++;
+                }
+            }
+        }
+        if (restored > 0)
+        {
+            log.info("已从数据库恢复 {} 个未完成的分析任务", restored);
+        }
+        tryDispatch();
+    }
+
+    /**
+     * 入库：已有记录则重置为排队状态，否则新增
+     */
+    private void persist(AppAnalysisTask task)
+    {
+        task.setStatus(AppAnalysisTask.STATUS_QUEUED);
+        task.setQueueTime(DateUtils.getNowDate());
+        AppAnalysisTask existing = taskService.selectTaskByTaskId(task.getTaskId(), task.getTaskType());
+        if (existing == null)
+        {
+            taskService.insertTask(task);
+        }
+        else
+        {
+            task.setId(existing.getId());
+            task.setWorker("");
+            task.setErrorMsg("");
+            taskService.updateTask(task);
+        }
+    }
+
+    private void offer(String key, AppAnalysisTask task)
+    {
+        buckets.get(task.getPriority()).addLast(task);
+        queued.put(key, task);
+    }
+
+    /**
+     * 有空闲执行节点时按优先级出队并启动任务
+     */
+    private void tryDispatch()
+    {
+        List<AppAnalysisTask> starts = new ArrayList<>();
+        synchronized (lock)
+        {
+            while (!queued.isEmpty())
+            {
+                AppAnalysisTask task = peek();
+                String key = key(task.getTaskId(), task.getTaskType());
+                DeviceLease lease = devicePool.acquire(key);
+                if (lease == null)
+                {
+                    break;
+                }
+                poll();
+                task.setWorker(lease.getDevice().getName());
+                task.setStatus(AppAnalysisTask.STATUS_RUNNING);
+                running.put(key, new RunningTask(task, lease));
+                starts.add(task);
+            }
+        }
+        for (AppAnalysisTask task : starts)
+        {
+            start(task);
+        }
+    }
+
+    private void start(AppAnalysisTask task)
+    {
+        AppAnalysisTask update = new AppAnalysisTask();
+        update.setId(task.getId());
+        update.setStatus(AppAnalysisTask.STATUS_RUNNING);
+        update.setWorker(task.getWorker());
+        update.setStartTime(DateUtils.getNowDate());
+        updateQuietly(update);
+        if (task.getQueueTime() != null)
+        {
+            stageMetrics.record(task.getTaskId(), StageMetrics.QUEUE_WAIT, task.getWorker(),
+                    update.getStartTime().getTime() - task.getQueueTime().getTime());
+        }
+        log.info("分析任务开始执行 - taskId: {}, 类型: {}, 节点: {}", task.getTaskId(), task.getTaskType(), task.getWorker());
+
+        CompletableFuture<Void> future;
+        try
+        {
+            future = handlers.get(task.getTaskType()).execute(task);
+        }
+        catch (Exception e)
+        {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        future.whenComplete((result, error) -> complete(task, error));
+    }
+
+    /**
+     * 结束执行中的任务
+     *
+     * @return 任务已结束过（如租约过期后处理器的完成回调）时返回false
+     */
+    private boolean complete(AppAnalysisTask task, Throwable error)
+    {
+        boolean cancelled;
+        long duration;
+        synchronized (lock)
+        {
+            RunningTask runningTask = running.get(key(task.getTaskId(), task.getTaskType()));
+            // 租约过期时已按失败结束，之后处理器的完成回调忽略
+            if (runningTask == null || runningTask.task != task)
+            {
+                return false;
+            }
+            running.remove(key(task.getTaskId(), task.getTaskType()));
+            devicePool.release(runningTask.lease);
+            cancelled = runningTask.cancelled;
+            duration = System.currentTimeMillis() - runningTask.startMillis;
+            if (error == null && !cancelled)
+            {
+                avgDurationMillis = avgDurationMillis == 0 ? duration
+                        : DURATION_EWMA_ALPHA * duration + (1 - DURATION_EWMA_ALPHA) * avgDurationMillis;
+            }
+        }
+
+        AppAnalysisTask update = new AppAnalysisTask();
+        update.setId(task.getId());
+        update.setEndTime(DateUtils.getNowDate());
+        if (cancelled)
+        {
+            cancelledCount.incrementAndGet();
+            update.setStatus(AppAnalysisTask.STATUS_CANCEL);
+        }
+        else if (error != null)
+        {
+            failedCount.incrementAndGet();
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            update.setStatus(AppAnalysisTask.STATUS_FAIL);
+            update.setErrorMsg(StringUtils.substring(cause.getMessage(), 0, 2000));
+            log.warn("分析任务执行失败 - taskId: {}, {}", task.getTaskId(), cause.getMessage());
+        }
+        else
+        {
+            completedCount.incrementAndGet();
+            update.setStatus(AppAnalysisTask.STATUS_SUCCESS);
+        }
+        updateQuietly(update);
+        log.info("分析任务结束 - taskId: {}, 状态: {}, 耗时: {}ms", task.getTaskId(), update.getStatus(), duration);
+        tryDispatch();
+        return true;
+    }
+
+    /**
+     * 为存活的执行中任务续约，续约失败（租约已被回收）时按租约过期处理；
+     * 最后再尝试分配一次，设备因其他原因恢复空闲时排队任务也不会一直等待
+     */
+    private void heartbeat()
+    {
+        List<RunningTask> tasks;
+        synchronized (lock)
+        {
+            tasks = new ArrayList<>(running.values());
+        }
+        for (RunningTask runningTask : tasks)
+        {
+            BooleanSupplier alive = runningTask.alive;
+            boolean renew;
+            try
+            {
+                renew = alive == null || alive.getAsBoolean();
+            }
+            catch (Exception e)
+            {
+                renew = false;
+            }
+            if (renew && !devicePool.heartbeat(runningTask.lease))
+            {
+                onLeaseExpired(runningTask.lease);
+            }
+        }
+        tryDispatch();
+    }
+
+    /**
+     * 租约过期：任务进程已失联，按失败结束、通知处理器停止并继续调度
+     */
+    private void onLeaseExpired(DeviceLease lease)
+    {
+        AppAnalysisTask task = null;
+        synchronized (lock)
+        {
+            for (RunningTask runningTask : running.values())
+            {
+                if (runningTask.lease == lease)
+                {
+                    task = runningTask.task;
+                    break;
+                }
+            }
+        }
+        if (task == null)
+        {
+            return;
+        }
+        String reason = "执行设备 " + lease.getDevice() + " 租约过期，任务进程已失联";
+        if (complete(task, new ServiceException(reason)))
+        {
+            AnalysisTaskHandler handler = handlers.get(task.getTaskType());
+            try
+            {
+                handler.abort(task, reason);
+            }
+            catch (Exception e)
+            {
+                log.error("停止租约过期的任务失败 - taskId: {}", task.getTaskId(), e);
+            }
+        }
+    }
+
+    /**
+     * 下一个出队的任务（不出队）
+     */
+    private AppAnalysisTask peek()
+    {
+        for (int p = MAX_PRIORITY; p >= 0; p--)
+        {
+            AppAnalysisTask task = buckets.get(p).peekFirst();
+            if (task != null)
+            {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private AppAnalysisTask poll()
+    {
+        for (int p = MAX_PRIORITY; p >= 0; p--)
+        {
+            AppAnalysisTask task = buckets.get(p).pollFirst();
+            if (task != null)
+            {
+                queued.remove(key(task.getTaskId(), task.getTaskType()));
+                return task;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 排队位置（从1开始）：更高优先级的任务数加上同级排在前面的任务数
+     */
+    private int positionOf(AppAnalysisTask task)
+    {
+        int position = 1;
+        for (int p = MAX_PRIORITY; p > task.getPriority(); p--)
+        {
+            position += buckets.get(p).size();
+        }
+        for (AppAnalysisTask t : buckets.get(task.getPriority()))
+        {
+            if (t == task)
+            {
+                break;
+            }
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * 估算等待时间：按平均耗时模拟各执行槽位依次空出的时刻
+     *
+     * @param ahead 排在前面的任务数
+     */
+    private long estimateWaitMillis(int ahead)
+    {
+        long avg = (long) averageDurationMillis();
+        long now = System.currentTimeMillis();
+        PriorityQueue<Long> freeAt = new PriorityQueue<>();
+        for (RunningTask runningTask : running.values())
+        {
+            freeAt.add(Math.max(avg - (now - runningTask.startMillis), 0));
+        }
+        for (int i = running.size(); i < slots(); i++)
+        {
+            freeAt.add(0L);
+        }
+        for (int i = 0; i < ahead; i++)
+        {
+            freeAt.add(freeAt.poll() + avg);
+        }
+        return freeAt.peek();
+    }
+
+    private double averageDurationMillis()
+    {
+        return avgDurationMillis > 0 ? avgDurationMillis : analysisConfig.getEstimatedTaskSeconds() * 1000D;
+    }
+
+    private int slots()
+    {
+        return Math.max(1, devicePool.getCapacity());
+    }
+
+    private void updateQuietly(AppAnalysisTask update)
+    {
+        try
+        {
+            taskService.updateTask(update);
+        }
+        catch (Exception e)
+        {
+            log.error("更新分析任务状态失败 - id: {}, {}", update.getId(), e.getMessage());
+        }
+    }
+
+    private static int normalizePriority(Integer priority)
+    {
+        if (priority == null)
+        {
+            return DEFAULT_PRIORITY;
+        }
+        return Math.max(0, Math.min(MAX_PRIORITY, priority));
+    }
+
+    private static String key(String taskId, String taskType)
+    {
+        return taskType + ":" + taskId;
+    }
+
+    /**
+     * 执行中的任务
+     */
+    private static class RunningTask
+    {
+        private final AppAnalysisTask task;
+        private final DeviceLease lease;
+        private final long startMillis = System.currentTimeMillis();
+        private boolean cancelled;
+        private volatile BooleanSupplier alive;
+
+        RunningTask(AppAnalysisTask task, DeviceLease lease)
+        {
+            this.task = task;
+            this.lease = lease;
+        }
+    }
+}
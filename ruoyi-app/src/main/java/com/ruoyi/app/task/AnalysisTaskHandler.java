@@ -0,0 +1,32 @@
+package com.ruoyi.app.task;
+
+import java.util.concurrent.CompletableFuture;
+import com.ruoyi.app.domain.AppAnalysisTask;
+
+/**
+ * 分析任务处理器，由调度器在任务分配到执行节点后调用
+ *
+ * @author ruoyi
+ */
+@FunctionalInterface
+public interface AnalysisTaskHandler
+{
+    /**
+     * 执行任务，须立即返回，任务结束（正常或异常）时完成返回的future
+     *
+     * @param task 分析任务，worker字段为调度器分配的执行节点
+     * @return 任务完成信号
+     */
+    CompletableFuture<Void> execute(AppAnalysisTask task);
+
+    /**
+     * 任务失去设备租约（租约过期或续约失败）时调用，调度器已按失败结束该任务并释放设备，
+     * 处理器应尽快停止仍在执行的工作，之后完成的future被忽略
+     *
+     * @param task 分析任务
+     * @param reason 原因
+     */
+    default void abort(AppAnalysisTask task, String reason)
+    {
+    }
+}
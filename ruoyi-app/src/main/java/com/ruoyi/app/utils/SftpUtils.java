@@ -2,15 +2,23 @@ package com.ruoyi.app.utils;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Properties;
+import java.util.function.LongConsumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.InputStreamSource;
 import com.jcraft.jsch.Channel;
 import com.jcraft.jsch.ChannelSftp;
 import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
+import com.jcraft.jsch.SftpATTRS;
 import com.jcraft.jsch.SftpException;
+import com.jcraft.jsch.SftpProgressMonitor;
+import com.ruoyi.app.ssh.SshSessionManager;
 
 /**
  * SFTP 文件上传工具类
@@ -29,6 +37,11 @@ public class SftpUtils
     private Session session;
     private ChannelSftp channelSftp;
 
+    /**
+     * 会话池（不为空时从池中借用通道，不再单独建立会话）
+     */
+    private SshSessionManager sessionManager;
+
     public SftpUtils(String host, int port, String username, String password)
     {
         this.host = host;
@@ -37,11 +50,21 @@ public class SftpUtils
         this.password = password;
     }
 
+    public SftpUtils(SshSessionManager sessionManager)
+    {
+        this.sessionManager = sessionManager;
+    }
+
     /**
      * 连接SFTP服务器
      */
     public void connect() throws Exception
     {
+        if (sessionManager != null)
+        {
+            channelSftp = sessionManager.openSftp();
+            return;
+        }
         JSch jsch = new JSch();
         session = jsch.getSession(username, host, port);
         session.setPassword(password);
@@ -65,6 +88,12 @@ public class SftpUtils
      */
     public void disconnect()
     {
+        if (sessionManager != null)
+        {
+            sessionManager.release(channelSftp);
+            channelSftp = null;
+            return;
+        }
         if (channelSftp != null && channelSftp.isConnected())
         {
             channelSftp.disconnect();
@@ -122,6 +151,208 @@ public class SftpUtils
         }
     }
 
+    /**
+     * 分块上传文件，连接中断后从远程已写入的位置续传
+     * 
+     * 先写入remoteFileName.part，每块以追加方式写入；失败时重新获取通道，按.part的实际大小跳过已上传部分，
+     * 全部写完并核对大小后改名为正式文件。同名的.part文件会被续用。
+     * 
+     * @param source 数据源（每次续传重新打开，如MultipartFile）
+     * @param size 文件大小
+     * @param remoteDir 远程目录
+     * @param remoteFileName 远程文件名
+     * @param chunkSize 分块大小（字节）
+     * @param maxRetries 连接中断后的最大重试次数
+     * @param progress 进度回调（已上传的总字节数），可为null
+     * @throws Exception
+     */
+    public void uploadFile(InputStreamSource source, long size, String remoteDir, String remoteFileName,
+            long chunkSize, int maxRetries, LongConsumer progress) throws Exception
+    {
+        String remotePath = remoteDir + "/" + remoteFileName;
+        String partPath = remotePath + ".part";
+        int failures = 0;
+        while (true)
+        {
+            try
+            {
+                if (channelSftp == null || !channelSftp.isConnected())
+                {
+                    connect();
+                }
+                createRemoteDir(remoteDir);
+                long offset = Math.max(0, getRemoteSize(partPath));
+                if (offset > size)
+                {
+                    // 残留的同名文件比源文件大，不是本次上传的内容
+                    channelSftp.rm(partPath);
+                    offset = 0;
+                }
+                if (progress != null)
+                {
+                    progress.accept(offset);
+                }
+                try (InputStream in = source.getInputStream())
+                {
+                    skipFully(in, offset);
+                    while (offset < size)
+                    {
+                        long length = Math.min(chunkSize, size - offset);
+                        channelSftp.put(new ChunkInputStream(in, length), partPath,
+                                new ProgressMonitor(offset, progress), ChannelSftp.APPEND);
+                        offset += length;
+                        failures = 0;
+                    }
+                }
+                long written = getRemoteSize(partPath);
+                if (written != size)
+                {
+                    throw new IOException("远程文件大小不一致: " + written + " / " + size);
+                }
+                channelSftp.rename(partPath, remotePath);
+                log.info("File uploaded successfully: {} ({} bytes)", remotePath, size);
+                return;
+            }
+            catch (SftpException | IOException | JSchException e)
+            {
+                if (++failures > maxRetries)
+                {
+                    log.error("Failed to upload file to SFTP server: {}", remotePath, e);
+                    throw new Exception("SFTP上传失败: " + e.getMessage(), e);
+                }
+                log.warn("SFTP上传中断，第{}次重试: {} - {}", failures, remotePath, e.getMessage());
+                // 丢弃可能已损坏的通道，下一轮重新获取
+                disconnect();
+            }
+        }
+    }
+
+    /**
+     * 远程文件大小
+     * 
+     * @param remoteFilePath 远程文件路径
+     * @return 文件大小，不存在时返回-1
+     */
+    public long getRemoteSize(String remoteFilePath) throws SftpException
+    {
+        try
+        {
+            SftpATTRS attrs = channelSftp.stat(remoteFilePath);
+            return attrs.getSize();
+        }
+        catch (SftpException e)
+        {
+            if (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE)
+            {
+                return -1;
+            }
+            throw e;
+        }
+    }
+
+    private static void skipFully(InputStream in, long bytes) throws IOException
+    {
+        while (bytes > 0)
+        {
+            long skipped = in.skip(bytes);
+            if (skipped <= 0)
+            {
+                if (in.read() < 0)
+                {
+                    throw new IOException("源文件长度不足");
+                }
+                skipped = 1;
+            }
+            bytes -= skipped;
+        }
+    }
+
+    /**
+     * 从源流中截取固定长度的一块，关闭时不关闭源流
+     */
+    private static class ChunkInputStream extends FilterInputStream
+    {
+        private long remaining;
+
+        ChunkInputStream(InputStream in, long length)
+        {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            if (remaining <= 0)
+            {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0)
+            {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            if (remaining <= 0)
+            {
+                return -1;
+            }
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0)
+            {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+
+    /**
+     * 把单块的发送字节数换算为整个文件的上传进度
+     */
+    private static class ProgressMonitor implements SftpProgressMonitor
+    {
+        private final LongConsumer progress;
+
+        private long transferred;
+
+        ProgressMonitor(long base, LongConsumer progress)
+        {
+            this.transferred = base;
+            this.progress = progress;
+        }
+
+        @Override
+        public void init(int op, String src, String dest, long max)
+        {
+        }
+
+        @Override
+        public boolean count(long count)
+        {
+            transferred += count;
+            if (progress != null)
+            {
+                progress.accept(transferred);
+            }
+            return true;
+        }
+
+        @Override
+        public void end()
+        {
+        }
+    }
+
     /**
      * 创建远程目录（递归创建）
      * 
@@ -0,0 +1,152 @@
+package com.ruoyi.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+
+/**
+ * 基准结果对比
+ *
+ * 读取两次JMH运行的JSON结果（-rf json -rff 文件名），按基准方法和参数逐项对比得分，
+ * 带 -prof gc 运行时同时对比每次操作的分配量。变化超过两次误差之和且超过阈值（默认10%，
+ * -Dbench.threshold=百分比）时标记为退步或改进；存在退步时退出码为1，可用于提交前检查。
+ *
+ * 生成结果：java -jar ruoyi-bench/target/benchmarks.jar com.ruoyi.bench.framework -rf json -rff current.json
+ * 对比：java -cp ruoyi-bench/target/benchmarks.jar com.ruoyi.bench.BaselineReport ruoyi-bench/baseline/framework.json current.json
+ *
+ * @author ruoyi
+ */
+public class BaselineReport
+{
+    private static final String PACKAGE = "com.ruoyi.bench.";
+
+    private static final String ALLOC = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length != 2)
+        {
+            System.err.println("用法: BaselineReport <基准结果.json> <本次结果.json>");
+            System.exit(2);
+        }
+        double threshold = Double.parseDouble(System.getProperty("bench.threshold", "10")) / 100;
+        Map<String, JSONObject> baseline = load(args[0]);
+        Map<String, JSONObject> current = load(args[1]);
+
+        int regressions = 0;
+        String format = "%-52s %-34s %14s %14s %9s  %s%n";
+        System.out.printf(format, "Benchmark", "Params", "Baseline", "Current", "Change", "");
+        for (Map.Entry<String, JSONObject> entry : current.entrySet())
+        {
+            JSONObject now = entry.getValue();
+            JSONObject base = baseline.get(entry.getKey());
+            JSONObject metric = now.getJSONObject("primaryMetric");
+            String unit = metric.getString("scoreUnit");
+            if (base == null)
+            {
+                System.out.printf(format, name(now), params(now), "-", score(metric.getDoubleValue("score"), unit),
+                        "", "新增");
+                continue;
+            }
+            JSONObject baseMetric = base.getJSONObject("primaryMetric");
+            double before = baseMetric.getDoubleValue("score");
+            double after = metric.getDoubleValue("score");
+            double change = before != 0 ? (after - before) / before : 0;
+            double noise = baseMetric.getDoubleValue("scoreError") + metric.getDoubleValue("scoreError");
+            // 吞吐量模式得分越高越好，其余模式越低越好
+            boolean higherIsBetter = "thrpt".equals(now.getString("mode"));
+            String verdict = "";
+            if (Math.abs(after - before) > noise && Math.abs(change) > threshold)
+            {
+                boolean better = higherIsBetter ? after > before : after < before;
+                verdict = better ? "改进" : "退步";
+                regressions += better ? 0 : 1;
+            }
+            System.out.printf(format, name(now), params(now), score(before, unit), score(after, unit),
+                    String.format("%+.1f%%", change * 100), verdict);
+
+            JSONObject baseAlloc = secondary(base, ALLOC);
+            JSONObject alloc = secondary(now, ALLOC);
+            if (baseAlloc != null && alloc != null)
+            {
+                double allocBefore = baseAlloc.getDoubleValue("score");
+                double allocAfter = alloc.getDoubleValue("score");
+                System.out.printf(format, "", "  alloc", score(allocBefore, "B/op"), score(allocAfter, "B/op"),
+                        allocBefore != 0 ? String.format("%+.1f%%", (allocAfter - allocBefore) / allocBefore * 100)
+                                : "", "");
+            }
+        }
+        for (String key : baseline.keySet())
+        {
+            if (!current.containsKey(key))
+            {
+                JSONObject base = baseline.get(key);
+                System.out.printf(format, name(base), params(base), "", "-", "", "已移除");
+            }
+        }
+        if (regressions > 0)
+        {
+            System.out.printf("%n退步: %d项%n", regressions);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 读取结果文件（基准方法+参数 -> 结果）
+     */
+    private static Map<String, JSONObject> load(String file) throws IOException
+    {
+        JSONArray results = JSON.parseArray(new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8));
+        Map<String, JSONObject> map = new LinkedHashMap<>();
+        for (int i = 0; i < results.size(); i++)
+        {
+            JSONObject result = results.getJSONObject(i);
+            map.put(result.getString("benchmark") + " " + result.getString("mode") + " " + params(result), result);
+        }
+        return map;
+    }
+
+    private static String name(JSONObject result)
+    {
+        String benchmark = result.getString("benchmark");
+        return benchmark.startsWith(PACKAGE) ? benchmark.substring(PACKAGE.length()) : benchmark;
+    }
+
+    private static String params(JSONObject result)
+    {
+        JSONObject params = result.getJSONObject("params");
+        if (params == null)
+        {
+            return "";
+        }
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Object> param : new TreeMap<>(params).entrySet())
+        {
+            text.append(text.length() > 0 ? "," : "").append(param.getKey()).append('=').append(param.getValue());
+        }
+        return text.toString();
+    }
+
+    private static JSONObject secondary(JSONObject result, String name)
+    {
+        JSONObject metrics = result.getJSONObject("secondaryMetrics");
+        if (metrics == null)
+        {
+            return null;
+        }
+        // JMH 1.37之前的版本在次要指标名前加"·"
+        return metrics.containsKey(name) ? metrics.getJSONObject(name) : metrics.getJSONObject("·" + name);
+    }
+
+    private static String score(double score, String unit)
+    {
+        return String.format(score >= 100 ? "%.0f %s" : "%.3f %s", score, unit);
+    }
+}
@@ -0,0 +1,321 @@
+package com.ruoyi.bench.app;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import com.ruoyi.app.classify.LogClassifier;
+import com.ruoyi.app.config.AnalysisConfig;
+import com.ruoyi.app.device.AnalysisDevice;
+import com.ruoyi.app.device.DevicePool;
+import com.ruoyi.app.domain.AppAnalysisTask;
+import com.ruoyi.app.metrics.LatencyHistogram;
+import com.ruoyi.app.metrics.StageMetrics;
+import com.ruoyi.app.pump.OutputPump;
+import com.ruoyi.app.service.IFridaAnalysisService;
+import com.ruoyi.app.service.impl.FridaAnalysisServiceImpl;
+import com.ruoyi.app.sse.LogHub;
+import com.ruoyi.app.sse.LogLane;
+import com.ruoyi.app.stats.PrivacyStats;
+import com.ruoyi.app.store.PrivacyEventStore;
+import com.ruoyi.app.store.ReportCache;
+import com.ruoyi.app.store.TaskLogStore;
+import com.ruoyi.app.task.AnalysisTaskDispatcher;
+import com.ruoyi.bench.ssh.ReplayExecChannel;
+import com.ruoyi.bench.ssh.ReplayScript;
+import com.ruoyi.bench.ssh.ReplaySessionManager;
+import com.ruoyi.common.config.RuoYiConfig;
+import com.ruoyi.framework.config.ThreadPoolConfig;
+
+/**
+ * 分析流程端到端吞吐量
+ *
+ * 用进程内的SSH替身（{@link ReplaySessionManager}）代替宿主机，同时启动N个Frida检测任务，
+ * 每个任务回放一份日志，经过与线上相同的组件：输出泵按行解码、隐私事件解析和落盘、日志分类、
+ * 完整日志落盘、实时统计和日志中心发布。每次调用等待全部任务结束（最后一行处理完毕）。
+ * profile：steady为普通检测日志，storm为Hook风暴（少数堆栈反复出现），burst为前一半按速率平稳输出、后一半不限速的风暴；
+ * linesPerSecond为每个任务的回放速率，0表示不限速（测最大吞吐，此时延迟反映积压）。
+ * 每轮迭代结束时输出行吞吐量、端到端行延迟（替身写出到发布到日志中心）和迭代期间的堆内存峰值。
+ *
+ * 执行：java -jar ruoyi-bench/target/benchmarks.jar AnalysisPipelineBenchmark -prof gc
+ * 限速回放：追加 -p linesPerSecond=20000；使用录制日志：追加 -jvmArgs -Dbench.fridaLog=/path/to/frida_output.log
+ *
+ * @author ruoyi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AnalysisPipelineBenchmark
+{
+    /** Frida检测命令中的脚本名，用于识别需要回放的命令 */
+    private static final String FRIDA_SCRIPT = "frida_privacy_check.py";
+
+    /** 从检测命令的报告文件名中取任务ID */
+    private static final Pattern TASK_ID = Pattern.compile("frida_report_(\\S+?)\\.xls");
+
+    /** 堆内存采样间隔（毫秒） */
+    private static final long HEAP_SAMPLE_MILLIS = 10;
+
+    /** 并发任务数 */
+    @Param({ "1", "4", "16" })
+    public int tasks;
+
+    /** 日志类型 */
+    @Param({ "steady", "storm", "burst" })
+    public String profile;
+
+    /** 每个任务的回放速率（行/秒），0表示不限速 */
+    @Param({ "0" })
+    public int linesPerSecond;
+
+    /** 每个任务的日志大小（字节） */
+    @Param({ "4194304" })
+    public int logBytes;
+
+    private File profileDir;
+
+    private AnnotationConfigApplicationContext context;
+
+    private IFridaAnalysisService fridaAnalysisService;
+
+    private ReplaySessionManager sessionManager;
+
+    private LatencyProbe probe;
+
+    /** 堆内存采样线程（不使用应用的定时线程池，取消采样时不会被当作任务异常打印） */
+    private ScheduledExecutorService sampler;
+
+    private AnalysisDevice device;
+
+    private ReplayScript script;
+
+    private final LongAdder replayedLines = new LongAdder();
+
+    private final AtomicLong heapPeak = new AtomicLong();
+
+    private ScheduledFuture<?> heapSampler;
+
+    private long iterationStart;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        List<String> lines = "storm".equals(profile) ? FridaLogSamples.storm(logBytes, 32, 20251009L)
+                : FridaLogSamples.lines(logBytes);
+        if ("burst".equals(profile))
+        {
+            int half = lines.size() / 2;
+            script = ReplayScript.of(lines.subList(0, half), linesPerSecond)
+                    .then(FridaLogSamples.storm(logBytes / 2, 32, 20251009L), 0);
+        }
+        else
+        {
+            script = ReplayScript.of(lines, linesPerSecond);
+        }
+
+        profileDir = Files.createTempDirectory("bench-pipeline").toFile();
+        new RuoYiConfig().setProfile(profileDir.getAbsolutePath());
+        sessionManager = new ReplaySessionManager(command -> command.contains(FRIDA_SCRIPT) ? script : null,
+                new File(profileDir, "remote"));
+        device = new AnalysisDevice("bench-emulator", null, null, tasks);
+
+        context = new AnnotationConfigApplicationContext();
+        ConfigurableListableBeanFactory beanFactory = context.getBeanFactory();
+        beanFactory.registerSingleton("sshSessionManager", sessionManager);
+        beanFactory.registerSingleton("analysisTaskDispatcher", new DirectDispatcher());
+        beanFactory.registerSingleton("devicePool", new DevicePool());
+        context.register(ThreadPoolConfig.class, AnalysisConfig.class, OutputPump.class, PrivacyEventStore.class,
+                LatencyProbe.class, LogClassifier.class, TaskLogStore.class, StageMetrics.class, ReportCache.class,
+                PrivacyStats.class, FridaAnalysisServiceImpl.class);
+        context.refresh();
+        fridaAnalysisService = context.getBean(IFridaAnalysisService.class);
+        sampler = Executors.newSingleThreadScheduledExecutor();
+        probe = context.getBean(LatencyProbe.class);
+        sessionManager.setOpenListener(channel -> {
+            Matcher matcher = TASK_ID.matcher(channel.getCommand());
+            if (matcher.find())
+            {
+                probe.bind(matcher.group(1), channel);
+            }
+        });
+        System.out.printf("%n每个任务回放%d行, 并发任务%d个%n", script.size(), tasks);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        sampler.shutdownNow();
+        context.close();
+        FileUtils.deleteDirectory(profileDir);
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration()
+    {
+        probe.reset();
+        replayedLines.reset();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        heapPeak.set(memory.getHeapMemoryUsage().getUsed());
+        heapSampler = sampler.scheduleAtFixedRate(() -> heapPeak.accumulateAndGet(
+                memory.getHeapMemoryUsage().getUsed(), Math::max), 0, HEAP_SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+        iterationStart = System.nanoTime();
+    }
+
+    @TearDown(Level.Iteration)
+    public void finishIteration()
+    {
+        double seconds = (System.nanoTime() - iterationStart) / 1e9;
+        heapSampler.cancel(false);
+        Map<String, Object> latency = probe.histogram.snapshot();
+        System.out.printf("%n吞吐: %.0f行/s, 行延迟: mean %.2fms p50 %sms p99 %sms max %sms, 堆峰值: %.0fMB%n",
+                replayedLines.sum() / seconds, probe.meanMillis(), latency.get("p50"), latency.get("p99"),
+                latency.get("max"), heapPeak.get() / 1048576D);
+    }
+
+    @Benchmark
+    public long replay() throws Exception
+    {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[tasks];
+        for (int i = 0; i < tasks; i++)
+        {
+            // 复用任务ID，与重新执行同一任务一样覆盖上次的日志和事件文件
+            futures[i] = fridaAnalysisService.runOnDevice("bench-" + i, device, "com.example.demo", "all", 300);
+        }
+        CompletableFuture.allOf(futures).get();
+        long lines = (long) script.size() * tasks;
+        replayedLines.add(lines);
+        return lines;
+    }
+
+    /**
+     * 任务调度的替身：任务直接在设备上执行，不入库、不续约
+     */
+    static class DirectDispatcher extends AnalysisTaskDispatcher
+    {
+        @Override
+        public void watch(String taskId, String taskType, BooleanSupplier alive)
+        {
+        }
+
+        @Override
+        public String cancel(String taskId, String taskType)
+        {
+            return AppAnalysisTask.STATUS_RUNNING;
+        }
+
+        @Override
+        public Map<String, Object> getQueueInfo(String taskId, String taskType)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * 在日志中心的发布入口测量端到端行延迟
+     *
+     * 检测输出的每一行都按原顺序发布一次，按顺序与回放脚本逐行对照（状态消息不会匹配），
+     * 匹配到的行以替身写出该行的时刻计算延迟。
+     */
+    public static class LatencyProbe extends LogHub
+    {
+        private final Map<String, Cursor> cursors = new ConcurrentHashMap<>();
+
+        private volatile LatencyHistogram histogram = new LatencyHistogram();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        void bind(String taskId, ReplayExecChannel channel)
+        {
+            cursors.put("frida:" + taskId, new Cursor(channel));
+        }
+
+        void reset()
+        {
+            histogram = new LatencyHistogram();
+            totalNanos.reset();
+        }
+
+        double meanMillis()
+        {
+            long count = histogram.getCount();
+            return count == 0 ? 0 : totalNanos.sum() / 1e6 / count;
+        }
+
+        @Override
+        public void publish(String topic, String name, Object data, LogLane lane, String key)
+        {
+            Cursor cursor = cursors.get(topic);
+            if (cursor != null && data instanceof Map)
+            {
+                Object message = ((Map<?, ?>) data).get("message");
+                long nanos = cursor.match(message);
+                if (nanos >= 0)
+                {
+                    histogram.record(nanos / 1000000);
+                    totalNanos.add(nanos);
+                }
+            }
+            super.publish(topic, name, data, lane, key);
+        }
+    }
+
+    private static class Cursor
+    {
+        private final ReplayExecChannel channel;
+
+        private final List<String> lines;
+
+        private int next;
+
+        Cursor(ReplayExecChannel channel)
+        {
+            this.channel = channel;
+            this.lines = channel.getScript().getLines();
+        }
+
+        /**
+         * @return 与下一行相同时返回该行的延迟（纳秒），否则返回-1
+         */
+        synchronized long match(Object message)
+        {
+            if (next >= lines.size() || !lines.get(next).equals(message))
+            {
+                return -1;
+            }
+            return Math.max(0, System.nanoTime() - channel.getSentAt(next++));
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.ruoyi.bench.app;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试用的Frida检测日志
+ *
+ * 指定系统属性 bench.fridaLog 时读取真实录制的日志文件，否则按frida_privacy_check.py的输出格式生成。
+ *
+ * @author ruoyi
+ */
+public final class FridaLogSamples
+{
+    private static final String SEPARATOR = "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━";
+
+    private static final String[] ACTIONS = {
+        "获取IMEI", "获取Android ID", "获取MAC地址", "获取剪切板内容", "获取定位信息",
+        "读取通讯录", "获取已安装应用列表", "获取运营商信息", "获取SIM卡序列号", "打开摄像头"
+    };
+
+    private static final String[] SUBJECTS = {
+        "APP本身", "腾讯Bugly", "友盟统计", "极光推送", "百度定位", "高德地图", "穿山甲广告", "MobTech"
+    };
+
+    private static final String[] STACK_PREFIXES = {
+        "com.example.demo.", "com.tencent.bugly.", "com.umeng.analytics.", "cn.jpush.android.",
+        "com.baidu.location.", "com.amap.api.", "com.bytedance.sdk.openadsdk.", "com.mob.tools."
+    };
+
+    private static final String[] FRAMEWORK_FRAMES = {
+        "android.app.ActivityThread.main(ActivityThread.java:7656)",
+        "java.lang.reflect.Method.invoke(Native Method)",
+        "android.os.Handler.dispatchMessage(Handler.java:106)",
+        "android.os.Looper.loop(Looper.java:223)",
+        "com.android.internal.os.ZygoteInit.main(ZygoteInit.java:947)"
+    };
+
+    private FridaLogSamples()
+    {
+    }
+
+    /**
+     * 加载或生成不小于targetBytes字节的日志行
+     */
+    public static List<String> lines(int targetBytes) throws IOException
+    {
+        String recorded = System.getProperty("bench.fridaLog");
+        if (recorded != null && !recorded.isEmpty())
+        {
+            return Files.readAllLines(Paths.get(recorded), StandardCharsets.UTF_8);
+        }
+        return generate(targetBytes, 20251009L);
+    }
+
+    /**
+     * 生成日志：隐私告警块与普通运行日志交替出现
+     */
+    public static List<String> generate(int targetBytes, long seed)
+    {
+        Random random = new Random(seed);
+        List<String> lines = new ArrayList<>();
+        long bytes = 0;
+        int second = 0;
+        while (bytes < targetBytes)
+        {
+            String ts = String.format("2025-10-09 18:%02d:%02d", (second / 60) % 60, second % 60);
+            second++;
+            int sdk = random.nextInt(SUBJECTS.length);
+            String action = ACTIONS[random.nextInt(ACTIONS.length)];
+
+            bytes += add(lines, SEPARATOR);
+            bytes += add(lines, "[" + ts + "] [ALERT] APP行为：" + action + "、行为主体：" + SUBJECTS[sdk]
+                    + "、行为描述：APP" + action + "、传入参数：arg" + random.nextInt(1000) + "，flags=" + random.nextInt(16));
+            bytes += add(lines, "[" + ts + "] [INFO] 时间点：" + ts);
+            bytes += add(lines, "[*] 调用堆栈：");
+            int depth = 8 + random.nextInt(16);
+            for (int i = 0; i < depth; i++)
+            {
+                if (i < depth / 2)
+                {
+                    String prefix = STACK_PREFIXES[i == 0 ? sdk : random.nextInt(STACK_PREFIXES.length)];
+                    bytes += add(lines, prefix + "a.b" + random.nextInt(50) + "(Unknown Source:" + random.nextInt(400) + ")");
+                }
+                else
+                {
+                    bytes += add(lines, FRAMEWORK_FRAMES[random.nextInt(FRAMEWORK_FRAMES.length)]);
+                }
+            }
+            bytes += add(lines, SEPARATOR);
+
+            int noise = random.nextInt(4);
+            for (int i = 0; i < noise; i++)
+            {
+                bytes += add(lines, "[" + ts + "] [INFO] 📊 隐私数据收集进度: " + random.nextInt(100) + "%");
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * 生成Hook风暴日志：告警连续出现，堆栈只在少数几种之间重复（同一调用点被反复触发）
+     *
+     * @param targetBytes 日志大小下限
+     * @param distinctStacks 不同堆栈的数量
+     */
+    public static List<String> storm(int targetBytes, int distinctStacks, long seed)
+    {
+        String recorded = System.getProperty("bench.fridaLog");
+        if (recorded != null && !recorded.isEmpty())
+        {
+            try
+            {
+                return Files.readAllLines(Paths.get(recorded), StandardCharsets.UTF_8);
+            }
+            catch (IOException e)
+            {
+                throw new IllegalStateException(e);
+            }
+        }
+        Random random = new Random(seed);
+        List<List<String>> stacks = new ArrayList<>();
+        int[] subjects = new int[distinctStacks];
+        for (int s = 0; s < distinctStacks; s++)
+        {
+            subjects[s] = random.nextInt(SUBJECTS.length);
+            List<String> frames = new ArrayList<>();
+            int depth = 12 + random.nextInt(16);
+            for (int i = 0; i < depth; i++)
+            {
+                if (i < depth / 2)
+                {
+                    String prefix = STACK_PREFIXES[i == 0 ? subjects[s] : random.nextInt(STACK_PREFIXES.length)];
+                    frames.add("\tat " + prefix + "a.b" + random.nextInt(50) + "(Unknown Source:" + random.nextInt(400) + ")");
+                }
+                else
+                {
+                    frames.add("\tat " + FRAMEWORK_FRAMES[random.nextInt(FRAMEWORK_FRAMES.length)]);
+                }
+            }
+            stacks.add(frames);
+        }
+        List<String> lines = new ArrayList<>();
+        long bytes = 0;
+        int event = 0;
+        while (bytes < targetBytes)
+        {
+            int s = random.nextInt(distinctStacks);
+            String ts = String.format("2025-10-09 18:%02d:%02d", (event / 600) % 60, (event / 10) % 60);
+            String action = ACTIONS[s % ACTIONS.length];
+            event++;
+
+            bytes += add(lines, SEPARATOR);
+            bytes += add(lines, "[" + ts + "] [ALERT] APP行为：" + action + "、行为主体：" + SUBJECTS[subjects[s]]
+                    + "、行为描述：APP" + action + "、传入参数：arg" + random.nextInt(1000));
+            bytes += add(lines, "[" + ts + "] [INFO] 时间点：" + ts);
+            bytes += add(lines, "[*] 调用堆栈：");
+            bytes += add(lines, "java.lang.Throwable");
+            for (String frame : stacks.get(s))
+            {
+                bytes += add(lines, frame);
+            }
+            bytes += add(lines, SEPARATOR);
+        }
+        return lines;
+    }
+
+    private static int add(List<String> lines, String line)
+    {
+        lines.add(line);
+        return line.getBytes(StandardCharsets.UTF_8).length + 1;
+    }
+}
@@ -0,0 +1,151 @@
+package com.ruoyi.bench.app;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import com.ruoyi.app.classify.LogClassifier;
+
+/**
+ * 分析日志分类耗时
+ *
+ * classifier：关键字自动机扫描一遍，得到推送判断、重要性和日志级别；
+ * legacy：原先动态分析的关键字数组循环加Frida检测的contains链，作为对照。
+ * 每次调用处理整份日志。
+ *
+ * 执行：java -jar ruoyi-bench/target/benchmarks.jar LogClassifierBenchmark -prof gc
+ *
+ * @author ruoyi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogClassifierBenchmark
+{
+    private static final String[] IMPORTANT_KEYWORDS = {
+        "✅", "❌", "⚠️", "🔍", "📊", "🎯", "💡", "🚀", "📱", "🖥️", "🔗",
+        "SUCCESS", "ERROR", "WARN", "INFO",
+        "Hook脚本加载成功", "监控中", "检测完成", "应用已启动",
+        "已附加到进程", "Hook初始化完成", "隐私数据收集进度",
+        "步骤", "启动", "安装", "配置", "完成", "失败", "成功"
+    };
+
+    private static final String[] SKIP_KEYWORDS = {
+        "调用堆栈：", "android.app.", "com.android.", "java.lang.",
+        "Native Method", "Handler.java", "Looper.java", "ApplicationPackageManager",
+        "com.mob.tools", "com.mob.commons"
+    };
+
+    /** 生成日志的大小（字节） */
+    @Param({ "8388608" })
+    public int logBytes;
+
+    private List<String> lines;
+
+    private LogClassifier classifier;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        lines = FridaLogSamples.lines(logBytes);
+        classifier = new LogClassifier();
+        System.out.printf("%n日志: %d行%n", lines.size());
+    }
+
+    @Benchmark
+    public long classifier(Blackhole bh)
+    {
+        long sent = 0;
+        for (String line : lines)
+        {
+            int flags = classifier.classify(line);
+            boolean send = (flags & LogClassifier.IMPORTANT) != 0
+                    || (flags & LogClassifier.SKIP) == 0 && (flags & LogClassifier.EVENT) != 0;
+            bh.consume((flags & LogClassifier.FRIDA_IMPORTANT) != 0);
+            bh.consume(LogClassifier.level(flags));
+            if (send)
+            {
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    @Benchmark
+    public long legacy(Blackhole bh)
+    {
+        long sent = 0;
+        for (String line : lines)
+        {
+            bh.consume(isImportantLog(line));
+            bh.consume(determineFridaLogLevel(line));
+            if (shouldSendToFrontend(line))
+            {
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    private static boolean shouldSendToFrontend(String line)
+    {
+        for (String keyword : IMPORTANT_KEYWORDS)
+        {
+            if (line.contains(keyword))
+            {
+                return true;
+            }
+        }
+        for (String keyword : SKIP_KEYWORDS)
+        {
+            if (line.contains(keyword))
+            {
+                return false;
+            }
+        }
+        return line.contains("APP行为：") || line.contains("行为主体：");
+    }
+
+    private static boolean isImportantLog(String line)
+    {
+        return line.contains("[ERROR]") || line.contains("[SUCCESS]") || line.contains("APP行为：")
+                || line.contains("隐私") || line.contains("权限") || line.contains("✅") || line.contains("❌")
+                || line.contains("⚠️") || line.contains("━━━") || line.contains("Frida")
+                || line.contains("Hook") || line.contains("检测");
+    }
+
+    private static String determineFridaLogLevel(String line)
+    {
+        if (line.contains("[ERROR]") || line.contains("❌"))
+        {
+            return "error";
+        }
+        else if (line.contains("[WARN]") || line.contains("⚠️"))
+        {
+            return "warn";
+        }
+        else if (line.contains("[SUCCESS]") || line.contains("✅"))
+        {
+            return "success";
+        }
+        else if (line.contains("[ALERT]") || line.contains("APP行为：") || line.contains("隐私"))
+        {
+            return "alert";
+        }
+        return "info";
+    }
+}
@@ -0,0 +1,100 @@
+package com.ruoyi.bench.app;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import com.ruoyi.app.parser.PrivacyEventParser;
+
+/**
+ * Frida告警解析吞吐量
+ *
+ * parser：流式解析器还原完整事件（含堆栈）；
+ * legacy：原先的逐行contains判断加split拆分告警行，作为对照。
+ * 每次调用处理整份日志，结果除以日志大小即为MB/s。
+ *
+ * 执行：java -jar ruoyi-bench/target/benchmarks.jar PrivacyEventParserBenchmark -prof gc
+ * 使用录制日志：追加 -jvmArgs -Dbench.fridaLog=/path/to/frida_output.log
+ *
+ * @author ruoyi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrivacyEventParserBenchmark
+{
+    /** 生成日志的大小（字节） */
+    @Param({ "8388608" })
+    public int logBytes;
+
+    private List<String> lines;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        lines = FridaLogSamples.lines(logBytes);
+        long bytes = 0;
+        for (String line : lines)
+        {
+            bytes += line.getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+        System.out.printf("%n日志: %d行, %.1fMB%n", lines.size(), bytes / 1024D / 1024D);
+    }
+
+    @Benchmark
+    public long parser(Blackhole bh)
+    {
+        PrivacyEventParser parser = new PrivacyEventParser(bh::consume);
+        for (String line : lines)
+        {
+            parser.onLine(line);
+        }
+        parser.onEnd();
+        return parser.getEventCount();
+    }
+
+    @Benchmark
+    public long legacy(Blackhole bh)
+    {
+        long events = 0;
+        for (String line : lines)
+        {
+            boolean privacy = line.contains("APP行为：") || line.contains("隐私") || line.contains("权限")
+                    || line.contains("位置") || line.contains("联系人") || line.contains("电话")
+                    || line.contains("设备") || line.contains("调用堆栈：");
+            boolean important = line.contains("[ERROR]") || line.contains("[SUCCESS]") || line.contains("APP行为：")
+                    || line.contains("隐私") || line.contains("权限") || line.contains("✅") || line.contains("❌")
+                    || line.contains("⚠️") || line.contains("━━━") || line.contains("Frida")
+                    || line.contains("Hook") || line.contains("检测");
+            bh.consume(important);
+            if (privacy && line.contains("APP行为："))
+            {
+                for (String part : line.trim().split("、"))
+                {
+                    String[] kv = part.split("：", 2);
+                    if (kv.length == 2)
+                    {
+                        bh.consume(kv[1]);
+                    }
+                }
+                events++;
+            }
+        }
+        return events;
+    }
+}
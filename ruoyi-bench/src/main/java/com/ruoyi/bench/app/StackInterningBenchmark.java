@@ -0,0 +1,154 @@
+package com.ruoyi.bench.app;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.alibaba.fastjson2.JSON;
+import com.ruoyi.app.domain.PrivacyEvent;
+import com.ruoyi.app.parser.PrivacyEventParser;
+import com.ruoyi.app.store.PrivacyEventStore;
+import com.ruoyi.common.config.RuoYiConfig;
+
+/**
+ * Hook风暴下的堆栈驻留
+ *
+ * interned：解析器经驻留表共享相同堆栈（当前实现）；
+ * naive：每个事件持有自己的堆栈副本（驻留之前的做法），作为对照。
+ * 两者都把整份日志的事件保留在内存中，配合 -prof gc 比较分配量；
+ * 初始化时另外输出两种方式保留事件的堆内存占用和事件文件大小。
+ *
+ * 执行：java -jar ruoyi-bench/target/benchmarks.jar StackInterningBenchmark -prof gc
+ * 使用录制日志：追加 -jvmArgs -Dbench.fridaLog=/path/to/frida_output.log
+ *
+ * @author ruoyi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class StackInterningBenchmark
+{
+    /** 生成日志的大小（字节） */
+    @Param({ "16777216" })
+    public int logBytes;
+
+    /** 不同堆栈的数量 */
+    @Param({ "32" })
+    public int distinctStacks;
+
+    private List<String> lines;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        lines = FridaLogSamples.storm(logBytes, distinctStacks, 20251009L);
+
+        long naiveHeap = retainedBytes(false);
+        long internedHeap = retainedBytes(true);
+        List<PrivacyEvent> events = parse(true);
+        long naiveFile = 0;
+        for (PrivacyEvent event : events)
+        {
+            // 驻留之前事件文件的每一行都带完整堆栈
+            naiveFile += JSON.toJSONString(event).getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+        long internedFile = storedBytes(events);
+        System.out.printf("%n事件: %d个, 不同堆栈: %d个%n", events.size(), distinctStacks);
+        System.out.printf("保留事件的堆内存: naive %.1fMB, interned %.1fMB%n", naiveHeap / 1048576D, internedHeap / 1048576D);
+        System.out.printf("事件文件: naive %.1fMB, interned %.1fMB%n", naiveFile / 1048576D, internedFile / 1048576D);
+    }
+
+    @Benchmark
+    public List<PrivacyEvent> interned()
+    {
+        return parse(true);
+    }
+
+    @Benchmark
+    public List<PrivacyEvent> naive()
+    {
+        return parse(false);
+    }
+
+    private List<PrivacyEvent> parse(boolean intern)
+    {
+        List<PrivacyEvent> events = new ArrayList<>();
+        StringBuilder buffer = new StringBuilder(1024);
+        Consumer<PrivacyEvent> consumer = intern ? events::add : event -> {
+            // 与驻留之前的解析器相同：从堆栈缓冲区截取新字符串
+            buffer.setLength(0);
+            buffer.append(event.getStack());
+            event.setStack(buffer.substring(0, buffer.length()));
+            event.setStackId(0);
+            events.add(event);
+        };
+        PrivacyEventParser parser = new PrivacyEventParser(consumer);
+        for (String line : lines)
+        {
+            parser.onLine(line);
+        }
+        parser.onEnd();
+        return events;
+    }
+
+    /**
+     * 保留全部事件时的堆内存增量（GC后测量）
+     */
+    private long retainedBytes(boolean intern)
+    {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long before = memory.getHeapMemoryUsage().getUsed();
+        List<PrivacyEvent> events = parse(intern);
+        System.gc();
+        long after = memory.getHeapMemoryUsage().getUsed();
+        if (events.isEmpty())
+        {
+            return 0;
+        }
+        return after - before;
+    }
+
+    /**
+     * 经事件存储写出的文件大小
+     */
+    private static long storedBytes(List<PrivacyEvent> events) throws IOException
+    {
+        File dir = Files.createTempDirectory("bench-events").toFile();
+        try
+        {
+            new RuoYiConfig().setProfile(dir.getAbsolutePath());
+            PrivacyEventStore store = new PrivacyEventStore();
+            try (PrivacyEventStore.EventWriter writer = store.openWriter("bench"))
+            {
+                events.forEach(writer);
+            }
+            return new File(dir, "frida/events/bench.jsonl").length();
+        }
+        finally
+        {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.ruoyi.bench.framework;
+
+import java.util.concurrent.TimeUnit;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.SourceLocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import com.ruoyi.common.annotation.DataScope;
+import com.ruoyi.common.core.domain.entity.SysUser;
+import com.ruoyi.common.core.domain.model.LoginUser;
+import com.ruoyi.framework.aspectj.DataScopeAspect;
+import com.ruoyi.framework.security.context.PermissionContextHolder;
+
+/**
+ * 数据权限过滤（DataScopeAspect，带@DataScope的列表查询每次都会经过）
+ *
+ * 当前用户为普通用户，四个角色分别是自定义（两个）、部门及以下和仅本人数据权限，其中三个角色持有本次请求的权限字符。
+ * selectUserList：经Spring AOP代理调用带@DataScope的用户列表查询（与SysUserServiceImpl相同的别名）；
+ * dataScopeFilter：直接调用拼接权限SQL的静态方法，不含切面开销。
+ *
+ * 执行：java -jar ruoyi-bench/target/benchmarks.jar DataScopeBenchmark -prof gc
+ *
+ * @author ruoyi
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataScopeBenchmark
+{
+    private FrameworkContext context;
+
+    private UserService proxy;
+
+    private SysUser currentUser;
+
+    private SysUser query;
+
+    private JoinPoint joinPoint;
+
+    @Setup
+    public void setup()
+    {
+        context = new FrameworkContext();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new UserService());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(context.getBean(DataScopeAspect.class));
+        proxy = factory.getProxy();
+
+        // @PreAuthorize("@ss.hasPermi('system:user:list')")校验通过后记录的权限字符
+        new RequestFixture("GET", "/system/user/list").browser().param("pageNum", "1").param("pageSize", "10").bind();
+        PermissionContextHolder.setContext("system:user:list");
+        LoginUser loginUser = FrameworkFixtures.loginUser();
+        FrameworkContext.login(loginUser);
+        currentUser = loginUser.getUser();
+
+        query = new SysUser();
+        query.setStatus("0");
+        query.setDeptId(105L);
+        joinPoint = new ArgsJoinPoint(new Object[] { query });
+        System.out.printf("%n数据权限条件: %s%n", proxy.selectUserList(query));
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        RequestFixture.unbind();
+        FrameworkContext.logout();
+        context.close();
+    }
+
+    @Benchmark
+    public Object selectUserList()
+    {
+        return proxy.selectUserList(query);
+    }
+
+    @Benchmark
+    public Object dataScopeFilter()
+    {
+        DataScopeAspect.dataScopeFilter(joinPoint, currentUser, "d", "u", "system:user:list");
+        return query.getParams().get(DataScopeAspect.DATA_SCOPE);
+    }
+
+    /**
+     * 带数据权限注解的查询，返回切面拼接的权限条件
+     */
+    public static class UserService
+    {
+        @DataScope(deptAlias = "d", userAlias = "u")
+        public Object selectUserList(SysUser user)
+        {
+            return user.getParams().get(DataScopeAspect.DATA_SCOPE);
+        }
+    }
+
+    /**
+     * dataScopeFilter只读取切点参数
+     */
+    private static class ArgsJoinPoint implements JoinPoint
+    {
+        private final Object[] args;
+
+        ArgsJoinPoint(Object[] args)
+        {
+            this.args = args;
+        }
+
+        @Override
+        public Object[] getArgs()
+        {
+            return args;
+        }
+
+        @Override
+        public String toShortString()
+        {
+            return toString();
+        }
+
+        @Override
+        public String toLongString()
+        {
+            return toString();
+        }
+
+        @Override
+        public Object getThis()
+        {
+            return null;
+        }
+
+        @Override
+        public Object getTarget()
+        {
+            return null;
+        }
+
+        @Override
+        public Signature getSignature()
+        {
+            return null;
+        }
+
+        @Override
+        public SourceLocation getSourceLocation()
+        {
+            return null;
+        }
+
+        @Override
+        public String getKind()
+        {
+            return METHOD_EXECUTION;
+        }
+
+        @Override
+        public StaticPart getStaticPart()
+        {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.ruoyi.bench.framework;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import com.ruoyi.common.core.domain.entity.SysDictData;
+import com.ruoyi.common.utils.DictUtils;
+import com.ruoyi.common.utils.poi.ExcelUtil;
+
+/**
+ * 字典标签翻译（DictUtils.getDictLabel）
+ *
+ * 翻译使用本地字典索引，每秒最多读取一次Redis中的字典版本，版本变化后才重新读取并反序列化字典数据。
+ * singleValue：单个值；multiValue：逗号分隔的多个值；
+ * tablePage：一页10行数据、每行3个字典列（列表翻译的典型用法）；
+ * exportColumns：导出1000行、每行3个字典列，经ExcelUtil.convertDictByExp逐个单元格翻译。
+ *
+ * 执行：java -jar ruoyi-bench/target/benchmarks.jar DictUtilsBenchmark -prof gc
+ *
+ * @author ruoyi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DictUtilsBenchmark
+{
+    /** 每条Redis命令的模拟往返时间（微秒） */
+    @Param({ "0", "200" })
+    public int redisRoundTripMicros;
+
+    private FrameworkContext context;
+
+    @Setup
+    public void setup()
+    {
+        context = new FrameworkContext();
+        Map<String, List<SysDictData>> dicts = FrameworkFixtures.dictData();
+        for (Map.Entry<String, List<SysDictData>> entry : dicts.entrySet())
+        {
+            DictUtils.setDictCache(entry.getKey(), entry.getValue());
+        }
+        if (!"修改".equals(DictUtils.getDictLabel("sys_oper_type", "2")))
+        {
+            throw new IllegalStateException("字典缓存读取失败");
+        }
+        context.getRedis().setRoundTrip(redisRoundTripMicros, TimeUnit.MICROSECONDS);
+        System.out.printf("%n字典类型: %d个%n", dicts.size());
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    @Benchmark
+    public String singleValue()
+    {
+        return DictUtils.getDictLabel("sys_oper_type", "3");
+    }
+
+    @Benchmark
+    public String multiValue()
+    {
+        return DictUtils.getDictLabel("sys_oper_type", "1,2,5");
+    }
+
+    @Benchmark
+    public void tablePage(Blackhole bh)
+    {
+        for (int row = 0; row < 10; row++)
+        {
+            bh.consume(DictUtils.getDictLabel("sys_user_sex", String.valueOf(row % 3)));
+            bh.consume(DictUtils.getDictLabel("sys_normal_disable", String.valueOf(row % 2)));
+            bh.consume(DictUtils.getDictLabel("sys_oper_type", String.valueOf(row)));
+        }
+    }
+
+    @Benchmark
+    public void exportColumns(Blackhole bh)
+    {
+        for (int row = 0; row < 1000; row++)
+        {
+            bh.consume(ExcelUtil.convertDictByExp(String.valueOf(row % 3), "sys_user_sex", DictUtils.SEPARATOR));
+            bh.consume(ExcelUtil.convertDictByExp(String.valueOf(row % 2), "sys_normal_disable", DictUtils.SEPARATOR));
+            bh.consume(ExcelUtil.convertDictByExp(String.valueOf(row % 10), "sys_oper_type", DictUtils.SEPARATOR));
+        }
+    }
+}
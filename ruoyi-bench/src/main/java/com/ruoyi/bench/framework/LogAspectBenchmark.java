@@ -0,0 +1,109 @@
+package com.ruoyi.bench.framework;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import com.ruoyi.common.annotation.Log;
+import com.ruoyi.common.core.domain.AjaxResult;
+import com.ruoyi.common.core.domain.entity.SysUser;
+import com.ruoyi.common.enums.BusinessType;
+import com.ruoyi.framework.aspectj.LogAspect;
+
+/**
+ * 操作日志切面（LogAspect，@Log注解的接口每次调用都会经过）
+ *
+ * logged：经Spring AOP代理调用带@Log的修改用户接口（PUT请求、JSON请求体），
+ * 包含切面取当前用户和请求信息、序列化参数与返回值、提交异步入库任务的全部开销；
+ * direct：直接调用同一方法，作为对照。操作日志服务只计数，不访问数据库。
+ *
+ * 执行：java -jar ruoyi-bench/target/benchmarks.jar LogAspectBenchmark -prof gc
+ *
+ * @author ruoyi
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogAspectBenchmark
+{
+    private FrameworkContext context;
+
+    private UserController target;
+
+    private UserController proxy;
+
+    private SysUser user;
+
+    @Setup
+    public void setup()
+    {
+        context = new FrameworkContext();
+        target = new UserController();
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(context.getBean(LogAspect.class));
+        proxy = factory.getProxy();
+
+        // 切面在请求线程上读取请求和登录用户
+        new RequestFixture("PUT", "/system/user").browser().remoteAddr("192.168.1.23").bind();
+        FrameworkContext.login(FrameworkFixtures.loginUser());
+
+        user = new SysUser(100L);
+        user.setDeptId(105L);
+        user.setUserName("zhangsan");
+        user.setNickName("张三");
+        user.setEmail("zhangsan@example.com");
+        user.setPhonenumber("15888888888");
+        user.setSex("0");
+        user.setStatus("0");
+        user.setPassword("admin123");
+        user.setRemark("测试人员");
+        user.setRoleIds(new Long[] { 2L, 5L });
+        user.setPostIds(new Long[] { 4L });
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        RequestFixture.unbind();
+        FrameworkContext.logout();
+        System.out.printf("%n已提交操作日志: %d条%n", context.getOperLogCount());
+        context.close();
+    }
+
+    @Benchmark
+    public AjaxResult logged()
+    {
+        return proxy.edit(user);
+    }
+
+    @Benchmark
+    public AjaxResult direct()
+    {
+        return target.edit(user);
+    }
+
+    /**
+     * 带操作日志注解的接口（与SysUserController.edit相同的注解）
+     */
+    public static class UserController
+    {
+        @Log(title = "用户管理", businessType = BusinessType.UPDATE)
+        public AjaxResult edit(SysUser user)
+        {
+            return AjaxResult.success();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.ruoyi.bench.framework;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * 基准用的HTTP请求
+ *
+ * 以动态代理实现HttpServletRequest，覆盖框架热点路径读取的部分：请求头（名称不区分大小写）、参数、
+ * 请求方式、地址、客户端IP和请求属性；其他方法返回类型默认值。
+ * {@link #bind()} 把请求绑定到当前线程，供ServletUtils、IpUtils和PermissionContextHolder读取。
+ *
+ * @author ruoyi
+ */
+public class RequestFixture
+{
+    private final String method;
+
+    private final String uri;
+
+    private final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    private final Map<String, String[]> params = new LinkedHashMap<>();
+
+    private final Map<String, Object> attributes = new LinkedHashMap<>();
+
+    private String remoteAddr = "127.0.0.1";
+
+    public RequestFixture(String method, String uri)
+    {
+        this.method = method;
+        this.uri = uri;
+    }
+
+    public RequestFixture header(String name, String value)
+    {
+        headers.put(name, value);
+        return this;
+    }
+
+    public RequestFixture param(String name, String... values)
+    {
+        params.put(name, values);
+        return this;
+    }
+
+    public RequestFixture remoteAddr(String remoteAddr)
+    {
+        this.remoteAddr = remoteAddr;
+        return this;
+    }
+
+    /**
+     * 浏览器发出的后台请求通常携带的请求头
+     */
+    public RequestFixture browser()
+    {
+        return header("Host", "localhost:8080")
+                .header("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 "
+                        + "(KHTML, like Gecko) Chrome/126.0.0.0 Safari/537.36")
+                .header("Accept", "application/json, text/plain, */*")
+                .header("Accept-Language", "zh-CN,zh;q=0.9")
+                .header("Content-Type", "application/json;charset=UTF-8");
+    }
+
+    public HttpServletRequest build()
+    {
+        return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+                new Class<?>[] { HttpServletRequest.class }, (proxy, m, args) -> {
+                    switch (m.getName())
+                    {
+                        case "getHeader":
+                            return headers.get((String) args[0]);
+                        case "getHeaders":
+                            String value = headers.get((String) args[0]);
+                            return Collections.enumeration(value != null ? Collections.singletonList(value)
+                                    : Collections.<String> emptyList());
+                        case "getHeaderNames":
+                            return Collections.enumeration(headers.keySet());
+                        case "getMethod":
+                            return method;
+                        case "getRequestURI":
+                        case "getServletPath":
+                            return uri;
+                        case "getRequestURL":
+                            return new StringBuffer("http://localhost:8080").append(uri);
+                        case "getContextPath":
+                            return "";
+                        case "getParameter":
+                            String[] values = params.get((String) args[0]);
+                            return values != null && values.length > 0 ? values[0] : null;
+                        case "getParameterValues":
+                            return params.get((String) args[0]);
+                        case "getParameterMap":
+                            return Collections.unmodifiableMap(params);
+                        case "getParameterNames":
+                            return Collections.enumeration(params.keySet());
+                        case "getRemoteAddr":
+                        case "getRemoteHost":
+                            return remoteAddr;
+                        case "getAttribute":
+                            return attributes.get((String) args[0]);
+                        case "setAttribute":
+                            attributes.put((String) args[0], args[1]);
+                            return null;
+                        case "removeAttribute":
+                            attributes.remove((String) args[0]);
+                            return null;
+                        case "getAttributeNames":
+                            return Collections.enumeration(attributes.keySet());
+                        case "getCharacterEncoding":
+                            return "UTF-8";
+                        case "getContentType":
+                            return headers.get("Content-Type");
+                        case "getScheme":
+                            return "http";
+                        case "getServerName":
+                            return "localhost";
+                        case "getServerPort":
+                            return 8080;
+                        case "getLocale":
+                            return Locale.SIMPLIFIED_CHINESE;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return method + " " + uri;
+                        default:
+                            return defaultValue(m.getReturnType());
+                    }
+                });
+    }
+
+    /**
+     * 创建请求并绑定到当前线程
+     */
+    public HttpServletRequest bind()
+    {
+        HttpServletRequest request = build();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        return request;
+    }
+
+    /**
+     * 解除当前线程绑定的请求
+     */
+    public static void unbind()
+    {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private static Object defaultValue(Class<?> type)
+    {
+        if (!type.isPrimitive() || type == void.class)
+        {
+            return null;
+        }
+        if (type == boolean.class)
+        {
+            return false;
+        }
+        if (type == long.class)
+        {
+            return 0L;
+        }
+        if (type == char.class)
+        {
+            return '\0';
+        }
+        return type == int.class ? (Object) 0 : (Object) (byte) 0;
+    }
+}
@@ -0,0 +1,149 @@
+package com.ruoyi.bench.framework;
+
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import com.ruoyi.common.constant.Constants;
+import com.ruoyi.common.core.domain.model.LoginUser;
+import com.ruoyi.framework.web.service.TokenClaimsCache;
+import com.ruoyi.framework.web.service.TokenService;
+
+/**
+ * 已验签令牌缓存在Tomcat满线程（server.tomcat.threads.max=800）下的效果
+ *
+ * 预先登录sessions个用户，800个线程各自从不同位置轮流使用这些令牌，模拟在线用户的并发请求。
+ * parseToken：取令牌中的用户名（验签或查缓存）；getLoginUser：每个请求完整的身份解析（含登录用户本地缓存）。
+ * 得分为每个线程看到的平均耗时，包含等待CPU的时间；线程数远多于CPU核数时JMH按线程各自计时汇总的结果偏差很大，
+ * 因此每轮结束时另外输出按墙钟时间统计的合计吞吐量。加 -t 1 可单独测单次CPU时间。claimsCacheTtl为0时每次都验签，
+ * 此时除验签本身外，并发线程还会在Mac.getInstance查找算法提供者时竞争同一把锁。
+ *
+ * 执行：java -jar ruoyi-bench/target/benchmarks.jar TokenClaimsCacheBenchmark -prof gc
+ *
+ * @author ruoyi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(800)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g", "-Xmn1g" })
+public class TokenClaimsCacheBenchmark
+{
+    /** 已验签令牌的缓存有效期（秒），0表示不使用 */
+    @Param({ "0", "600" })
+    public int claimsCacheTtl;
+
+    /** 在线用户数 */
+    @Param({ "1000" })
+    public int sessions;
+
+    private FrameworkContext context;
+
+    private TokenService tokenService;
+
+    private String[] jwts;
+
+    private HttpServletRequest[] requests;
+
+    /** 本轮完成的请求数 */
+    private final LongAdder completed = new LongAdder();
+
+    private long iterationStart;
+
+    @Setup
+    public void setup()
+    {
+        context = new FrameworkContext(
+                Collections.<String, Object> singletonMap("token.claimsCacheTtl", String.valueOf(claimsCacheTtl)));
+        tokenService = context.getBean(TokenService.class);
+
+        jwts = new String[sessions];
+        requests = new HttpServletRequest[sessions];
+        new RequestFixture("POST", "/login").browser().remoteAddr("192.168.1.23").bind();
+        for (int i = 0; i < sessions; i++)
+        {
+            jwts[i] = tokenService.createToken(FrameworkFixtures.loginUser());
+            requests[i] = new RequestFixture("GET", "/system/user/list").browser().remoteAddr("192.168.1.23")
+                    .header("Authorization", Constants.TOKEN_PREFIX + jwts[i]).build();
+        }
+        RequestFixture.unbind();
+        if (tokenService.getLoginUser(requests[0]) == null)
+        {
+            throw new IllegalStateException("令牌解析失败");
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration()
+    {
+        completed.reset();
+        iterationStart = System.nanoTime();
+    }
+
+    @TearDown(Level.Iteration)
+    public void endIteration()
+    {
+        double seconds = (System.nanoTime() - iterationStart) / 1e9;
+        System.out.printf("(合计 %.0f 次/秒) ", completed.sum() / seconds);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        System.out.printf("%n令牌缓存: %s%n", context.getBean(TokenClaimsCache.class).getStats());
+        context.close();
+    }
+
+    /**
+     * 每个线程的令牌游标，从随机位置开始轮流取用
+     */
+    @State(Scope.Thread)
+    public static class Cursor
+    {
+        private int next;
+
+        @Setup
+        public void setup(TokenClaimsCacheBenchmark benchmark)
+        {
+            next = ThreadLocalRandom.current().nextInt(benchmark.sessions);
+        }
+
+        int next(int sessions)
+        {
+            int index = next;
+            next = index + 1 < sessions ? index + 1 : 0;
+            return index;
+        }
+    }
+
+    @Benchmark
+    public String parseToken(Cursor cursor)
+    {
+        completed.increment();
+        return tokenService.getUsernameFromToken(jwts[cursor.next(sessions)]);
+    }
+
+    @Benchmark
+    public LoginUser getLoginUser(Cursor cursor)
+    {
+        completed.increment();
+        return tokenService.getLoginUser(requests[cursor.next(sessions)]);
+    }
+}
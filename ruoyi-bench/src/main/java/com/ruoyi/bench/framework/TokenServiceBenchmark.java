@@ -0,0 +1,115 @@
+package com.ruoyi.bench.framework;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import com.ruoyi.common.constant.CacheConstants;
+import com.ruoyi.common.constant.Constants;
+import com.ruoyi.common.core.domain.model.LoginUser;
+import com.ruoyi.common.core.redis.RedisCache;
+import com.ruoyi.framework.web.service.TokenService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+
+/**
+ * 每个请求的身份解析（JwtAuthenticationTokenFilter调用的TokenService.getLoginUser）
+ *
+ * getLoginUser：取请求头中的令牌，校验JWT签名，再从本地缓存或Redis读取登录用户；
+ * parseToken、readLoginUser：分别只做其中的JWT解析和Redis读取（含反序列化），用于拆分耗时。
+ * redisRoundTripMicros为内存Redis每条命令的模拟往返时间，0时只含序列化开销；
+ * localCacheTtl为登录用户本地缓存的有效期（秒），0表示每次都读Redis。
+ *
+ * 执行：java -jar ruoyi-bench/target/benchmarks.jar TokenServiceBenchmark -prof gc
+ *
+ * @author ruoyi
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenServiceBenchmark
+{
+    /** 每条Redis命令的模拟往返时间（微秒） */
+    @Param({ "0", "200" })
+    public int redisRoundTripMicros;
+
+    /** 登录用户本地缓存有效期（秒），0表示不使用 */
+    @Param({ "0", "60" })
+    public int localCacheTtl;
+
+    private FrameworkContext context;
+
+    private TokenService tokenService;
+
+    private RedisCache redisCache;
+
+    private HttpServletRequest request;
+
+    private String jwt;
+
+    private String userKey;
+
+    @Setup
+    public void setup()
+    {
+        context = new FrameworkContext(
+                Collections.<String, Object> singletonMap("token.localCacheTtl", String.valueOf(localCacheTtl)));
+        tokenService = context.getBean(TokenService.class);
+        redisCache = context.getBean(RedisCache.class);
+
+        // 登录时创建令牌需要读取请求的User-Agent和IP
+        new RequestFixture("POST", "/login").browser().remoteAddr("192.168.1.23").bind();
+        LoginUser loginUser = FrameworkFixtures.loginUser();
+        jwt = tokenService.createToken(loginUser);
+        RequestFixture.unbind();
+        userKey = CacheConstants.LOGIN_TOKEN_KEY + loginUser.getToken();
+
+        request = new RequestFixture("GET", "/system/user/list").browser().remoteAddr("192.168.1.23")
+                .header("Authorization", Constants.TOKEN_PREFIX + jwt).param("pageNum", "1").param("pageSize", "10")
+                .build();
+        if (tokenService.getLoginUser(request) == null)
+        {
+            throw new IllegalStateException("令牌解析失败");
+        }
+        context.getRedis().setRoundTrip(redisRoundTripMicros, TimeUnit.MICROSECONDS);
+        System.out.printf("%n令牌: %d字符, 登录用户权限: %d个%n", jwt.length(), loginUser.getPermissions().size());
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    @Benchmark
+    public LoginUser getLoginUser()
+    {
+        return tokenService.getLoginUser(request);
+    }
+
+    @Benchmark
+    public Claims parseToken()
+    {
+        return Jwts.parser().setSigningKey(FrameworkContext.TOKEN_SECRET).parseClaimsJws(jwt).getBody();
+    }
+
+    @Benchmark
+    public LoginUser readLoginUser()
+    {
+        return redisCache.getCacheObject(userKey);
+    }
+}
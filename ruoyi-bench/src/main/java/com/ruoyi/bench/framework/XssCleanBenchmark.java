@@ -0,0 +1,81 @@
+package com.ruoyi.bench.framework;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.alibaba.fastjson2.JSON;
+import com.ruoyi.common.utils.html.EscapeUtil;
+import com.ruoyi.common.utils.html.HTMLFilter;
+import com.ruoyi.system.domain.SysNotice;
+
+/**
+ * XSS过滤（XssFilter对每个请求参数和JSON请求体调用的EscapeUtil.clean）
+ *
+ * input：field为普通表单字段，json为新增通知公告的JSON请求体，notice为其中约2000字符的富文本内容。
+ * clean：当前用法，每次调用新建HTMLFilter；reusedFilter：复用同一个HTMLFilter，用于拆分构造开销。
+ *
+ * 执行：java -jar ruoyi-bench/target/benchmarks.jar XssCleanBenchmark -prof gc
+ *
+ * @author ruoyi
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XssCleanBenchmark
+{
+    @Param({ "field", "json", "notice" })
+    public String input;
+
+    private String content;
+
+    private HTMLFilter filter;
+
+    @Setup
+    public void setup()
+    {
+        String html = FrameworkFixtures.noticeHtml();
+        if ("field".equals(input))
+        {
+            content = "张三 <zhangsan@example.com>";
+        }
+        else if ("notice".equals(input))
+        {
+            content = html;
+        }
+        else
+        {
+            SysNotice notice = new SysNotice();
+            notice.setNoticeTitle("关于系统升级维护的通知");
+            notice.setNoticeType("1");
+            notice.setNoticeContent(html);
+            notice.setStatus("0");
+            content = JSON.toJSONString(notice);
+        }
+        filter = new HTMLFilter();
+        System.out.printf("%n输入: %d字符, 过滤后: %d字符%n", content.length(), EscapeUtil.clean(content).length());
+    }
+
+    @Benchmark
+    public String clean()
+    {
+        return EscapeUtil.clean(content);
+    }
+
+    @Benchmark
+    public String reusedFilter()
+    {
+        return filter.filter(content);
+    }
+}
@@ -0,0 +1,403 @@
+package com.ruoyi.bench.redis;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConnection;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.types.Expiration;
+
+/**
+ * 进程内的Redis连接工厂替身
+ *
+ * 以ConcurrentHashMap保存键值（含过期时间），实现RedisCache和RedisTemplate字符串/键操作用到的命令：
+ * get、set（含过期和NX/XX选项）、setEx、pSetEx、setNX、incr、incrBy、del、unlink、exists、expire、pExpire、
+ * persist、ttl、pTtl、keys，publish只计数（没有订阅者）。真实的RedisTemplate和FastJson2序列化器照常运行，
+ * 只有网络一侧被替换，基准结果包含序列化开销但不含网络开销；需要估计网络开销时可设置每条命令的模拟往返时间。
+ * 不支持的命令抛出UnsupportedOperationException，避免基准在不知情时测到空实现。
+ *
+ * @author ruoyi
+ */
+public class InMemoryRedisConnectionFactory implements RedisConnectionFactory
+{
+    private final Map<ByteBuffer, Entry> data = new ConcurrentHashMap<>();
+
+    private final LongAdder commands = new LongAdder();
+
+    private final LongAdder published = new LongAdder();
+
+    /** 每条命令的模拟往返时间（纳秒），0表示不模拟 */
+    private volatile long roundTripNanos;
+
+    /**
+     * 设置每条命令的模拟往返时间（局域网内的Redis通常为100~300微秒）
+     */
+    public void setRoundTrip(long time, TimeUnit unit)
+    {
+        this.roundTripNanos = unit.toNanos(time);
+    }
+
+    /**
+     * 已执行的命令数
+     */
+    public long getCommandCount()
+    {
+        return commands.sum();
+    }
+
+    /**
+     * 已发布的消息数
+     */
+    public long getPublishCount()
+    {
+        return published.sum();
+    }
+
+    /**
+     * 当前的键数量（含已过期但尚未被访问的键）
+     */
+    public int size()
+    {
+        return data.size();
+    }
+
+    /**
+     * 清空所有键
+     */
+    public void flushAll()
+    {
+        data.clear();
+    }
+
+    @Override
+    public RedisConnection getConnection()
+    {
+        return (RedisConnection) Proxy.newProxyInstance(RedisConnection.class.getClassLoader(),
+                new Class<?>[] { RedisConnection.class }, new Connection());
+    }
+
+    @Override
+    public RedisClusterConnection getClusterConnection()
+    {
+        throw new UnsupportedOperationException("内存Redis不支持集群连接");
+    }
+
+    @Override
+    public boolean getConvertPipelineAndTxResults()
+    {
+        return false;
+    }
+
+    @Override
+    public RedisSentinelConnection getSentinelConnection()
+    {
+        throw new UnsupportedOperationException("内存Redis不支持哨兵连接");
+    }
+
+    @Override
+    public DataAccessException translateExceptionIfPossible(RuntimeException ex)
+    {
+        return null;
+    }
+
+    /**
+     * 单个连接，按方法名分派命令
+     */
+    private class Connection implements InvocationHandler
+    {
+        private volatile boolean closed;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args)
+        {
+            switch (method.getName())
+            {
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "isQueueing":
+                case "isPipelined":
+                    return false;
+                case "getNativeConnection":
+                    return data;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "InMemoryRedisConnection@" + Integer.toHexString(System.identityHashCode(proxy));
+                default:
+                    return command(method, args);
+            }
+        }
+
+        private Object command(Method method, Object[] args)
+        {
+            commands.increment();
+            roundTrip();
+            switch (method.getName())
+            {
+                case "get":
+                    return value((byte[]) args[0]);
+                case "set":
+                    if (args.length == 2)
+                    {
+                        put((byte[]) args[0], (byte[]) args[1], 0);
+                        return Boolean.TRUE;
+                    }
+                    return set((byte[]) args[0], (byte[]) args[1], (Expiration) args[2], (SetOption) args[3]);
+                case "setEx":
+                    put((byte[]) args[0], (byte[]) args[2], TimeUnit.SECONDS.toMillis((Long) args[1]));
+                    return Boolean.TRUE;
+                case "pSetEx":
+                    put((byte[]) args[0], (byte[]) args[2], (Long) args[1]);
+                    return Boolean.TRUE;
+                case "setNX":
+                    return set((byte[]) args[0], (byte[]) args[1], Expiration.persistent(), SetOption.SET_IF_ABSENT);
+                case "incr":
+                    return increment((byte[]) args[0], 1);
+                case "incrBy":
+                    return increment((byte[]) args[0], ((Number) args[1]).longValue());
+                case "del":
+                case "unlink":
+                    return delete(keys(args[0]));
+                case "exists":
+                    long found = 0;
+                    for (byte[] key : keys(args[0]))
+                    {
+                        found += live(key) != null ? 1 : 0;
+                    }
+                    return method.getReturnType() == Boolean.class ? (Object) (found > 0) : (Object) found;
+                case "expire":
+                    return expire((byte[]) args[0], TimeUnit.SECONDS.toMillis((Long) args[1]));
+                case "pExpire":
+                    return expire((byte[]) args[0], (Long) args[1]);
+                case "persist":
+                    return expire((byte[]) args[0], 0);
+                case "ttl":
+                    return ttl((byte[]) args[0], args.length > 1 ? (TimeUnit) args[1] : TimeUnit.SECONDS);
+                case "pTtl":
+                    return ttl((byte[]) args[0], args.length > 1 ? (TimeUnit) args[1] : TimeUnit.MILLISECONDS);
+                case "keys":
+                    return keys((byte[]) args[0]);
+                case "publish":
+                    published.increment();
+                    return 0L;
+                default:
+                    throw new UnsupportedOperationException("内存Redis不支持命令: " + method.getName());
+            }
+        }
+    }
+
+    private void roundTrip()
+    {
+        long nanos = roundTripNanos;
+        if (nanos <= 0)
+        {
+            return;
+        }
+        // 往返时间通常小于park的调度粒度，忙等更接近真实的阻塞读
+        long deadline = System.nanoTime() + nanos;
+        while (System.nanoTime() < deadline)
+        {
+        }
+    }
+
+    private static byte[][] keys(Object arg)
+    {
+        return arg instanceof byte[][] ? (byte[][]) arg : new byte[][] { (byte[]) arg };
+    }
+
+    /**
+     * 未过期的条目，已过期的顺便删除
+     */
+    private Entry live(byte[] key)
+    {
+        ByteBuffer k = ByteBuffer.wrap(key);
+        Entry entry = data.get(k);
+        if (entry != null && entry.isExpired())
+        {
+            data.remove(k, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    private byte[] value(byte[] key)
+    {
+        Entry entry = live(key);
+        return entry != null ? entry.value : null;
+    }
+
+    private void put(byte[] key, byte[] value, long ttlMillis)
+    {
+        data.put(ByteBuffer.wrap(key), new Entry(value, expireAt(ttlMillis)));
+    }
+
+    private Boolean set(byte[] key, byte[] value, Expiration expiration, SetOption option)
+    {
+        Entry old = live(key);
+        if ((option == SetOption.SET_IF_ABSENT && old != null) || (option == SetOption.SET_IF_PRESENT && old == null))
+        {
+            return Boolean.FALSE;
+        }
+        long expireAt;
+        if (expiration == null || expiration.isPersistent())
+        {
+            expireAt = 0;
+        }
+        else if (expiration.isKeepTtl())
+        {
+            expireAt = old != null ? old.expireAt : 0;
+        }
+        else
+        {
+            expireAt = expireAt(expiration.getExpirationTimeInMilliseconds());
+        }
+        data.put(ByteBuffer.wrap(key), new Entry(value, expireAt));
+        return Boolean.TRUE;
+    }
+
+    private synchronized Long increment(byte[] key, long delta)
+    {
+        Entry old = live(key);
+        long current = old != null ? Long.parseLong(new String(old.value, StandardCharsets.UTF_8)) : 0;
+        long next = current + delta;
+        data.put(ByteBuffer.wrap(key),
+                new Entry(String.valueOf(next).getBytes(StandardCharsets.UTF_8), old != null ? old.expireAt : 0));
+        return next;
+    }
+
+    private Long delete(byte[][] keys)
+    {
+        long removed = 0;
+        for (byte[] key : keys)
+        {
+            Entry entry = data.remove(ByteBuffer.wrap(key));
+            removed += entry != null && !entry.isExpired() ? 1 : 0;
+        }
+        return removed;
+    }
+
+    private Boolean expire(byte[] key, long ttlMillis)
+    {
+        Entry entry = live(key);
+        if (entry == null)
+        {
+            return Boolean.FALSE;
+        }
+        data.put(ByteBuffer.wrap(key), new Entry(entry.value, expireAt(ttlMillis)));
+        return Boolean.TRUE;
+    }
+
+    /**
+     * 与Redis一致：键不存在返回-2，没有过期时间返回-1
+     */
+    private Long ttl(byte[] key, TimeUnit unit)
+    {
+        Entry entry = live(key);
+        if (entry == null)
+        {
+            return -2L;
+        }
+        if (entry.expireAt == 0)
+        {
+            return -1L;
+        }
+        return unit.convert(Math.max(0, entry.expireAt - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    private Set<byte[]> keys(byte[] pattern)
+    {
+        Pattern regex = glob(new String(pattern, StandardCharsets.UTF_8));
+        Set<byte[]> keys = new LinkedHashSet<>();
+        for (ByteBuffer key : data.keySet())
+        {
+            byte[] bytes = key.array();
+            if (regex.matcher(new String(bytes, StandardCharsets.UTF_8)).matches() && live(bytes) != null)
+            {
+                keys.add(bytes);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Redis的glob模式（*、?、[...]）转为正则表达式
+     */
+    private static Pattern glob(String glob)
+    {
+        StringBuilder regex = new StringBuilder();
+        boolean inClass = false;
+        for (int i = 0; i < glob.length(); i++)
+        {
+            char c = glob.charAt(i);
+            if (c == '\\' && i + 1 < glob.length())
+            {
+                regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+            }
+            else if (inClass)
+            {
+                regex.append(c);
+                inClass = c != ']';
+            }
+            else if (c == '*')
+            {
+                regex.append(".*");
+            }
+            else if (c == '?')
+            {
+                regex.append('.');
+            }
+            else if (c == '[')
+            {
+                regex.append('[');
+                inClass = true;
+            }
+            else
+            {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    private static long expireAt(long ttlMillis)
+    {
+        return ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : 0;
+    }
+
+    private static final class Entry
+    {
+        final byte[] value;
+
+        /** 过期时刻（毫秒），0表示不过期 */
+        final long expireAt;
+
+        Entry(byte[] value, long expireAt)
+        {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+
+        boolean isExpired()
+        {
+            return expireAt != 0 && System.currentTimeMillis() >= expireAt;
+        }
+    }
+}
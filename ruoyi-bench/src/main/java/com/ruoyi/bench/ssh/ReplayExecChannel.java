@@ -0,0 +1,280 @@
+package com.ruoyi.bench.ssh;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.LockSupport;
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.JSchException;
+import com.ruoyi.app.ssh.RemoteProcess;
+
+/**
+ * 回放脚本输出的exec通道替身
+ *
+ * connect后由独立线程（相当于JSch的会话线程）把脚本各行写入setOutputStream设置的输出流：
+ * 先输出进程号标记（与{@link RemoteProcess#wrap}包装后的命令一致），再按各段速率输出脚本行，
+ * 连续的行合并为不超过一个SSH数据包大小的块写出。输出完毕后设置退出码并关闭输出流。
+ * 收到SIGTERM/SIGKILL或被断开时停止回放，退出码分别为143、137、-1。
+ * 每行写出的时刻记录在{@link #getSentAt(int)}中，用于计算端到端延迟。
+ *
+ * @author ruoyi
+ */
+public class ReplayExecChannel extends ChannelExec
+{
+    /** 单次写出的最大字节数（与SSH数据包大小相当） */
+    private static final int PACKET_BYTES = 32 * 1024;
+
+    private static final int EXIT_TERM = 143;
+
+    private static final int EXIT_KILL = 137;
+
+    /** 被断开时的退出码（未收到退出码） */
+    private static final int EXIT_DISCONNECT = -1;
+
+    private final String command;
+
+    private final ReplayScript script;
+
+    private final int pid;
+
+    /** 各行写出的时刻（System.nanoTime） */
+    private final long[] sentAt;
+
+    private volatile OutputStream out;
+
+    private volatile OutputStream err;
+
+    private volatile Thread thread;
+
+    private volatile boolean connected;
+
+    private volatile boolean closed;
+
+    private volatile int exitStatus = -1;
+
+    /** 停止回放时的退出码，0表示未停止 */
+    private volatile int stopStatus;
+
+    public ReplayExecChannel(String command, ReplayScript script, int pid)
+    {
+        this.command = command;
+        this.script = script;
+        this.pid = pid;
+        this.sentAt = new long[script.size()];
+    }
+
+    @Override
+    public void setOutputStream(OutputStream out)
+    {
+        this.out = out;
+    }
+
+    @Override
+    public void setOutputStream(OutputStream out, boolean dontclose)
+    {
+        this.out = out;
+    }
+
+    @Override
+    public void setErrStream(OutputStream err)
+    {
+        this.err = err;
+    }
+
+    @Override
+    public void setErrStream(OutputStream err, boolean dontclose)
+    {
+        this.err = err;
+    }
+
+    @Override
+    public void connect() throws JSchException
+    {
+        connect(0);
+    }
+
+    @Override
+    public synchronized void connect(int connectTimeout) throws JSchException
+    {
+        if (connected || closed)
+        {
+            throw new JSchException("channel is already connected");
+        }
+        connected = true;
+        Thread replay = new Thread(this::replay, "replay-" + pid);
+        replay.setDaemon(true);
+        thread = replay;
+        replay.start();
+    }
+
+    @Override
+    public boolean isConnected()
+    {
+        return connected;
+    }
+
+    @Override
+    public boolean isClosed()
+    {
+        return closed;
+    }
+
+    @Override
+    public int getExitStatus()
+    {
+        return exitStatus;
+    }
+
+    @Override
+    public void disconnect()
+    {
+        if (connected)
+        {
+            connected = false;
+            stop(EXIT_DISCONNECT);
+        }
+        // 从JSch的全局通道表中移除
+        super.disconnect();
+    }
+
+    /**
+     * 向进程发送信号（TERM或KILL），回放在当前块写完后停止
+     */
+    public void signal(String signal)
+    {
+        stop("KILL".equals(signal) ? EXIT_KILL : EXIT_TERM);
+    }
+
+    private void stop(int status)
+    {
+        if (stopStatus == 0)
+        {
+            stopStatus = status;
+        }
+        Thread replay = thread;
+        if (replay != null)
+        {
+            LockSupport.unpark(replay);
+        }
+    }
+
+    private void replay()
+    {
+        OutputStream stdout = out;
+        byte[] packet = new byte[PACKET_BYTES];
+        try
+        {
+            byte[] marker = (RemoteProcess.PID_MARKER + pid + "\n").getBytes(StandardCharsets.UTF_8);
+            stdout.write(marker, 0, marker.length);
+            int used = 0;
+            int pending = 0;
+            int line = 0;
+            for (int segment = 0; segment < script.segmentCount() && stopStatus == 0; segment++)
+            {
+                int end = script.segmentEnd(segment);
+                int rate = script.segmentRate(segment);
+                int first = line;
+                long start = System.nanoTime();
+                for (; line < end && stopStatus == 0; line++)
+                {
+                    if (rate > 0)
+                    {
+                        long wait = start + (line - first) * 1000000000L / rate - System.nanoTime();
+                        if (wait > 0)
+                        {
+                            // 限速时先把已到期的行发出去，再等待下一行
+                            used = flush(stdout, packet, used, pending, line);
+                            pending = line;
+                            LockSupport.parkNanos(wait);
+                        }
+                    }
+                    byte[] bytes = script.encoded(line);
+                    if (used + bytes.length > packet.length)
+                    {
+                        used = flush(stdout, packet, used, pending, line);
+                        pending = line;
+                    }
+                    if (bytes.length > packet.length)
+                    {
+                        sentAt[line] = System.nanoTime();
+                        stdout.write(bytes, 0, bytes.length);
+                        pending = line + 1;
+                        continue;
+                    }
+                    System.arraycopy(bytes, 0, packet, used, bytes.length);
+                    used += bytes.length;
+                }
+            }
+            flush(stdout, packet, used, pending, line);
+        }
+        catch (IOException e)
+        {
+            stop(EXIT_DISCONNECT);
+        }
+        finally
+        {
+            exitStatus = stopStatus != 0 ? stopStatus : script.getExitStatus();
+            closed = true;
+            close(stdout);
+            close(err);
+        }
+    }
+
+    /**
+     * 写出块中的行[from, to)，写出前记录时刻
+     *
+     * @return 块中剩余的字节数（0）
+     */
+    private int flush(OutputStream stdout, byte[] packet, int used, int from, int to) throws IOException
+    {
+        if (used == 0)
+        {
+            return 0;
+        }
+        long now = System.nanoTime();
+        for (int i = from; i < to; i++)
+        {
+            sentAt[i] = now;
+        }
+        stdout.write(packet, 0, used);
+        return 0;
+    }
+
+    private static void close(OutputStream stream)
+    {
+        if (stream == null)
+        {
+            return;
+        }
+        try
+        {
+            stream.close();
+        }
+        catch (IOException ignored)
+        {
+        }
+    }
+
+    public String getCommand()
+    {
+        return command;
+    }
+
+    public ReplayScript getScript()
+    {
+        return script;
+    }
+
+    public int getPid()
+    {
+        return pid;
+    }
+
+    /**
+     * 第index行写出的时刻（System.nanoTime），尚未写出时为0
+     */
+    public long getSentAt(int index)
+    {
+        return sentAt[index];
+    }
+}
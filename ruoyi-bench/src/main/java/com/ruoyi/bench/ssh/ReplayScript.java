@@ -0,0 +1,105 @@
+package com.ruoyi.bench.ssh;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 替身远程命令的输出脚本
+ *
+ * 由若干段组成，每段一组输出行和回放速率（行/秒，0表示不限速），
+ * 例如平稳输出之后接一段不限速的Hook风暴。各行预先编码，回放时不再分配；
+ * 脚本创建后不再修改，可被多个通道同时回放。
+ *
+ * @author ruoyi
+ */
+public class ReplayScript
+{
+    private final List<String> lines = new ArrayList<>();
+
+    private final List<byte[]> encoded = new ArrayList<>();
+
+    /** 各段的结束行号（不含）和速率 */
+    private final List<int[]> segments = new ArrayList<>();
+
+    private int exitStatus;
+
+    /**
+     * 按指定速率输出一组行
+     *
+     * @param lines 输出行（不含换行符）
+     * @param linesPerSecond 速率（行/秒），0表示不限速
+     */
+    public static ReplayScript of(List<String> lines, int linesPerSecond)
+    {
+        return new ReplayScript().then(lines, linesPerSecond);
+    }
+
+    /**
+     * 追加一段输出
+     */
+    public ReplayScript then(List<String> lines, int linesPerSecond)
+    {
+        for (String line : lines)
+        {
+            this.lines.add(line);
+            this.encoded.add((line + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        segments.add(new int[] { this.lines.size(), Math.max(0, linesPerSecond) });
+        return this;
+    }
+
+    /**
+     * 正常输出完毕时的退出码（默认0）
+     */
+    public ReplayScript exitStatus(int exitStatus)
+    {
+        this.exitStatus = exitStatus;
+        return this;
+    }
+
+    public List<String> getLines()
+    {
+        return Collections.unmodifiableList(lines);
+    }
+
+    public int size()
+    {
+        return lines.size();
+    }
+
+    public int getExitStatus()
+    {
+        return exitStatus;
+    }
+
+    /**
+     * 第index行的UTF-8编码（含换行符）
+     */
+    byte[] encoded(int index)
+    {
+        return encoded.get(index);
+    }
+
+    int segmentCount()
+    {
+        return segments.size();
+    }
+
+    /**
+     * 第segment段的结束行号（不含）
+     */
+    int segmentEnd(int segment)
+    {
+        return segments.get(segment)[0];
+    }
+
+    /**
+     * 第segment段的速率（行/秒），0表示不限速
+     */
+    int segmentRate(int segment)
+    {
+        return segments.get(segment)[1];
+    }
+}
@@ -0,0 +1,186 @@
+package com.ruoyi.bench.ssh;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.ChannelSftp;
+import com.ruoyi.app.ssh.SshExecResult;
+import com.ruoyi.app.ssh.SshSessionManager;
+
+/**
+ * 进程内的SSH会话管理器替身
+ *
+ * 代替真实宿主机运行分析流程：exec通道按命令取回放脚本（{@link ReplayExecChannel}），
+ * sftp通道映射到本地目录（{@link ReplaySftpChannel}），不建立网络连接，也不需要密钥。
+ * 停止任务时发送的kill命令转为对应通道的信号；其他一次性命令若有脚本则返回脚本输出，否则成功且无输出。
+ * 执行过的一次性命令按顺序记录，可用于检查停止流程发送的信号。
+ *
+ * @author ruoyi
+ */
+public class ReplaySessionManager extends SshSessionManager
+{
+    /** RemoteProcess发送的进程组信号 */
+    private static final Pattern SIGNAL = Pattern.compile("kill -(\\w+) -- -(\\d+)");
+
+    private final Function<String, ReplayScript> scripts;
+
+    private final File sftpRoot;
+
+    private final AtomicInteger nextPid = new AtomicInteger(1000);
+
+    /** 进程号 -> 未归还的exec通道 */
+    private final Map<Integer, ReplayExecChannel> channels = new ConcurrentHashMap<>();
+
+    private final List<String> commands = new CopyOnWriteArrayList<>();
+
+    private volatile Consumer<ReplayExecChannel> openListener;
+
+    /**
+     * @param scripts 命令 -> 回放脚本，返回null时命令没有输出
+     * @param sftpRoot sftp通道的根目录
+     */
+    public ReplaySessionManager(Function<String, ReplayScript> scripts, File sftpRoot)
+    {
+        this.scripts = scripts;
+        this.sftpRoot = sftpRoot;
+    }
+
+    /**
+     * 设置exec通道创建时的回调（在通道连接之前调用）
+     */
+    public void setOpenListener(Consumer<ReplayExecChannel> openListener)
+    {
+        this.openListener = openListener;
+    }
+
+    @Override
+    public void init()
+    {
+        // 没有会话池需要预热和巡检
+    }
+
+    @Override
+    public void destroy()
+    {
+        for (ReplayExecChannel channel : channels.values())
+        {
+            channel.disconnect();
+        }
+        channels.clear();
+    }
+
+    @Override
+    public ChannelExec openExec(String command)
+    {
+        return openExec(null, command);
+    }
+
+    @Override
+    public ChannelExec openExec(String host, String command)
+    {
+        ReplayScript script = scripts.apply(command);
+        ReplayExecChannel channel = new ReplayExecChannel(command,
+                script != null ? script : new ReplayScript(), nextPid.getAndIncrement());
+        channels.put(channel.getPid(), channel);
+        Consumer<ReplayExecChannel> listener = openListener;
+        if (listener != null)
+        {
+            listener.accept(channel);
+        }
+        return channel;
+    }
+
+    @Override
+    public ChannelSftp openSftp()
+    {
+        return openSftp(null);
+    }
+
+    @Override
+    public ChannelSftp openSftp(String host)
+    {
+        ReplaySftpChannel channel = new ReplaySftpChannel(sftpRoot);
+        channel.connect();
+        return channel;
+    }
+
+    @Override
+    public void release(Channel channel)
+    {
+        if (channel == null)
+        {
+            return;
+        }
+        if (channel instanceof ReplayExecChannel)
+        {
+            channels.remove(((ReplayExecChannel) channel).getPid());
+        }
+        channel.disconnect();
+    }
+
+    @Override
+    public SshExecResult exec(String host, String command, long timeoutMillis)
+    {
+        commands.add(command);
+        Matcher matcher = SIGNAL.matcher(command);
+        if (matcher.find())
+        {
+            ReplayExecChannel channel = channels.get(Integer.parseInt(matcher.group(2)));
+            if (channel == null)
+            {
+                return new SshExecResult(1, "", "kill: (" + matcher.group(2) + ") - No such process");
+            }
+            channel.signal(matcher.group(1));
+            return new SshExecResult(0, "");
+        }
+        ReplayScript script = scripts.apply(command);
+        if (script == null)
+        {
+            return new SshExecResult(0, "");
+        }
+        return new SshExecResult(script.getExitStatus(), String.join("\n", script.getLines()));
+    }
+
+    /**
+     * 命令中包含指定内容的未归还exec通道
+     */
+    public ReplayExecChannel find(String fragment)
+    {
+        for (ReplayExecChannel channel : channels.values())
+        {
+            if (channel.getCommand().contains(fragment))
+            {
+                return channel;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 执行过的一次性命令（按顺序）
+     */
+    public List<String> getCommands()
+    {
+        return new ArrayList<>(commands);
+    }
+
+    @Override
+    public Map<String, Object> getMetrics()
+    {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("activeChannels", channels.size());
+        metrics.put("commands", commands.size());
+        return metrics;
+    }
+}
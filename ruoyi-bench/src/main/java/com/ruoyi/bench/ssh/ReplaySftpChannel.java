@@ -0,0 +1,281 @@
+package com.ruoyi.bench.ssh;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpATTRS;
+import com.jcraft.jsch.SftpException;
+import com.jcraft.jsch.SftpProgressMonitor;
+
+/**
+ * sftp通道替身，远程路径映射到本地目录
+ *
+ * 覆盖分析流程用到的操作：上传（含续传的APPEND模式和进度回调）、下载、stat/lstat、改名、删除、建目录和切换目录。
+ * 文件不存在等错误与真实服务端一样以SftpException返回（SSH_FX_NO_SUCH_FILE等）。
+ *
+ * @author ruoyi
+ */
+public class ReplaySftpChannel extends ChannelSftp
+{
+    private static final int BUFFER_SIZE = 32 * 1024;
+
+    private final File root;
+
+    private String cwd = "/";
+
+    private volatile boolean connected;
+
+    /**
+     * @param root 远程文件系统的根目录
+     */
+    public ReplaySftpChannel(File root)
+    {
+        this.root = root;
+    }
+
+    @Override
+    public void connect()
+    {
+        connect(0);
+    }
+
+    @Override
+    public void connect(int connectTimeout)
+    {
+        root.mkdirs();
+        connected = true;
+    }
+
+    @Override
+    public boolean isConnected()
+    {
+        return connected;
+    }
+
+    @Override
+    public void disconnect()
+    {
+        connected = false;
+        super.disconnect();
+    }
+
+    @Override
+    public String pwd()
+    {
+        return cwd;
+    }
+
+    @Override
+    public void cd(String path) throws SftpException
+    {
+        String target = absolute(path);
+        if (!local(target).isDirectory())
+        {
+            throw new SftpException(SSH_FX_NO_SUCH_FILE, "No such file");
+        }
+        cwd = target;
+    }
+
+    @Override
+    public void mkdir(String path) throws SftpException
+    {
+        if (!local(path).mkdir())
+        {
+            throw new SftpException(SSH_FX_FAILURE, "Failure");
+        }
+    }
+
+    @Override
+    public void rm(String path) throws SftpException
+    {
+        File file = existing(path);
+        if (file.isDirectory() || !file.delete())
+        {
+            throw new SftpException(SSH_FX_FAILURE, "Failure");
+        }
+    }
+
+    @Override
+    public void rename(String oldPath, String newPath) throws SftpException
+    {
+        try
+        {
+            Files.move(existing(oldPath).toPath(), local(newPath).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException e)
+        {
+            throw new SftpException(SSH_FX_FAILURE, e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public SftpATTRS stat(String path) throws SftpException
+    {
+        return attributes(existing(path));
+    }
+
+    @Override
+    public SftpATTRS lstat(String path) throws SftpException
+    {
+        return attributes(existing(path));
+    }
+
+    @Override
+    public void get(String src, OutputStream dst) throws SftpException
+    {
+        get(src, dst, null);
+    }
+
+    @Override
+    public void get(String src, OutputStream dst, SftpProgressMonitor monitor) throws SftpException
+    {
+        File file = existing(src);
+        try (InputStream in = new FileInputStream(file))
+        {
+            copy(in, dst, monitor, SftpProgressMonitor.GET, src, file.length());
+        }
+        catch (IOException e)
+        {
+            throw new SftpException(SSH_FX_FAILURE, e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public InputStream get(String src) throws SftpException
+    {
+        try
+        {
+            return new FileInputStream(existing(src));
+        }
+        catch (IOException e)
+        {
+            throw new SftpException(SSH_FX_FAILURE, e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void put(InputStream src, String dst) throws SftpException
+    {
+        put(src, dst, null, OVERWRITE);
+    }
+
+    @Override
+    public void put(InputStream src, String dst, int mode) throws SftpException
+    {
+        put(src, dst, null, mode);
+    }
+
+    @Override
+    public void put(InputStream src, String dst, SftpProgressMonitor monitor) throws SftpException
+    {
+        put(src, dst, monitor, OVERWRITE);
+    }
+
+    @Override
+    public void put(InputStream src, String dst, SftpProgressMonitor monitor, int mode) throws SftpException
+    {
+        File file = local(dst);
+        if (!file.getParentFile().isDirectory())
+        {
+            throw new SftpException(SSH_FX_NO_SUCH_FILE, "No such file");
+        }
+        try (OutputStream out = new FileOutputStream(file, mode == APPEND))
+        {
+            copy(src, out, monitor, SftpProgressMonitor.PUT, dst, SftpProgressMonitor.UNKNOWN_SIZE);
+        }
+        catch (IOException e)
+        {
+            throw new SftpException(SSH_FX_FAILURE, e.getMessage(), e);
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out, SftpProgressMonitor monitor, int op, String path,
+            long size) throws IOException, SftpException
+    {
+        if (monitor != null)
+        {
+            monitor.init(op, path, path, size);
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int n;
+        try
+        {
+            while ((n = in.read(buffer)) != -1)
+            {
+                out.write(buffer, 0, n);
+                if (monitor != null && !monitor.count(n))
+                {
+                    throw new SftpException(SSH_FX_FAILURE, "canceled");
+                }
+            }
+        }
+        finally
+        {
+            if (monitor != null)
+            {
+                monitor.end();
+            }
+        }
+    }
+
+    private String absolute(String path)
+    {
+        String full = path.startsWith("/") ? path : (cwd.endsWith("/") ? cwd : cwd + "/") + path;
+        return new File(full).toPath().normalize().toString().replace(File.separatorChar, '/');
+    }
+
+    private File local(String path)
+    {
+        return new File(root, absolute(path));
+    }
+
+    private File existing(String path) throws SftpException
+    {
+        File file = local(path);
+        if (!file.exists())
+        {
+            throw new SftpException(SSH_FX_NO_SUCH_FILE, "No such file");
+        }
+        return file;
+    }
+
+    /**
+     * JSch的SftpATTRS只能由协议报文构造，替身经反射填写大小、权限和时间
+     */
+    private static SftpATTRS attributes(File file) throws SftpException
+    {
+        try
+        {
+            Constructor<SftpATTRS> constructor = SftpATTRS.class.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            SftpATTRS attrs = constructor.newInstance();
+            int time = (int) (file.lastModified() / 1000);
+            set(attrs, "flags", SftpATTRS.SSH_FILEXFER_ATTR_SIZE | SftpATTRS.SSH_FILEXFER_ATTR_PERMISSIONS
+                    | SftpATTRS.SSH_FILEXFER_ATTR_ACMODTIME);
+            set(attrs, "size", file.length());
+            set(attrs, "permissions", file.isDirectory() ? 040755 : 0100644);
+            set(attrs, "atime", time);
+            set(attrs, "mtime", time);
+            return attrs;
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new SftpException(SSH_FX_FAILURE, e.getMessage(), e);
+        }
+    }
+
+    private static void set(SftpATTRS attrs, String name, Object value) throws ReflectiveOperationException
+    {
+        Field field = SftpATTRS.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(attrs, value);
+    }
+}
@@ -27,6 +27,11 @@ public class CacheConstants
      */
     public static final String SYS_DICT_KEY = "sys_dict:";
 
+    /**
+     * 字典版本 cache key（字典缓存每次变更时更新，各节点据此重建本地字典索引）
+     */
+    public static final String SYS_DICT_VERSION_KEY = "sys_dict_version";
+
     /**
      * 防重提交 redis key
      */
@@ -41,4 +46,9 @@ public class CacheConstants
      * 登录账户密码错误次数 redis key
      */
     public static final String PWD_ERR_CNT_KEY = "pwd_err_cnt:";
+
+    /**
+     * 登录用户本地缓存失效通知 redis channel
+     */
+    public static final String LOGIN_TOKEN_INVALIDATE_CHANNEL = "login_tokens_invalidate";
 }
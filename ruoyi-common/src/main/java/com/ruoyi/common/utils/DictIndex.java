@@ -0,0 +1,235 @@
+package com.ruoyi.common.utils;
+
+import java.util.List;
+import com.ruoyi.common.core.domain.entity.SysDictData;
+
+/**
+ * 单个字典类型的查找索引（不可变）
+ *
+ * 由Redis中的字典数据一次性构建，字典值到标签、标签到字典值各一张开放寻址散列表。
+ * 多个值时按分隔符逐段在原字符串上查找，不拆分出子串；结果按字典顺序输出，与逐条比较的结果相同。
+ *
+ * @author ruoyi
+ */
+final class DictIndex
+{
+    /** 构建时的字典版本 */
+    private final String version;
+
+    /** Redis中是否存在该字典类型 */
+    private final boolean present;
+
+    private final String[] values;
+
+    private final String[] labels;
+
+    private final Table byValue;
+
+    private final Table byLabel;
+
+    DictIndex(String version, List<SysDictData> datas)
+    {
+        this.version = version;
+        this.present = datas != null;
+        int size = datas != null ? datas.size() : 0;
+        this.values = new String[size];
+        this.labels = new String[size];
+        for (int i = 0; i < size; i++)
+        {
+            values[i] = datas.get(i).getDictValue();
+            labels[i] = datas.get(i).getDictLabel();
+        }
+        this.byValue = new Table(values);
+        this.byLabel = new Table(labels);
+    }
+
+    String getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * 字典值转为标签
+     */
+    String getLabel(String dictValue, String separator)
+    {
+        return translate(dictValue, separator, byValue, labels);
+    }
+
+    /**
+     * 标签转为字典值
+     */
+    String getValue(String dictLabel, String separator)
+    {
+        return translate(dictLabel, separator, byLabel, values);
+    }
+
+    /**
+     * 所有字典值，以分隔符连接
+     */
+    String getValues()
+    {
+        return join(values);
+    }
+
+    /**
+     * 所有标签，以分隔符连接
+     */
+    String getLabels()
+    {
+        return join(labels);
+    }
+
+    private String translate(String text, String separator, Table table, String[] targets)
+    {
+        if (!present)
+        {
+            return StringUtils.EMPTY;
+        }
+        if (!containsSeparator(text, separator))
+        {
+            int index = table.get(text, 0, text.length());
+            return index >= 0 ? targets[index] : StringUtils.EMPTY;
+        }
+        boolean[] matched = new boolean[targets.length];
+        int count = 0;
+        int from = 0;
+        while (true)
+        {
+            int to = text.indexOf(separator, from);
+            int index = table.get(text, from, to >= 0 ? to : text.length());
+            if (index >= 0 && !matched[index])
+            {
+                matched[index] = true;
+                count++;
+            }
+            if (to < 0)
+            {
+                break;
+            }
+            from = to + separator.length();
+        }
+        if (count == 0)
+        {
+            return StringUtils.EMPTY;
+        }
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < targets.length; i++)
+        {
+            if (matched[i])
+            {
+                result.append(result.length() > 0 ? separator : StringUtils.EMPTY).append(targets[i]);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * 是否含有分隔符中的任一字符（与StringUtils.containsAny相同，但不复制字符数组）
+     */
+    private static boolean containsSeparator(String text, String separator)
+    {
+        for (int i = 0; i < separator.length(); i++)
+        {
+            if (text.indexOf(separator.charAt(i)) >= 0)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String join(String[] items)
+    {
+        if (!present)
+        {
+            return StringUtils.EMPTY;
+        }
+        StringBuilder result = new StringBuilder();
+        for (String item : items)
+        {
+            result.append(result.length() > 0 ? DictUtils.SEPARATOR : StringUtils.EMPTY).append(item);
+        }
+        return result.toString();
+    }
+
+    /**
+     * 字符串到序号的开放寻址散列表，可直接查找字符串中的一段
+     */
+    private static final class Table
+    {
+        private final String[] keys;
+
+        private final int[] ordinals;
+
+        private final int mask;
+
+        Table(String[] source)
+        {
+            int capacity = 2;
+            while (capacity < source.length * 2)
+            {
+                capacity <<= 1;
+            }
+            keys = new String[capacity];
+            ordinals = new int[capacity];
+            mask = capacity - 1;
+            for (int i = 0; i < source.length; i++)
+            {
+                String key = source[i];
+                if (key == null)
+                {
+                    continue;
+                }
+                int slot = spread(key.hashCode()) & mask;
+                while (keys[slot] != null && !keys[slot].equals(key))
+                {
+                    slot = (slot + 1) & mask;
+                }
+                // 重复的键保留第一个
+                if (keys[slot] == null)
+                {
+                    keys[slot] = key;
+                    ordinals[slot] = i;
+                }
+            }
+        }
+
+        /**
+         * 查找text中[from, to)这一段
+         *
+         * @return 序号，不存在时返回-1
+         */
+        int get(String text, int from, int to)
+        {
+            int length = to - from;
+            int hash;
+            if (from == 0 && to == text.length())
+            {
+                hash = text.hashCode();
+            }
+            else
+            {
+                hash = 0;
+                for (int i = from; i < to; i++)
+                {
+                    hash = 31 * hash + text.charAt(i);
+                }
+            }
+            for (int slot = spread(hash) & mask; keys[slot] != null; slot = (slot + 1) & mask)
+            {
+                String key = keys[slot];
+                if (key.length() == length && text.regionMatches(from, key, 0, length))
+                {
+                    return ordinals[slot];
+                }
+            }
+            return -1;
+        }
+
+        private static int spread(int hash)
+        {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
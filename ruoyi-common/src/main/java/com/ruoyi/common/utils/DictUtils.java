@@ -2,15 +2,21 @@ package com.ruoyi.common.utils;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import com.alibaba.fastjson2.JSONArray;
 import com.ruoyi.common.constant.CacheConstants;
 import com.ruoyi.common.core.domain.entity.SysDictData;
 import com.ruoyi.common.core.redis.RedisCache;
 import com.ruoyi.common.utils.spring.SpringUtils;
+import com.ruoyi.common.utils.uuid.IdUtils;
 
 /**
  * 字典工具类
  * 
+ * 标签和字典值的翻译使用本地字典索引，只在Redis中的字典版本变化后按类型重建；
+ * 本节点修改字典缓存时立即生效，其他节点最迟在一个检查间隔后生效。
+ * 
  * @author ruoyi
  */
 public class DictUtils
@@ -20,6 +26,26 @@ public class DictUtils
      */
     public static final String SEPARATOR = ",";
 
+    /**
+     * 检查Redis字典版本的间隔（毫秒）
+     */
+    private static final long VERSION_CHECK_INTERVAL = 1000;
+
+    /**
+     * 本地字典索引（字典类型 -> 索引）
+     */
+    private static final Map<String, DictIndex> INDEXES = new ConcurrentHashMap<>();
+
+    /**
+     * 最近一次读到的字典版本
+     */
+    private static volatile String version;
+
+    /**
+     * 最近一次检查字典版本的时间
+     */
+    private static volatile long versionCheckedAt;
+
     /**
      * 设置字典缓存
      * 
@@ -29,6 +55,7 @@ public class DictUtils
     public static void setDictCache(String key, List<SysDictData> dictDatas)
     {
         SpringUtils.getBean(RedisCache.class).setCacheObject(getCacheKey(key), dictDatas);
+        updateDictVersion();
     }
 
     /**
@@ -89,37 +116,7 @@ public class DictUtils
      */
     public static String getDictLabel(String dictType, String dictValue, String separator)
     {
-        StringBuilder propertyString = new StringBuilder();
-        List<SysDictData> datas = getDictCache(dictType);
-        if (StringUtils.isNull(datas))
-        {
-            return StringUtils.EMPTY;
-        }
-        if (StringUtils.containsAny(separator, dictValue))
-        {
-            for (SysDictData dict : datas)
-            {
-                for (String value : dictValue.split(separator))
-                {
-                    if (value.equals(dict.getDictValue()))
-                    {
-                        propertyString.append(dict.getDictLabel()).append(separator);
-                        break;
-                    }
-                }
-            }
-        }
-        else
-        {
-            for (SysDictData dict : datas)
-            {
-                if (dictValue.equals(dict.getDictValue()))
-                {
-                    return dict.getDictLabel();
-                }
-            }
-        }
-        return StringUtils.stripEnd(propertyString.toString(), separator);
+        return getDictIndex(dictType).getLabel(dictValue, separator);
     }
 
     /**
@@ -132,37 +129,7 @@ public class DictUtils
      */
     public static String getDictValue(String dictType, String dictLabel, String separator)
     {
-        StringBuilder propertyString = new StringBuilder();
-        List<SysDictData> datas = getDictCache(dictType);
-        if (StringUtils.isNull(datas))
-        {
-            return StringUtils.EMPTY;
-        }
-        if (StringUtils.containsAny(separator, dictLabel))
-        {
-            for (SysDictData dict : datas)
-            {
-                for (String label : dictLabel.split(separator))
-                {
-                    if (label.equals(dict.getDictLabel()))
-                    {
-                        propertyString.append(dict.getDictValue()).append(separator);
-                        break;
-                    }
-                }
-            }
-        }
-        else
-        {
-            for (SysDictData dict : datas)
-            {
-                if (dictLabel.equals(dict.getDictLabel()))
-                {
-                    return dict.getDictValue();
-                }
-            }
-        }
-        return StringUtils.stripEnd(propertyString.toString(), separator);
+        return getDictIndex(dictType).getValue(dictLabel, separator);
     }
 
     /**
@@ -173,17 +140,7 @@ public class DictUtils
      */
     public static String getDictValues(String dictType)
     {
-        StringBuilder propertyString = new StringBuilder();
-        List<SysDictData> datas = getDictCache(dictType);
-        if (StringUtils.isNull(datas))
-        {
-            return StringUtils.EMPTY;
-        }
-        for (SysDictData dict : datas)
-        {
-            propertyString.append(dict.getDictValue()).append(SEPARATOR);
-        }
-        return StringUtils.stripEnd(propertyString.toString(), SEPARATOR);
+        return getDictIndex(dictType).getValues();
     }
 
     /**
@@ -194,17 +151,7 @@ public class DictUtils
      */
     public static String getDictLabels(String dictType)
     {
-        StringBuilder propertyString = new StringBuilder();
-        List<SysDictData> datas = getDictCache(dictType);
-        if (StringUtils.isNull(datas))
-        {
-            return StringUtils.EMPTY;
-        }
-        for (SysDictData dict : datas)
-        {
-            propertyString.append(dict.getDictLabel()).append(SEPARATOR);
-        }
-        return StringUtils.stripEnd(propertyString.toString(), SEPARATOR);
+        return getDictIndex(dictType).getLabels();
     }
 
     /**
@@ -215,6 +162,7 @@ public class DictUtils
     public static void removeDictCache(String key)
     {
         SpringUtils.getBean(RedisCache.class).deleteObject(getCacheKey(key));
+        updateDictVersion();
     }
 
     /**
@@ -224,6 +172,54 @@ public class DictUtils
     {
         Collection<String> keys = SpringUtils.getBean(RedisCache.class).keys(CacheConstants.SYS_DICT_KEY + "*");
         SpringUtils.getBean(RedisCache.class).deleteObject(keys);
+        updateDictVersion();
+    }
+
+    /**
+     * 更新字典版本，各节点的本地字典索引随之失效
+     */
+    public static void updateDictVersion()
+    {
+        // 每次取新值，版本键被删除后重新写入也不会与旧版本相同
+        String newVersion = IdUtils.fastSimpleUUID();
+        SpringUtils.getBean(RedisCache.class).setCacheObject(CacheConstants.SYS_DICT_VERSION_KEY, newVersion);
+        version = newVersion;
+        versionCheckedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 获取字典类型的本地索引，字典版本变化后重建
+     * 
+     * @param dictType 字典类型
+     * @return 字典索引
+     */
+    private static DictIndex getDictIndex(String dictType)
+    {
+        // 先取版本再读数据，读数据期间版本变化时下次访问会重建
+        String current = getDictVersion();
+        DictIndex index = INDEXES.get(dictType);
+        if (index == null || !StringUtils.equals(index.getVersion(), current))
+        {
+            index = new DictIndex(current, getDictCache(dictType));
+            INDEXES.put(dictType, index);
+        }
+        return index;
+    }
+
+    /**
+     * 获取Redis中的字典版本，检查间隔内使用上次读到的版本
+     * 
+     * @return 字典版本
+     */
+    private static String getDictVersion()
+    {
+        long now = System.currentTimeMillis();
+        if (now - versionCheckedAt >= VERSION_CHECK_INTERVAL)
+        {
+            version = SpringUtils.getBean(RedisCache.class).getCacheObject(CacheConstants.SYS_DICT_VERSION_KEY);
+            versionCheckedAt = now;
+        }
+        return version;
     }
 
     /**
@@ -18,6 +18,7 @@ import java.util.Collection;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -488,12 +489,7 @@ public class ExcelUtil<T>
                         }
                         else if (StringUtils.isNotEmpty(attr.dictType()))
                         {
-                            if (!sysDictMap.containsKey(attr.dictType() + val))
-                            {
-                                String dictValue = reverseDictByExp(Convert.toStr(val), attr.dictType(), attr.separator());
-                                sysDictMap.put(attr.dictType() + val, dictValue);
-                            }
-                            val = sysDictMap.get(attr.dictType() + val);
+                            val = reverseDictByExp(Convert.toStr(val), attr.dictType(), attr.separator());
                         }
                         else if (!attr.handler().equals(ExcelHandlerAdapter.class))
                         {
@@ -576,6 +572,52 @@ public class ExcelUtil<T>
         exportExcel(response);
     }
 
+    /**
+     * 对迭代器数据源逐条读取并导入到excel表单（数据量大或总数未知时使用，内存中只保留写入窗口内的行）
+     * 
+     * @param response 返回数据
+     * @param iterator 导出数据迭代器
+     * @param sheetName 工作表的名称
+     * @param title 标题
+     */
+    public void exportExcel(HttpServletResponse response, Iterator<T> iterator, String sheetName, String title)
+    {
+        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        response.setCharacterEncoding("utf-8");
+        try
+        {
+            exportExcel(response.getOutputStream(), iterator, sheetName, title);
+        }
+        catch (Exception e)
+        {
+            log.error("导出Excel异常{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 对迭代器数据源逐条读取并写入输出流（如写入文件），异常时抛出
+     * 
+     * @param out 输出流（不关闭）
+     * @param iterator 导出数据迭代器
+     * @param sheetName 工作表的名称
+     * @param title 标题
+     */
+    public void exportExcel(OutputStream out, Iterator<T> iterator, String sheetName, String title) throws IOException
+    {
+        this.init(null, sheetName, title, Type.EXPORT);
+        try
+        {
+            writeSheet(iterator);
+            wb.write(out);
+        }
+        finally
+        {
+            // 删除写入窗口外的行落盘产生的临时文件
+            ((SXSSFWorkbook) wb).dispose();
+            IOUtils.closeQuietly(wb);
+        }
+    }
+
     /**
      * 对list数据源将其里面的数据导入到excel表单
      * 
@@ -688,32 +730,65 @@ public class ExcelUtil<T>
             createSheet(sheetNo, index);
 
             // 产生一行
-            Row row = sheet.createRow(rownum);
-            int column = 0;
-            // 写入各个字段的列头名称
-            for (Object[] os : fields)
+            Row row = createHeadRow();
+            if (Type.EXPORT.equals(type))
             {
-                Field field = (Field) os[0];
-                Excel excel = (Excel) os[1];
-                if (Collection.class.isAssignableFrom(field.getType()))
-                {
-                    for (Field subField : subFields)
-                    {
-                        Excel subExcel = subField.getAnnotation(Excel.class);
-                        this.createHeadCell(subExcel, row, column++);
-                    }
-                }
-                else
+                fillExcelData(index, row);
+                addStatisticsRow();
+            }
+        }
+    }
+
+    /**
+     * 逐条读取迭代器数据写入Sheet，超过sheetSize时自动新建Sheet
+     * 
+     * @param iterator 导出数据迭代器
+     */
+    public void writeSheet(Iterator<T> iterator)
+    {
+        int index = 0;
+        do
+        {
+            createSheet(Integer.MAX_VALUE, index++);
+            createHeadRow();
+            int currentRowNum = rownum + 1;
+            int endRowNum = currentRowNum + sheetSize;
+            while (currentRowNum < endRowNum && iterator.hasNext())
+            {
+                currentRowNum += fillRow(iterator.next(), currentRowNum);
+            }
+            addStatisticsRow();
+        }
+        while (iterator.hasNext());
+    }
+
+    /**
+     * 写入各个字段的列头名称
+     * 
+     * @return 列头行
+     */
+    private Row createHeadRow()
+    {
+        Row row = sheet.createRow(rownum);
+        int column = 0;
+        for (Object[] os : fields)
+        {
+            Field field = (Field) os[0];
+            Excel excel = (Excel) os[1];
+            if (Collection.class.isAssignableFrom(field.getType()))
+            {
+                for (Field subField : subFields)
                 {
-                    this.createHeadCell(excel, row, column++);
+                    Excel subExcel = subField.getAnnotation(Excel.class);
+                    this.createHeadCell(subExcel, row, column++);
                 }
             }
-            if (Type.EXPORT.equals(type))
+            else
             {
-                fillExcelData(index, row);
-                addStatisticsRow();
+                this.createHeadCell(excel, row, column++);
             }
         }
+        return row;
     }
 
     /**
@@ -731,59 +806,71 @@ public class ExcelUtil<T>
 
         for (int i = startNo; i < endNo; i++)
         {
-            row = sheet.createRow(currentRowNum);
-            T vo = (T) list.get(i);
-            int column = 0;
-            int maxSubListSize = getCurrentMaxSubListSize(vo);
-            for (Object[] os : fields)
+            currentRowNum += fillRow((T) list.get(i), currentRowNum);
+        }
+    }
+
+    /**
+     * 填充一条数据
+     * 
+     * @param vo 数据对象
+     * @param currentRowNum 起始行号
+     * @return 占用的行数
+     */
+    @SuppressWarnings("unchecked")
+    private int fillRow(T vo, int currentRowNum)
+    {
+        Row row = sheet.createRow(currentRowNum);
+        int column = 0;
+        int maxSubListSize = getCurrentMaxSubListSize(vo);
+        for (Object[] os : fields)
+        {
+            Field field = (Field) os[0];
+            Excel excel = (Excel) os[1];
+            if (Collection.class.isAssignableFrom(field.getType()))
             {
-                Field field = (Field) os[0];
-                Excel excel = (Excel) os[1];
-                if (Collection.class.isAssignableFrom(field.getType()))
+                try
                 {
-                    try
+                    Collection<?> subList = (Collection<?>) getTargetValue(vo, field, excel);
+                    if (subList != null && !subList.isEmpty())
                     {
-                        Collection<?> subList = (Collection<?>) getTargetValue(vo, field, excel);
-                        if (subList != null && !subList.isEmpty())
+                        int subIndex = 0;
+                        for (Object subVo : subList)
                         {
-                            int subIndex = 0;
-                            for (Object subVo : subList)
+                            Row subRow = sheet.getRow(currentRowNum + subIndex);
+                            if (subRow == null)
                             {
-                                Row subRow = sheet.getRow(currentRowNum + subIndex);
-                                if (subRow == null)
-                                {
-                                    subRow = sheet.createRow(currentRowNum + subIndex);
-                                }
-
-                                int subColumn = column;
-                                for (Field subField : subFields)
-                                {
-                                    Excel subExcel = subField.getAnnotation(Excel.class);
-                                    addCell(subExcel, subRow, (T) subVo, subField, subColumn++);
-                                }
-                                subIndex++;
+                                subRow = sheet.createRow(currentRowNum + subIndex);
                             }
-                            column += subFields.size();
+
+                            int subColumn = column;
+                            for (Field subField : subFields)
+                            {
+                                Excel subExcel = subField.getAnnotation(Excel.class);
+                                addCell(subExcel, subRow, (T) subVo, subField, subColumn++);
+                            }
+                            subIndex++;
                         }
-                    }
-                    catch (Exception e)
-                    {
-                        log.error("填充集合数据失败", e);
+                        column += subFields.size();
                     }
                 }
-                else
+                catch (Exception e)
                 {
-                    // 创建单元格并设置值
-                    addCell(excel, row, vo, field, column);
-                    if (maxSubListSize > 1 && excel.needMerge())
-                    {
-                        sheet.addMergedRegion(new CellRangeAddress(currentRowNum, currentRowNum + maxSubListSize - 1, column, column));
-                    }
-                    column++;
+                    log.error("填充集合数据失败", e);
                 }
             }
-            currentRowNum += maxSubListSize;
+            else
+            {
+                // 创建单元格并设置值
+                addCell(excel, row, vo, field, column);
+                if (maxSubListSize > 1 && excel.needMerge())
+                {
+                    sheet.addMergedRegion(new CellRangeAddress(currentRowNum, currentRowNum + maxSubListSize - 1, column, column));
+                }
+                column++;
+            }
         }
+        return maxSubListSize;
     }
 
     /**
@@ -1157,12 +1244,8 @@ public class ExcelUtil<T>
                 }
                 else if (StringUtils.isNotEmpty(dictType) && StringUtils.isNotNull(value))
                 {
-                    if (!sysDictMap.containsKey(dictType + value))
-                    {
-                        String lable = convertDictByExp(Convert.toStr(value), dictType, separator);
-                        sysDictMap.put(dictType + value, lable);
-                    }
-                    cell.setCellValue(sysDictMap.get(dictType + value));
+                    // 字典翻译使用本地字典索引，不再逐单元格拼接缓存键
+                    cell.setCellValue(convertDictByExp(Convert.toStr(value), dictType, separator));
                 }
                 else if (value instanceof BigDecimal && -1 != attr.scale())
                 {
@@ -0,0 +1,295 @@
+package com.ruoyi.framework.web.service;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import com.ruoyi.common.constant.CacheConstants;
+import com.ruoyi.common.core.domain.entity.SysUser;
+import com.ruoyi.common.core.domain.model.LoginUser;
+import com.ruoyi.common.utils.StringUtils;
+import com.ruoyi.common.utils.bean.BeanUtils;
+import com.ruoyi.common.utils.uuid.IdUtils;
+
+/**
+ * 登录用户本地缓存（Redis之前的一级缓存）
+ *
+ * 按令牌uuid缓存从Redis读出的登录用户，命中时省去Redis读取和反序列化。条目的有效期为token.localCacheTtl秒，
+ * 且不超过登录用户本身的过期时间；超出token.localCacheSize时先清理过期条目，仍超出则任意淘汰。
+ * 退出登录、强退和刷新用户信息（含权限变更后的setLoginUser）时删除本地条目，并通过Redis发布失效通知，
+ * 其他节点收到后删除各自的条目（未启用本地缓存的节点也发布通知，各节点配置不同时仍能失效）；
+ * 通知丢失（如订阅断开）时，其他节点最多在有效期内读到旧数据。
+ * 缓存的是登录用户的副本，每次命中再返回一份副本（含用户信息和权限集合），请求中修改登录用户不会影响缓存和其他请求。
+ *
+ * @author ruoyi
+ */
+@Component
+public class LoginUserCache implements MessageListener
+{
+    private static final Logger log = LoggerFactory.getLogger(LoginUserCache.class);
+
+    /** 清空所有条目的通知内容 */
+    private static final String ALL = "*";
+
+    /** 本地缓存有效期（秒），0表示不使用本地缓存 */
+    @Value("${token.localCacheTtl:60}")
+    private int ttl;
+
+    /** 本地缓存最大条目数 */
+    @Value("${token.localCacheSize:10000}")
+    private int maxSize;
+
+    @Autowired
+    private RedisTemplate<Object, Object> redisTemplate;
+
+    @Autowired(required = false)
+    private RedisMessageListenerContainer listenerContainer;
+
+    /** 本节点标识，忽略自己发出的通知 */
+    private final String nodeId = IdUtils.fastSimpleUUID();
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /** 失效次数，读Redis期间发生失效时不回填 */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder invalidations = new LongAdder();
+
+    @PostConstruct
+    public void init()
+    {
+        if (listenerContainer != null)
+        {
+            listenerContainer.addMessageListener(this, new ChannelTopic(CacheConstants.LOGIN_TOKEN_INVALIDATE_CHANNEL));
+        }
+        else if (ttl > 0)
+        {
+            log.warn("未配置Redis消息监听容器，登录用户本地缓存只在有效期后失效");
+        }
+    }
+
+    /**
+     * 是否启用本地缓存
+     */
+    public boolean isEnabled()
+    {
+        return ttl > 0;
+    }
+
+    /**
+     * 当前的失效次数，与{@link #put}配合使用：读Redis之前取得，回填时传入
+     */
+    public long generation()
+    {
+        return generation.get();
+    }
+
+    /**
+     * 获取登录用户
+     *
+     * @param uuid 令牌uuid
+     * @return 登录用户的副本，未缓存或已过期时返回null
+     */
+    public LoginUser get(String uuid)
+    {
+        if (!isEnabled())
+        {
+            return null;
+        }
+        Entry entry = entries.get(uuid);
+        if (entry != null && entry.expireAt > System.currentTimeMillis())
+        {
+            hits.increment();
+            return copy(entry.user);
+        }
+        if (entry != null)
+        {
+            entries.remove(uuid, entry);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * 缓存从Redis读出的登录用户
+     *
+     * @param uuid 令牌uuid
+     * @param user 登录用户
+     * @param generation 读Redis之前的失效次数，之后又发生过失效时不缓存
+     */
+    public void put(String uuid, LoginUser user, long generation)
+    {
+        if (!isEnabled() || user == null)
+        {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long expireAt = now + ttl * 1000L;
+        if (user.getExpireTime() != null)
+        {
+            expireAt = Math.min(expireAt, user.getExpireTime());
+        }
+        if (expireAt <= now)
+        {
+            return;
+        }
+        if (entries.size() >= maxSize)
+        {
+            evict(now);
+        }
+        entries.put(uuid, new Entry(copy(user), expireAt));
+        if (this.generation.get() != generation)
+        {
+            // 读Redis期间收到失效通知，读到的可能是旧数据
+            entries.remove(uuid);
+        }
+    }
+
+    /**
+     * 删除登录用户的本地缓存，并通知其他节点
+     *
+     * @param uuid 令牌uuid
+     */
+    public void invalidate(String uuid)
+    {
+        if (StringUtils.isEmpty(uuid))
+        {
+            return;
+        }
+        evictLocal(uuid);
+        publish(uuid);
+    }
+
+    /**
+     * 删除所有登录用户的本地缓存，并通知其他节点
+     */
+    public void invalidateAll()
+    {
+        evictLocal(ALL);
+        publish(ALL);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern)
+    {
+        Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        String text = body != null ? body.toString() : "";
+        int split = text.indexOf(':');
+        if (split <= 0 || nodeId.equals(text.substring(0, split)))
+        {
+            return;
+        }
+        evictLocal(text.substring(split + 1));
+    }
+
+    /**
+     * 缓存统计
+     */
+    public Map<String, Object> getStats()
+    {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("size", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("ttlSeconds", ttl);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+
+    private void evictLocal(String uuid)
+    {
+        generation.incrementAndGet();
+        invalidations.increment();
+        if (ALL.equals(uuid))
+        {
+            entries.clear();
+        }
+        else
+        {
+            entries.remove(uuid);
+        }
+    }
+
+    private void publish(String uuid)
+    {
+        try
+        {
+            redisTemplate.convertAndSend(CacheConstants.LOGIN_TOKEN_INVALIDATE_CHANNEL, nodeId + ":" + uuid);
+        }
+        catch (Exception e)
+        {
+            log.warn("发布登录用户缓存失效通知失败 {}: {}", uuid, e.getMessage());
+        }
+    }
+
+    /**
+     * 复制登录用户，用户信息和权限集合一并复制
+     */
+    private static LoginUser copy(LoginUser source)
+    {
+        SysUser user = null;
+        if (source.getUser() != null)
+        {
+            user = new SysUser();
+            BeanUtils.copyProperties(source.getUser(), user);
+        }
+        LoginUser target = new LoginUser(source.getUserId(), source.getDeptId(), user,
+                source.getPermissions() != null ? new HashSet<>(source.getPermissions()) : null);
+        target.setToken(source.getToken());
+        target.setLoginTime(source.getLoginTime());
+        target.setExpireTime(source.getExpireTime());
+        target.setIpaddr(source.getIpaddr());
+        target.setLoginLocation(source.getLoginLocation());
+        target.setBrowser(source.getBrowser());
+        target.setOs(source.getOs());
+        return target;
+    }
+
+    /**
+     * 清理过期条目，仍超出容量时任意淘汰，腾出十分之一的空间
+     */
+    private void evict(long now)
+    {
+        entries.values().removeIf(entry -> entry.expireAt <= now);
+        int target = maxSize - Math.max(1, maxSize / 10);
+        for (Iterator<String> it = entries.keySet().iterator(); it.hasNext() && entries.size() > target;)
+        {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static class Entry
+    {
+        private final LoginUser user;
+
+        /** 过期时刻（毫秒） */
+        private final long expireAt;
+
+        private Entry(LoginUser user, long expireAt)
+        {
+            this.user = user;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.ruoyi.framework.web.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.ruoyi.common.constant.Constants;
+import com.ruoyi.common.utils.StringUtils;
+import io.jsonwebtoken.Claims;
+
+/**
+ * 已验签令牌的数据声明缓存
+ *
+ * 令牌验签（HS512）和解析只在首次出现时进行，之后按令牌的SHA-256摘要取出数据声明。只缓存验签通过的令牌，
+ * 伪造的令牌每次都完整验签，不会占用缓存；命中后再以恒定时间比较完整令牌，摘要碰撞或逐字节猜测都无法取得
+ * 他人的声明，也无法通过响应时间推测已缓存的令牌。条目有效期为token.claimsCacheTtl秒，
+ * 超出token.claimsCacheSize时先清理过期条目，仍超出则任意淘汰。
+ * 退出登录和强退时按uuid删除条目，其他节点在下次查不到登录用户时删除；数据声明只用于定位Redis中的登录用户，
+ * 登录用户删除后令牌即无法通过认证，缓存不会延长令牌的有效性。返回的数据声明由并发请求共享，调用方不得修改。
+ *
+ * @author ruoyi
+ */
+@Component
+public class TokenClaimsCache
+{
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    /** 缓存有效期（秒），0表示不使用缓存 */
+    @Value("${token.claimsCacheTtl:600}")
+    private int ttl;
+
+    /** 缓存最大条目数 */
+    @Value("${token.claimsCacheSize:10000}")
+    private int maxSize;
+
+    private final Map<ByteBuffer, Entry> entries = new ConcurrentHashMap<>();
+
+    /** 同一时间只由一个线程清理，其余线程照常写入 */
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * 是否启用缓存
+     */
+    public boolean isEnabled()
+    {
+        return ttl > 0;
+    }
+
+    /**
+     * 获取令牌的数据声明
+     *
+     * @param token 令牌
+     * @return 数据声明，未缓存或已过期时返回null
+     */
+    public Claims get(String token)
+    {
+        if (!isEnabled())
+        {
+            return null;
+        }
+        byte[] bytes = token.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer key = digest(bytes);
+        Entry entry = entries.get(key);
+        if (entry != null && MessageDigest.isEqual(entry.token, bytes))
+        {
+            if (entry.expireAt > System.currentTimeMillis())
+            {
+                hits.increment();
+                return entry.claims;
+            }
+            entries.remove(key, entry);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * 缓存验签通过的令牌
+     *
+     * @param token 令牌
+     * @param claims 验签后的数据声明
+     */
+    public void put(String token, Claims claims)
+    {
+        if (!isEnabled() || claims == null)
+        {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (entries.size() >= maxSize)
+        {
+            evict(now);
+        }
+        byte[] bytes = token.getBytes(StandardCharsets.UTF_8);
+        entries.put(digest(bytes), new Entry(bytes, claims, now + ttl * 1000L));
+    }
+
+    /**
+     * 删除令牌的条目（登录用户已不存在时）
+     *
+     * @param token 令牌
+     */
+    public void remove(String token)
+    {
+        if (StringUtils.isEmpty(token) || entries.isEmpty())
+        {
+            return;
+        }
+        entries.remove(digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 删除令牌uuid对应的条目（退出登录、强退）
+     *
+     * @param uuid 令牌uuid
+     */
+    public void invalidate(String uuid)
+    {
+        if (StringUtils.isEmpty(uuid) || entries.isEmpty())
+        {
+            return;
+        }
+        entries.values().removeIf(entry -> uuid.equals(entry.claims.get(Constants.LOGIN_USER_KEY)));
+    }
+
+    /**
+     * 删除所有条目
+     */
+    public void invalidateAll()
+    {
+        entries.clear();
+    }
+
+    /**
+     * 缓存统计
+     */
+    public Map<String, Object> getStats()
+    {
+        long hit = hits.sum();
+        long miss = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("size", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("ttlSeconds", ttl);
+        stats.put("hits", hit);
+        stats.put("misses", miss);
+        stats.put("hitRate", hit + miss > 0 ? (double) hit / (hit + miss) : 0);
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    private static ByteBuffer digest(byte[] token)
+    {
+        return ByteBuffer.wrap(SHA256.get().digest(token));
+    }
+
+    /**
+     * 清理过期条目，仍超出容量时任意淘汰，腾出十分之一的空间
+     */
+    private void evict(long now)
+    {
+        if (!evicting.compareAndSet(false, true))
+        {
+            return;
+        }
+        try
+        {
+            int before = entries.size();
+            entries.values().removeIf(entry -> entry.expireAt <= now);
+            int target = maxSize - Math.max(1, maxSize / 10);
+            for (Iterator<ByteBuffer> it = entries.keySet().iterator(); it.hasNext() && entries.size() > target;)
+            {
+                it.next();
+                it.remove();
+            }
+            evictions.add(Math.max(0, before - entries.size()));
+        }
+        finally
+        {
+            evicting.set(false);
+        }
+    }
+
+    private static class Entry
+    {
+        /** 完整令牌，命中时恒定时间比较 */
+        private final byte[] token;
+
+        private final Claims claims;
+
+        /** 过期时刻（毫秒） */
+        private final long expireAt;
+
+        private Entry(byte[] token, Claims claims, long expireAt)
+        {
+            this.token = token;
+            this.claims = claims;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -54,6 +54,12 @@ public class TokenService
     @Autowired
     private RedisCache redisCache;
 
+    @Autowired
+    private LoginUserCache loginUserCache;
+
+    @Autowired
+    private TokenClaimsCache tokenClaimsCache;
+
     /**
      * 获取用户身份信息
      * 
@@ -70,8 +76,20 @@ public class TokenService
                 Claims claims = parseToken(token);
                 // 解析对应的权限以及用户信息
                 String uuid = (String) claims.get(Constants.LOGIN_USER_KEY);
-                String userKey = getTokenKey(uuid);
-                LoginUser user = redisCache.getCacheObject(userKey);
+                // 先查本地缓存，未命中再读Redis
+                LoginUser user = loginUserCache.get(uuid);
+                if (user == null)
+                {
+                    long generation = loginUserCache.generation();
+                    String userKey = getTokenKey(uuid);
+                    user = redisCache.getCacheObject(userKey);
+                    loginUserCache.put(uuid, user, generation);
+                }
+                if (user == null)
+                {
+                    // 已退出或过期的令牌不保留验签结果
+                    tokenClaimsCache.remove(token);
+                }
                 return user;
             }
             catch (Exception e)
@@ -102,6 +120,8 @@ public class TokenService
         {
             String userKey = getTokenKey(token);
             redisCache.deleteObject(userKey);
+            loginUserCache.invalidate(token);
+            tokenClaimsCache.invalidate(token);
         }
     }
 
@@ -152,6 +172,9 @@ public class TokenService
         // 根据uuid将loginUser缓存
         String userKey = getTokenKey(loginUser.getToken());
         redisCache.setCacheObject(userKey, loginUser, expireTime, TimeUnit.MINUTES);
+        // 其他节点的本地缓存失效，本节点直接缓存新的用户信息
+        loginUserCache.invalidate(loginUser.getToken());
+        loginUserCache.put(loginUser.getToken(), loginUser, loginUserCache.generation());
     }
 
     /**
@@ -191,10 +214,17 @@ public class TokenService
      */
     private Claims parseToken(String token)
     {
-        return Jwts.parser()
-                .setSigningKey(secret)
-                .parseClaimsJws(token)
-                .getBody();
+        // 已验签的令牌直接取缓存的数据声明
+        Claims claims = tokenClaimsCache.get(token);
+        if (claims == null)
+        {
+            claims = Jwts.parser()
+                    .setSigningKey(secret)
+                    .parseClaimsJws(token)
+                    .getBody();
+            tokenClaimsCache.put(token, claims);
+        }
+        return claims;
     }
 
     /**
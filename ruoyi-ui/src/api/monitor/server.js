@@ -6,4 +6,12 @@ export function getServer() {
     url: '/monitor/server',
     method: 'get'
   })
-}
\ No newline at end of file
+}
+
+// 获取分析任务各阶段耗时
+export function getLatency() {
+  return request({
+    url: '/monitor/server/latency',
+    method: 'get'
+  })
+}
@@ -17,6 +17,56 @@
 SET NAMES utf8mb4;
 SET FOREIGN_KEY_CHECKS = 0;
 
+-- ----------------------------
+-- Table structure for app_analysis_task
+-- ----------------------------
+DROP TABLE IF EXISTS `app_analysis_task`;
+CREATE TABLE `app_analysis_task`  (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '队列记录ID',
+  `task_id` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '任务编号',
+  `task_name` varchar(200) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT '' COMMENT '任务名称',
+  `task_type` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL DEFAULT 'dynamic' COMMENT '任务类型（dynamic动态分析 frida隐私检测 batch批量分析）',
+  `priority` int NULL DEFAULT 5 COMMENT '优先级（0-9，数值越大越优先）',
+  `status` char(1) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT '0' COMMENT '状态（0排队中 1执行中 2已完成 3失败 4已取消）',
+  `worker` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT '' COMMENT '执行节点（模拟器容器）',
+  `apk_path` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT '' COMMENT 'APK路径',
+  `run_params` text CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL COMMENT '运行参数（JSON）',
+  `queue_time` datetime NULL DEFAULT NULL COMMENT '入队时间',
+  `start_time` datetime NULL DEFAULT NULL COMMENT '开始执行时间',
+  `end_time` datetime NULL DEFAULT NULL COMMENT '结束时间',
+  `error_msg` varchar(2000) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT '' COMMENT '错误信息',
+  `create_by` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT '' COMMENT '创建者',
+  `create_time` datetime NULL DEFAULT NULL COMMENT '创建时间',
+  `update_by` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT '' COMMENT '更新者',
+  `update_time` datetime NULL DEFAULT NULL COMMENT '更新时间',
+  `remark` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '备注',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_task_id_type`(`task_id` ASC, `task_type` ASC) USING BTREE,
+  INDEX `idx_status_priority`(`status` ASC, `priority` ASC) USING BTREE,
+  INDEX `idx_apk_path`(`apk_path` ASC) USING BTREE
+) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci COMMENT = '分析任务队列表' ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Table structure for app_apk_file
+-- ----------------------------
+DROP TABLE IF EXISTS `app_apk_file`;
+CREATE TABLE `app_apk_file`  (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '文件ID',
+  `sha256` char(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '文件内容SHA-256',
+  `file_name` varchar(200) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT '' COMMENT '远程文件名',
+  `file_path` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT '' COMMENT '远程文件路径',
+  `original_filename` varchar(200) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT '' COMMENT '首次上传时的原始文件名',
+  `file_size` bigint NULL DEFAULT 0 COMMENT '文件大小（字节）',
+  `hit_count` int NULL DEFAULT 0 COMMENT '重复上传次数',
+  `last_hit_time` datetime NULL DEFAULT NULL COMMENT '最近一次重复上传时间',
+  `create_by` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT '' COMMENT '创建者',
+  `create_time` datetime NULL DEFAULT NULL COMMENT '创建时间',
+  `update_time` datetime NULL DEFAULT NULL COMMENT '更新时间',
+  `remark` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '备注',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_sha256`(`sha256` ASC) USING BTREE
+) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci COMMENT = '应用文件内容索引表' ROW_FORMAT = Dynamic;
+
 -- ----------------------------
 -- Table structure for gen_table
 -- ----------------------------
@@ -339,6 +389,14 @@ INSERT INTO `sys_config` VALUES (5, '账号自助-是否开启用户注册功能
 INSERT INTO `sys_config` VALUES (6, '用户登录-黑名单列表', 'sys.login.blackIPList', '', 'Y', 'admin', '2025-09-30 12:03:46', '', NULL, '设置登录IP黑名单限制，多个匹配项以;分隔，支持匹配（*通配、网段）');
 INSERT INTO `sys_config` VALUES (7, '用户管理-初始密码修改策略', 'sys.account.initPasswordModify', '1', 'Y', 'admin', '2025-09-30 12:03:46', '', NULL, '0：初始密码修改策略关闭，没有任何提示，1：提醒用户，如果未修改初始密码，则在登录时就会提醒修改密码对话框');
 INSERT INTO `sys_config` VALUES (8, '用户管理-账号密码更新周期', 'sys.account.passwordValidateDays', '0', 'Y', 'admin', '2025-09-30 12:03:46', '', NULL, '密码更新周期（填写数字，数据初始化值为0不限制，若修改必须为大于0小于365的正整数），如果超过这个周期登录系统时，则在登录时就会提醒修改密码对话框');
+INSERT INTO `sys_config` VALUES (9, '动态分析-重要日志关键字', 'app.log.keywords.important', '✅,❌,⚠️,🔍,📊,🎯,💡,🚀,📱,🖥️,🔗,SUCCESS,ERROR,WARN,INFO,Hook脚本加载成功,监控中,检测完成,应用已启动,已附加到进程,Hook初始化完成,隐私数据收集进度,步骤,启动,安装,配置,完成,失败,成功', 'Y', 'admin', '2025-09-30 12:03:46', '', NULL, '始终推送到前端的日志关键字，多个以英文逗号分隔');
+INSERT INTO `sys_config` VALUES (10, '动态分析-过滤日志关键字', 'app.log.keywords.skip', '调用堆栈：,android.app.,com.android.,java.lang.,Native Method,Handler.java,Looper.java,ApplicationPackageManager,com.mob.tools,com.mob.commons', 'Y', 'admin', '2025-09-30 12:03:46', '', NULL, '不推送到前端的调试信息关键字，多个以英文逗号分隔');
+INSERT INTO `sys_config` VALUES (11, '动态分析-行为日志关键字', 'app.log.keywords.event', 'APP行为：,行为主体：', 'Y', 'admin', '2025-09-30 12:03:46', '', NULL, '隐私行为告警行的关键字，多个以英文逗号分隔');
+INSERT INTO `sys_config` VALUES (12, 'Frida检测-重要日志关键字', 'app.log.keywords.fridaImportant', '[ERROR],[SUCCESS],APP行为：,隐私,权限,✅,❌,⚠️,━━━,Frida,Hook,检测', 'Y', 'admin', '2025-09-30 12:03:46', '', NULL, 'Frida检测中不受限流的重要日志关键字，多个以英文逗号分隔');
+INSERT INTO `sys_config` VALUES (13, '分析日志-错误级别关键字', 'app.log.keywords.error', '[ERROR],❌', 'Y', 'admin', '2025-09-30 12:03:46', '', NULL, '命中后以错误级别显示，多个以英文逗号分隔');
+INSERT INTO `sys_config` VALUES (14, '分析日志-警告级别关键字', 'app.log.keywords.warn', '[WARN],⚠️', 'Y', 'admin', '2025-09-30 12:03:46', '', NULL, '命中后以警告级别显示，多个以英文逗号分隔');
+INSERT INTO `sys_config` VALUES (15, '分析日志-成功级别关键字', 'app.log.keywords.success', '[SUCCESS],✅', 'Y', 'admin', '2025-09-30 12:03:46', '', NULL, '命中后以成功级别显示，多个以英文逗号分隔');
+INSERT INTO `sys_config` VALUES (16, '分析日志-告警级别关键字', 'app.log.keywords.alert', '[ALERT],APP行为：,隐私', 'Y', 'admin', '2025-09-30 12:03:46', '', NULL, '命中后以隐私告警级别显示，多个以英文逗号分隔');
 
 -- ----------------------------
 -- Table structure for sys_dept